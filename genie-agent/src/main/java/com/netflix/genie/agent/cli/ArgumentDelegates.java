@@ -19,6 +19,7 @@
 package com.netflix.genie.agent.cli;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.netflix.genie.agent.execution.services.FetchingCacheService;
 import com.netflix.genie.common.internal.dto.v4.Criterion;
 
 import java.io.File;
@@ -52,6 +53,14 @@ public interface ArgumentDelegates {
 
         File getCacheDirectory();
 
+        int getConcurrentDownloads();
+
+        FetchingCacheService.MaterializationStrategy getMaterializationStrategy();
+
+        long getCacheMaxSize();
+
+        long getCacheMaxAge();
+
     }
 
     /**
@@ -58,4 +58,26 @@ final class ArgumentValidators {
      */
     public static class PortValidator extends PositiveInteger {
     }
+
+    /**
+     * Validates a long parameter is zero or greater.
+     */
+    public static class NonNegativeLongValidator implements IParameterValidator {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void validate(final String name, final String value) throws ParameterException {
+            final long number;
+            try {
+                number = Long.parseLong(value);
+            } catch (final NumberFormatException e) {
+                throw new ParameterException(name + " is not a number: " + value);
+            }
+            if (number < 0) {
+                throw new ParameterException(name + " must not be negative: " + value);
+            }
+        }
+    }
 }
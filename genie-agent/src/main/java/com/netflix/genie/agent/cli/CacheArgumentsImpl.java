@@ -19,7 +19,9 @@
 package com.netflix.genie.agent.cli;
 
 import com.beust.jcommander.Parameter;
+import com.beust.jcommander.validators.PositiveInteger;
 import com.google.common.annotations.VisibleForTesting;
+import com.netflix.genie.agent.execution.services.FetchingCacheService;
 import lombok.Getter;
 import org.springframework.stereotype.Component;
 
@@ -45,4 +47,32 @@ class CacheArgumentsImpl implements ArgumentDelegates.CacheArguments {
         validateWith = ArgumentValidators.StringValidator.class
     )
     private File cacheDirectory = new File(DEFAULT_CACHE_PATH);
+
+    @Parameter(
+        names = {"--concurrentDownloads"},
+        description = "How many dependencies to download at once (1 downloads them one after another)",
+        validateWith = PositiveInteger.class
+    )
+    private int concurrentDownloads = 1;
+
+    @Parameter(
+        names = {"--materializationStrategy"},
+        description = "How to place cached dependencies in the job directory (COPY, HARD_LINK or REFLINK)"
+    )
+    private FetchingCacheService.MaterializationStrategy materializationStrategy
+        = FetchingCacheService.MaterializationStrategy.COPY;
+
+    @Parameter(
+        names = {"--cacheMaxSize"},
+        description = "Maximum size of the cache in bytes, least recently used dependencies are evicted (0: no limit)",
+        validateWith = ArgumentValidators.NonNegativeLongValidator.class
+    )
+    private long cacheMaxSize;
+
+    @Parameter(
+        names = {"--cacheMaxAge"},
+        description = "Evict dependencies not used for this many seconds (0: no limit)",
+        validateWith = ArgumentValidators.NonNegativeLongValidator.class
+    )
+    private long cacheMaxAge;
 }
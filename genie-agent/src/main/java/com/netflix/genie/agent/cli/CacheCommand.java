@@ -0,0 +1,129 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.agent.cli;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import com.beust.jcommander.ParametersDelegate;
+import com.netflix.genie.agent.execution.services.FetchingCacheService;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Command to report the usage of the dependencies cache and optionally prune it.
+ *
+ * @since 4.0.0
+ */
+@Slf4j
+@Component
+@Lazy
+class CacheCommand implements AgentCommand {
+
+    private final CacheCommandArguments cacheCommandArguments;
+    private final FetchingCacheService fetchingCacheService;
+
+    CacheCommand(
+        final CacheCommandArguments cacheCommandArguments,
+        final FetchingCacheService fetchingCacheService
+    ) {
+        this.cacheCommandArguments = cacheCommandArguments;
+        this.fetchingCacheService = fetchingCacheService;
+    }
+
+    @Override
+    public void run() {
+        final FetchingCacheService.CacheUsage usage;
+        try {
+            usage = fetchingCacheService.getUsage();
+        } catch (final IOException e) {
+            throw new RuntimeException("Failed to read cache", e);
+        }
+        System.out.println(describe("Cache usage", usage));
+
+        if (cacheCommandArguments.isPrune()) {
+            final FetchingCacheService.CacheUsage prunedUsage;
+            try {
+                prunedUsage = fetchingCacheService.prune();
+            } catch (final IOException e) {
+                throw new RuntimeException("Failed to prune cache", e);
+            }
+            System.out.println(describe("Cache usage after pruning", prunedUsage));
+        }
+    }
+
+    /**
+     * Format the cache usage for the console.
+     *
+     * @param title the heading
+     * @param usage the cache usage
+     * @return a multi-line description of the usage
+     */
+    static String describe(final String title, final FetchingCacheService.CacheUsage usage) {
+        return new StringBuilder()
+            .append(title)
+            .append(":")
+            .append(System.lineSeparator())
+            .append("  entries:")
+            .append(usage.getEntries())
+            .append(System.lineSeparator())
+            .append("  bytes:")
+            .append(usage.getBytes())
+            .append(System.lineSeparator())
+            .append("  lookups:")
+            .append(usage.getLookups())
+            .append(System.lineSeparator())
+            .append("  hit rate:")
+            .append(String.format("%.2f", usage.getHitRate()))
+            .append(System.lineSeparator())
+            .toString();
+    }
+
+    @Component
+    @Parameters(
+        commandNames = CommandNames.CACHE,
+        commandDescription = "Report the usage of the dependencies cache and optionally prune it"
+    )
+    static class CacheCommandArguments implements AgentCommandArguments {
+
+        @ParametersDelegate
+        @Getter
+        private final ArgumentDelegates.CacheArguments cacheArguments;
+
+        @Parameter(
+            names = {"--prune"},
+            description = "Evict dependencies to bring the cache within --cacheMaxSize and --cacheMaxAge"
+        )
+        @Getter
+        private boolean prune;
+
+        CacheCommandArguments(
+            final ArgumentDelegates.CacheArguments cacheArguments
+        ) {
+            this.cacheArguments = cacheArguments;
+        }
+
+        @Override
+        public Class<? extends AgentCommand> getConsumerClass() {
+            return CacheCommand.class;
+        }
+    }
+}
@@ -50,6 +50,8 @@ final class CommandNames {
 
     static final String HEARTBEAT = "heartbeat";
 
+    static final String CACHE = "cache";
+
     private static final Set<Field> COMMAND_NAMES_FIELDS;
 
     static {
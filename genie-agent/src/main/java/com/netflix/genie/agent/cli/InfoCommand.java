@@ -21,6 +21,7 @@ package com.netflix.genie.agent.cli;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
 import com.netflix.genie.agent.AgentMetadata;
+import com.netflix.genie.agent.execution.services.FetchingCacheService;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.config.BeanDefinition;
@@ -30,6 +31,7 @@ import org.springframework.core.env.PropertySource;
 import org.springframework.core.env.PropertySources;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.Set;
 
@@ -47,14 +49,17 @@ class InfoCommand implements AgentCommand {
     private final InfoCommandArguments infoCommandArguments;
     private final ConfigurableApplicationContext applicationContext;
     private final AgentMetadata agentMetadata;
+    private final FetchingCacheService fetchingCacheService;
 
     InfoCommand(
         final InfoCommandArguments infoCommandArguments,
         final ConfigurableApplicationContext applicationContext,
-        final AgentMetadata agentMetadata) {
+        final AgentMetadata agentMetadata,
+        final FetchingCacheService fetchingCacheService) {
         this.infoCommandArguments = infoCommandArguments;
         this.applicationContext = applicationContext;
         this.agentMetadata = agentMetadata;
+        this.fetchingCacheService = fetchingCacheService;
     }
 
     @Override
@@ -189,6 +194,19 @@ class InfoCommand implements AgentCommand {
             }
         }
 
+        if (infoCommandArguments.isIncludeCache()) {
+            try {
+                messageBuilder.append(CacheCommand.describe("Cache", fetchingCacheService.getUsage()));
+            } catch (final IOException e) {
+                log.warn("Unable to read cache usage", e);
+                messageBuilder
+                    .append("Cache: unavailable (")
+                    .append(e.getMessage())
+                    .append(")")
+                    .append(System.lineSeparator());
+            }
+        }
+
         System.out.println(messageBuilder.toString());
     }
 
@@ -202,6 +220,8 @@ class InfoCommand implements AgentCommand {
         private Boolean includeEnvironment = true;
         @Parameter(names = {"--properties"}, description = "Print properties")
         private boolean includeProperties = true;
+        @Parameter(names = {"--cache"}, description = "Print dependencies cache size and hit rate")
+        private boolean includeCache = true;
 
         @Override
         public Class<? extends AgentCommand> getConsumerClass() {
@@ -0,0 +1,44 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.agent.execution.services;
+
+import javax.validation.constraints.NotBlank;
+import java.io.File;
+
+/**
+ * Service that mirrors the content of the job directory to the Genie server node the agent is connected to while
+ * the job runs.
+ *
+ * @since 4.0.0
+ */
+public interface AgentFileSyncService {
+
+    /**
+     * Start watching the job directory and uploading its content.
+     *
+     * @param claimedJobId the job id claimed by this agent
+     * @param jobDirectory the job directory to sync
+     */
+    void start(@NotBlank String claimedJobId, File jobDirectory);
+
+    /**
+     * Upload any remaining data, wait (for a bounded amount of time) for it to be acknowledged, signal the server
+     * that the sync is complete and stop the service.
+     */
+    void stop();
+}
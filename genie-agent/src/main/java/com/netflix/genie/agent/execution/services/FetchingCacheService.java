@@ -19,6 +19,8 @@
 package com.netflix.genie.agent.execution.services;
 
 import com.netflix.genie.agent.execution.exceptions.DownloadException;
+import lombok.Getter;
+import lombok.ToString;
 import org.apache.commons.lang3.tuple.Pair;
 
 import java.io.File;
@@ -52,4 +54,80 @@ public interface FetchingCacheService {
      * @throws IOException       if downloading or copying the file to destination fails
      */
     void get(final Set<Pair<URI, File>> sourceDestinationPairs) throws DownloadException, IOException;
+
+    /**
+     * Get a summary of the resources currently in the cache.
+     *
+     * @return the cache usage
+     * @throws IOException if the cache can't be read
+     */
+    CacheUsage getUsage() throws IOException;
+
+    /**
+     * Evict the least recently used resources until the cache is within its configured maximum size, and any
+     * resource not used within the configured maximum age. Resources being used are never evicted.
+     *
+     * @return the cache usage after eviction
+     * @throws IOException if the cache can't be read
+     */
+    CacheUsage prune() throws IOException;
+
+    /**
+     * A summary of the resources in the cache. Lookup counts also cover resources which were since evicted or replaced
+     * by a newer version.
+     */
+    @Getter
+    @ToString
+    final class CacheUsage {
+        private final int entries;
+        private final long bytes;
+        private final long lookups;
+        private final long hits;
+
+        /**
+         * Constructor.
+         *
+         * @param entries the number of resource versions in the cache
+         * @param bytes   the total size of the cached data
+         * @param lookups the number of times the cached resource versions were requested
+         * @param hits    the number of lookups served without downloading
+         */
+        public CacheUsage(final int entries, final long bytes, final long lookups, final long hits) {
+            this.entries = entries;
+            this.bytes = bytes;
+            this.lookups = lookups;
+            this.hits = hits;
+        }
+
+        /**
+         * Get the fraction of lookups served without downloading.
+         *
+         * @return the hit rate, between 0 and 1 (0 if there were no lookups)
+         */
+        public double getHitRate() {
+            return this.lookups == 0 ? 0 : (double) this.hits / this.lookups;
+        }
+    }
+
+    /**
+     * How a cached resource is placed at its destination.
+     */
+    enum MaterializationStrategy {
+        /**
+         * Copy the cached data.
+         */
+        COPY,
+
+        /**
+         * Hard link the destination to the cached data, which is read-only, so the destination is read-only too. Falls
+         * back to {@link #REFLINK} if the destination is on a different file system or links aren't supported.
+         */
+        HARD_LINK,
+
+        /**
+         * Clone the cached data (copy on write) on file systems which support it. The clone is writable. Falls back to
+         * copying otherwise.
+         */
+        REFLINK
+    }
 }
@@ -19,13 +19,17 @@
 package com.netflix.genie.agent.execution.services.impl;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.genie.agent.cli.ArgumentDelegates;
 import com.netflix.genie.agent.execution.exceptions.DownloadException;
 import com.netflix.genie.agent.execution.exceptions.LockException;
 import com.netflix.genie.agent.execution.services.FetchingCacheService;
 import com.netflix.genie.agent.utils.locks.CloseableLock;
 import com.netflix.genie.agent.utils.locks.impl.FileLockFactory;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -38,15 +42,30 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.DigestUtils;
 import org.springframework.util.FileCopyUtils;
 import org.springframework.util.FileSystemUtils;
+import org.springframework.util.StreamUtils;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A cache on local disk that uses URIs as keys and transparently downloads
@@ -61,6 +80,29 @@ import java.util.Set;
  * <p>
  * Does NOT handle concurrency within the same agent (not an issue at the moment)
  * <p>
+ * Concurrent downloads
+ * When more than one concurrent download is configured a set of resources is fetched on a bounded pool. Each
+ * distinct URI is fetched once no matter how many destinations it has, its version is determined with a single
+ * metadata request, and a cache miss is streamed into a uniquely named temporary file without holding the lock. The
+ * lock is only taken to move the temporary file into place (unless another agent got there first) and to copy the
+ * data out to the destinations.
+ * <p>
+ * Materialization
+ * By default cached data is copied to its destinations. Alternatively it can be hard linked or reflinked (cloned on
+ * copy on write file systems), making the cost of placing a dependency independent of its size. The cached data is
+ * treated as immutable: it's made read-only for everyone as soon as it's moved into place, so hard linked destinations
+ * are read-only too, while reflinked and copied destinations are the job's own writable copy. Whenever a link can't be
+ * made (e.g. the destination is on another file system) the data is cloned or copied instead. Once cloning failed the
+ * cache doesn't try it again and copies straight away.
+ * <p>
+ * Eviction
+ * Every lookup rewrites the access record of the resource version (the number of lookups and hits), so its
+ * modification time is the last access time. When a maximum size or age is configured the cache is pruned in the
+ * background after lookups: entries not accessed within the maximum age are evicted, then the least recently used
+ * entries until the cache fits within the maximum size. Entries are evicted under their lock and only if they weren't
+ * accessed since the cache was listed. The lookups and hits of every resource version deleted, evicted or replaced by a
+ * newer version, are added to the access record of the cache itself so the hit rate of the cache survives eviction.
+ * <p>
  * Cache structure on local disk
  * Each resource has a hash to represent it. The version of the resource is the remote last modified
  * timestamp. For each resource and version, a lock file is created. Each process takes a lock on
@@ -70,6 +112,9 @@ import java.util.Set;
  * cache entries would like the following
  * {base_dir}/6d331abc92bc8244bc5d41e2107f303a/1525456404/data
  * {base_dir}/6d331abc92bc8244bc5d41e2107f303a/1525456404/lock
+ * {base_dir}/6d331abc92bc8244bc5d41e2107f303a/1525456404/access
+ * {base_dir}/access
+ * {base_dir}/lock
  * <p>
  * Deletion of older versions
  * Once a version is successfully downloaded, any older versions are deleted as a best effort
@@ -87,11 +132,23 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
     private static final String LOCK_FILE_NAME = "lock";
     private static final String DATA_FILE_NAME = "data";
     private static final String DATA_DOWNLOAD_FILE_NAME = "data.tmp";
+    private static final String ACCESS_FILE_NAME = "access";
     private static final String DUMMY_FILE_NAME = "_";
+    private static final String DOWNLOAD_THREAD_NAME_FORMAT = "genie-agent-download-%d";
+    // Concurrent fetches stream into their download files without the lock, so only abandoned ones are deleted
+    private static final long ABANDONED_DOWNLOAD_MILLIS = TimeUnit.HOURS.toMillis(1);
     private final ResourceLoader resourceLoader;
     private final File cacheDirectory;
     private final FileLockFactory fileLockFactory;
     private final TaskExecutor cleanUpTaskExecutor;
+    private final int concurrentDownloads;
+    private final MaterializationStrategy materializationStrategy;
+    private final long maxCacheBytes;
+    private final long maxCacheAgeMillis;
+    private final AtomicBoolean pruneScheduled = new AtomicBoolean();
+    // Set once the file system of the cache has shown it can't clone, to stop forking cp for every file
+    private volatile boolean cloneUnsupported;
+    private final Object retiredAccessLock = new Object();
 
     FetchingCacheServiceImpl(
         final ResourceLoader resourceLoader,
@@ -103,6 +160,12 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
         this.cacheDirectory = cacheArguments.getCacheDirectory();
         this.fileLockFactory = fileLockFactory;
         this.cleanUpTaskExecutor = cleanUpTaskExecutor;
+        this.concurrentDownloads = cacheArguments.getConcurrentDownloads();
+        this.materializationStrategy = cacheArguments.getMaterializationStrategy() == null
+            ? MaterializationStrategy.COPY
+            : cacheArguments.getMaterializationStrategy();
+        this.maxCacheBytes = cacheArguments.getCacheMaxSize();
+        this.maxCacheAgeMillis = TimeUnit.SECONDS.toMillis(cacheArguments.getCacheMaxAge());
         createDirectoryStructureIfNotExists(cacheDirectory);
     }
 
@@ -119,9 +182,254 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
      */
     @Override
     public void get(final Set<Pair<URI, File>> sourceDestinationPairs) throws DownloadException, IOException {
+        if (concurrentDownloads <= 1) {
+            for (final Pair<URI, File> sourceDestinationPair : sourceDestinationPairs) {
+                get(sourceDestinationPair.getKey(), sourceDestinationPair.getValue());
+            }
+        } else {
+            getConcurrently(sourceDestinationPairs);
+        }
+    }
+
+    /* Fetch each distinct URI once on a bounded pool and copy it to all of its destinations. Fail on the first
+     * error (in submission order) and abandon the remaining fetches.
+     */
+    private void getConcurrently(
+        final Set<Pair<URI, File>> sourceDestinationPairs
+    ) throws DownloadException, IOException {
+        final long start = System.nanoTime();
+        final Map<URI, List<File>> destinationsByUri = Maps.newLinkedHashMap();
         for (final Pair<URI, File> sourceDestinationPair : sourceDestinationPairs) {
-            get(sourceDestinationPair.getKey(), sourceDestinationPair.getValue());
+            destinationsByUri
+                .computeIfAbsent(sourceDestinationPair.getKey(), uri -> Lists.newArrayList())
+                .add(sourceDestinationPair.getValue());
+        }
+        if (destinationsByUri.isEmpty()) {
+            return;
+        }
+
+        final ExecutorService downloadExecutor = Executors.newFixedThreadPool(
+            Math.min(concurrentDownloads, destinationsByUri.size()),
+            new ThreadFactoryBuilder().setNameFormat(DOWNLOAD_THREAD_NAME_FORMAT).setDaemon(true).build()
+        );
+        try {
+            final List<Future<?>> downloads = Lists.newArrayList();
+            for (final Map.Entry<URI, List<File>> entry : destinationsByUri.entrySet()) {
+                downloads.add(
+                    downloadExecutor.submit(
+                        () -> {
+                            fetch(entry.getKey(), entry.getValue());
+                            return null;
+                        }
+                    )
+                );
+            }
+            for (final Future<?> download : downloads) {
+                try {
+                    download.get();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new DownloadException("Interrupted while downloading dependencies", e);
+                } catch (final ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if (cause instanceof DownloadException) {
+                        throw (DownloadException) cause;
+                    } else if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    throw new DownloadException("Error downloading dependency", cause);
+                }
+            }
+        } finally {
+            downloadExecutor.shutdownNow();
         }
+
+        log.info(
+            "Fetched {} files ({} distinct resources) in {}ms",
+            sourceDestinationPairs.size(),
+            destinationsByUri.size(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        );
+    }
+
+    /* Fetch a resource into the cache unless it's already there and copy it to the given destinations.
+     * The network transfer happens outside the lock: the resource is streamed into a temporary file unique to this
+     * fetch and only the move into the cache and the copies out of it are done while holding the lock.
+     */
+    private void fetch(
+        final URI sourceFileUri,
+        final List<File> destinationFiles
+    ) throws DownloadException, IOException {
+        final long start = System.nanoTime();
+        final String uriString = sourceFileUri.toASCIIString();
+        final String resourceCacheId = getResourceCacheId(sourceFileUri);
+        final Resource resource = resourceLoader.getResource(uriString);
+        final long resourceLastModified = getLastModified(resource, uriString);
+
+        final File cacheResourceVersionDir = getCacheResourceVersionDir(resourceCacheId, resourceLastModified);
+        createDirectoryStructureIfNotExists(cacheResourceVersionDir);
+        final File cachedResourceVersionDataFile = getCacheResourceVersionDataFile(cacheResourceVersionDir);
+
+        File downloadFile = null;
+        final boolean cacheHit = cachedResourceVersionDataFile.exists();
+        if (!cacheHit) {
+            log.debug("Cache miss: {} (id: {})", uriString, resourceCacheId);
+            downloadFile = new File(
+                cacheResourceVersionDir,
+                DATA_DOWNLOAD_FILE_NAME + "." + UUID.randomUUID().toString()
+            );
+            try (
+                final InputStream in = resource.getInputStream();
+                final OutputStream out = new FileOutputStream(downloadFile)
+            ) {
+                FileCopyUtils.copy(in, out);
+            } catch (final IOException e) {
+                FileSystemUtils.deleteRecursively(downloadFile);
+                throw e;
+            }
+        } else {
+            log.debug("Cache hit: {} (id: {})", uriString, resourceCacheId);
+        }
+
+        try (
+            final CloseableLock lock = fileLockFactory.getLock(
+                touchCacheResourceVersionLockFile(cacheResourceVersionDir)
+            );
+        ) {
+            //Critical section begin
+            lock.lock();
+
+            if (downloadFile != null) {
+                if (cachedResourceVersionDataFile.exists()) {
+                    // Someone else finished downloading the same version first
+                    FileSystemUtils.deleteRecursively(downloadFile);
+                } else if (!downloadFile.exists()) {
+                    // Only happens if this fetch stalled for longer than downloads are considered abandoned
+                    throw new IOException("Download file " + downloadFile + " was deleted before it was complete");
+                } else {
+                    java.nio.file.Files.move(
+                        downloadFile.toPath(),
+                        cachedResourceVersionDataFile.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE
+                    );
+                    makeReadOnly(cachedResourceVersionDataFile);
+                }
+            }
+
+            for (final File destinationFile : destinationFiles) {
+                materialize(cachedResourceVersionDataFile, destinationFile);
+            }
+            recordAccess(cacheResourceVersionDir, cacheHit);
+            //Critical section end
+        } catch (LockException e) {
+            throw new DownloadException("Error downloading dependency", e);
+        }
+
+        log.info(
+            "Fetched {} ({}, {} bytes) in {}ms",
+            uriString,
+            cacheHit ? "cache hit" : "cache miss",
+            cachedResourceVersionDataFile.length(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        );
+
+        //Clean up any older versions
+        cleanUpTaskExecutor.execute(
+            new CleanupOlderVersionsTask(resourceCacheId, resourceLastModified)
+        );
+        schedulePrune();
+    }
+
+    /* Place the cached data file at the destination using the configured strategy. The destination must never
+     * depend on the cached file staying around, as older versions are cleaned up and the cache is pruned. Hard links
+     * share the read-only cached data, clones and copies are writable. Falls back to cloning and then to a plain
+     * copy if a link can't be made, e.g. because the destination is on a different file system or the file system
+     * doesn't support it.
+     * Must be called while holding the lock of the cached resource version.
+     */
+    private void materialize(final File cachedDataFile, final File destinationFile) throws IOException {
+        final Path cachedData = cachedDataFile.toPath();
+        final Path destination = destinationFile.toPath();
+        // A previous read-only link at the destination can't be written over
+        java.nio.file.Files.deleteIfExists(destination);
+        if (materializationStrategy == MaterializationStrategy.HARD_LINK) {
+            // Entries cached before the cache made its data read-only are fixed up on first use
+            makeReadOnly(cachedDataFile);
+            try {
+                java.nio.file.Files.createLink(destination, cachedData);
+                return;
+            } catch (final IOException | UnsupportedOperationException e) {
+                log.debug("Unable to hard link {} to {}, cloning instead", cachedDataFile, destinationFile, e);
+            }
+        }
+        if (materializationStrategy != MaterializationStrategy.COPY && !cloneUnsupported) {
+            try {
+                reflink(cachedData, destination);
+                // cp gives the clone the read-only mode of the cached data
+                if (!destinationFile.setWritable(true)) {
+                    log.warn("Unable to make {} writable", destinationFile);
+                }
+                return;
+            } catch (final InterruptedIOException e) {
+                throw e;
+            } catch (final IOException e) {
+                cloneUnsupported = true;
+                log.info("Unable to clone {}, copying cached data from now on", cachedDataFile, e);
+                java.nio.file.Files.deleteIfExists(destination);
+            }
+        }
+        Files.copy(cachedDataFile, destinationFile);
+    }
+
+    /* The cached data is shared by every job using it so nobody may write to it once it's in place. */
+    private static void makeReadOnly(final File cachedDataFile) {
+        if (!cachedDataFile.setWritable(false, false)) {
+            log.warn("Unable to make cached data {} read-only", cachedDataFile);
+        }
+    }
+
+    /* The clone ioctl (FICLONE) isn't reachable from Java so delegate to cp, which fails rather than silently
+     * copying when asked for --reflink=always on a file system without copy on write support.
+     */
+    private static void reflink(final Path cachedData, final Path destination) throws IOException {
+        final Process process = new ProcessBuilder(
+            "cp",
+            "--reflink=always",
+            cachedData.toString(),
+            destination.toString()
+        )
+            .redirectErrorStream(true)
+            .start();
+        final int exitCode;
+        try (InputStream output = process.getInputStream()) {
+            StreamUtils.drain(output);
+            exitCode = process.waitFor();
+        } catch (final InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while cloning " + cachedData);
+        }
+        if (exitCode != 0) {
+            throw new IOException("Unable to clone " + cachedData + " (cp exit code " + exitCode + ")");
+        }
+    }
+
+    /* Get the version (last modified time) of a resource, checking it exists at the same time. Only falls back to a
+     * separate existence check if the resource doesn't report a modification time.
+     */
+    private long getLastModified(final Resource resource, final String uriString) throws DownloadException {
+        final long lastModified;
+        try {
+            lastModified = resource.lastModified();
+        } catch (final FileNotFoundException e) {
+            throw new DownloadException("Resource not found: " + uriString, e);
+        } catch (final IOException e) {
+            throw new DownloadException("Unable to get metadata of resource: " + uriString, e);
+        }
+        if (lastModified == 0L && !resource.exists()) {
+            throw new DownloadException("Resource not found: " + uriString);
+        }
+        return lastModified;
     }
 
     /* Get a handle to the resource represented by the sourceFileURI.
@@ -182,7 +490,8 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
                 resourceLastModified
             );
 
-            if (!cachedResourceVersionDataFile.exists()) {
+            final boolean cacheHit = cachedResourceVersionDataFile.exists();
+            if (!cacheHit) {
                 log.debug(
                     "Cache miss: {} (id: {})",
                     uriString,
@@ -202,6 +511,7 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
                     FileCopyUtils.copy(in, out);
                     Files.move(cachedResourceVersionDownloadFile, cachedResourceVersionDataFile);
                 }
+                makeReadOnly(cachedResourceVersionDataFile);
             } else {
                 log.debug(
                     "Cache hit: {} (id: {})",
@@ -210,8 +520,9 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
                 );
             }
 
-            //Copy from cache data file resourceCacheId/version/DATA_FILE_NAME to targetFile
-            Files.copy(cachedResourceVersionDataFile, destinationFile);
+            //Copy (or link) from cache data file resourceCacheId/version/DATA_FILE_NAME to targetFile
+            materialize(cachedResourceVersionDataFile, destinationFile);
+            recordAccess(cacheResourceVersionDir, cacheHit);
             //Critical section end
         } catch (LockException e) {
             throw new DownloadException("Error downloading dependency", e);
@@ -221,6 +532,206 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
         cleanUpTaskExecutor.execute(
             new CleanupOlderVersionsTask(resourceCacheId, resourceLastModified)
         );
+        schedulePrune();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CacheUsage getUsage() throws IOException {
+        return summarize(listCacheEntries());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized CacheUsage prune() throws IOException {
+        final List<CacheEntry> entries = listCacheEntries();
+        if (maxCacheBytes <= 0 && maxCacheAgeMillis <= 0) {
+            return summarize(entries);
+        }
+
+        // Least recently used first, so expired entries are all at the front
+        entries.sort(Comparator.comparingLong(CacheEntry::getLastAccess));
+        long totalBytes = entries.stream().mapToLong(CacheEntry::getBytes).sum();
+        final long now = System.currentTimeMillis();
+        final List<CacheEntry> retained = Lists.newArrayList();
+        for (final CacheEntry entry : entries) {
+            final boolean expired = maxCacheAgeMillis > 0 && now - entry.getLastAccess() > maxCacheAgeMillis;
+            final boolean oversized = maxCacheBytes > 0 && totalBytes > maxCacheBytes;
+            if ((expired || oversized) && evict(entry)) {
+                totalBytes -= entry.getBytes();
+            } else {
+                retained.add(entry);
+            }
+        }
+        final CacheUsage usage = summarize(retained);
+        log.info(
+            "Pruned cache {}: evicted {} entries, {} entries ({} bytes) left",
+            cacheDirectory,
+            entries.size() - retained.size(),
+            usage.getEntries(),
+            usage.getBytes()
+        );
+        return usage;
+    }
+
+    /* Evict a resource version unless it was looked up since the cache was listed. */
+    private boolean evict(final CacheEntry entry) throws IOException {
+        try (
+            final CloseableLock lock = fileLockFactory.getLock(
+                touchCacheResourceVersionLockFile(entry.getResourceVersionDir())
+            );
+        ) {
+            //critical section begin
+            lock.lock();
+            if (getLastAccess(entry.getResourceVersionDir()) != entry.getLastAccess()) {
+                return false;
+            }
+            log.debug("Evicting {} ({} bytes)", entry.getResourceVersionDir(), entry.getBytes());
+            deleteResourceVersionFiles(entry.getResourceVersionDir());
+            //critical section end
+            return true;
+        } catch (final LockException e) {
+            log.warn("Unable to lock {} for eviction", entry.getResourceVersionDir(), e);
+            return false;
+        }
+    }
+
+    /* List the resource versions which have cached data. */
+    private List<CacheEntry> listCacheEntries() throws IOException {
+        final File[] resourceDirs = cacheDirectory.listFiles(File::isDirectory);
+        if (resourceDirs == null) {
+            throw new IOException("Unable to list cache directory: " + cacheDirectory.getAbsolutePath());
+        }
+        final List<CacheEntry> entries = Lists.newArrayList();
+        for (final File resourceDir : resourceDirs) {
+            final File[] resourceVersionDirs = resourceDir.listFiles(File::isDirectory);
+            if (resourceVersionDirs == null) {
+                continue;
+            }
+            for (final File resourceVersionDir : resourceVersionDirs) {
+                final File dataFile = getCacheResourceVersionDataFile(resourceVersionDir);
+                if (!dataFile.isFile()) {
+                    continue;
+                }
+                final long[] accessCounts = readAccessCounts(resourceVersionDir);
+                entries.add(
+                    new CacheEntry(
+                        resourceVersionDir,
+                        dataFile.length(),
+                        getLastAccess(resourceVersionDir),
+                        accessCounts[0],
+                        accessCounts[1]
+                    )
+                );
+            }
+        }
+        return entries;
+    }
+
+    private CacheUsage summarize(final List<CacheEntry> entries) {
+        // Lookups of resource versions which were since deleted are kept in the access record of the cache itself
+        final long[] retiredAccessCounts = readAccessCounts(cacheDirectory);
+        long bytes = 0;
+        long lookups = retiredAccessCounts[0];
+        long hits = retiredAccessCounts[1];
+        for (final CacheEntry entry : entries) {
+            bytes += entry.getBytes();
+            lookups += entry.getLookups();
+            hits += entry.getHits();
+        }
+        return new CacheUsage(entries.size(), bytes, lookups, hits);
+    }
+
+    /* Prune in the background after a lookup, unless limits aren't set or a prune is already pending. */
+    private void schedulePrune() {
+        if ((maxCacheBytes > 0 || maxCacheAgeMillis > 0) && pruneScheduled.compareAndSet(false, true)) {
+            cleanUpTaskExecutor.execute(
+                () -> {
+                    pruneScheduled.set(false);
+                    try {
+                        prune();
+                    } catch (final Throwable throwable) {
+                        log.error("Error pruning cache {}", cacheDirectory, throwable);
+                    }
+                }
+            );
+        }
+    }
+
+    /* Record a lookup of a resource version. The access record holds the number of lookups and hits and its
+     * modification time is the time of the last lookup, which drives eviction. Must be called while holding the
+     * lock of the resource version.
+     */
+    private void recordAccess(final File resourceVersionDir, final boolean hit) {
+        final long[] accessCounts = readAccessCounts(resourceVersionDir);
+        try {
+            writeAccessCounts(resourceVersionDir, accessCounts[0] + 1, accessCounts[1] + (hit ? 1 : 0));
+        } catch (final IOException e) {
+            log.warn("Unable to record access to {}", resourceVersionDir, e);
+        }
+    }
+
+    /* Add the lookups and hits of a resource version about to be deleted to the access record of the cache itself.
+     * Must be called while holding the lock of the resource version.
+     */
+    private void retireAccessCounts(final File resourceVersionDir) {
+        final long[] accessCounts = readAccessCounts(resourceVersionDir);
+        if (accessCounts[0] == 0 && accessCounts[1] == 0) {
+            return;
+        }
+        // The file lock is held on behalf of the whole process so this agent's threads take turns first
+        synchronized (retiredAccessLock) {
+            try {
+                final File lockFile = new File(cacheDirectory, LOCK_FILE_NAME);
+                Files.touch(lockFile);
+                try (final CloseableLock lock = fileLockFactory.getLock(lockFile)) {
+                    //critical section begin
+                    lock.lock();
+                    final long[] retiredAccessCounts = readAccessCounts(cacheDirectory);
+                    writeAccessCounts(
+                        cacheDirectory,
+                        retiredAccessCounts[0] + accessCounts[0],
+                        retiredAccessCounts[1] + accessCounts[1]
+                    );
+                    //critical section end
+                }
+            } catch (final IOException | LockException e) {
+                log.warn("Unable to keep the access counts of {}", resourceVersionDir, e);
+            }
+        }
+    }
+
+    /* Write the access record of a resource version, or of the cache itself given the cache directory. */
+    private void writeAccessCounts(final File dir, final long lookups, final long hits) throws IOException {
+        Files.asCharSink(getCacheResourceVersionAccessFile(dir), StandardCharsets.UTF_8).write(lookups + " " + hits);
+    }
+
+    /* Returns the number of lookups and hits of a resource version, zeros if they were never recorded. */
+    private long[] readAccessCounts(final File resourceVersionDir) {
+        final File accessFile = getCacheResourceVersionAccessFile(resourceVersionDir);
+        if (accessFile.isFile()) {
+            try {
+                final String[] counts = Files.asCharSource(accessFile, StandardCharsets.UTF_8).read().trim().split(" ");
+                if (counts.length == 2) {
+                    return new long[]{Long.parseLong(counts[0]), Long.parseLong(counts[1])};
+                }
+            } catch (final IOException | NumberFormatException e) {
+                log.warn("Ignoring unreadable access record {}", accessFile, e);
+            }
+        }
+        return new long[]{0, 0};
+    }
+
+    /* Returns the time of the last lookup of a resource version, or of its download if lookups were never recorded */
+    private long getLastAccess(final File resourceVersionDir) {
+        final File accessFile = getCacheResourceVersionAccessFile(resourceVersionDir);
+        return accessFile.isFile()
+            ? accessFile.lastModified()
+            : getCacheResourceVersionDataFile(resourceVersionDir).lastModified();
     }
 
     @VisibleForTesting
@@ -303,19 +814,41 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
         ) {
             //critical section begin
             lock.lock();
-
-            //Remove the data file. If last download was successful for the resource, only
-            //data file would exist
-            FileSystemUtils.deleteRecursively(getCacheResourceVersionDataFile(resourceVersionDir));
-
-            //data.tmp file could exist if the last download of the resource failed in the middle
-            //and after that a newer version was downloaded. So, delete it too
-            FileSystemUtils.deleteRecursively(getCacheResourceVersionDownloadFile(resourceVersionDir));
-
+            deleteResourceVersionFiles(resourceVersionDir);
             //critical section end
         }
     }
 
+    /* Delete the files of a resource version, leaving the lock file in place. Must be called while holding the lock
+     * of the resource version.
+     */
+    private void deleteResourceVersionFiles(final File resourceVersionDir) {
+        //Remove the data file. If last download was successful for the resource, only
+        //data file would exist
+        FileSystemUtils.deleteRecursively(getCacheResourceVersionDataFile(resourceVersionDir));
+
+        //data.tmp file could exist if the last download of the resource failed in the middle
+        //and after that a newer version was downloaded. So, delete it too
+        FileSystemUtils.deleteRecursively(getCacheResourceVersionDownloadFile(resourceVersionDir));
+
+        //Same for the uniquely named download files of concurrent fetches, unless another agent may still be writing
+        //them outside of the lock
+        final long abandonedBefore = System.currentTimeMillis() - ABANDONED_DOWNLOAD_MILLIS;
+        final File[] downloadFiles = resourceVersionDir.listFiles(
+            (dir, name) -> name.startsWith(DATA_DOWNLOAD_FILE_NAME + ".")
+                && new File(dir, name).lastModified() < abandonedBefore
+        );
+        if (downloadFiles != null) {
+            for (final File downloadFile : downloadFiles) {
+                FileSystemUtils.deleteRecursively(downloadFile);
+            }
+        }
+
+        //The access record goes with the data but its counts are kept for the cache as a whole
+        retireAccessCounts(resourceVersionDir);
+        FileSystemUtils.deleteRecursively(getCacheResourceVersionAccessFile(resourceVersionDir));
+    }
+
     /* Returns a handle to the directory for a resource */
     private File getCacheResourceDir(final String resourceCacheId) {
         return new File(cacheDirectory, resourceCacheId);
@@ -369,6 +902,12 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
         return new File(resourceVersionDir, LOCK_FILE_NAME);
     }
 
+    /* Returns a handle to the access record of a resource version in the cache */
+    @VisibleForTesting
+    File getCacheResourceVersionAccessFile(final File resourceVersionDir) {
+        return new File(resourceVersionDir, ACCESS_FILE_NAME);
+    }
+
     /* Touch the lock file of a resource version and return a handle to it */
     File touchCacheResourceVersionLockFile(
         final String resourceCacheId,
@@ -418,4 +957,30 @@ class FetchingCacheServiceImpl implements FetchingCacheService {
             }
         }
     }
+
+    /**
+     * A resource version with cached data, as found when listing the cache.
+     */
+    @Getter
+    private static final class CacheEntry {
+        private final File resourceVersionDir;
+        private final long bytes;
+        private final long lastAccess;
+        private final long lookups;
+        private final long hits;
+
+        CacheEntry(
+            final File resourceVersionDir,
+            final long bytes,
+            final long lastAccess,
+            final long lookups,
+            final long hits
+        ) {
+            this.resourceVersionDir = resourceVersionDir;
+            this.bytes = bytes;
+            this.lastAccess = lastAccess;
+            this.lookups = lookups;
+            this.hits = hits;
+        }
+    }
 }
@@ -0,0 +1,748 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.agent.execution.services.impl.grpc;
+
+import com.google.protobuf.UnsafeByteOperations;
+import com.netflix.genie.agent.execution.services.AgentFileSyncService;
+import com.netflix.genie.proto.BeginSync;
+import com.netflix.genie.proto.DataUpload;
+import com.netflix.genie.proto.DeleteFile;
+import com.netflix.genie.proto.JobDirectoryState;
+import com.netflix.genie.proto.JobFileState;
+import com.netflix.genie.proto.JobFileSyncServiceGrpc;
+import com.netflix.genie.proto.SyncComplete;
+import com.netflix.genie.proto.SyncRequest;
+import com.netflix.genie.proto.SyncRequestResult;
+import com.netflix.genie.proto.SyncResponse;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.NotBlank;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * gRPC implementation of AgentFileSyncService.
+ * A single sync thread owns the request stream. It waits for changes in the job directory (reported by a
+ * {@link WatchService}, with a periodic rescan as fallback for file systems that don't deliver events) and uploads
+ * only the bytes appended to each file since the previous upload. Uploading is delayed briefly after a change so that
+ * many small appends are sent as one larger chunk. The number of unacknowledged uploads is bounded and a failed upload
+ * rewinds its file so the data is sent again. Every new stream resumes from the file sizes the server reports when it
+ * acknowledges the start of the sync. On stop the sync is completed once all the data has been sent, without waiting
+ * for acknowledgements the server may only send when the sync is complete.
+ *
+ * @since 4.0.0
+ */
+@Component
+@Lazy
+@Slf4j
+@Validated
+class GrpcAgentFileSyncServiceImpl implements AgentFileSyncService {
+
+    private static final long POLL_INTERVAL_MILLIS = 1_000L; //TODO make configurable
+    private static final long COALESCE_DELAY_MILLIS = 250L; //TODO make configurable
+    private static final int MAX_CHUNK_SIZE = 1024 * 1024; //TODO make configurable
+    private static final int MAX_IN_FLIGHT = 16; //TODO make configurable
+    private static final long STOP_TIMEOUT_MILLIS = 30_000L; //TODO make configurable
+    private static final long BEGIN_ACK_TIMEOUT_MILLIS = 10_000L;
+    private static final long STREAM_RESET_DELAY_MILLIS = 1_000L;
+    private static final long STATS_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final int MAX_WATCH_KEYS_PER_PASS = 256;
+
+    private final JobFileSyncServiceGrpc.JobFileSyncServiceStub client;
+    private final long pollIntervalMillis;
+    private final long coalesceDelayMillis;
+    private final int maxChunkSize;
+    private final int maxInFlight;
+    private final long stopTimeoutMillis;
+
+    // Upload position of each file (relative path) and unacknowledged uploads by request id, guarded by this
+    private final Map<String, Long> sentOffsets = new HashMap<>();
+    private final Map<String, Chunk> inFlight = new HashMap<>();
+    private StreamObserver<SyncRequest> requestObserver;
+    private ResponseObserver responseObserver;
+    private boolean connected;
+    private long bytesAcknowledged;
+    private long lagBytes;
+    private Thread syncThread;
+    private volatile boolean stopRequested;
+
+    // Only accessed by the sync thread
+    private String claimedJobId;
+    private Path jobDirectory;
+    private WatchService watchService;
+    private Map<String, Long> localSizes = Collections.emptyMap();
+    private long nextRequestId;
+    private long startNanos;
+    private long statsNanos;
+    private long statsBytes;
+
+    @Autowired
+    GrpcAgentFileSyncServiceImpl(final JobFileSyncServiceGrpc.JobFileSyncServiceStub client) {
+        this(client, POLL_INTERVAL_MILLIS, COALESCE_DELAY_MILLIS, MAX_CHUNK_SIZE, MAX_IN_FLIGHT, STOP_TIMEOUT_MILLIS);
+    }
+
+    GrpcAgentFileSyncServiceImpl(
+        final JobFileSyncServiceGrpc.JobFileSyncServiceStub client,
+        final long pollIntervalMillis,
+        final long coalesceDelayMillis,
+        final int maxChunkSize,
+        final int maxInFlight,
+        final long stopTimeoutMillis
+    ) {
+        this.client = client;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.coalesceDelayMillis = coalesceDelayMillis;
+        this.maxChunkSize = maxChunkSize;
+        this.maxInFlight = maxInFlight;
+        this.stopTimeoutMillis = stopTimeoutMillis;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void start(@NotBlank final String jobId, final File jobDirectoryFile) {
+        if (this.syncThread != null) {
+            throw new IllegalStateException("Already started");
+        }
+        this.claimedJobId = jobId;
+        this.jobDirectory = jobDirectoryFile.toPath();
+        this.syncThread = new Thread(this::sync, "genie-agent-file-sync");
+        this.syncThread.setDaemon(true);
+        this.syncThread.start();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void stop() {
+        final Thread thread;
+        synchronized (this) {
+            thread = this.syncThread;
+            if (thread == null || this.stopRequested) {
+                return;
+            }
+            this.stopRequested = true;
+            this.notifyAll();
+        }
+        try {
+            thread.join(this.stopTimeoutMillis + this.pollIntervalMillis + BEGIN_ACK_TIMEOUT_MILLIS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            log.warn("Job directory sync did not complete in time");
+        }
+    }
+
+    /**
+     * Get the number of bytes uploaded and acknowledged by the server.
+     *
+     * @return the number of bytes
+     */
+    synchronized long getBytesAcknowledged() {
+        return this.bytesAcknowledged;
+    }
+
+    /**
+     * Get the number of bytes present in the job directory but not yet acknowledged by the server, as of the last
+     * scan of the directory.
+     *
+     * @return the number of bytes
+     */
+    synchronized long getLagBytes() {
+        return this.lagBytes;
+    }
+
+    private void sync() {
+        this.startNanos = System.nanoTime();
+        this.statsNanos = this.startNanos;
+        this.watchService = this.openWatchService();
+        try {
+            while (!this.stopRequested) {
+                try {
+                    if (!this.connect()) {
+                        this.pause(STREAM_RESET_DELAY_MILLIS);
+                    } else if (this.uploadChanges()) {
+                        this.awaitAcknowledgements(this.maxInFlight - 1);
+                    } else {
+                        this.awaitChanges();
+                    }
+                } catch (final IOException e) {
+                    log.warn("Error syncing job directory", e);
+                    this.pause(STREAM_RESET_DELAY_MILLIS);
+                }
+                this.logStats(false);
+            }
+            this.finish();
+        } catch (final InterruptedException e) {
+            log.warn("Interrupted syncing job directory");
+        } catch (final RuntimeException e) {
+            log.error("Job directory sync failed", e);
+        } finally {
+            if (this.watchService != null) {
+                try {
+                    this.watchService.close();
+                } catch (final IOException e) {
+                    log.debug("Failed to close watch service", e);
+                }
+            }
+            synchronized (this) {
+                this.closeStream(true);
+            }
+        }
+    }
+
+    /**
+     * Upload whatever is left and complete the sync, all within the stop timeout. The sync is completed as soon as
+     * everything has been sent rather than once everything has been acknowledged as the server may hold back the
+     * acknowledgement of the last few uploads until it's told the sync is complete. The server acknowledges them
+     * before completing and if any of them failed they're sent again, and the sync completed again, on a new stream.
+     */
+    private void finish() throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.stopTimeoutMillis);
+        boolean completeSent = false;
+        while (System.nanoTime() < deadline) {
+            try {
+                if (!completeSent) {
+                    if (!this.connect()) {
+                        Thread.sleep(STREAM_RESET_DELAY_MILLIS);
+                    } else if (this.uploadChanges()) {
+                        this.awaitAcknowledgements(this.maxInFlight - 1);
+                    } else {
+                        completeSent = this.sendSyncComplete();
+                    }
+                    continue;
+                }
+                synchronized (this) {
+                    if (this.inFlight.isEmpty()) {
+                        // The server is done with this stream either way
+                        this.closeStream(false);
+                        if (this.isInSync()) {
+                            this.logStats(true);
+                            return;
+                        }
+                        log.info("Server failed some of the final uploads, sending them again");
+                        completeSent = false;
+                        continue;
+                    }
+                    if (!this.connected) {
+                        // Lost the stream before everything was acknowledged, start over on a new one
+                        completeSent = false;
+                        continue;
+                    }
+                }
+                this.awaitAcknowledgements(0);
+            } catch (final IOException e) {
+                log.warn("Error syncing job directory", e);
+                Thread.sleep(STREAM_RESET_DELAY_MILLIS);
+            }
+        }
+        log.warn("Timed out uploading the remaining job files");
+        this.logStats(true);
+    }
+
+    /**
+     * Tell the server everything has been sent along with the final state of the job directory.
+     *
+     * @return true if the message was sent
+     */
+    private synchronized boolean sendSyncComplete() {
+        if (!this.connected) {
+            return false;
+        }
+        final JobDirectoryState.Builder finalState = JobDirectoryState.newBuilder();
+        this.localSizes.forEach(
+            (path, size) -> finalState.addFiles(JobFileState.newBuilder().setPath(path).setSize(size).build())
+        );
+        this.requestObserver.onNext(
+            SyncRequest.newBuilder()
+                .setSyncComplete(SyncComplete.newBuilder().setFinalAgentDirectoryState(finalState))
+                .build()
+        );
+        return true;
+    }
+
+    /**
+     * Whether everything in the job directory, as of the last scan, has been sent. Uploads the server failed are
+     * rewound so they show up here.
+     *
+     * @return true if nothing is left to send
+     */
+    private synchronized boolean isInSync() {
+        return this.sentOffsets.equals(this.localSizes);
+    }
+
+    /**
+     * Open a new stream unless the current one is connected and wait for the server to acknowledge it.
+     *
+     * @return true if there is a connected stream
+     */
+    private synchronized boolean connect() throws InterruptedException {
+        if (this.requestObserver != null && this.connected) {
+            return true;
+        }
+        this.closeStream(true);
+
+        final JobDirectoryState.Builder acknowledgedState = JobDirectoryState.newBuilder();
+        this.sentOffsets.forEach(
+            (path, offset) -> acknowledgedState.addFiles(JobFileState.newBuilder().setPath(path).setSize(offset))
+        );
+        final ResponseObserver observer = new ResponseObserver();
+        this.responseObserver = observer;
+        this.requestObserver = this.client.sync(observer);
+        this.requestObserver.onNext(
+            SyncRequest.newBuilder()
+                .setBeginSync(
+                    BeginSync.newBuilder()
+                        .setJobId(this.claimedJobId)
+                        .setAcknowledgedAgentDirectoryState(acknowledgedState)
+                )
+                .build()
+        );
+
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BEGIN_ACK_TIMEOUT_MILLIS);
+        while (!this.connected && this.responseObserver == observer && !observer.closed) {
+            final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                log.warn("Server did not acknowledge sync start in time");
+                break;
+            }
+            this.wait(remaining);
+        }
+        return this.connected;
+    }
+
+    /**
+     * Close the current stream (if any). Unacknowledged uploads are rewound so they're sent again on the next stream.
+     *
+     * @param abandon true if the stream is being given up rather than completed normally
+     */
+    private void closeStream(final boolean abandon) {
+        this.inFlight.values().forEach(
+            chunk -> this.sentOffsets.computeIfPresent(chunk.path, (path, offset) -> Math.min(offset, chunk.start))
+        );
+        this.inFlight.clear();
+        this.connected = false;
+        if (this.requestObserver != null) {
+            final boolean alreadyClosed = this.responseObserver.closed;
+            this.responseObserver = null;
+            try {
+                if (abandon && !alreadyClosed) {
+                    this.requestObserver.onError(new IllegalStateException("Sync stream abandoned"));
+                } else {
+                    this.requestObserver.onCompleted();
+                }
+            } catch (final RuntimeException e) {
+                log.debug("Error closing sync stream", e);
+            }
+            this.requestObserver = null;
+        }
+    }
+
+    /**
+     * Scan the job directory and upload new data while the in-flight window allows.
+     *
+     * @return true if there is data left to upload
+     * @throws IOException if the directory can't be scanned
+     */
+    private boolean uploadChanges() throws IOException {
+        final Map<String, Long> sizes = this.scan();
+        this.localSizes = sizes;
+
+        final List<String> known;
+        synchronized (this) {
+            known = new ArrayList<>(this.sentOffsets.keySet());
+        }
+        for (final String path : known) {
+            if (!sizes.containsKey(path) && !this.sendDelete(path)) {
+                return true;
+            }
+        }
+
+        boolean backlog = false;
+        for (final Map.Entry<String, Long> file : sizes.entrySet()) {
+            final String path = file.getKey();
+            final long size = file.getValue();
+            final Long sentOffset;
+            synchronized (this) {
+                sentOffset = this.sentOffsets.get(path);
+            }
+            long offset = sentOffset == null ? 0L : sentOffset;
+            if (offset > size) {
+                // Truncated or replaced, start the file over
+                if (!this.sendDelete(path)) {
+                    return true;
+                }
+                offset = 0L;
+            } else if (offset == size && sentOffset != null) {
+                continue;
+            }
+            if (!this.hasWindow()) {
+                backlog = true;
+                break;
+            }
+            try (FileChannel channel = FileChannel.open(this.jobDirectory.resolve(path), StandardOpenOption.READ)) {
+                do {
+                    if (!this.hasWindow()) {
+                        backlog = true;
+                        break;
+                    }
+                    final int length = (int) Math.min(size - offset, this.maxChunkSize);
+                    final ByteBuffer buffer = ByteBuffer.allocate(length);
+                    while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) >= 0) {
+                        // Read until the buffer is full or the file ends
+                    }
+                    buffer.flip();
+                    if (!this.sendData(path, offset, buffer)) {
+                        return true;
+                    }
+                    offset += buffer.limit();
+                    if (buffer.limit() < length) {
+                        // The file shrank while reading, the next scan will notice
+                        break;
+                    }
+                } while (offset < size);
+            } catch (final NoSuchFileException e) {
+                log.debug("{} was deleted before it could be uploaded", path);
+            }
+            if (backlog) {
+                break;
+            }
+        }
+
+        synchronized (this) {
+            long acknowledgedPosition = 0L;
+            for (final Map.Entry<String, Long> file : this.sentOffsets.entrySet()) {
+                acknowledgedPosition += Math.min(file.getValue(), sizes.getOrDefault(file.getKey(), 0L));
+            }
+            for (final Chunk chunk : this.inFlight.values()) {
+                acknowledgedPosition -= chunk.length;
+            }
+            final long localBytes = sizes.values().stream().mapToLong(Long::longValue).sum();
+            this.lagBytes = Math.max(0L, localBytes - acknowledgedPosition);
+        }
+        return backlog;
+    }
+
+    private Map<String, Long> scan() throws IOException {
+        final Map<String, Long> sizes = new HashMap<>();
+        Files.walkFileTree(
+            this.jobDirectory,
+            new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        sizes.put(jobDirectory.relativize(file).toString(), attrs.size());
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(final Path file, final IOException exc) {
+                    // Most likely deleted while walking
+                    return FileVisitResult.CONTINUE;
+                }
+            }
+        );
+        return sizes;
+    }
+
+    private synchronized boolean hasWindow() {
+        return this.inFlight.size() < this.maxInFlight;
+    }
+
+    private synchronized boolean sendData(final String path, final long start, final ByteBuffer data) {
+        if (!this.connected) {
+            return false;
+        }
+        final String id = Long.toString(++this.nextRequestId);
+        this.inFlight.put(id, new Chunk(path, start, data.remaining()));
+        this.sentOffsets.put(path, start + data.remaining());
+        this.requestObserver.onNext(
+            SyncRequest.newBuilder()
+                .setDataUpload(
+                    DataUpload.newBuilder()
+                        .setId(id)
+                        .setPath(path)
+                        .setStartByte(start)
+                        .setData(UnsafeByteOperations.unsafeWrap(data))
+                )
+                .build()
+        );
+        return true;
+    }
+
+    private synchronized boolean sendDelete(final String path) {
+        if (!this.connected) {
+            return false;
+        }
+        final String id = Long.toString(++this.nextRequestId);
+        this.sentOffsets.remove(path);
+        this.inFlight.put(id, new Chunk(path, 0L, 0));
+        this.requestObserver.onNext(
+            SyncRequest.newBuilder()
+                .setDeleteFile(DeleteFile.newBuilder().setId(id).setPath(path))
+                .build()
+        );
+        return true;
+    }
+
+    private synchronized void awaitAcknowledgements(final int maxRemaining) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.pollIntervalMillis);
+        while (this.connected && this.inFlight.size() > maxRemaining) {
+            final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return;
+            }
+            this.wait(remaining);
+        }
+    }
+
+    /**
+     * Wait until something changes in the job directory or the poll interval elapses, in which case the directory is
+     * rescanned anyway.
+     */
+    private void awaitChanges() throws InterruptedException {
+        if (this.watchService == null) {
+            this.pause(this.pollIntervalMillis);
+            return;
+        }
+        WatchKey key = this.watchService.poll(this.pollIntervalMillis, TimeUnit.MILLISECONDS);
+        if (key == null) {
+            return;
+        }
+        // Let the job write some more so small appends are uploaded together
+        this.pause(this.coalesceDelayMillis);
+        // Only drain a bounded number of keys so a job writing continuously can't keep the sync thread here. Keys left
+        // queued stay signalled for the next pass and the directory is rescanned either way.
+        for (int drained = 1; key != null; drained++) {
+            for (final WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    final Path child = ((Path) key.watchable()).resolve((Path) event.context());
+                    if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                        this.register(child);
+                    }
+                }
+            }
+            key.reset();
+            key = drained < MAX_WATCH_KEYS_PER_PASS && !this.stopRequested ? this.watchService.poll() : null;
+        }
+    }
+
+    private WatchService openWatchService() {
+        try {
+            this.watchService = this.jobDirectory.getFileSystem().newWatchService();
+            this.register(this.jobDirectory);
+            return this.watchService;
+        } catch (final IOException | UnsupportedOperationException e) {
+            log.info("Unable to watch job directory, polling for changes instead", e);
+            return null;
+        }
+    }
+
+    private void register(final Path directory) {
+        try {
+            Files.walkFileTree(
+                directory,
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs)
+                        throws IOException {
+                        dir.register(
+                            watchService,
+                            StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY,
+                            StandardWatchEventKinds.ENTRY_DELETE
+                        );
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(final Path file, final IOException exc) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                }
+            );
+        } catch (final IOException e) {
+            log.debug("Unable to watch {}", directory, e);
+        }
+    }
+
+    private synchronized void pause(final long millis) throws InterruptedException {
+        if (!this.stopRequested) {
+            this.wait(millis);
+        }
+    }
+
+    private void logStats(final boolean done) {
+        final long now = System.nanoTime();
+        if (!done && now - this.statsNanos < STATS_PERIOD_NANOS) {
+            return;
+        }
+        final long acknowledged;
+        final long lag;
+        final long oldestInFlightMillis;
+        synchronized (this) {
+            acknowledged = this.bytesAcknowledged;
+            lag = this.lagBytes;
+            oldestInFlightMillis = TimeUnit.NANOSECONDS.toMillis(
+                this.inFlight.values().stream().mapToLong(chunk -> now - chunk.sentNanos).max().orElse(0L)
+            );
+        }
+        if (done) {
+            final double seconds = Math.max(now - this.startNanos, 1L) / (double) TimeUnit.SECONDS.toNanos(1);
+            log.info(
+                "Job directory sync uploaded {} bytes in {} seconds ({} bytes/s), {} bytes not uploaded",
+                acknowledged,
+                String.format("%.1f", seconds),
+                (long) (acknowledged / seconds),
+                lag
+            );
+        } else {
+            final double seconds = (now - this.statsNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+            log.info(
+                "Job directory sync: {} bytes/s, lagging {} bytes, oldest unacknowledged upload {} ms",
+                (long) ((acknowledged - this.statsBytes) / seconds),
+                lag,
+                oldestInFlightMillis
+            );
+            this.statsNanos = now;
+            this.statsBytes = acknowledged;
+        }
+    }
+
+    private synchronized void onBeginAcknowledgement(
+        final ResponseObserver observer,
+        final JobDirectoryState serverState
+    ) {
+        if (observer != this.responseObserver || this.connected) {
+            return;
+        }
+        // Resume from what the server actually has. Files only the server has are deleted by the next upload round
+        // and files larger on the server than locally are started over.
+        this.sentOffsets.clear();
+        serverState.getFilesList().forEach(file -> this.sentOffsets.put(file.getPath(), file.getSize()));
+        this.inFlight.clear();
+        this.connected = true;
+        log.info("Job directory sync started, server has {} files", serverState.getFilesCount());
+        this.notifyAll();
+    }
+
+    private synchronized void onAcknowledgement(
+        final ResponseObserver observer,
+        final List<SyncRequestResult> results
+    ) {
+        if (observer != this.responseObserver) {
+            return;
+        }
+        for (final SyncRequestResult result : results) {
+            final Chunk chunk = this.inFlight.remove(result.getId());
+            if (chunk == null) {
+                continue;
+            }
+            if (result.getSuccessful()) {
+                this.bytesAcknowledged += chunk.length;
+            } else {
+                log.debug("Server failed request {} for {}, rewinding to {}", result.getId(), chunk.path, chunk.start);
+                this.sentOffsets.computeIfPresent(chunk.path, (path, offset) -> Math.min(offset, chunk.start));
+            }
+        }
+        this.notifyAll();
+    }
+
+    private synchronized void onDisconnect(final ResponseObserver observer, final String reason) {
+        observer.closed = true;
+        if (observer != this.responseObserver) {
+            return;
+        }
+        log.info("Job directory sync stream {}", reason);
+        this.connected = false;
+        this.notifyAll();
+    }
+
+    private static final class Chunk {
+        private final String path;
+        private final long start;
+        private final int length;
+        private final long sentNanos = System.nanoTime();
+
+        Chunk(final String path, final long start, final int length) {
+            this.path = path;
+            this.start = start;
+            this.length = length;
+        }
+    }
+
+    private class ResponseObserver implements StreamObserver<SyncResponse> {
+        private volatile boolean closed;
+
+        @Override
+        public void onNext(final SyncResponse value) {
+            switch (value.getMessageCase()) {
+                case BEGIN_ACK:
+                    onBeginAcknowledgement(this, value.getBeginAck().getServerDirectoryState());
+                    break;
+                case SYNC_ACK:
+                    onAcknowledgement(this, value.getSyncAck().getResultsList());
+                    break;
+                case RESET:
+                    onDisconnect(this, "reset by server");
+                    break;
+                default:
+                    log.warn("Unexpected sync response {}", value.getMessageCase());
+            }
+        }
+
+        @Override
+        public void onError(final Throwable t) {
+            onDisconnect(this, "error: " + t.getMessage());
+        }
+
+        @Override
+        public void onCompleted() {
+            onDisconnect(this, "completed");
+        }
+    }
+}
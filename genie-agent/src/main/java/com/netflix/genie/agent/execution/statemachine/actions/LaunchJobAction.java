@@ -21,6 +21,7 @@ package com.netflix.genie.agent.execution.statemachine.actions;
 import com.netflix.genie.agent.execution.ExecutionContext;
 import com.netflix.genie.agent.execution.exceptions.ChangeJobStatusException;
 import com.netflix.genie.agent.execution.exceptions.JobLaunchException;
+import com.netflix.genie.agent.execution.services.AgentFileSyncService;
 import com.netflix.genie.agent.execution.services.AgentJobService;
 import com.netflix.genie.agent.execution.services.LaunchJobService;
 import com.netflix.genie.agent.execution.statemachine.Events;
@@ -48,15 +49,18 @@ class LaunchJobAction extends BaseStateAction implements StateAction.LaunchJob {
 
     private final LaunchJobService launchJobService;
     private final AgentJobService agentJobService;
+    private final AgentFileSyncService agentFileSyncService;
 
     LaunchJobAction(
         final ExecutionContext executionContext,
         final LaunchJobService launchJobService,
-        final AgentJobService agentJobService
+        final AgentJobService agentJobService,
+        final AgentFileSyncService agentFileSyncService
     ) {
         super(executionContext);
         this.launchJobService = launchJobService;
         this.agentJobService = agentJobService;
+        this.agentFileSyncService = agentFileSyncService;
     }
 
     /**
@@ -90,9 +94,10 @@ class LaunchJobAction extends BaseStateAction implements StateAction.LaunchJob {
 
         executionContext.setJobProcess(jobProcess);
 
+        final String claimedJobId = executionContext.getClaimedJobId();
         try {
             this.agentJobService.changeJobStatus(
-                executionContext.getClaimedJobId(),
+                claimedJobId,
                 executionContext.getCurrentJobStatus(),
                 JobStatus.RUNNING,
                 "Job running (pid: " + pid + ")"
@@ -103,9 +108,20 @@ class LaunchJobAction extends BaseStateAction implements StateAction.LaunchJob {
             throw new RuntimeException("Failed to update job status", e);
         }
 
+        // Mirror the job directory to the server while the job runs, stopped during cleanup
+        this.agentFileSyncService.start(claimedJobId, jobRunDirectory);
+
         return Events.LAUNCH_JOB_COMPLETE;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void executeStateActionCleanup(final ExecutionContext executionContext) {
+        this.agentFileSyncService.stop();
+    }
+
     /* TODO: HACK, Process does not expose PID in Java 8 API */
     private long getPid(final Process process) {
         long pid = -1;
@@ -20,6 +20,7 @@ package com.netflix.genie.agent.rpc;
 
 import com.netflix.genie.agent.cli.ArgumentDelegates;
 import com.netflix.genie.proto.HeartBeatServiceGrpc;
+import com.netflix.genie.proto.JobFileSyncServiceGrpc;
 import com.netflix.genie.proto.JobServiceGrpc;
 import com.netflix.genie.proto.JobKillServiceGrpc;
 import com.netflix.genie.proto.PingServiceGrpc;
@@ -71,6 +72,12 @@ class GrpcConfig {
         return HeartBeatServiceGrpc.newStub(channel);
     }
 
+    @Bean
+    @Scope("prototype")
+    JobFileSyncServiceGrpc.JobFileSyncServiceStub jobFileSyncClient(final ManagedChannel channel) {
+        return JobFileSyncServiceGrpc.newStub(channel);
+    }
+
     @Bean
     @Scope("prototype")
     JobKillServiceGrpc.JobKillServiceFutureStub jobKillClient(
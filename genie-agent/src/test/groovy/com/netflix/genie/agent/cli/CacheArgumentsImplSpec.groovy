@@ -21,6 +21,7 @@ package com.netflix.genie.agent.cli
 import com.beust.jcommander.JCommander
 import com.beust.jcommander.ParameterException
 import com.beust.jcommander.ParametersDelegate
+import com.netflix.genie.agent.execution.services.FetchingCacheService
 import com.netflix.genie.test.categories.UnitTest
 import org.junit.experimental.categories.Category
 import spock.lang.Specification
@@ -45,16 +46,28 @@ class CacheArgumentsImplSpec extends Specification {
 
         then:
         CacheArgumentsImpl.DEFAULT_CACHE_PATH == options.cacheArguments.getCacheDirectory().getAbsolutePath()
+        1 == options.cacheArguments.getConcurrentDownloads()
+        FetchingCacheService.MaterializationStrategy.COPY == options.cacheArguments.getMaterializationStrategy()
+        0L == options.cacheArguments.getCacheMaxSize()
+        0L == options.cacheArguments.getCacheMaxAge()
     }
 
     def "Parse"() {
         when:
         jCommander.parse(
-                "--cacheDirectory", "/foo/bar"
+                "--cacheDirectory", "/foo/bar",
+                "--concurrentDownloads", "8",
+                "--materializationStrategy", "HARD_LINK",
+                "--cacheMaxSize", "10000000000",
+                "--cacheMaxAge", "86400"
         )
 
         then:
         "/foo/bar" == options.cacheArguments.getCacheDirectory().getAbsolutePath()
+        8 == options.cacheArguments.getConcurrentDownloads()
+        FetchingCacheService.MaterializationStrategy.HARD_LINK == options.cacheArguments.getMaterializationStrategy()
+        10_000_000_000L == options.cacheArguments.getCacheMaxSize()
+        86_400L == options.cacheArguments.getCacheMaxAge()
     }
 
     def "InvalidLocation"() {
@@ -68,6 +81,16 @@ class CacheArgumentsImplSpec extends Specification {
     }
 
 
+    def "InvalidCacheMaxSize"() {
+        when:
+        jCommander.parse(
+                "--cacheMaxSize", "-1",
+        )
+
+        then:
+        thrown(ParameterException)
+    }
+
     class TestOptions {
         @ParametersDelegate
         private ArgumentDelegates.CacheArguments cacheArguments = new CacheArgumentsImpl()
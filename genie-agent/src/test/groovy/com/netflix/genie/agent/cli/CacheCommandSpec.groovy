@@ -0,0 +1,97 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.agent.cli
+
+import com.beust.jcommander.JCommander
+import com.netflix.genie.agent.execution.services.FetchingCacheService
+import com.netflix.genie.test.categories.UnitTest
+import org.junit.experimental.categories.Category
+import spock.lang.Specification
+
+@Category(UnitTest.class)
+class CacheCommandSpec extends Specification {
+    CacheCommand.CacheCommandArguments args
+    FetchingCacheService fetchingCacheService
+    FetchingCacheService.CacheUsage usage = new FetchingCacheService.CacheUsage(2, 1024, 4, 3)
+
+    void setup() {
+        args = Mock()
+        fetchingCacheService = Mock()
+    }
+
+    def "Run"() {
+        setup:
+        def cmd = new CacheCommand(args, fetchingCacheService)
+
+        when:
+        cmd.run()
+
+        then:
+        1 * fetchingCacheService.getUsage() >> usage
+        1 * args.isPrune() >> false
+        0 * fetchingCacheService.prune()
+    }
+
+    def "Run and prune"() {
+        setup:
+        def cmd = new CacheCommand(args, fetchingCacheService)
+
+        when:
+        cmd.run()
+
+        then:
+        1 * fetchingCacheService.getUsage() >> usage
+        1 * args.isPrune() >> true
+        1 * fetchingCacheService.prune() >> new FetchingCacheService.CacheUsage(1, 512, 1, 1)
+    }
+
+    def "Run error"() {
+        setup:
+        def cmd = new CacheCommand(args, fetchingCacheService)
+
+        when:
+        cmd.run()
+
+        then:
+        1 * fetchingCacheService.getUsage() >> { throw new IOException("...") }
+        thrown(RuntimeException)
+    }
+
+    def "Describe"() {
+        when:
+        def description = CacheCommand.describe("Cache", usage)
+
+        then:
+        description.contains("entries:2")
+        description.contains("bytes:1024")
+        description.contains("hit rate:" + String.format("%.2f", 0.75d))
+    }
+
+    def "Parse arguments"() {
+        setup:
+        def arguments = new CacheCommand.CacheCommandArguments(new CacheArgumentsImpl())
+        def jCommander = new JCommander(arguments)
+
+        when:
+        jCommander.parse("--prune", "--cacheMaxSize", "1000")
+
+        then:
+        arguments.isPrune()
+        1000L == arguments.getCacheArguments().getCacheMaxSize()
+    }
+}
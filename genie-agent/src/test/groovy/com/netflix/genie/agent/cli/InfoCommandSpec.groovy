@@ -19,6 +19,7 @@
 package com.netflix.genie.agent.cli
 
 import com.netflix.genie.agent.AgentMetadata
+import com.netflix.genie.agent.execution.services.FetchingCacheService
 import com.netflix.genie.test.categories.UnitTest
 import org.junit.experimental.categories.Category
 import org.springframework.context.ConfigurableApplicationContext
@@ -32,6 +33,7 @@ class InfoCommandSpec extends Specification {
     InfoCommand.InfoCommandArguments args
     ConfigurableApplicationContext ctx
     AgentMetadata agentMetadata
+    FetchingCacheService fetchingCacheService
     ConfigurableEnvironment env
     Map<String, Object> map = ["Foo" : "foo", "Bar" : new Object(), "Baz" : null]
 
@@ -41,6 +43,7 @@ class InfoCommandSpec extends Specification {
         ctx = Mock()
         env = Mock()
         agentMetadata = Mock()
+        fetchingCacheService = Mock()
     }
 
     void cleanup() {
@@ -48,7 +51,7 @@ class InfoCommandSpec extends Specification {
 
     def "Run"() {
         setup:
-        def cmd = new InfoCommand(args, ctx, agentMetadata)
+        def cmd = new InfoCommand(args, ctx, agentMetadata, fetchingCacheService)
 
         when:
         cmd.run()
@@ -68,11 +71,13 @@ class InfoCommandSpec extends Specification {
         1 * env.getSystemEnvironment() >> map
         1 * env.getSystemProperties() >> map
         1 * env.getPropertySources() >> new MutablePropertySources()
+        1 * args.isIncludeCache() >> true
+        1 * fetchingCacheService.getUsage() >> new FetchingCacheService.CacheUsage(1, 100, 2, 1)
     }
 
     def "Run skip all"() {
         setup:
-        def cmd = new InfoCommand(args, ctx, agentMetadata)
+        def cmd = new InfoCommand(args, ctx, agentMetadata, fetchingCacheService)
 
         when:
         cmd.run()
@@ -89,5 +94,7 @@ class InfoCommandSpec extends Specification {
         2 * ctx.getEnvironment() >> env
         1 * env.getActiveProfiles() >> ["foo", "bar"]
         1 * env.getDefaultProfiles() >> ["default"]
+        1 * args.isIncludeCache() >> false
+        0 * fetchingCacheService.getUsage()
     }
 }
@@ -20,6 +20,7 @@ package com.netflix.genie.agent.execution.services.impl
 
 import com.netflix.genie.agent.cli.ArgumentDelegates
 import com.netflix.genie.agent.execution.exceptions.DownloadException
+import com.netflix.genie.agent.execution.services.FetchingCacheService
 import com.netflix.genie.agent.utils.locks.CloseableLock
 import com.netflix.genie.agent.utils.locks.impl.FileLockFactory
 import com.netflix.genie.test.categories.UnitTest
@@ -35,6 +36,9 @@ import spock.lang.Shared
 import spock.lang.Specification
 
 import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.attribute.PosixFilePermission
+import java.util.concurrent.TimeUnit
 import java.util.concurrent.locks.ReentrantLock
 
 @Category(UnitTest.class)
@@ -49,6 +53,11 @@ class FetchingCacheServiceImplSpec extends Specification {
     FileLockFactory fileLockFactory;
     CloseableLock lock;
     ReentrantLock reentrantLock = new ReentrantLock()
+    static final Set<PosixFilePermission> WRITE_PERMISSIONS = EnumSet.of(
+            PosixFilePermission.OWNER_WRITE,
+            PosixFilePermission.GROUP_WRITE,
+            PosixFilePermission.OTHERS_WRITE
+    )
 
     @Rule
     TemporaryFolder temporaryFolder
@@ -143,7 +152,12 @@ class FetchingCacheServiceImplSpec extends Specification {
         targetFile.getText(StandardCharsets.UTF_8.toString()) == fileContents
 
 
-        when:
+        when: "Another agent is still downloading the old version while an abandoned download is left over"
+        File inProgressDownloadFile = new File(resourceVersionDirectory, "data.tmp." + UUID.randomUUID().toString())
+        inProgressDownloadFile.text = "partial"
+        File abandonedDownloadFile = new File(resourceVersionDirectory, "data.tmp." + UUID.randomUUID().toString())
+        abandonedDownloadFile.text = "partial"
+        abandonedDownloadFile.setLastModified(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2))
         cache.get(uri, targetFile2)
 
         then:
@@ -164,7 +178,8 @@ class FetchingCacheServiceImplSpec extends Specification {
         targetFile2.getText(StandardCharsets.UTF_8.toString()) == fileContents
         !downloadDataFile2.exists()
         lockFile2.exists()
-
+        inProgressDownloadFile.exists()
+        !abandonedDownloadFile.exists()
     }
 
     def "Get resource nonexistent"() {
@@ -239,6 +254,251 @@ class FetchingCacheServiceImplSpec extends Specification {
         targetFiles[2].getText(StandardCharsets.UTF_8.toString()) == uris[2].toString()
     }
 
+    def "Get multiple resources concurrently"() {
+        setup:
+        ArgumentDelegates.CacheArguments concurrentCacheArguments = Mock() {
+            getCacheDirectory() >> temporaryFolder.getRoot()
+            getConcurrentDownloads() >> 4
+        }
+        def concurrentCache = new FetchingCacheServiceImpl(
+                resourceLoader,
+                concurrentCacheArguments,
+                fileLockFactory,
+                fetchingCacheServiceCleanUpTaskExecutor
+        )
+        URI[] uris = [
+                new URI("https://my-server.com/path/to/config/config.xml"),
+                new URI("https://my-server.com/path/to/setup/setup.sh"),
+                new URI("https://my-server.com/path/to/dependencies/bin.tar.gz")
+        ]
+        File[] targetFiles = [
+                temporaryFolder.newFile("config.xml"),
+                temporaryFolder.newFile("config-copy.xml"),
+                temporaryFolder.newFile("setup.sh"),
+                temporaryFolder.newFile("bin.tar.gz")
+        ]
+        Resource[] resources = [
+                Mock(Resource),
+                Mock(Resource),
+                Mock(Resource)
+        ]
+
+        when: "The same resource is requested for two destinations"
+        concurrentCache.get(Sets.newHashSet([
+                Pair.of(uris[0], targetFiles[0]),
+                Pair.of(uris[0], targetFiles[1]),
+                Pair.of(uris[1], targetFiles[2]),
+                Pair.of(uris[2], targetFiles[3]),
+        ]))
+
+        then: "Each resource is fetched once with a single metadata call"
+        1 * resourceLoader.getResource(uris[0].toString()) >> resources[0]
+        1 * resourceLoader.getResource(uris[1].toString()) >> resources[1]
+        1 * resourceLoader.getResource(uris[2].toString()) >> resources[2]
+        0 * resources[0].exists()
+        0 * resources[1].exists()
+        0 * resources[2].exists()
+        1 * resources[0].lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * resources[1].lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * resources[2].lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * resources[0].getInputStream() >> new ByteArrayInputStream(uris[0].toString().getBytes(StandardCharsets.UTF_8))
+        1 * resources[1].getInputStream() >> new ByteArrayInputStream(uris[1].toString().getBytes(StandardCharsets.UTF_8))
+        1 * resources[2].getInputStream() >> new ByteArrayInputStream(uris[2].toString().getBytes(StandardCharsets.UTF_8))
+        targetFiles[0].getText(StandardCharsets.UTF_8.toString()) == uris[0].toString()
+        targetFiles[1].getText(StandardCharsets.UTF_8.toString()) == uris[0].toString()
+        targetFiles[2].getText(StandardCharsets.UTF_8.toString()) == uris[1].toString()
+        targetFiles[3].getText(StandardCharsets.UTF_8.toString()) == uris[2].toString()
+        concurrentCache.getCacheResourceVersionDataFile(
+                concurrentCache.getResourceCacheId(uris[0]),
+                DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        ).exists()
+        concurrentCache.getCacheResourceVersionDir(
+                concurrentCache.getResourceCacheId(uris[0]),
+                DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        ).list().toList().toSet() == ["data", "lock", "access"].toSet()
+
+        when: "A resource doesn't exist"
+        concurrentCache.get(Sets.newHashSet([
+                Pair.of(uris[0], targetFiles[0]),
+                Pair.of(uris[1], targetFiles[2]),
+        ]))
+
+        then: "The error is reported"
+        _ * resourceLoader.getResource(uris[0].toString()) >> resources[0]
+        1 * resourceLoader.getResource(uris[1].toString()) >> resources[1]
+        _ * resources[0].lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * resources[1].lastModified() >> { throw new FileNotFoundException("gone") }
+        0 * resources[0].getInputStream()
+        thrown(DownloadException)
+    }
+
+    def "Get resource with hard link materialization"() {
+        setup:
+        String fileContents = "example file contents\n"
+        ArgumentDelegates.CacheArguments linkingCacheArguments = Mock() {
+            getCacheDirectory() >> temporaryFolder.getRoot()
+            getMaterializationStrategy() >> FetchingCacheService.MaterializationStrategy.HARD_LINK
+        }
+        def linkingCache = new FetchingCacheServiceImpl(
+                resourceLoader,
+                linkingCacheArguments,
+                fileLockFactory,
+                fetchingCacheServiceCleanUpTaskExecutor
+        )
+        File targetFile = temporaryFolder.newFile("target")
+        File targetFile2 = new File(temporaryFolder.getRoot(), "target2")
+        File cachedFile = linkingCache.getCacheResourceVersionDataFile(
+                linkingCache.getResourceCacheId(uri),
+                DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        )
+
+        when:
+        linkingCache.get(uri, targetFile)
+        linkingCache.get(uri, targetFile2)
+
+        then: "The destinations are links to the read-only cached data"
+        2 * resourceLoader.getResource(_ as String) >> resource
+        2 * resource.exists() >> true
+        2 * resource.lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * resource.getInputStream() >> new ByteArrayInputStream(fileContents.getBytes())
+        targetFile.getText(StandardCharsets.UTF_8.toString()) == fileContents
+        targetFile2.getText(StandardCharsets.UTF_8.toString()) == fileContents
+        Files.isSameFile(cachedFile.toPath(), targetFile.toPath())
+        Files.isSameFile(cachedFile.toPath(), targetFile2.toPath())
+        !Files.isSymbolicLink(targetFile.toPath())
+        Collections.disjoint(Files.getPosixFilePermissions(cachedFile.toPath()), WRITE_PERMISSIONS)
+
+        when: "The resource is materialized over an existing link"
+        linkingCache.get(uri, targetFile)
+
+        then: "The link is replaced"
+        1 * resourceLoader.getResource(_ as String) >> resource
+        1 * resource.exists() >> true
+        1 * resource.lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        0 * resource.getInputStream()
+        Files.isSameFile(cachedFile.toPath(), targetFile.toPath())
+    }
+
+    def "Get resource with reflink materialization"() {
+        setup:
+        String fileContents = "example file contents\n"
+        ArgumentDelegates.CacheArguments cloningCacheArguments = Mock() {
+            getCacheDirectory() >> temporaryFolder.getRoot()
+            getMaterializationStrategy() >> FetchingCacheService.MaterializationStrategy.REFLINK
+        }
+        def cloningCache = new FetchingCacheServiceImpl(
+                resourceLoader,
+                cloningCacheArguments,
+                fileLockFactory,
+                fetchingCacheServiceCleanUpTaskExecutor
+        )
+        File targetFile = new File(temporaryFolder.getRoot(), "target")
+        File targetFile2 = new File(temporaryFolder.getRoot(), "target2")
+        File cachedFile = cloningCache.getCacheResourceVersionDataFile(
+                cloningCache.getResourceCacheId(uri),
+                DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        )
+
+        when: "The resource is cloned, or copied where the file system can't clone"
+        cloningCache.get(uri, targetFile)
+        cloningCache.get(uri, targetFile2)
+
+        then: "The destinations are writable copies of the read-only cached data"
+        2 * resourceLoader.getResource(_ as String) >> resource
+        2 * resource.exists() >> true
+        2 * resource.lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * resource.getInputStream() >> new ByteArrayInputStream(fileContents.getBytes())
+        !Files.isSameFile(cachedFile.toPath(), targetFile.toPath())
+        !Files.isSameFile(cachedFile.toPath(), targetFile2.toPath())
+        Collections.disjoint(Files.getPosixFilePermissions(cachedFile.toPath()), WRITE_PERMISSIONS)
+        Files.getPosixFilePermissions(targetFile.toPath()).contains(PosixFilePermission.OWNER_WRITE)
+
+        when: "The job writes to a destination"
+        targetFile.text = "changed by the job"
+
+        then: "The cached data is unaffected"
+        cachedFile.getText(StandardCharsets.UTF_8.toString()) == fileContents
+        targetFile2.getText(StandardCharsets.UTF_8.toString()) == fileContents
+    }
+
+    def "Prune least recently used and expired resources"() {
+        setup:
+        URI[] uris = [
+                new URI("https://my-server.com/path/to/config/config.xml"),
+                new URI("https://my-server.com/path/to/setup/setup.sh"),
+                new URI("https://my-server.com/path/to/dependencies/bin.tar.gz")
+        ]
+        Resource[] resources = [Mock(Resource), Mock(Resource), Mock(Resource)]
+        File[] versionDirs = uris.collect {
+            cache.getCacheResourceVersionDir(cache.getResourceCacheId(it), DEFAULT_RESOURCE_LAST_MODIFIED_TS)
+        }
+        long now = System.currentTimeMillis()
+
+        when: "Three resources of 100 bytes are cached and one of them is looked up again"
+        for (int i = 0; i < uris.length; i++) {
+            cache.get(uris[i], new File(temporaryFolder.getRoot(), "target" + i))
+        }
+        cache.get(uris[0], new File(temporaryFolder.getRoot(), "target0"))
+        def usage = cache.getUsage()
+
+        then:
+        _ * resourceLoader.getResource(uris[0].toString()) >> resources[0]
+        _ * resourceLoader.getResource(uris[1].toString()) >> resources[1]
+        _ * resourceLoader.getResource(uris[2].toString()) >> resources[2]
+        _ * resources[0].exists() >> true
+        _ * resources[1].exists() >> true
+        _ * resources[2].exists() >> true
+        _ * resources[0].lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        _ * resources[1].lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        _ * resources[2].lastModified() >> DEFAULT_RESOURCE_LAST_MODIFIED_TS
+        1 * resources[0].getInputStream() >> new ByteArrayInputStream(new byte[100])
+        1 * resources[1].getInputStream() >> new ByteArrayInputStream(new byte[100])
+        1 * resources[2].getInputStream() >> new ByteArrayInputStream(new byte[100])
+        usage.getEntries() == 3
+        usage.getBytes() == 300
+        usage.getLookups() == 4
+        usage.getHits() == 1
+        usage.getHitRate() == 0.25d
+
+        when: "The cache is limited to 150 bytes and one resource wasn't used for two days"
+        cache.getCacheResourceVersionAccessFile(versionDirs[0]).setLastModified(now - 1000)
+        cache.getCacheResourceVersionAccessFile(versionDirs[1]).setLastModified(now - TimeUnit.DAYS.toMillis(2))
+        cache.getCacheResourceVersionAccessFile(versionDirs[2]).setLastModified(now - 2000)
+        ArgumentDelegates.CacheArguments limitedCacheArguments = Mock() {
+            getCacheDirectory() >> temporaryFolder.getRoot()
+            getCacheMaxSize() >> 150
+            getCacheMaxAge() >> TimeUnit.DAYS.toSeconds(1)
+        }
+        def limitedCache = new FetchingCacheServiceImpl(
+                resourceLoader,
+                limitedCacheArguments,
+                fileLockFactory,
+                fetchingCacheServiceCleanUpTaskExecutor
+        )
+        def prunedUsage = limitedCache.prune()
+
+        then: "The expired and then the least recently used resources are evicted but their lookups still count"
+        prunedUsage.getEntries() == 1
+        prunedUsage.getBytes() == 100
+        prunedUsage.getLookups() == 4
+        prunedUsage.getHits() == 1
+        prunedUsage.getHitRate() == 0.25d
+        cache.getCacheResourceVersionDataFile(versionDirs[0]).exists()
+        !cache.getCacheResourceVersionDataFile(versionDirs[1]).exists()
+        !cache.getCacheResourceVersionDataFile(versionDirs[2]).exists()
+        !cache.getCacheResourceVersionAccessFile(versionDirs[1]).exists()
+        cache.getUsage().getEntries() == 1
+        cache.getUsage().getLookups() == 4
+
+        when: "Without limits nothing is evicted"
+        def unchangedUsage = cache.prune()
+
+        then:
+        unchangedUsage.getEntries() == 1
+        unchangedUsage.getLookups() == 4
+        cache.getCacheResourceVersionDataFile(versionDirs[0]).exists()
+    }
+
     def "Construct: fail to create cache dir"() {
         setup:
         ArgumentDelegates.CacheArguments badCacheArguments = Mock()
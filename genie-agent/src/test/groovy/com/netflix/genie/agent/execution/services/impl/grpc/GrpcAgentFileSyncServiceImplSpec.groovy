@@ -0,0 +1,272 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.agent.execution.services.impl.grpc
+
+import com.netflix.genie.proto.BeginAcknowledgement
+import com.netflix.genie.proto.JobDirectoryState
+import com.netflix.genie.proto.JobFileState
+import com.netflix.genie.proto.JobFileSyncServiceGrpc
+import com.netflix.genie.proto.SyncAcknowledgement
+import com.netflix.genie.proto.SyncRequest
+import com.netflix.genie.proto.SyncRequestResult
+import com.netflix.genie.proto.SyncResponse
+import io.grpc.stub.StreamObserver
+import io.grpc.testing.GrpcServerRule
+import org.junit.Rule
+import org.junit.rules.TemporaryFolder
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+class GrpcAgentFileSyncServiceImplSpec extends Specification {
+
+    @Rule
+    GrpcServerRule grpcServerRule = new GrpcServerRule().directExecutor()
+    @Rule
+    TemporaryFolder temporaryFolder
+    String jobId
+    File jobDirectory
+    GrpcAgentFileSyncServiceImpl service
+
+    JobDirectoryState serverState
+    int failuresToInject
+    // Like the server only acknowledge once this many results are pending or the sync is complete
+    int ackBatchSize
+    final Map<String, byte[]> serverFiles = [:]
+    final List<SyncRequest> requestsReceived = []
+
+    void setup() {
+        this.jobId = UUID.randomUUID().toString()
+        this.jobDirectory = temporaryFolder.newFolder()
+        this.serverState = JobDirectoryState.getDefaultInstance()
+        this.failuresToInject = 0
+        this.ackBatchSize = 1
+        this.grpcServerRule.getServiceRegistry().addService(new TestService())
+        this.service = new GrpcAgentFileSyncServiceImpl(
+            JobFileSyncServiceGrpc.newStub(grpcServerRule.getChannel()),
+            50L,
+            10L,
+            4,
+            2,
+            5_000L
+        )
+    }
+
+    void cleanup() {
+        this.service.stop()
+    }
+
+    def "Uploads appended data in chunks and completes"() {
+        def stdout = new File(jobDirectory, "stdout")
+        stdout.text = "hello"
+        new File(jobDirectory, "genie/logs").mkdirs()
+        new File(jobDirectory, "genie/logs/env.log").text = "env"
+
+        when:
+        service.start(jobId, jobDirectory)
+        stdout.append(" world")
+        service.stop()
+
+        then:
+        requestsReceived.first().hasBeginSync()
+        requestsReceived.first().getBeginSync().getJobId() == jobId
+        requestsReceived.last().hasSyncComplete()
+        requestsReceived.last().getSyncComplete().getFinalAgentDirectoryState().getFilesCount() == 2
+        requestsReceived.findAll { it.hasDataUpload() }.every { it.getDataUpload().getData().size() <= 4 }
+        serverContent("stdout") == "hello world"
+        serverContent("genie/logs/env.log") == "env"
+        service.getBytesAcknowledged() == 14
+        service.getLagBytes() == 0
+    }
+
+    def "Resumes from the server state"() {
+        new File(jobDirectory, "stdout").text = "0123456789"
+        new File(jobDirectory, "stderr").text = "err"
+        serverState = JobDirectoryState.newBuilder()
+            .addFiles(JobFileState.newBuilder().setPath("stdout").setSize(6))
+            .addFiles(JobFileState.newBuilder().setPath("stderr").setSize(5))
+            .addFiles(JobFileState.newBuilder().setPath("deleted").setSize(5))
+            .build()
+        serverFiles.put("stdout", "012345".getBytes(StandardCharsets.UTF_8))
+        serverFiles.put("stderr", "error".getBytes(StandardCharsets.UTF_8))
+        serverFiles.put("deleted", "12345".getBytes(StandardCharsets.UTF_8))
+
+        when:
+        service.start(jobId, jobDirectory)
+        service.stop()
+
+        then:
+        def uploads = requestsReceived.findAll { it.hasDataUpload() }*.getDataUpload()
+        uploads.findAll { it.getPath() == "stdout" }*.getStartByte() == [6L]
+        uploads.findAll { it.getPath() == "stderr" }*.getStartByte() == [0L]
+        def deletes = requestsReceived.findAll { it.hasDeleteFile() }*.getDeleteFile()
+        deletes*.getPath().toSet() == ["deleted", "stderr"].toSet()
+        !serverFiles.containsKey("deleted")
+        serverContent("stdout") == "0123456789"
+        serverContent("stderr") == "err"
+        service.getBytesAcknowledged() == 7
+    }
+
+    def "Resends data the server failed to write"() {
+        new File(jobDirectory, "stdout").text = "hello world"
+        failuresToInject = 2
+
+        when:
+        service.start(jobId, jobDirectory)
+        service.stop()
+
+        then:
+        requestsReceived.findAll { it.hasDataUpload() }.size() > 3
+        serverContent("stdout") == "hello world"
+        service.getBytesAcknowledged() >= 11
+    }
+
+    def "Completes against a server which only acknowledges full batches or on completion"() {
+        def stdout = new File(jobDirectory, "stdout")
+        stdout.text = "hello world"
+        ackBatchSize = 10
+
+        when:
+        def start = System.nanoTime()
+        service.start(jobId, jobDirectory)
+        service.stop()
+        def stopMillis = (System.nanoTime() - start) / 1_000_000
+
+        then:
+        requestsReceived.last().hasSyncComplete()
+        requestsReceived.findAll { it.hasSyncComplete() }.size() == 1
+        serverContent("stdout") == "hello world"
+        service.getBytesAcknowledged() == 11
+        service.getLagBytes() == 0
+        stopMillis < 5_000
+    }
+
+    def "Resends uploads the server failed in its final acknowledgement"() {
+        new File(jobDirectory, "stdout").text = "hello"
+        ackBatchSize = 10
+        failuresToInject = 1
+
+        when:
+        service.start(jobId, jobDirectory)
+        service.stop()
+
+        then:
+        requestsReceived.findAll { it.hasSyncComplete() }.size() == 2
+        requestsReceived.last().hasSyncComplete()
+        serverContent("stdout") == "hello"
+    }
+
+    def "Double start"() {
+        when:
+        service.start(jobId, jobDirectory)
+
+        then:
+        noExceptionThrown()
+
+        when:
+        service.start(jobId, jobDirectory)
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def "Stop without start"() {
+        when:
+        service.stop()
+
+        then:
+        noExceptionThrown()
+    }
+
+    private String serverContent(final String path) {
+        synchronized (serverFiles) {
+            return new String(serverFiles.get(path), StandardCharsets.UTF_8)
+        }
+    }
+
+    class TestService extends JobFileSyncServiceGrpc.JobFileSyncServiceImplBase {
+
+        @Override
+        StreamObserver<SyncRequest> sync(final StreamObserver<SyncResponse> responseObserver) {
+            return new StreamObserver<SyncRequest>() {
+                final List<SyncRequestResult> pendingResults = []
+
+                @Override
+                void onNext(final SyncRequest value) {
+                    synchronized (serverFiles) {
+                        requestsReceived.add(value)
+                        if (value.hasBeginSync()) {
+                            responseObserver.onNext(
+                                SyncResponse.newBuilder()
+                                    .setBeginAck(BeginAcknowledgement.newBuilder().setServerDirectoryState(serverState))
+                                    .build()
+                            )
+                        } else if (value.hasDataUpload()) {
+                            def upload = value.getDataUpload()
+                            def successful = failuresToInject-- <= 0
+                            if (successful) {
+                                write(upload.getPath(), (int) upload.getStartByte(), upload.getData().toByteArray())
+                            }
+                            acknowledge(upload.getId(), successful)
+                        } else if (value.hasDeleteFile()) {
+                            serverFiles.remove(value.getDeleteFile().getPath())
+                            acknowledge(value.getDeleteFile().getId(), true)
+                        } else if (value.hasSyncComplete()) {
+                            flush()
+                        }
+                    }
+                }
+
+                @Override
+                void onError(final Throwable t) {
+                }
+
+                @Override
+                void onCompleted() {
+                    responseObserver.onCompleted()
+                }
+
+                private void write(final String path, final int start, final byte[] data) {
+                    def current = serverFiles.getOrDefault(path, new byte[0])
+                    def updated = Arrays.copyOf(current, Math.max(current.length, start + data.length))
+                    System.arraycopy(data, 0, updated, start, data.length)
+                    serverFiles.put(path, updated)
+                }
+
+                private void acknowledge(final String id, final boolean successful) {
+                    pendingResults.add(SyncRequestResult.newBuilder().setId(id).setSuccessful(successful).build())
+                    if (pendingResults.size() >= ackBatchSize) {
+                        flush()
+                    }
+                }
+
+                private void flush() {
+                    if (pendingResults.isEmpty()) {
+                        return
+                    }
+                    responseObserver.onNext(
+                        SyncResponse.newBuilder()
+                            .setSyncAck(SyncAcknowledgement.newBuilder().addAllResults(pendingResults))
+                            .build()
+                    )
+                    pendingResults.clear()
+                }
+            }
+        }
+    }
+}
@@ -21,6 +21,7 @@ package com.netflix.genie.agent.execution.statemachine.actions
 import com.netflix.genie.agent.execution.ExecutionContext
 import com.netflix.genie.agent.execution.exceptions.ChangeJobStatusException
 import com.netflix.genie.agent.execution.exceptions.JobLaunchException
+import com.netflix.genie.agent.execution.services.AgentFileSyncService
 import com.netflix.genie.agent.execution.services.AgentJobService
 import com.netflix.genie.agent.execution.services.LaunchJobService
 import com.netflix.genie.agent.execution.statemachine.Events
@@ -39,6 +40,7 @@ class LaunchJobActionSpec extends Specification {
     LaunchJobAction action
     LaunchJobService launchJobService
     AgentJobService agentJobService
+    AgentFileSyncService agentFileSyncService
     Process process
     File jobRunDirectory
     List<String> jobCommandLine
@@ -54,8 +56,9 @@ class LaunchJobActionSpec extends Specification {
         this.interactive = true
         this.launchJobService = Mock(LaunchJobService)
         this.agentJobService = Mock(AgentJobService)
+        this.agentFileSyncService = Mock(AgentFileSyncService)
         this.process = Mock(Process)
-        this.action = new LaunchJobAction(executionContext, launchJobService, agentJobService)
+        this.action = new LaunchJobAction(executionContext, launchJobService, agentJobService, agentFileSyncService)
     }
 
     void cleanup() {
@@ -79,6 +82,7 @@ class LaunchJobActionSpec extends Specification {
         1 * executionContext.getCurrentJobStatus() >> currentJobStatus
         1 * agentJobService.changeJobStatus(id, currentJobStatus, JobStatus.RUNNING, _ as String)
         1 * executionContext.setCurrentJobStatus(JobStatus.RUNNING)
+        1 * agentFileSyncService.start(id, jobRunDirectory)
 
         expect:
         event == Events.LAUNCH_JOB_COMPLETE
@@ -104,6 +108,7 @@ class LaunchJobActionSpec extends Specification {
         1 * executionContext.getCurrentJobStatus() >> currentJobStatus
         1 * agentJobService.changeJobStatus(id, currentJobStatus, JobStatus.RUNNING, _ as String)
         1 * executionContext.setCurrentJobStatus(JobStatus.RUNNING)
+        1 * agentFileSyncService.start(id, jobRunDirectory)
 
         expect:
         event == Events.LAUNCH_JOB_COMPLETE
@@ -146,7 +151,16 @@ class LaunchJobActionSpec extends Specification {
         1 * executionContext.getCurrentJobStatus() >> currentJobStatus
         1 * agentJobService.changeJobStatus(id, currentJobStatus, JobStatus.RUNNING, _ as String) >> { throw exception }
         0 * executionContext.setCurrentJobStatus(_)
+        0 * agentFileSyncService.start(_, _)
         def e = thrown(RuntimeException)
         e.getCause() == exception
     }
+
+    def "Cleanup stops file sync"() {
+        when:
+        action.executeStateActionCleanup(executionContext)
+
+        then:
+        1 * agentFileSyncService.stop()
+    }
 }
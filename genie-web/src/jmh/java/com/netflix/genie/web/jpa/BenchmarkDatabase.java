@@ -0,0 +1,126 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.jpa;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.io.Closeable;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * A Genie schema for the JPA benchmarks to generate data in and query.
+ * <p>
+ * The schema is created with the same Flyway migrations as the server after <b>dropping everything in it</b>, so
+ * only ever point the benchmarks at a scratch database. H2 in memory is used by default. Run against MySQL by
+ * overriding the {@code url}, {@code username} and {@code password} benchmark parameters, e.g.
+ * {@code -p url=jdbc:mysql://127.0.0.1/genie_jmh?useSSL=false&rewriteBatchedStatements=true}.
+ * <p>
+ * A single connection is shared by everything so connection setup is never part of what is measured.
+ *
+ * @since 4.0.0
+ */
+public final class BenchmarkDatabase implements Closeable {
+
+    /**
+     * The default JDBC url of the benchmarks.
+     */
+    public static final String H2_URL = "jdbc:h2:mem:genie-jmh;DB_CLOSE_DELAY=-1";
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private final SingleConnectionDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Connect to the database, recreate the Genie schema and start JPA on top of it.
+     *
+     * @param url      The JDBC url of the database
+     * @param username The user to connect as
+     * @param password The password of the user
+     */
+    public BenchmarkDatabase(final String url, final String username, final String password) {
+        this.dataSource = new SingleConnectionDataSource(url, username, password, true);
+
+        final Flyway flyway = new Flyway();
+        flyway.setDataSource(this.dataSource);
+        flyway.setLocations("classpath:db/migration/" + getVendor(url));
+        flyway.clean();
+        flyway.migrate();
+
+        this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+
+        final Properties properties = new Properties();
+        properties.setProperty("hibernate.jdbc.time_zone", "UTC");
+        final LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(this.dataSource);
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setPackagesToScan("com.netflix.genie.web.jpa.entities");
+        factoryBean.setJpaProperties(properties);
+        factoryBean.afterPropertiesSet();
+        this.entityManagerFactory = factoryBean.getObject();
+    }
+
+    /**
+     * Insert rows in batches.
+     *
+     * @param sql  The insert statement
+     * @param rows The parameter values of every row
+     */
+    public void insert(final String sql, final List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            this.jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+
+    /**
+     * Create a new entity manager. Callers are responsible for closing it.
+     *
+     * @return The entity manager
+     */
+    public EntityManager createEntityManager() {
+        return this.entityManagerFactory.createEntityManager();
+    }
+
+    /**
+     * Shut down JPA and close the connection. The data is left in place.
+     */
+    @Override
+    public void close() {
+        this.entityManagerFactory.close();
+        this.dataSource.destroy();
+    }
+
+    private static String getVendor(final String url) {
+        if (url.startsWith("jdbc:h2:")) {
+            return "h2";
+        } else if (url.startsWith("jdbc:mysql:")) {
+            return "mysql";
+        } else if (url.startsWith("jdbc:postgresql:")) {
+            return "postgresql";
+        }
+        throw new IllegalArgumentException("No Genie migrations for " + url);
+    }
+}
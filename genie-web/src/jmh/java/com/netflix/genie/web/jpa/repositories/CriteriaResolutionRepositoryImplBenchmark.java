@@ -0,0 +1,389 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.jpa.repositories;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.netflix.genie.common.dto.ClusterStatus;
+import com.netflix.genie.common.dto.CommandStatus;
+import com.netflix.genie.common.exceptions.GeniePreconditionException;
+import com.netflix.genie.common.internal.dto.v4.Criterion;
+import com.netflix.genie.web.jpa.BenchmarkDatabase;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.util.ReflectionUtils;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks resolving the clusters and commands of a job request. The SQL built before criteria resolution moved to
+ * bind parameters, with every value written into the statement text and one statement per cluster criterion until one
+ * matched, is compared against the canonical parameterised statements of {@link CriteriaResolutionRepositoryImpl}
+ * which resolve all the cluster criteria at once.
+ * <p>
+ * Every request has a number of cluster criteria which match nothing followed by one which matches a single cluster.
+ * The matched cluster changes from one request to the next so the literal statements are never the same twice in a
+ * row. See {@link BenchmarkDatabase} for running against MySQL instead of H2.
+ *
+ * @since 4.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class CriteriaResolutionRepositoryImplBenchmark {
+
+    private static final int COMMAND_COUNT = 3;
+    private static final int REQUESTS = 1_000;
+    private static final long SEED = 42L;
+    private static final String COMMAND_TAG = "type:spark";
+
+    private static final String CLUSTER_QUERY_STRING = "{CLUSTER_QUERY_HERE}";
+    private static final String COMMAND_QUERY_STRING = "{COMMAND_QUERY_HERE}";
+
+    private static final String LEGACY_RESOLVE_CLUSTERS_AND_COMMANDS_QUERY =
+        "SELECT "
+            + "  cc.cluster_id,"
+            + "  c.unique_id "
+            + "FROM"
+            + "  ("
+            + "    SELECT"
+            + "      cc.cluster_id as cluster_id,"
+            + "      MIN(cc.command_order) as command_order"
+            + "    FROM"
+            + "      (" + CLUSTER_QUERY_STRING + ") AS selected_clusters join"
+            + "      clusters_commands cc ON selected_clusters.id = cc.cluster_id join"
+            + "      (" + COMMAND_QUERY_STRING + ") AS selected_commands ON selected_commands.id = cc.command_id"
+            + "    GROUP BY cc.cluster_id"
+            + "  ) as cluster_id_order join"
+            + "  clusters_commands cc on"
+            + "    cluster_id_order.cluster_id = cc.cluster_id AND"
+            + "    cc.command_order = cluster_id_order.command_order join"
+            + "  commands c on cc.command_id = c.id;";
+
+    /**
+     * The JDBC url of the database to run against. H2 in memory by default.
+     */
+    @Param(BenchmarkDatabase.H2_URL)
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    public String url;
+
+    /**
+     * The user to connect to the database as.
+     */
+    @Param("root")
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    public String username;
+
+    /**
+     * The password of the database user.
+     */
+    @Param("")
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    public String password;
+
+    /**
+     * The number of clusters to generate.
+     */
+    @Param({"100", "1000"})
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    public int clusterCount;
+
+    /**
+     * The number of cluster criteria in each request. Only the last one matches a cluster.
+     */
+    @Param({"1", "3"})
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    public int criteriaPerRequest;
+
+    /**
+     * The number of tags in each cluster criterion. At most the number of tags each cluster has.
+     */
+    @Param({"1", "2", "4"})
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    public int tagsPerCriterion;
+
+    private BenchmarkDatabase database;
+    private EntityManager entityManager;
+    private CriteriaResolutionRepositoryImpl repository;
+    private Criterion commandCriterion;
+    private List<List<Criterion>> requests;
+    private int next;
+
+    /**
+     * Generate the clusters and commands and the requests to resolve.
+     *
+     * @throws GeniePreconditionException If a criterion can't be built
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws GeniePreconditionException {
+        final Map<String, Integer> tagIds = new LinkedHashMap<>();
+        final List<Object[]> clusters = new ArrayList<>(this.clusterCount);
+        final List<Object[]> clustersTags = new ArrayList<>();
+        final List<List<String>> clusterTags = new ArrayList<>(this.clusterCount);
+        for (int i = 1; i <= this.clusterCount; i++) {
+            final List<String> tags = Lists.newArrayList(
+                "genie.id:cluster-" + i,
+                "type:yarn",
+                "sched:sched" + (i % 10),
+                "env:prod"
+            );
+            for (final String tag : tags) {
+                clustersTags.add(new Object[]{i, getTagId(tagIds, tag)});
+            }
+            clusterTags.add(tags);
+            clusters.add(
+                new Object[]{i, "cluster-" + i, "cluster" + i, "genie", "1.0", ClusterStatus.UP.toString()}
+            );
+        }
+        if (this.tagsPerCriterion > clusterTags.get(0).size()) {
+            throw new IllegalArgumentException("Criteria can't have more tags than a cluster has");
+        }
+
+        final List<Object[]> commands = new ArrayList<>(COMMAND_COUNT);
+        final List<Object[]> commandsTags = new ArrayList<>();
+        for (int i = 1; i <= COMMAND_COUNT; i++) {
+            commands.add(
+                new Object[]{i, "command-" + i, "command" + i, "genie", "1.0", CommandStatus.ACTIVE.toString()}
+            );
+            commandsTags.add(new Object[]{i, getTagId(tagIds, "genie.id:command-" + i)});
+            commandsTags.add(new Object[]{i, getTagId(tagIds, COMMAND_TAG)});
+        }
+
+        // Every cluster has every command
+        final List<Object[]> clustersCommands = new ArrayList<>(this.clusterCount * COMMAND_COUNT);
+        for (int i = 1; i <= this.clusterCount; i++) {
+            for (int j = 1; j <= COMMAND_COUNT; j++) {
+                clustersCommands.add(new Object[]{i, j, j - 1});
+            }
+        }
+
+        final List<Object[]> tags = new ArrayList<>(tagIds.size());
+        for (final Map.Entry<String, Integer> tagId : tagIds.entrySet()) {
+            tags.add(new Object[]{tagId.getValue(), tagId.getKey()});
+        }
+
+        this.database = new BenchmarkDatabase(this.url, this.username, this.password);
+        this.database.insert("INSERT INTO tags (id, tag) VALUES (?, ?)", tags);
+        this.database.insert(
+            "INSERT INTO clusters (id, unique_id, name, genie_user, version, status) VALUES (?, ?, ?, ?, ?, ?)",
+            clusters
+        );
+        this.database.insert("INSERT INTO clusters_tags (cluster_id, tag_id) VALUES (?, ?)", clustersTags);
+        this.database.insert(
+            "INSERT INTO commands (id, unique_id, name, genie_user, version, status) VALUES (?, ?, ?, ?, ?, ?)",
+            commands
+        );
+        this.database.insert("INSERT INTO commands_tags (command_id, tag_id) VALUES (?, ?)", commandsTags);
+        this.database.insert(
+            "INSERT INTO clusters_commands (cluster_id, command_id, command_order) VALUES (?, ?, ?)",
+            clustersCommands
+        );
+
+        this.commandCriterion = new Criterion.Builder().withTags(Sets.newHashSet(COMMAND_TAG)).build();
+        final Random random = new Random(SEED);
+        this.requests = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            final List<Criterion> clusterCriteria = new ArrayList<>(this.criteriaPerRequest);
+            for (int j = 1; j < this.criteriaPerRequest; j++) {
+                final List<String> missingTags = new ArrayList<>(this.tagsPerCriterion);
+                for (int k = 0; k < this.tagsPerCriterion; k++) {
+                    missingTags.add("missing:" + i + "-" + j + "-" + k);
+                }
+                clusterCriteria.add(new Criterion.Builder().withTags(Sets.newHashSet(missingTags)).build());
+            }
+            final List<String> matchingTags = clusterTags.get(random.nextInt(this.clusterCount));
+            clusterCriteria.add(
+                new Criterion.Builder()
+                    .withTags(Sets.newHashSet(matchingTags.subList(0, this.tagsPerCriterion)))
+                    .build()
+            );
+            this.requests.add(clusterCriteria);
+        }
+
+        this.entityManager = this.database.createEntityManager();
+        this.repository = new CriteriaResolutionRepositoryImpl();
+        final Field entityManagerField = ReflectionUtils.findField(
+            CriteriaResolutionRepositoryImpl.class,
+            "entityManager"
+        );
+        ReflectionUtils.makeAccessible(entityManagerField);
+        ReflectionUtils.setField(entityManagerField, this.repository, this.entityManager);
+    }
+
+    /**
+     * Close the entity manager and the database.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.entityManager.close();
+        this.database.close();
+    }
+
+    /**
+     * Resolve with the values written into the statements, one statement per cluster criterion until one matches.
+     *
+     * @return The number of resolved clusters so the work isn't eliminated
+     */
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public int legacyLiteralSql() {
+        final String commandQuery = buildLegacyEntityQuery(this.commandCriterion, false);
+        int resolved = 0;
+        for (final Criterion clusterCriterion : this.nextRequest()) {
+            final List<Object[]> clusterCommands = this.entityManager
+                .createNativeQuery(
+                    LEGACY_RESOLVE_CLUSTERS_AND_COMMANDS_QUERY
+                        .replace(CLUSTER_QUERY_STRING, buildLegacyEntityQuery(clusterCriterion, true))
+                        .replace(COMMAND_QUERY_STRING, commandQuery)
+                )
+                .getResultList();
+            if (!clusterCommands.isEmpty()) {
+                resolved = clusterCommands.size();
+                break;
+            }
+        }
+        this.entityManager.clear();
+        return resolved;
+    }
+
+    /**
+     * Resolve all the cluster criteria at once with the canonical parameterised statements.
+     *
+     * @return The number of rows resolved so the work isn't eliminated
+     */
+    @Benchmark
+    public int canonicalParameterisedShapes() {
+        final int resolved = this.repository
+            .resolveClustersAndCommands(this.nextRequest(), this.commandCriterion)
+            .size();
+        this.entityManager.clear();
+        return resolved;
+    }
+
+    private List<Criterion> nextRequest() {
+        final List<Criterion> request = this.requests.get(this.next);
+        this.next = (this.next + 1) % this.requests.size();
+        return request;
+    }
+
+    private static int getTagId(final Map<String, Integer> tagIds, final String tag) {
+        return tagIds.computeIfAbsent(tag, key -> tagIds.size() + 1);
+    }
+
+    /*
+     * The entity query as it was built before the resolver moved to bind parameters.
+     */
+    private static String buildLegacyEntityQuery(final Criterion criterion, final boolean cluster) {
+        final String primaryTable = cluster ? "clusters" : "commands";
+        final String tagTable = cluster ? "clusters_tags" : "commands_tags";
+        final String tagJoinColumn = cluster ? "cluster_id" : "command_id";
+        final String defaultStatus = cluster ? ClusterStatus.UP.toString() : CommandStatus.ACTIVE.toString();
+
+        final boolean hasTags = !criterion.getTags().isEmpty();
+        final StringBuilder query = new StringBuilder();
+        query
+            .append("SELECT c.id as id FROM ")
+            .append(primaryTable)
+            .append(" c");
+
+        if (hasTags) {
+            query
+                .append(" join ")
+                .append(tagTable)
+                .append(" ct on c.id = ct.")
+                .append(tagJoinColumn)
+                .append(" join tags t on ct.tag_id = t.id");
+        }
+
+        query.append(" WHERE");
+
+        criterion.getId().ifPresent(
+            id -> {
+                if (StringUtils.isNotBlank(id)) {
+                    query.append(" c.unique_id = '").append(id).append("' AND");
+                }
+            }
+        );
+        criterion.getName().ifPresent(
+            name -> {
+                if (StringUtils.isNotBlank(name)) {
+                    query.append(" c.name = '").append(name).append("' AND");
+                }
+            }
+        );
+        criterion.getVersion().ifPresent(
+            version -> {
+                if (StringUtils.isNotBlank(version)) {
+                    query.append(" c.version = '").append(version).append("' AND");
+                }
+            }
+        );
+
+        if (hasTags) {
+            query
+                .append(" t.tag IN (")
+                .append(
+                    criterion
+                        .getTags()
+                        .stream()
+                        .map(tag -> "'" + tag + "'")
+                        .reduce((first, second) -> first + ", " + second)
+                        .orElse("")
+                )
+                .append(") AND");
+        }
+
+        final String status;
+        final Optional<String> criterionStatus = criterion.getStatus();
+        if (criterionStatus.isPresent()) {
+            final String unwrappedStatus = criterionStatus.get();
+            status = StringUtils.isBlank(unwrappedStatus) ? defaultStatus : unwrappedStatus;
+        } else {
+            status = defaultStatus;
+        }
+        query
+            .append(" c.status = '")
+            .append(status)
+            .append("'");
+
+        if (hasTags) {
+            query
+                .append(" GROUP BY c.id HAVING COUNT(c.id) = ")
+                .append(criterion.getTags().size());
+        }
+
+        return query.toString();
+    }
+}
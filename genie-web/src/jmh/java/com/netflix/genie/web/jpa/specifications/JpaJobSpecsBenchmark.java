@@ -0,0 +1,296 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.jpa.specifications;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.netflix.genie.common.dto.JobStatus;
+import com.netflix.genie.web.jpa.BenchmarkDatabase;
+import com.netflix.genie.web.jpa.entities.IdEntity_;
+import com.netflix.genie.web.jpa.entities.JobEntity;
+import com.netflix.genie.web.jpa.entities.JobEntity_;
+import com.netflix.genie.web.jpa.entities.TagEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Benchmarks searching jobs by tags with the {@link JpaJobSpecs} predicates: a {@code LIKE} on the job's tag search
+ * string against the jobs to tags join table, including looking up the tag entities first. Each search counts the
+ * matching jobs and fetches the first page of their ids, like a job search does.
+ * <p>
+ * Jobs get a random set of tags from the pool and each search looks for a subset of the tags of a random job so it
+ * always matches something. See {@link BenchmarkDatabase} for running against MySQL instead of H2.
+ *
+ * @since 4.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class JpaJobSpecsBenchmark {
+
+    private static final int PAGE_SIZE = 10;
+    private static final int SEARCHES = 1_000;
+    private static final long SEED = 42L;
+
+    /**
+     * The JDBC url of the database to run against. H2 in memory by default.
+     */
+    @Param(BenchmarkDatabase.H2_URL)
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    public String url;
+
+    /**
+     * The user to connect to the database as.
+     */
+    @Param("root")
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    public String username;
+
+    /**
+     * The password of the database user.
+     */
+    @Param("")
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    public String password;
+
+    /**
+     * The number of jobs to generate.
+     */
+    @Param({"10000", "100000"})
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    public int jobCount;
+
+    /**
+     * The number of distinct tags to generate.
+     */
+    @Param({"100", "10000"})
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    public int tagCount;
+
+    /**
+     * The number of tags each job has.
+     */
+    @Param("5")
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    public int tagsPerJob;
+
+    /**
+     * The number of tags each search looks for. At most the number of tags each job has.
+     */
+    @Param({"1", "3"})
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    public int searchTagCount;
+
+    private BenchmarkDatabase database;
+    private EntityManager entityManager;
+    private List<Set<String>> searches;
+    private int next;
+
+    /**
+     * Generate the jobs and tags and pick the tags to search for.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (this.searchTagCount > this.tagsPerJob) {
+            throw new IllegalArgumentException("Searches can't look for more tags than a job has");
+        }
+        this.database = new BenchmarkDatabase(this.url, this.username, this.password);
+
+        final List<Object[]> tags = new ArrayList<>(this.tagCount);
+        for (int i = 1; i <= this.tagCount; i++) {
+            tags.add(new Object[]{i, getTag(i)});
+        }
+        this.database.insert("INSERT INTO tags (id, tag) VALUES (?, ?)", tags);
+
+        final Random random = new Random(SEED);
+        final List<List<Integer>> jobTagIds = new ArrayList<>(this.jobCount);
+        final List<Object[]> jobs = new ArrayList<>(this.jobCount);
+        final List<Object[]> jobsTags = new ArrayList<>(this.jobCount * this.tagsPerJob);
+        final JobStatus[] statuses = JobStatus.values();
+        for (int i = 1; i <= this.jobCount; i++) {
+            final Set<Integer> tagIds = new TreeSet<>();
+            while (tagIds.size() < this.tagsPerJob) {
+                tagIds.add(random.nextInt(this.tagCount) + 1);
+            }
+            final Set<TagEntity> tagEntities = Sets.newHashSet();
+            for (final int tagId : tagIds) {
+                tagEntities.add(new TagEntity(getTag(tagId)));
+                jobsTags.add(new Object[]{i, tagId});
+            }
+            jobTagIds.add(Lists.newArrayList(tagIds));
+            jobs.add(
+                new Object[]{
+                    i,
+                    "job-" + i,
+                    "job" + (i % 100),
+                    "user" + (i % 50),
+                    "1.0",
+                    statuses[i % statuses.length].name(),
+                    JpaSpecificationUtils.createTagSearchString(tagEntities)
+                }
+            );
+        }
+        this.database.insert(
+            "INSERT INTO jobs (id, unique_id, name, genie_user, version, status, tags) VALUES (?, ?, ?, ?, ?, ?, ?)",
+            jobs
+        );
+        this.database.insert("INSERT INTO jobs_tags (job_id, tag_id) VALUES (?, ?)", jobsTags);
+
+        this.searches = new ArrayList<>(SEARCHES);
+        for (int i = 0; i < SEARCHES; i++) {
+            final List<Integer> tagIds = jobTagIds.get(random.nextInt(this.jobCount));
+            final Set<String> search = Sets.newHashSet();
+            for (final int tagId : tagIds.subList(0, this.searchTagCount)) {
+                search.add(getTag(tagId));
+            }
+            this.searches.add(search);
+        }
+
+        this.entityManager = this.database.createEntityManager();
+    }
+
+    /**
+     * Close the entity manager and the database.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.entityManager.close();
+        this.database.close();
+    }
+
+    /**
+     * Match the tags with a {@code LIKE} on the tag search string of the jobs.
+     *
+     * @return The number of matching jobs plus the size of the first page so the work isn't eliminated
+     */
+    @Benchmark
+    public long tagSearchStringLike() {
+        final Set<String> tags = this.nextSearch();
+        return this.search(
+            (root, query) -> JpaJobSpecs.getFindPredicate(
+                root,
+                this.entityManager.getCriteriaBuilder(),
+                null,
+                null,
+                null,
+                null,
+                tags,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null
+            )
+        );
+    }
+
+    /**
+     * Look up the tag entities and match them through the jobs to tags join table.
+     *
+     * @return The number of matching jobs plus the size of the first page so the work isn't eliminated
+     */
+    @Benchmark
+    public long jobsTagsJoin() {
+        final Set<String> tags = this.nextSearch();
+        final Set<TagEntity> tagEntities = Sets.newHashSet(
+            this.entityManager
+                .createQuery("SELECT t FROM TagEntity t WHERE t.tag IN :tags", TagEntity.class)
+                .setParameter("tags", tags)
+                .getResultList()
+        );
+        return this.search(
+            (root, query) -> JpaJobSpecs.getFindPredicate(
+                root,
+                query,
+                this.entityManager.getCriteriaBuilder(),
+                null,
+                null,
+                null,
+                null,
+                tagEntities,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null
+            )
+        );
+    }
+
+    private long search(final BiFunction<Root<JobEntity>, CriteriaQuery<?>, Predicate> predicate) {
+        final CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+
+        final CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+        final Root<JobEntity> countRoot = countQuery.from(JobEntity.class);
+        countQuery.select(cb.count(countRoot)).where(predicate.apply(countRoot, countQuery));
+        final long count = this.entityManager.createQuery(countQuery).getSingleResult();
+
+        final CriteriaQuery<Long> pageQuery = cb.createQuery(Long.class);
+        final Root<JobEntity> pageRoot = pageQuery.from(JobEntity.class);
+        pageQuery
+            .select(pageRoot.get(IdEntity_.id))
+            .where(predicate.apply(pageRoot, pageQuery))
+            .orderBy(cb.desc(pageRoot.get(JobEntity_.created)));
+        final int pageSize = this.entityManager.createQuery(pageQuery).setMaxResults(PAGE_SIZE).getResultList().size();
+
+        // Nothing needs to stay managed between searches
+        this.entityManager.clear();
+        return count + pageSize;
+    }
+
+    private Set<String> nextSearch() {
+        final Set<String> search = this.searches.get(this.next);
+        this.next = (this.next + 1) % this.searches.size();
+        return search;
+    }
+
+    private static String getTag(final int id) {
+        return "tag:" + id;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.services.impl;
+
+import com.google.protobuf.ByteString;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.core.io.PathResource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks appending the data of agent file sync {@code DataUpload} messages to a job file with
+ * {@link DiskJobFileServiceImpl} against the previous approach of copying the message data to an array and opening
+ * the file for every message.
+ *
+ * @since 4.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class DiskJobFileServiceImplBenchmark {
+
+    private static final String JOB_ID = "benchmark-job";
+    private static final String FILE = "stdout";
+    // Wrap around so long runs don't fill the disk
+    private static final long MAX_FILE_SIZE = 256L * 1024 * 1024;
+
+    /**
+     * The size of the data in each message.
+     */
+    @Param({"4096", "65536", "1048576", "4194304"})
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    public int chunkSize;
+
+    private Path jobsDir;
+    private Path jobFile;
+    private DiskJobFileServiceImpl service;
+    private ByteString data;
+    private long position;
+
+    /**
+     * Create the jobs directory, the service and the message data.
+     *
+     * @throws IOException on error creating the directory
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.jobsDir = Files.createTempDirectory("genie-jmh");
+        this.jobFile = this.jobsDir.resolve(JOB_ID).resolve(FILE);
+        this.service = new DiskJobFileServiceImpl(new PathResource(this.jobsDir));
+        final byte[] bytes = new byte[this.chunkSize];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        this.data = ByteString.copyFrom(bytes);
+    }
+
+    /**
+     * Close any open files and delete the jobs directory.
+     *
+     * @throws IOException on error deleting the directory
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.service.closeJobFiles(JOB_ID);
+        FileUtils.deleteDirectory(this.jobsDir.toFile());
+    }
+
+    /**
+     * Write the message data straight from its buffers through the service's cached open file.
+     *
+     * @throws IOException on error writing
+     */
+    @Benchmark
+    public void cachedChannelFromBuffers() throws IOException {
+        this.service.updateFile(JOB_ID, FILE, this.nextPosition(), this.data.asReadOnlyByteBufferList());
+    }
+
+    /**
+     * Copy the message data to an array, check the file and open it, write and close it again for every message.
+     *
+     * @throws IOException on error writing
+     */
+    @Benchmark
+    public void copyAndOpenPerWrite() throws IOException {
+        final byte[] bytes = this.data.toByteArray();
+        if (Files.notExists(this.jobFile)) {
+            Files.createDirectories(this.jobFile.getParent());
+        } else if (Files.isDirectory(this.jobFile)) {
+            throw new IllegalStateException(this.jobFile + " is a directory");
+        }
+        try (
+            FileChannel fileChannel = FileChannel.open(
+                this.jobFile,
+                EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.SPARSE)
+            )
+        ) {
+            fileChannel.position(this.nextPosition());
+            final ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
+            while (byteBuffer.hasRemaining()) {
+                fileChannel.write(byteBuffer);
+            }
+        }
+    }
+
+    private long nextPosition() {
+        final long current = this.position;
+        this.position = (this.position + this.chunkSize) % MAX_FILE_SIZE;
+        return current;
+    }
+}
@@ -193,6 +193,7 @@ public class GenieApiAutoConfiguration {
      * @param directoryWriter The directory writer to use for converting directory resources
      * @param context         The spring application context
      * @param jobFileService  The job file service to use
+     * @param jobsProperties  The jobs properties to use
      * @return The genie resource http request handler.
      */
     @Bean
@@ -200,11 +201,13 @@ public class GenieApiAutoConfiguration {
     public GenieResourceHttpRequestHandler genieResourceHttpRequestHandler(
         final DirectoryWriter directoryWriter,
         final ApplicationContext context,
-        final JobFileService jobFileService
+        final JobFileService jobFileService,
+        final JobsProperties jobsProperties
     ) {
         final GenieResourceHttpRequestHandler handler = new GenieResourceHttpRequestHandler(
             directoryWriter,
-            jobFileService
+            jobFileService,
+            jobsProperties.getOutput().isStreamingEnabled()
         );
         handler.setApplicationContext(context);
 
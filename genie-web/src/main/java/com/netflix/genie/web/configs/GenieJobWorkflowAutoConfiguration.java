@@ -18,6 +18,8 @@
 package com.netflix.genie.web.configs;
 
 import com.netflix.genie.common.internal.util.GenieHostInfo;
+import com.netflix.genie.web.events.GenieEventBus;
+import com.netflix.genie.web.jobs.JobProcessExitNotifier;
 import com.netflix.genie.web.jobs.workflow.WorkflowTask;
 import com.netflix.genie.web.jobs.workflow.impl.ApplicationTask;
 import com.netflix.genie.web.jobs.workflow.impl.ClusterTask;
@@ -34,6 +36,7 @@ import com.netflix.genie.web.services.impl.LocalFileTransferImpl;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.commons.exec.Executor;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
@@ -166,10 +169,11 @@ public class GenieJobWorkflowAutoConfiguration {
     /**
      * Create an Job Kickoff Task bean that runs the job.
      *
-     * @param jobsProperties The various jobs properties
-     * @param executor       An instance of an executor
-     * @param genieHostInfo  Info about the host Genie is running on
-     * @param registry       The metrics registry to use
+     * @param jobsProperties      The various jobs properties
+     * @param executor            An instance of an executor
+     * @param genieHostInfo       Info about the host Genie is running on
+     * @param registry            The metrics registry to use
+     * @param processExitNotifier The notifier to register launched job processes with
      * @return An application task object
      */
     @Bean
@@ -178,13 +182,37 @@ public class GenieJobWorkflowAutoConfiguration {
         final JobsProperties jobsProperties,
         final Executor executor,
         final GenieHostInfo genieHostInfo,
-        final MeterRegistry registry
+        final MeterRegistry registry,
+        final JobProcessExitNotifier processExitNotifier
     ) {
         return new JobKickoffTask(
             jobsProperties.getUsers().isRunAsUserEnabled(),
             jobsProperties.getUsers().isCreationEnabled(),
             executor,
             genieHostInfo.getHostname(),
+            registry,
+            processExitNotifier
+        );
+    }
+
+    /**
+     * Create the notifier which marks jobs finished as soon as their processes exit.
+     *
+     * @param jobsProperties The various jobs properties
+     * @param genieEventBus  The event bus to publish job finished events to
+     * @param registry       The metrics registry to use
+     * @return A {@link JobProcessExitNotifier} instance
+     */
+    @Bean
+    @ConditionalOnMissingBean(JobProcessExitNotifier.class)
+    public JobProcessExitNotifier jobProcessExitNotifier(
+        final JobsProperties jobsProperties,
+        final GenieEventBus genieEventBus,
+        final MeterRegistry registry
+    ) {
+        return new JobProcessExitNotifier(
+            jobsProperties.getProcessCheck().isExitNotificationEnabled(),
+            genieEventBus,
             registry
         );
     }
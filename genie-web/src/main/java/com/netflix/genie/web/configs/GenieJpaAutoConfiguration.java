@@ -17,6 +17,7 @@
  */
 package com.netflix.genie.web.configs;
 
+import com.netflix.genie.web.events.GenieEventBus;
 import com.netflix.genie.web.jpa.repositories.JpaAgentConnectionRepository;
 import com.netflix.genie.web.jpa.repositories.JpaApplicationRepository;
 import com.netflix.genie.web.jpa.repositories.JpaClusterRepository;
@@ -24,6 +25,7 @@ import com.netflix.genie.web.jpa.repositories.JpaCommandRepository;
 import com.netflix.genie.web.jpa.repositories.JpaFileRepository;
 import com.netflix.genie.web.jpa.repositories.JpaJobRepository;
 import com.netflix.genie.web.jpa.repositories.JpaTagRepository;
+import com.netflix.genie.web.jpa.services.CriteriaResolutionIndex;
 import com.netflix.genie.web.jpa.services.JpaAgentConnectionPersistenceServiceImpl;
 import com.netflix.genie.web.jpa.services.JpaApplicationPersistenceServiceImpl;
 import com.netflix.genie.web.jpa.services.JpaClusterPersistenceServiceImpl;
@@ -34,6 +36,9 @@ import com.netflix.genie.web.jpa.services.JpaJobPersistenceServiceImpl;
 import com.netflix.genie.web.jpa.services.JpaJobSearchServiceImpl;
 import com.netflix.genie.web.jpa.services.JpaTagPersistenceService;
 import com.netflix.genie.web.jpa.services.JpaTagPersistenceServiceImpl;
+import com.netflix.genie.web.jpa.services.StatementCountingInspector;
+import com.netflix.genie.web.properties.CriteriaResolutionIndexProperties;
+import com.netflix.genie.web.properties.JobSearchProperties;
 import com.netflix.genie.web.services.AgentConnectionPersistenceService;
 import com.netflix.genie.web.services.ApplicationPersistenceService;
 import com.netflix.genie.web.services.ClusterPersistenceService;
@@ -42,11 +47,21 @@ import com.netflix.genie.web.services.FilePersistenceService;
 import com.netflix.genie.web.services.JobPersistenceService;
 import com.netflix.genie.web.services.JobSearchService;
 import com.netflix.genie.web.services.TagPersistenceService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
 
 /**
  * Auto configuration of JPA related services and beans for Genie.
@@ -58,6 +73,12 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 // TODO: Create marker class for base classes scanning for compile time check
 @EnableJpaRepositories("com.netflix.genie.web.jpa.repositories")
 @EntityScan("com.netflix.genie.web.jpa.entities")
+@EnableConfigurationProperties(
+    {
+        CriteriaResolutionIndexProperties.class,
+        JobSearchProperties.class
+    }
+)
 public class GenieJpaAutoConfiguration {
 
     /**
@@ -68,6 +89,7 @@ public class GenieJpaAutoConfiguration {
      * @param applicationRepository  The {@link JpaApplicationRepository} to use
      * @param clusterRepository      The {@link JpaClusterRepository} to use
      * @param commandRepository      The {@link JpaCommandRepository} to use
+     * @param genieEventBus          The {@link GenieEventBus} to publish application changes on
      * @return A {@link JpaApplicationPersistenceServiceImpl} instance.
      */
     @Bean
@@ -77,25 +99,55 @@ public class GenieJpaAutoConfiguration {
         final JpaFilePersistenceService filePersistenceService,
         final JpaApplicationRepository applicationRepository,
         final JpaClusterRepository clusterRepository,
-        final JpaCommandRepository commandRepository
+        final JpaCommandRepository commandRepository,
+        final GenieEventBus genieEventBus
     ) {
         return new JpaApplicationPersistenceServiceImpl(
             tagPersistenceService,
             filePersistenceService,
             applicationRepository,
             clusterRepository,
-            commandRepository
+            commandRepository,
+            genieEventBus
         );
     }
 
+    /**
+     * The {@link StatementCountingInspector} used to measure how many statements Genie issues for an operation.
+     *
+     * @return A {@link StatementCountingInspector} instance
+     */
+    @Bean
+    @ConditionalOnMissingBean(StatementCountingInspector.class)
+    public StatementCountingInspector statementCountingInspector() {
+        return new StatementCountingInspector();
+    }
+
+    /**
+     * Register the {@link StatementCountingInspector} with the Hibernate session factory.
+     *
+     * @param statementCountingInspector The {@link StatementCountingInspector} to register
+     * @return A {@link HibernatePropertiesCustomizer} which sets the statement inspector
+     */
+    @Bean
+    public HibernatePropertiesCustomizer statementCountingInspectorCustomizer(
+        final StatementCountingInspector statementCountingInspector
+    ) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCountingInspector);
+    }
+
     /**
      * The JPA implementation of the {@link ClusterPersistenceService} interface.
      *
-     * @param tagPersistenceService  The {@link JpaTagPersistenceService} to use
-     * @param filePersistenceService The {@link JpaFilePersistenceService} to use
-     * @param applicationRepository  The {@link JpaApplicationRepository} to use
-     * @param clusterRepository      The {@link JpaClusterRepository} to use
-     * @param commandRepository      The {@link JpaCommandRepository} to use
+     * @param tagPersistenceService      The {@link JpaTagPersistenceService} to use
+     * @param filePersistenceService     The {@link JpaFilePersistenceService} to use
+     * @param applicationRepository      The {@link JpaApplicationRepository} to use
+     * @param clusterRepository          The {@link JpaClusterRepository} to use
+     * @param commandRepository          The {@link JpaCommandRepository} to use
+     * @param genieEventBus              The {@link GenieEventBus} to publish cluster changes on
+     * @param registry                   The metrics registry to use
+     * @param statementCountingInspector The {@link StatementCountingInspector} registered with Hibernate
+     * @param criteriaResolutionIndex    The {@link CriteriaResolutionIndex} if one is enabled
      * @return A {@link JpaClusterPersistenceServiceImpl} instance
      */
     @Bean
@@ -105,14 +157,22 @@ public class GenieJpaAutoConfiguration {
         final JpaFilePersistenceService filePersistenceService,
         final JpaApplicationRepository applicationRepository,
         final JpaClusterRepository clusterRepository,
-        final JpaCommandRepository commandRepository
+        final JpaCommandRepository commandRepository,
+        final GenieEventBus genieEventBus,
+        final MeterRegistry registry,
+        final StatementCountingInspector statementCountingInspector,
+        final Optional<CriteriaResolutionIndex> criteriaResolutionIndex
     ) {
         return new JpaClusterPersistenceServiceImpl(
             tagPersistenceService,
             filePersistenceService,
             applicationRepository,
             clusterRepository,
-            commandRepository
+            commandRepository,
+            genieEventBus,
+            registry,
+            statementCountingInspector,
+            criteriaResolutionIndex.orElse(null)
         );
     }
 
@@ -124,6 +184,7 @@ public class GenieJpaAutoConfiguration {
      * @param applicationRepository  The {@link JpaApplicationRepository} to use
      * @param clusterRepository      The {@link JpaClusterRepository} to use
      * @param commandRepository      The {@link JpaCommandRepository} to use
+     * @param genieEventBus          The {@link GenieEventBus} to publish command changes on
      * @return A {@link JpaCommandPersistenceServiceImpl} instance
      */
     @Bean
@@ -133,14 +194,48 @@ public class GenieJpaAutoConfiguration {
         final JpaFilePersistenceService filePersistenceService,
         final JpaApplicationRepository applicationRepository,
         final JpaClusterRepository clusterRepository,
-        final JpaCommandRepository commandRepository
+        final JpaCommandRepository commandRepository,
+        final GenieEventBus genieEventBus
     ) {
         return new JpaCommandPersistenceServiceImpl(
             tagPersistenceService,
             filePersistenceService,
             applicationRepository,
             clusterRepository,
-            commandRepository
+            commandRepository,
+            genieEventBus
+        );
+    }
+
+    /**
+     * An in memory index used to resolve cluster and command criteria without querying the database.
+     *
+     * @param clusterRepository  The {@link JpaClusterRepository} to load clusters from
+     * @param commandRepository  The {@link JpaCommandRepository} to load commands from
+     * @param transactionManager The transaction manager to load the index with
+     * @param taskScheduler      The scheduler to rebuild the index on
+     * @param properties         The {@link CriteriaResolutionIndexProperties} to use
+     * @param registry           The metrics registry to use
+     * @return A {@link CriteriaResolutionIndex} instance
+     */
+    @Bean
+    @ConditionalOnProperty(value = CriteriaResolutionIndexProperties.ENABLED_PROPERTY, havingValue = "true")
+    @ConditionalOnMissingBean(CriteriaResolutionIndex.class)
+    public CriteriaResolutionIndex criteriaResolutionIndex(
+        final JpaClusterRepository clusterRepository,
+        final JpaCommandRepository commandRepository,
+        final PlatformTransactionManager transactionManager,
+        @Qualifier("genieTaskScheduler") final TaskScheduler taskScheduler,
+        final CriteriaResolutionIndexProperties properties,
+        final MeterRegistry registry
+    ) {
+        return new CriteriaResolutionIndex(
+            clusterRepository,
+            commandRepository,
+            transactionManager,
+            taskScheduler,
+            properties,
+            registry
         );
     }
 
@@ -204,19 +299,22 @@ public class GenieJpaAutoConfiguration {
     /**
      * Get a JPA implementation of the {@link JobSearchService} if one didn't already exist.
      *
-     * @param jobRepository     The repository to use for job entities
-     * @param clusterRepository The repository to use for cluster entities
-     * @param commandRepository The repository to use for command entities
+     * @param jobRepository The repository to use for job entities
+     * @param tagRepository The repository to use for tag entities
+     * @param properties    The {@link JobSearchProperties} to use
      * @return A {@link JpaJobSearchServiceImpl} instance
      */
     @Bean
     @ConditionalOnMissingBean(JobSearchService.class)
     public JpaJobSearchServiceImpl jobSearchService(
         final JpaJobRepository jobRepository,
-        final JpaClusterRepository clusterRepository,
-        final JpaCommandRepository commandRepository
+        final JpaTagRepository tagRepository,
+        final JobSearchProperties properties
     ) {
-        return new JpaJobSearchServiceImpl(jobRepository, clusterRepository, commandRepository);
+        return new JpaJobSearchServiceImpl(
+            jobRepository,
+            properties.isIndexedTags() ? tagRepository : null
+        );
     }
 
 
@@ -22,10 +22,12 @@ import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.internal.util.GenieHostInfo;
 import com.netflix.genie.web.events.GenieEventBus;
 import com.netflix.genie.web.jobs.workflow.WorkflowTask;
+import com.netflix.genie.web.properties.AgentRoutingProperties;
 import com.netflix.genie.web.properties.DataServiceRetryProperties;
 import com.netflix.genie.web.properties.FileCacheProperties;
 import com.netflix.genie.web.properties.HealthProperties;
 import com.netflix.genie.web.properties.JobsProperties;
+import com.netflix.genie.web.properties.ResourceDtoCacheProperties;
 import com.netflix.genie.web.services.AgentConnectionPersistenceService;
 import com.netflix.genie.web.services.AgentJobService;
 import com.netflix.genie.web.services.AgentRoutingService;
@@ -57,7 +59,9 @@ import com.netflix.genie.web.services.impl.JobSpecificationServiceImpl;
 import com.netflix.genie.web.services.impl.LocalFileTransferImpl;
 import com.netflix.genie.web.services.impl.JobKillServiceV3;
 import com.netflix.genie.web.services.impl.LocalJobRunner;
+import com.netflix.genie.web.services.impl.ResourceDtoCache;
 import com.netflix.genie.web.tasks.job.JobCompletionService;
+import com.netflix.genie.web.tasks.job.JobCompletionStage;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.commons.exec.Executor;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -68,6 +72,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.Resource;
 import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.TaskScheduler;
 
 import javax.validation.constraints.NotEmpty;
 import java.io.IOException;
@@ -82,10 +87,12 @@ import java.util.List;
 @Configuration
 @EnableConfigurationProperties(
     {
+        AgentRoutingProperties.class,
         DataServiceRetryProperties.class,
         FileCacheProperties.class,
         HealthProperties.class,
         JobsProperties.class,
+        ResourceDtoCacheProperties.class,
     }
 )
 public class GenieServicesAutoConfiguration {
@@ -182,6 +189,8 @@ public class GenieServicesAutoConfiguration {
         return new CacheGenieFileTransferService(
             fileTransferFactory,
             fileCacheProperties.getLocation(),
+            fileCacheProperties.getMaxSize(),
+            fileCacheProperties.getRevalidationInterval(),
             localFileTransfer,
             registry
         );
@@ -223,9 +232,7 @@ public class GenieServicesAutoConfiguration {
      * @param jobStateService               The running job metrics service to use
      * @param jobSearchService              Implementation of job search service interface
      * @param jobsProperties                The jobs properties to use
-     * @param applicationPersistenceService Implementation of application service interface
-     * @param clusterPersistenceService     Implementation of cluster service interface
-     * @param commandPersistenceService     Implementation of command service interface
+     * @param resourceDtoCache              The cache to read clusters, commands and applications through
      * @param specificationService          The job specification service to use
      * @param registry                      The metrics registry to use
      * @param genieHostInfo                 Information about the host the Genie process is running on
@@ -239,9 +246,7 @@ public class GenieServicesAutoConfiguration {
         @Qualifier("jobMonitoringCoordinator") final JobStateService jobStateService,
         final JobSearchService jobSearchService,
         final JobsProperties jobsProperties,
-        final ApplicationPersistenceService applicationPersistenceService,
-        final ClusterPersistenceService clusterPersistenceService,
-        final CommandPersistenceService commandPersistenceService,
+        final ResourceDtoCache resourceDtoCache,
         final JobSpecificationService specificationService,
         final MeterRegistry registry,
         final GenieHostInfo genieHostInfo
@@ -251,10 +256,8 @@ public class GenieServicesAutoConfiguration {
             jobKillService,
             jobStateService,
             jobsProperties,
-            applicationPersistenceService,
             jobSearchService,
-            clusterPersistenceService,
-            commandPersistenceService,
+            resourceDtoCache,
             specificationService,
             registry,
             genieHostInfo.getHostname()
@@ -324,50 +327,81 @@ public class GenieServicesAutoConfiguration {
     /**
      * Get an implementation of {@link JobSpecificationService} if one hasn't already been defined.
      *
-     * @param applicationPersistenceService The service to use to manipulate applications
-     * @param clusterPersistenceService     The service to use to manipulate clusters
-     * @param commandPersistenceService     The service to use to manipulate commands
-     * @param clusterLoadBalancers          The load balancer implementations to use
-     * @param registry                      The metrics repository to use
-     * @param jobsProperties                The properties for running a job set by the user
+     * @param resourceDtoCache          The cache to read commands and applications through
+     * @param clusterPersistenceService The service to use to manipulate clusters
+     * @param clusterLoadBalancers      The load balancer implementations to use
+     * @param registry                  The metrics repository to use
+     * @param jobsProperties            The properties for running a job set by the user
      * @return A {@link JobSpecificationServiceImpl} instance
      */
     @Bean
     @ConditionalOnMissingBean(JobSpecificationService.class)
     public JobSpecificationService jobSpecificationService(
-        final ApplicationPersistenceService applicationPersistenceService,
+        final ResourceDtoCache resourceDtoCache,
         final ClusterPersistenceService clusterPersistenceService,
-        final CommandPersistenceService commandPersistenceService,
         @NotEmpty final List<ClusterLoadBalancer> clusterLoadBalancers,
         final MeterRegistry registry,
         final JobsProperties jobsProperties
     ) {
         return new JobSpecificationServiceImpl(
-            applicationPersistenceService,
+            resourceDtoCache,
             clusterPersistenceService,
-            commandPersistenceService,
             clusterLoadBalancers,
             registry,
             jobsProperties
         );
     }
 
+    /**
+     * Get the cache of cluster, command and application DTOs used on the job submission path.
+     *
+     * @param clusterPersistenceService     The service to load clusters from
+     * @param commandPersistenceService     The service to load commands from
+     * @param applicationPersistenceService The service to load applications from
+     * @param properties                    The properties to configure the cache with
+     * @param registry                      The metrics registry to use
+     * @return A {@link ResourceDtoCache} instance
+     */
+    @Bean
+    @ConditionalOnMissingBean(ResourceDtoCache.class)
+    public ResourceDtoCache resourceDtoCache(
+        final ClusterPersistenceService clusterPersistenceService,
+        final CommandPersistenceService commandPersistenceService,
+        final ApplicationPersistenceService applicationPersistenceService,
+        final ResourceDtoCacheProperties properties,
+        final MeterRegistry registry
+    ) {
+        return new ResourceDtoCache(
+            clusterPersistenceService,
+            commandPersistenceService,
+            applicationPersistenceService,
+            properties,
+            registry
+        );
+    }
+
     /**
      * Get an implementation of {@link AgentRoutingService} if one hasn't already been defined.
      *
      * @param agentConnectionPersistenceService The persistence service to use for agent connections
      * @param genieHostInfo                     The local genie host information
+     * @param agentRoutingProperties            The agent routing properties
+     * @param taskScheduler                     The scheduler to write agent connections to the database on
      * @return A {@link AgentRoutingServiceImpl} instance
      */
     @Bean
     @ConditionalOnMissingBean(AgentRoutingService.class)
     public AgentRoutingService agentRoutingService(
         final AgentConnectionPersistenceService agentConnectionPersistenceService,
-        final GenieHostInfo genieHostInfo
+        final GenieHostInfo genieHostInfo,
+        final AgentRoutingProperties agentRoutingProperties,
+        @Qualifier("genieTaskScheduler") final TaskScheduler taskScheduler
     ) {
         return new AgentRoutingServiceImpl(
             agentConnectionPersistenceService,
-            genieHostInfo
+            genieHostInfo,
+            agentRoutingProperties,
+            taskScheduler
         );
     }
 
@@ -408,4 +442,22 @@ public class GenieServicesAutoConfiguration {
             retryTemplate
         );
     }
+
+    /**
+     * Get the {@link JobCompletionStage} job completions are handed to if one hasn't already been defined.
+     *
+     * @param jobCompletionService The job completion service to use
+     * @param jobsProperties       The jobs properties to use
+     * @param registry             The metrics registry to use
+     * @return an instance of {@link JobCompletionStage}
+     */
+    @Bean
+    @ConditionalOnMissingBean(JobCompletionStage.class)
+    public JobCompletionStage jobCompletionStage(
+        final JobCompletionService jobCompletionService,
+        final JobsProperties jobsProperties,
+        final MeterRegistry registry
+    ) {
+        return new JobCompletionStage(jobCompletionService, jobsProperties.getCompletion(), registry);
+    }
 }
@@ -90,13 +90,16 @@ import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import javax.annotation.Nullable;
 import javax.servlet.ServletException;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.io.IOException;
+import java.net.URI;
 import java.time.Instant;
 import java.util.EnumSet;
 import java.util.Enumeration;
@@ -408,6 +411,9 @@ public class JobRestController {
      * @param maxFinished      The time which the job had to finish before in order to be returned (exclusive)
      * @param grouping         The grouping the job should be a member of
      * @param groupingInstance The grouping instance the job should be a member of
+     * @param cursor           Seek past the job this cursor from a previous page points to instead of skipping to the
+     *                         page number. Empty for the first page. Only the page size and sort are used when present
+     * @param countLimit       When seeking, count the matching jobs up to this number. Not counted when absent
      * @param page             page information for job
      * @param assembler        The paged resources assembler to use
      * @return successful response, or one with HTTP error code
@@ -432,6 +438,8 @@ public class JobRestController {
         @RequestParam(value = "maxFinished", required = false) final Long maxFinished,
         @RequestParam(value = "grouping", required = false) final String grouping,
         @RequestParam(value = "groupingInstance", required = false) final String groupingInstance,
+        @RequestParam(value = "cursor", required = false) final String cursor,
+        @RequestParam(value = "countLimit", required = false) final Integer countLimit,
         @PageableDefault(sort = {"created"}, direction = Sort.Direction.DESC) final Pageable page,
         final PagedResourcesAssembler<JobSearchResult> assembler
     ) throws GenieException {
@@ -439,10 +447,10 @@ public class JobRestController {
             "[getJobs] Called with "
                 + "[id | jobName | user | statuses | clusterName "
                 + "| clusterId | minStarted | maxStarted | minFinished | maxFinished | grouping | groupingInstance "
-                + "| page]"
+                + "| cursor | countLimit | page]"
         );
         log.info(
-            "{} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {}",
+            "{} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {} | {}",
             id,
             name,
             user,
@@ -458,6 +466,8 @@ public class JobRestController {
             maxFinished,
             grouping,
             groupingInstance,
+            cursor,
+            countLimit,
             page
         );
 
@@ -471,6 +481,29 @@ public class JobRestController {
             }
         }
 
+        if (cursor != null) {
+            return this.seekJobs(
+                id,
+                name,
+                user,
+                enumStatuses,
+                tags,
+                clusterName,
+                clusterId,
+                commandName,
+                commandId,
+                minStarted,
+                maxStarted,
+                minFinished,
+                maxFinished,
+                grouping,
+                groupingInstance,
+                cursor,
+                countLimit,
+                page
+            );
+        }
+
         // Build the self link which will be used for the next, previous, etc links
         final Link self = ControllerLinkBuilder
             .linkTo(
@@ -492,6 +525,8 @@ public class JobRestController {
                         maxFinished,
                         grouping,
                         groupingInstance,
+                        null,
+                        null,
                         page,
                         assembler
                     )
@@ -521,6 +556,91 @@ public class JobRestController {
         );
     }
 
+    /* Find jobs by seeking past the cursor. The links are the current request with the cursor replaced, as the page
+     * number doesn't apply.
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    private PagedResources<JobSearchResultResource> seekJobs(
+        final String id,
+        final String name,
+        final String user,
+        final Set<JobStatus> statuses,
+        final Set<String> tags,
+        final String clusterName,
+        final String clusterId,
+        final String commandName,
+        final String commandId,
+        final Long minStarted,
+        final Long maxStarted,
+        final Long minFinished,
+        final Long maxFinished,
+        final String grouping,
+        final String groupingInstance,
+        final String cursor,
+        final Integer countLimit,
+        final Pageable page
+    ) throws GenieException {
+        if (countLimit != null && (countLimit < 1 || countLimit > JobSearchService.MAX_SEEK_COUNT_LIMIT)) {
+            throw new GeniePreconditionException(
+                "countLimit must be between 1 and " + JobSearchService.MAX_SEEK_COUNT_LIMIT
+            );
+        }
+        final JobSearchService.JobSearchCursorPage cursorPage = this.jobSearchService.seekJobs(
+            id,
+            name,
+            user,
+            statuses,
+            tags,
+            clusterName,
+            clusterId,
+            commandName,
+            commandId,
+            minStarted == null ? null : Instant.ofEpochMilli(minStarted),
+            maxStarted == null ? null : Instant.ofEpochMilli(maxStarted),
+            minFinished == null ? null : Instant.ofEpochMilli(minFinished),
+            maxFinished == null ? null : Instant.ofEpochMilli(maxFinished),
+            grouping,
+            groupingInstance,
+            StringUtils.isEmpty(cursor) ? null : cursor,
+            page,
+            countLimit
+        );
+
+        final List<JobSearchResultResource> content = cursorPage
+            .getContent()
+            .stream()
+            .map(this.jobSearchResultResourceAssembler::toResource)
+            .collect(Collectors.toList());
+        // Without a count the totals aren't known so leave out the page metadata rather than make them up
+        final PagedResources.PageMetadata metadata = cursorPage
+            .getCount()
+            .map(
+                total -> new PagedResources.PageMetadata(
+                    page.getPageSize(),
+                    0,
+                    total,
+                    (total + page.getPageSize() - 1) / page.getPageSize()
+                )
+            )
+            .orElse(null);
+
+        final List<Link> links = Lists.newArrayList(
+            new Link(ServletUriComponentsBuilder.fromCurrentRequest().build().toUriString()).withSelfRel()
+        );
+        cursorPage.getNextCursor().ifPresent(
+            nextCursor -> links.add(
+                new Link(
+                    ServletUriComponentsBuilder
+                        .fromCurrentRequest()
+                        .replaceQueryParam("cursor", nextCursor)
+                        .build()
+                        .toUriString()
+                ).withRel(Link.REL_NEXT)
+            )
+        );
+        return new PagedResources<>(content, metadata, links);
+    }
+
     /**
      * Kill job based on given job ID.
      *
@@ -715,23 +835,27 @@ public class JobRestController {
                 final String forwardHost = this.buildForwardHost(jobHostname);
                 try {
                     this.restTemplate.execute(
-                        forwardHost + JOB_API_TEMPLATE + "/output/{path}",
+                        this.buildForwardOutputUri(forwardHost, id, path, request.getQueryString()),
                         HttpMethod.GET,
                         forwardRequest -> copyRequestHeaders(request, forwardRequest),
                         (ResponseExtractor<Void>) forwardResponse -> {
                             response.setStatus(forwardResponse.getStatusCode().value());
-                            copyResponseHeaders(response, forwardResponse);
+                            copyResponseHeaders(response, forwardResponse.getHeaders());
                             // Documentation I could find pointed to the HttpEntity reading the bytes off
                             // the stream so this should resolve memory problems if the file returned is large
                             ByteStreams.copy(forwardResponse.getBody(), response.getOutputStream());
                             return null;
-                        },
-                        id,
-                        path == null ? EMPTY_STRING : path
+                        }
                     );
                 } catch (final HttpStatusCodeException e) {
                     log.error("Failed getting the remote job output from {}. Error: {}", forwardHost, e.getMessage());
-                    response.sendError(e.getStatusCode().value(), e.getStatusText());
+                    // Relay the remote response as is so things like Content-Range on a 416 reach the client
+                    response.setStatus(e.getRawStatusCode());
+                    final HttpHeaders errorHeaders = e.getResponseHeaders();
+                    if (errorHeaders != null) {
+                        copyResponseHeaders(response, errorHeaders);
+                    }
+                    response.getOutputStream().write(e.getResponseBodyAsByteArray());
                 } catch (final Exception e) {
                     log.error("Failed getting the remote job output from {}. Error: {}", forwardHost, e.getMessage());
                     response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value(), e.getMessage());
@@ -799,8 +923,22 @@ public class JobRestController {
         headers.add(JobConstants.GENIE_FORWARDED_FROM_HEADER, request.getRequestURL().toString());
     }
 
-    private void copyResponseHeaders(final HttpServletResponse response, final ClientHttpResponse forwardResponse) {
-        final HttpHeaders headers = forwardResponse.getHeaders();
+    private URI buildForwardOutputUri(
+        final String forwardHost,
+        final String id,
+        @Nullable final String path,
+        @Nullable final String queryString
+    ) {
+        final String forwardPath = UriComponentsBuilder
+            .fromHttpUrl(forwardHost + JOB_API_TEMPLATE + "/output/{path}")
+            .buildAndExpand(id, path == null ? EMPTY_STRING : path)
+            .encode()
+            .toUriString();
+        // The query string from the servlet request is still encoded so append it as is
+        return URI.create(StringUtils.isBlank(queryString) ? forwardPath : forwardPath + "?" + queryString);
+    }
+
+    private void copyResponseHeaders(final HttpServletResponse response, final HttpHeaders headers) {
         for (final Map.Entry<String, String> header : headers.toSingleValueMap().entrySet()) {
             //
             // Do not add transfer encoding header since it forces Apache to truncate the response. Ideally we should
@@ -0,0 +1,67 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.events;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+import java.util.Optional;
+
+/**
+ * An event published after a change to an application, cluster or command has been committed to the data store.
+ * Listeners can use it to invalidate any state they derived from the resource.
+ *
+ * @since 4.0.0
+ */
+@Getter
+public class ResourceChangedEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = 2618730935283468717L;
+
+    private final ResourceType resourceType;
+    private final String id;
+
+    /**
+     * Constructor.
+     *
+     * @param resourceType The type of resource which changed
+     * @param id           The unique id of the resource which changed. Null if the change could have affected
+     *                     multiple resources of the given type
+     * @param source       The source object which generated this event
+     */
+    public ResourceChangedEvent(
+        @NotNull final ResourceType resourceType,
+        @Nullable final String id,
+        @NotNull final Object source
+    ) {
+        super(source);
+        this.resourceType = resourceType;
+        this.id = id;
+    }
+
+    /**
+     * Get the unique id of the resource which changed if the change was limited to a single resource.
+     *
+     * @return {@link Optional} of the id. Empty if any resource of the given type may have changed
+     */
+    public Optional<String> getId() {
+        return Optional.ofNullable(this.id);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.health;
+
+import com.netflix.genie.web.tasks.job.JobCompletionStage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * A health indicator exposing the backlog of job completions waiting to be handled on this node.
+ * <p>
+ * The node is reported out of service once the status stage is full as final job statuses are then being recorded
+ * late.
+ *
+ * @since 4.0.0
+ */
+@Component
+public class JobCompletionHealthIndicator implements HealthIndicator {
+
+    private static final String STAGED_KEY = "staged";
+    private static final String STATUS_BACKLOG_KEY = "statusBacklog";
+    private static final String ARCHIVE_BACKLOG_KEY = "archiveBacklog";
+    private static final String QUEUE_CAPACITY_KEY = "queueCapacity";
+
+    private final JobCompletionStage jobCompletionStage;
+
+    /**
+     * Constructor.
+     *
+     * @param jobCompletionStage The stage job completions are handed to
+     */
+    @Autowired
+    public JobCompletionHealthIndicator(@NotNull final JobCompletionStage jobCompletionStage) {
+        this.jobCompletionStage = jobCompletionStage;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Health health() {
+        final int statusBacklog = this.jobCompletionStage.getStatusBacklog();
+        final int queueCapacity = this.jobCompletionStage.getQueueCapacity();
+
+        final Health.Builder builder;
+        if (statusBacklog < queueCapacity) {
+            builder = Health.up();
+        } else {
+            builder = Health.outOfService();
+        }
+
+        return builder
+            .withDetail(STAGED_KEY, this.jobCompletionStage.isStaged())
+            .withDetail(STATUS_BACKLOG_KEY, statusBacklog)
+            .withDetail(ARCHIVE_BACKLOG_KEY, this.jobCompletionStage.getArchiveBacklog())
+            .withDetail(QUEUE_CAPACITY_KEY, queueCapacity)
+            .build();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.jobs;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.netflix.genie.common.dto.JobStatusMessages;
+import com.netflix.genie.web.events.GenieEventBus;
+import com.netflix.genie.web.events.JobFinishedEvent;
+import com.netflix.genie.web.events.JobFinishedReason;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Publishes a {@link JobFinishedEvent} as soon as the launcher process of a job started by this Genie node exits
+ * rather than waiting for the next poll of the job monitor to notice.
+ * <p>
+ * The job kickoff task registers the process it launches. Once the job has started the monitoring coordinator asks
+ * for it to be watched, at which point a waiter blocks on the process until it exits. Jobs which are done before
+ * their process exits (e.g. killed) are unregistered so no event is published for them. Jobs re-attached after a
+ * restart weren't launched by this JVM so they have no process here and are only detected by polling.
+ *
+ * @since 4.0.0
+ */
+@Slf4j
+public class JobProcessExitNotifier {
+
+    static final String EXIT_DETECTED_COUNTER_NAME = "genie.jobs.processExitNotifier.exitDetected.counter";
+
+    private final boolean enabled;
+    private final GenieEventBus genieEventBus;
+    private final Map<String, Process> processes = new ConcurrentHashMap<>();
+    private final ExecutorService waiters;
+    private final Counter exitDetected;
+
+    /**
+     * Constructor.
+     *
+     * @param enabled       Whether process exits should be watched. If false all methods are no-ops
+     * @param genieEventBus The event bus to publish job finished events to
+     * @param registry      The metrics registry to use
+     */
+    public JobProcessExitNotifier(
+        final boolean enabled,
+        final GenieEventBus genieEventBus,
+        final MeterRegistry registry
+    ) {
+        this.enabled = enabled;
+        this.genieEventBus = genieEventBus;
+        this.waiters = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("genie-process-exit-%d").setDaemon(true).build()
+        );
+        this.exitDetected = registry.counter(EXIT_DETECTED_COUNTER_NAME);
+        registry.gauge("genie.jobs.processExitNotifier.registered.gauge", this.processes, Map::size);
+    }
+
+    /**
+     * Register the launcher process of a job.
+     *
+     * @param jobId   The id of the job
+     * @param process The process launched for the job
+     */
+    public void register(final String jobId, final Process process) {
+        if (this.enabled) {
+            this.processes.put(jobId, process);
+        }
+    }
+
+    /**
+     * Start waiting for the exit of the registered process of a job.
+     *
+     * @param jobId The id of the job
+     * @return true if the job has a registered process which is now being watched
+     */
+    public boolean watch(final String jobId) {
+        final Process process = this.processes.get(jobId);
+        if (process == null) {
+            return false;
+        }
+        this.waiters.execute(() -> this.waitForExit(jobId, process));
+        return true;
+    }
+
+    /**
+     * Forget about the process of a job which is done. No event will be published when it exits.
+     *
+     * @param jobId The id of the job
+     */
+    public void unregister(final String jobId) {
+        this.processes.remove(jobId);
+    }
+
+    /**
+     * Stop all the waiters.
+     */
+    @PreDestroy
+    public void shutdown() {
+        this.waiters.shutdownNow();
+    }
+
+    private void waitForExit(final String jobId, final Process process) {
+        try {
+            process.waitFor();
+        } catch (final InterruptedException ie) {
+            log.debug("Interrupted while waiting for the process of job {} to exit", jobId);
+            Thread.currentThread().interrupt();
+            return;
+        }
+        // Only publish if nothing else has finished the job in the meantime
+        if (this.processes.remove(jobId, process)) {
+            log.info("Process of job {} exited", jobId);
+            this.exitDetected.increment();
+            this.genieEventBus.publishAsynchronousEvent(
+                new JobFinishedEvent(
+                    jobId,
+                    JobFinishedReason.PROCESS_COMPLETED,
+                    JobStatusMessages.PROCESS_DETECTED_TO_BE_COMPLETE,
+                    this
+                )
+            );
+        }
+    }
+}
@@ -25,6 +25,7 @@ import com.netflix.genie.common.exceptions.GeniePreconditionException;
 import com.netflix.genie.common.exceptions.GenieServerException;
 import com.netflix.genie.common.internal.jobs.JobConstants;
 import com.netflix.genie.web.jobs.JobExecutionEnvironment;
+import com.netflix.genie.web.jobs.JobProcessExitNotifier;
 import com.netflix.genie.web.util.MetricsUtils;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
@@ -65,6 +66,7 @@ public class JobKickoffTask extends GenieBaseTask {
     private final Executor executor;
     private final String hostname;
     private final RetryTemplate retryTemplate;
+    private final JobProcessExitNotifier processExitNotifier;
 
     /**
      * Constructor.
@@ -74,13 +76,15 @@ public class JobKickoffTask extends GenieBaseTask {
      * @param executor            An executor object used to run jobs
      * @param hostname            Hostname for the node the job is running on
      * @param registry            The metrics registry to use
+     * @param processExitNotifier The notifier to register launched job processes with
      */
     public JobKickoffTask(
         final boolean runAsUserEnabled,
         final boolean userCreationEnabled,
         @NotNull final Executor executor,
         @NotNull final String hostname,
-        @NotNull final MeterRegistry registry
+        @NotNull final MeterRegistry registry,
+        @NotNull final JobProcessExitNotifier processExitNotifier
     ) {
         super(registry);
         this.isRunAsUserEnabled = runAsUserEnabled;
@@ -89,6 +93,7 @@ public class JobKickoffTask extends GenieBaseTask {
         this.hostname = hostname;
         this.retryTemplate = new RetryTemplate();
         this.retryTemplate.setBackOffPolicy(new ExponentialBackOffPolicy());
+        this.processExitNotifier = processExitNotifier;
     }
 
     /**
@@ -161,6 +166,7 @@ public class JobKickoffTask extends GenieBaseTask {
             try {
                 final Process process = pb.start();
                 final int processId = this.getProcessId(process);
+                this.processExitNotifier.register(jobId, process);
                 final Instant timeout = Instant
                     .now()
                     .plus(jobRequest.getTimeout().orElse(JobRequest.DEFAULT_TIMEOUT_DURATION), ChronoUnit.SECONDS);
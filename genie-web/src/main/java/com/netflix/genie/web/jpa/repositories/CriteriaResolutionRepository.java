@@ -32,14 +32,21 @@ import java.util.List;
 public interface CriteriaResolutionRepository {
 
     /**
-     * Given a cluster and command criterion attempt to resolve the cluster and highest priority command that match
-     * said criteria.
+     * Given an ordered list of cluster criteria and a command criterion attempt to resolve the clusters and highest
+     * priority command that match said criteria. All cluster criteria are resolved in a single query.
+     * <p>
+     * For each cluster criterion the matching clusters are found and for each of those the command with the lowest
+     * order in the cluster's command list which matches the command criterion is selected. Clusters without a matching
+     * command are dropped.
      *
-     * @param clusterCriterion The criterion for selecting a cluster
+     * @param clusterCriteria  The ordered criteria for selecting a cluster
      * @param commandCriterion The criterion for selecting a command attached to the selected cluster
-     * @return A tuple of the id of the cluster and the id of the command to use if that cluster is selected by the LB
+     * @return Tuples of the index of the cluster criterion which matched, the id of the cluster and the unique id of
+     * the command to use if that cluster is selected by the LB. Ordered by the criterion index.
      */
-    //TODO: add algorithm explanation
     @Nonnull
-    List<Object[]> resolveClustersAndCommands(final Criterion clusterCriterion, final Criterion commandCriterion);
+    List<Object[]> resolveClustersAndCommands(
+        final List<Criterion> clusterCriteria,
+        final Criterion commandCriterion
+    );
 }
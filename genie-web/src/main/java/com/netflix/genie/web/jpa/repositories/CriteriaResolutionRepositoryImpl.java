@@ -17,18 +17,22 @@
  */
 package com.netflix.genie.web.jpa.repositories;
 
+import com.google.common.collect.Lists;
 import com.netflix.genie.common.dto.ClusterStatus;
 import com.netflix.genie.common.dto.CommandStatus;
 import com.netflix.genie.common.internal.dto.v4.Criterion;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.annotation.Nonnull;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Implementations of the {@link CriteriaResolutionRepository} interface.
@@ -43,26 +47,42 @@ public class CriteriaResolutionRepositoryImpl implements CriteriaResolutionRepos
 
     private static final String CLUSTER_QUERY_STRING = "{CLUSTER_QUERY_HERE}";
     private static final String COMMAND_QUERY_STRING = "{COMMAND_QUERY_HERE}";
+    private static final String RANK_STRING = "{RANK_HERE}";
+    private static final String CRITERIA_QUERIES_STRING = "{CRITERIA_QUERIES_HERE}";
+
+    private static final String CRITERION_QUERY =
+        "SELECT"
+            + "  " + RANK_STRING + " as criterion_rank,"
+            + "  cc.cluster_id as cluster_id,"
+            + "  MIN(cc.command_order) as command_order "
+            + "FROM"
+            + "  (" + CLUSTER_QUERY_STRING + ") AS selected_clusters join"
+            + "  clusters_commands cc ON selected_clusters.id = cc.cluster_id join"
+            + "  (" + COMMAND_QUERY_STRING + ") AS selected_commands ON selected_commands.id = cc.command_id "
+            + "GROUP BY cc.cluster_id";
 
     private static final String RESOLVE_CLUSTERS_AND_COMMANDS_QUERY =
         "SELECT "
+            + "  cluster_id_order.criterion_rank,"
             + "  cc.cluster_id,"
             + "  c.unique_id "
             + "FROM"
-            + "  ("
-            + "    SELECT"
-            + "      cc.cluster_id as cluster_id,"
-            + "      MIN(cc.command_order) as command_order"
-            + "    FROM"
-            + "      (" + CLUSTER_QUERY_STRING + ") AS selected_clusters join"
-            + "      clusters_commands cc ON selected_clusters.id = cc.cluster_id join"
-            + "      (" + COMMAND_QUERY_STRING + ") AS selected_commands ON selected_commands.id = cc.command_id"
-            + "    GROUP BY cc.cluster_id"
-            + "  ) as cluster_id_order join"
+            + "  (" + CRITERIA_QUERIES_STRING + ") as cluster_id_order join"
             + "  clusters_commands cc on"
             + "    cluster_id_order.cluster_id = cc.cluster_id AND"
             + "    cc.command_order = cluster_id_order.command_order join"
-            + "  commands c on cc.command_id = c.id;";
+            + "  commands c on cc.command_id = c.id "
+            + "ORDER BY cluster_id_order.criterion_rank";
+
+    private static final String UNION_ALL = " UNION ALL ";
+    private static final String COMMAND_PARAMETER_PREFIX = "cmd";
+    private static final String CLUSTER_PARAMETER_PREFIX = "cl";
+
+    // Tag lists are padded up to one of these sizes so that the number of distinct statements stays small
+    private static final int[] TAG_SLOT_BUCKETS = {1, 2, 4, 8, 16};
+    private static final int MAX_CACHED_QUERIES = 1_000;
+
+    private final ConcurrentMap<List<EntityQueryShape>, String> queryCache = new ConcurrentHashMap<>();
 
     @PersistenceContext
     private EntityManager entityManager;
@@ -74,21 +94,72 @@ public class CriteriaResolutionRepositoryImpl implements CriteriaResolutionRepos
     @Nonnull
     @SuppressWarnings("unchecked")
     public List<Object[]> resolveClustersAndCommands(
-        final Criterion clusterCriterion,
+        final List<Criterion> clusterCriteria,
         final Criterion commandCriterion
     ) {
-        return this.entityManager
-            .createNativeQuery(
-                RESOLVE_CLUSTERS_AND_COMMANDS_QUERY
-                    .replace(CLUSTER_QUERY_STRING, this.buildEntityQueryForType(clusterCriterion, CriteriaType.CLUSTER))
-                    .replace(COMMAND_QUERY_STRING, this.buildEntityQueryForType(commandCriterion, CriteriaType.COMMAND))
-            )
-            .getResultList();
+        if (clusterCriteria.isEmpty()) {
+            return Lists.newArrayList();
+        }
+
+        final List<EntityQueryShape> shapes = Lists.newArrayListWithCapacity(clusterCriteria.size() + 1);
+        shapes.add(EntityQueryShape.of(commandCriterion));
+        for (final Criterion clusterCriterion : clusterCriteria) {
+            shapes.add(EntityQueryShape.of(clusterCriterion));
+        }
+
+        final Query query = this.entityManager.createNativeQuery(this.getQueryForShapes(shapes));
+        bindParameters(query, COMMAND_PARAMETER_PREFIX, commandCriterion, shapes.get(0), CriteriaType.COMMAND);
+        for (int i = 0; i < clusterCriteria.size(); i++) {
+            bindParameters(
+                query,
+                CLUSTER_PARAMETER_PREFIX + i,
+                clusterCriteria.get(i),
+                shapes.get(i + 1),
+                CriteriaType.CLUSTER
+            );
+        }
+        return query.getResultList();
+    }
+
+    private String getQueryForShapes(final List<EntityQueryShape> shapes) {
+        final String cached = this.queryCache.get(shapes);
+        if (cached != null) {
+            return cached;
+        }
+        final String query = buildQuery(shapes);
+        if (this.queryCache.size() < MAX_CACHED_QUERIES) {
+            this.queryCache.putIfAbsent(shapes, query);
+        }
+        return query;
+    }
+
+    private static String buildQuery(final List<EntityQueryShape> shapes) {
+        final String commandQuery = buildEntityQuery(COMMAND_PARAMETER_PREFIX, shapes.get(0), CriteriaType.COMMAND);
+        final StringBuilder criteriaQueries = new StringBuilder();
+        for (int i = 1; i < shapes.size(); i++) {
+            final int rank = i - 1;
+            if (rank > 0) {
+                criteriaQueries.append(UNION_ALL);
+            }
+            criteriaQueries.append(
+                CRITERION_QUERY
+                    .replace(RANK_STRING, String.valueOf(rank))
+                    .replace(
+                        CLUSTER_QUERY_STRING,
+                        buildEntityQuery(CLUSTER_PARAMETER_PREFIX + rank, shapes.get(i), CriteriaType.CLUSTER)
+                    )
+                    .replace(COMMAND_QUERY_STRING, commandQuery)
+            );
+        }
+        return RESOLVE_CLUSTERS_AND_COMMANDS_QUERY.replace(CRITERIA_QUERIES_STRING, criteriaQueries.toString());
     }
 
-    private String buildEntityQueryForType(final Criterion criterion, final CriteriaType criteriaType) {
-        final Set<String> tags = criterion.getTags();
-        final boolean hasTags = !tags.isEmpty();
+    private static String buildEntityQuery(
+        final String prefix,
+        final EntityQueryShape shape,
+        final CriteriaType criteriaType
+    ) {
+        final boolean hasTags = shape.getTagSlots() > 0;
         final StringBuilder query = new StringBuilder();
         query
             .append("SELECT c.id as id FROM ")
@@ -106,40 +177,59 @@ public class CriteriaResolutionRepositoryImpl implements CriteriaResolutionRepos
 
         query.append(" WHERE");
 
-        criterion.getId().ifPresent(
-            id -> {
-                if (StringUtils.isNotBlank(id)) {
-                    query.append(" c.unique_id = '").append(id).append("' AND");
-                }
-            }
-        );
-        criterion.getName().ifPresent(
-            name -> {
-                if (StringUtils.isNotBlank(name)) {
-                    query.append(" c.name = '").append(name).append("' AND");
-                }
-            }
-        );
-        criterion.getVersion().ifPresent(
-            version -> {
-                if (StringUtils.isNotBlank(version)) {
-                    query.append(" c.version = '").append(version).append("' AND");
+        if (shape.isHasId()) {
+            query.append(" c.unique_id = :").append(prefix).append("Id AND");
+        }
+        if (shape.isHasName()) {
+            query.append(" c.name = :").append(prefix).append("Name AND");
+        }
+        if (shape.isHasVersion()) {
+            query.append(" c.version = :").append(prefix).append("Version AND");
+        }
+        if (hasTags) {
+            query.append(" t.tag IN (");
+            for (int i = 0; i < shape.getTagSlots(); i++) {
+                if (i > 0) {
+                    query.append(", ");
                 }
+                query.append(':').append(prefix).append("Tag").append(i);
             }
-        );
+            query.append(") AND");
+        }
+
+        query.append(" c.status = :").append(prefix).append("Status");
 
         if (hasTags) {
-            query
-                .append(" t.tag IN (")
-                .append(
-                    criterion
-                        .getTags()
-                        .stream()
-                        .map(tag -> "'" + tag + "'")
-                        .reduce((first, second) -> first + ", " + second)
-                        .orElse("")
-                )
-                .append(") AND");
+            query.append(" GROUP BY c.id HAVING COUNT(c.id) = :").append(prefix).append("TagCount");
+        }
+
+        return query.toString();
+    }
+
+    private static void bindParameters(
+        final Query query,
+        final String prefix,
+        final Criterion criterion,
+        final EntityQueryShape shape,
+        final CriteriaType criteriaType
+    ) {
+        if (shape.isHasId()) {
+            query.setParameter(prefix + "Id", criterion.getId().orElseThrow(IllegalStateException::new));
+        }
+        if (shape.isHasName()) {
+            query.setParameter(prefix + "Name", criterion.getName().orElseThrow(IllegalStateException::new));
+        }
+        if (shape.isHasVersion()) {
+            query.setParameter(prefix + "Version", criterion.getVersion().orElseThrow(IllegalStateException::new));
+        }
+        if (shape.getTagSlots() > 0) {
+            // Pad with the last tag. Duplicates in an IN list don't change which rows match.
+            final List<String> tags = Lists.newArrayList(criterion.getTags());
+            final String lastTag = tags.get(tags.size() - 1);
+            for (int i = 0; i < shape.getTagSlots(); i++) {
+                query.setParameter(prefix + "Tag" + i, i < tags.size() ? tags.get(i) : lastTag);
+            }
+            query.setParameter(prefix + "TagCount", tags.size());
         }
 
         final String status;
@@ -150,20 +240,56 @@ public class CriteriaResolutionRepositoryImpl implements CriteriaResolutionRepos
         } else {
             status = criteriaType.getDefaultStatus();
         }
-        query
-            .append(" c.status = '")
-            .append(status)
-            .append("'");
+        query.setParameter(prefix + "Status", status);
+    }
 
-        if (hasTags) {
-            query
-                .append(" GROUP BY c.id HAVING COUNT(c.id) = ")
-                .append(criterion.getTags().size());
+    /**
+     * The shape of the SQL needed for a given criterion. Criteria with the same shape share the same statement text
+     * and therefore the same statement and plan caches in the driver and the database.
+     *
+     * @since 4.0.0
+     */
+    @Getter
+    @EqualsAndHashCode
+    private static final class EntityQueryShape {
+        private final boolean hasId;
+        private final boolean hasName;
+        private final boolean hasVersion;
+        private final int tagSlots;
+
+        private EntityQueryShape(
+            final boolean hasId,
+            final boolean hasName,
+            final boolean hasVersion,
+            final int tagSlots
+        ) {
+            this.hasId = hasId;
+            this.hasName = hasName;
+            this.hasVersion = hasVersion;
+            this.tagSlots = tagSlots;
         }
 
-        return query.toString();
-    }
+        static EntityQueryShape of(final Criterion criterion) {
+            return new EntityQueryShape(
+                StringUtils.isNotBlank(criterion.getId().orElse(null)),
+                StringUtils.isNotBlank(criterion.getName().orElse(null)),
+                StringUtils.isNotBlank(criterion.getVersion().orElse(null)),
+                getTagSlots(criterion.getTags().size())
+            );
+        }
 
+        private static int getTagSlots(final int numTags) {
+            if (numTags == 0) {
+                return 0;
+            }
+            for (final int bucket : TAG_SLOT_BUCKETS) {
+                if (numTags <= bucket) {
+                    return bucket;
+                }
+            }
+            return numTags;
+        }
+    }
 
     /**
      * Enumeration of the types of criteria and default values that can be supplied to the cluster and command
@@ -0,0 +1,40 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.jpa.repositories;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+/**
+ * Custom extension interface for the {@link JpaJobRepository} to delete jobs with set based statements instead of
+ * loading and removing every entity.
+ *
+ * @since 4.0.0
+ */
+public interface JobRetentionRepository {
+
+    /**
+     * Delete the jobs with the given ids along with everything that belongs to them: command arguments, environment
+     * variables, requested applications, the links to applications, files and tags and the job's criteria. Each table
+     * is cleared with a single {@code DELETE} statement for all the ids. Must be called within a transaction.
+     *
+     * @param ids The database ids of the jobs to delete
+     * @return The number of jobs deleted
+     */
+    long bulkDeleteByIdIn(@NotNull List<Long> ids);
+}
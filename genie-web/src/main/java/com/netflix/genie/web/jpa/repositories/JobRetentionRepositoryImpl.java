@@ -0,0 +1,106 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.jpa.repositories;
+
+import com.google.common.collect.ImmutableList;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of the {@link JobRetentionRepository} interface.
+ * <p>
+ * Works as a fragment.
+ * See <a href="https://tinyurl.com/yctelbfh">Spring Data JPA Documentation</a> for more.
+ *
+ * @since 4.0.0
+ */
+@Slf4j
+public class JobRetentionRepositoryImpl implements JobRetentionRepository {
+
+    private static final String IDS_PARAMETER = "ids";
+
+    // Every table with a job_id foreign key to the jobs table. The criteria links go last as they're needed to find
+    // the criteria to delete
+    private static final List<String> JOB_CHILD_TABLES = ImmutableList.of(
+        "job_command_arguments",
+        "job_requested_environment_variables",
+        "job_environment_variables",
+        "job_requested_applications",
+        "jobs_applications",
+        "jobs_configs",
+        "jobs_dependencies",
+        "jobs_tags",
+        "jobs_cluster_criteria"
+    );
+
+    private static final String SELECT_CRITERIA_SQL =
+        "SELECT criterion_id FROM jobs_cluster_criteria WHERE job_id IN (:" + IDS_PARAMETER + ") "
+            + "UNION "
+            + "SELECT command_criterion FROM jobs WHERE id IN (:" + IDS_PARAMETER + ")";
+    private static final String DELETE_JOBS_SQL = "DELETE FROM jobs WHERE id IN (:" + IDS_PARAMETER + ")";
+    private static final String DELETE_CRITERIA_TAGS_SQL
+        = "DELETE FROM criteria_tags WHERE criterion_id IN (:" + IDS_PARAMETER + ")";
+    private static final String DELETE_CRITERIA_SQL = "DELETE FROM criteria WHERE id IN (:" + IDS_PARAMETER + ")";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long bulkDeleteByIdIn(final List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0L;
+        }
+
+        // Criteria are owned by a single job so they go with it. Read their ids before the links are deleted
+        final List<?> criteriaRows = this.entityManager
+            .createNativeQuery(SELECT_CRITERIA_SQL)
+            .setParameter(IDS_PARAMETER, ids)
+            .getResultList();
+        final List<Long> criterionIds = criteriaRows
+            .stream()
+            .map(row -> ((Number) row).longValue())
+            .collect(Collectors.toList());
+
+        for (final String table : JOB_CHILD_TABLES) {
+            final int deleted = this.executeUpdate(
+                "DELETE FROM " + table + " WHERE job_id IN (:" + IDS_PARAMETER + ")",
+                ids
+            );
+            log.debug("Deleted {} rows from {}", deleted, table);
+        }
+        final long deletedJobs = this.executeUpdate(DELETE_JOBS_SQL, ids);
+
+        if (!criterionIds.isEmpty()) {
+            this.executeUpdate(DELETE_CRITERIA_TAGS_SQL, criterionIds);
+            final int deletedCriteria = this.executeUpdate(DELETE_CRITERIA_SQL, criterionIds);
+            log.debug("Deleted {} criteria", deletedCriteria);
+        }
+        return deletedJobs;
+    }
+
+    private int executeUpdate(final String sql, final List<Long> ids) {
+        return this.entityManager.createNativeQuery(sql).setParameter(IDS_PARAMETER, ids).executeUpdate();
+    }
+}
@@ -22,6 +22,7 @@ import com.netflix.genie.web.jpa.entities.AgentConnectionEntity;
 
 import javax.validation.constraints.NotBlank;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * JPA repository for active agent-to-server connections.
@@ -39,4 +40,12 @@ public interface JpaAgentConnectionRepository
      * @return an optional, containing the entity if it exists
      */
     Optional<AgentConnectionEntity> findByJobId(final @NotBlank String jobId);
+
+    /**
+     * Find the entities of all the given job ids.
+     *
+     * @param jobIds The job ids
+     * @return The entities of the job ids which have one
+     */
+    Set<AgentConnectionEntity> findByJobIdIn(final Set<String> jobIds);
 }
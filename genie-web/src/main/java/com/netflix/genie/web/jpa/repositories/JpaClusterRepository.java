@@ -18,7 +18,9 @@ package com.netflix.genie.web.jpa.repositories;
 import com.netflix.genie.web.jpa.entities.ClusterEntity;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -38,6 +40,27 @@ public interface JpaClusterRepository extends JpaBaseRepository<ClusterEntity>,
             + "AND status = 'TERMINATED' "
             + "FOR UPDATE;";
 
+    /**
+     * The JPQL to load clusters by id with their tags and setup file initialized.
+     */
+    String FIND_WITH_TAGS_AND_SETUP_FILE_QUERY =
+        "SELECT DISTINCT c FROM ClusterEntity c "
+            + "LEFT JOIN FETCH c.tags "
+            + "LEFT JOIN FETCH c.setupFile "
+            + "WHERE c.id IN :ids";
+
+    /**
+     * The JPQL to initialize the configs of the clusters with the given ids.
+     */
+    String FIND_WITH_CONFIGS_QUERY =
+        "SELECT DISTINCT c FROM ClusterEntity c LEFT JOIN FETCH c.configs WHERE c.id IN :ids";
+
+    /**
+     * The JPQL to initialize the dependencies of the clusters with the given ids.
+     */
+    String FIND_WITH_DEPENDENCIES_QUERY =
+        "SELECT DISTINCT c FROM ClusterEntity c LEFT JOIN FETCH c.dependencies WHERE c.id IN :ids";
+
     /**
      * Find the ids of all clusters that are in a terminated state and aren't attached to any jobs.
      *
@@ -54,4 +77,35 @@ public interface JpaClusterRepository extends JpaBaseRepository<ClusterEntity>,
      */
     @Modifying
     Long deleteByIdIn(final Set<Long> ids);
+
+    /**
+     * Load all the clusters with the given ids with their tags and setup file fetched in the same query.
+     * <p>
+     * The configs and dependencies can be initialized for the same entities by calling
+     * {@link #findWithConfigsByIdIn(Set)} and {@link #findWithDependenciesByIdIn(Set)} within the same transaction.
+     * Fetching one collection per query avoids the cartesian product of joining them all at once.
+     *
+     * @param ids The ids of the clusters to load
+     * @return The clusters which exist
+     */
+    @Query(FIND_WITH_TAGS_AND_SETUP_FILE_QUERY)
+    List<ClusterEntity> findWithTagsAndSetupFileByIdIn(@Param("ids") final Set<Long> ids);
+
+    /**
+     * Load all the clusters with the given ids with their configs fetched in the same query.
+     *
+     * @param ids The ids of the clusters to load
+     * @return The clusters which exist
+     */
+    @Query(FIND_WITH_CONFIGS_QUERY)
+    List<ClusterEntity> findWithConfigsByIdIn(@Param("ids") final Set<Long> ids);
+
+    /**
+     * Load all the clusters with the given ids with their dependencies fetched in the same query.
+     *
+     * @param ids The ids of the clusters to load
+     * @return The clusters which exist
+     */
+    @Query(FIND_WITH_DEPENDENCIES_QUERY)
+    List<ClusterEntity> findWithDependenciesByIdIn(@Param("ids") final Set<Long> ids);
 }
@@ -18,11 +18,13 @@
 package com.netflix.genie.web.jpa.repositories;
 
 import com.netflix.genie.web.jpa.entities.FileEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -55,6 +57,46 @@ public interface JpaFileRepository extends JpaIdRepository<FileEntity> {
             + "AND created <= :createdThreshold "
             + "FOR UPDATE;";
 
+    /**
+     * The conditions a row of the files table must meet to be unused. Anti-joins which only probe the file id index of
+     * each referencing table.
+     */
+    String UNUSED_FILE_CONDITIONS =
+        "NOT EXISTS (SELECT 1 FROM applications WHERE applications.setup_file = files.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM applications_configs WHERE applications_configs.file_id = files.id) "
+            + "AND NOT EXISTS "
+            + "(SELECT 1 FROM applications_dependencies WHERE applications_dependencies.file_id = files.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM clusters WHERE clusters.setup_file = files.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM clusters_configs WHERE clusters_configs.file_id = files.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM clusters_dependencies WHERE clusters_dependencies.file_id = files.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM commands WHERE commands.setup_file = files.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM commands_configs WHERE commands_configs.file_id = files.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM commands_dependencies WHERE commands_dependencies.file_id = files.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM jobs WHERE jobs.setup_file = files.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM jobs_configs WHERE jobs_configs.file_id = files.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM jobs_dependencies WHERE jobs_dependencies.file_id = files.id) ";
+
+    /**
+     * The query used to find, without locking, the next ids (in id order) of files that aren't referenced.
+     */
+    String SELECT_UNUSED_FILE_IDS_SQL =
+        "SELECT id "
+            + "FROM files "
+            + "WHERE id > :lastId "
+            + "AND created <= :createdThreshold "
+            + "AND " + UNUSED_FILE_CONDITIONS
+            + "ORDER BY id";
+
+    /**
+     * The statement used to delete the files with the given ids which are still unused. Only the rows being deleted
+     * are locked.
+     */
+    String DELETE_UNUSED_FILES_SQL =
+        "DELETE "
+            + "FROM files "
+            + "WHERE id IN (:ids) "
+            + "AND " + UNUSED_FILE_CONDITIONS;
+
     /**
      * Find a file by its unique file value.
      *
@@ -90,6 +132,33 @@ public interface JpaFileRepository extends JpaIdRepository<FileEntity> {
     @Query(value = SELECT_FOR_UPDATE_UNUSED_FILES_SQL, nativeQuery = true)
     Set<Number> findUnusedFiles(@Param("createdThreshold") final Instant createdThreshold);
 
+    /**
+     * Find the ids of the next page of files, in id order, that aren't referenced and were created before the
+     * supplied threshold. No locks are taken.
+     *
+     * @param lastId           Only files with an id greater than this are considered
+     * @param createdThreshold The instant in time where files created before this time that aren't referenced
+     *                         will be returned. Inclusive
+     * @param page             The page to get. Only the size is used
+     * @return The ids of the unused files
+     */
+    @Query(value = SELECT_UNUSED_FILE_IDS_SQL, nativeQuery = true)
+    List<Number> findUnusedFileIds(
+        @Param("lastId") final long lastId,
+        @Param("createdThreshold") final Instant createdThreshold,
+        final Pageable page
+    );
+
+    /**
+     * Delete the files whose ids are in the supplied set and which are still not referenced.
+     *
+     * @param ids The ids of the files to delete
+     * @return The number of files deleted
+     */
+    @Modifying
+    @Query(value = DELETE_UNUSED_FILES_SQL, nativeQuery = true)
+    int deleteUnusedFilesByIdIn(@Param("ids") final Set<Long> ids);
+
     /**
      * Delete all files from the database that are in the current set of ids.
      *
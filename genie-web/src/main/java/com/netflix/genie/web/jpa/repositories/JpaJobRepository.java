@@ -36,7 +36,7 @@ import java.util.Set;
  *
  * @author tgianos
  */
-public interface JpaJobRepository extends JpaBaseRepository<JobEntity> {
+public interface JpaJobRepository extends JpaBaseRepository<JobEntity>, JobRetentionRepository {
 
     // TODO: Make interfaces generic but be aware of https://jira.spring.io/browse/DATAJPA-1185
 
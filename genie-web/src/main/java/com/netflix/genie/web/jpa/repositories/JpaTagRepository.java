@@ -18,11 +18,13 @@
 package com.netflix.genie.web.jpa.repositories;
 
 import com.netflix.genie.web.jpa.entities.TagEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -48,6 +50,38 @@ public interface JpaTagRepository extends JpaIdRepository<TagEntity> {
             + "AND created <= :createdThreshold "
             + "FOR UPDATE;";
 
+    /**
+     * The conditions a row of the tags table must meet to be unused. Anti-joins which only probe the tag id index of
+     * each referencing table.
+     */
+    String UNUSED_TAG_CONDITIONS =
+        "NOT EXISTS (SELECT 1 FROM applications_tags WHERE applications_tags.tag_id = tags.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM clusters_tags WHERE clusters_tags.tag_id = tags.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM commands_tags WHERE commands_tags.tag_id = tags.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM criteria_tags WHERE criteria_tags.tag_id = tags.id) "
+            + "AND NOT EXISTS (SELECT 1 FROM jobs_tags WHERE jobs_tags.tag_id = tags.id) ";
+
+    /**
+     * The query used to find, without locking, the next ids (in id order) of tags that aren't referenced.
+     */
+    String SELECT_UNUSED_TAG_IDS_SQL =
+        "SELECT id "
+            + "FROM tags "
+            + "WHERE id > :lastId "
+            + "AND created <= :createdThreshold "
+            + "AND " + UNUSED_TAG_CONDITIONS
+            + "ORDER BY id";
+
+    /**
+     * The statement used to delete the tags with the given ids which are still unused. Only the rows being deleted
+     * are locked.
+     */
+    String DELETE_UNUSED_TAGS_SQL =
+        "DELETE "
+            + "FROM tags "
+            + "WHERE id IN (:ids) "
+            + "AND " + UNUSED_TAG_CONDITIONS;
+
     /**
      * Find a tag by its unique tag value.
      *
@@ -83,6 +117,33 @@ public interface JpaTagRepository extends JpaIdRepository<TagEntity> {
     @Query(value = SELECT_FOR_UPDATE_UNUSED_TAGS_SQL, nativeQuery = true)
     Set<Number> findUnusedTags(@Param("createdThreshold") final Instant createdThreshold);
 
+    /**
+     * Find the ids of the next page of tags, in id order, that aren't referenced and were created before the
+     * supplied threshold. No locks are taken.
+     *
+     * @param lastId           Only tags with an id greater than this are considered
+     * @param createdThreshold The instant in time where tags created before this time that aren't referenced
+     *                         will be returned. Inclusive
+     * @param page             The page to get. Only the size is used
+     * @return The ids of the unused tags
+     */
+    @Query(value = SELECT_UNUSED_TAG_IDS_SQL, nativeQuery = true)
+    List<Number> findUnusedTagIds(
+        @Param("lastId") final long lastId,
+        @Param("createdThreshold") final Instant createdThreshold,
+        final Pageable page
+    );
+
+    /**
+     * Delete the tags whose ids are in the supplied set and which are still not referenced.
+     *
+     * @param ids The ids of the tags to delete
+     * @return The number of tags deleted
+     */
+    @Modifying
+    @Query(value = DELETE_UNUSED_TAGS_SQL, nativeQuery = true)
+    int deleteUnusedTagsByIdIn(@Param("ids") final Set<Long> ids);
+
     /**
      * Delete all tags from the database whose ids are in the supplied set.
      *
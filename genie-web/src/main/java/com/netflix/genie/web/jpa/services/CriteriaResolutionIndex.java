@@ -0,0 +1,516 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.jpa.services;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.netflix.genie.common.dto.ClusterStatus;
+import com.netflix.genie.common.dto.CommandStatus;
+import com.netflix.genie.common.internal.dto.v4.Cluster;
+import com.netflix.genie.common.internal.dto.v4.Criterion;
+import com.netflix.genie.web.events.ResourceChangedEvent;
+import com.netflix.genie.web.events.ResourceType;
+import com.netflix.genie.web.jpa.entities.ClusterEntity;
+import com.netflix.genie.web.jpa.entities.CommandEntity;
+import com.netflix.genie.web.jpa.entities.TagEntity;
+import com.netflix.genie.web.jpa.entities.v4.EntityDtoConverters;
+import com.netflix.genie.web.jpa.repositories.JpaClusterRepository;
+import com.netflix.genie.web.jpa.repositories.JpaCommandRepository;
+import com.netflix.genie.web.jpa.specifications.JpaClusterSpecs;
+import com.netflix.genie.web.jpa.specifications.JpaCommandSpecs;
+import com.netflix.genie.web.properties.CriteriaResolutionIndexProperties;
+import com.netflix.genie.web.util.MetricsUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * An in memory index of all {@literal UP} clusters and {@literal ACTIVE} commands which can resolve cluster and
+ * command criteria without going to the database.
+ * <p>
+ * The index is an immutable snapshot which is swapped atomically when rebuilt. Any local change to a cluster or
+ * command (signalled by a {@link ResourceChangedEvent} once the change is committed) marks the current snapshot stale
+ * and schedules an asynchronous rebuild. While the snapshot is stale, or if a criterion asks for something the index
+ * doesn't hold (a non-default status), {@link #resolve(List, Criterion)} returns {@link Optional#empty()} and callers
+ * are expected to fall back to the database. The index is also rebuilt on a fixed delay to pick up changes made
+ * through other Genie nodes.
+ *
+ * @since 4.0.0
+ */
+@Slf4j
+public class CriteriaResolutionIndex {
+
+    static final String RESOLVE_COUNTER_NAME = "genie.jpa.criteriaResolutionIndex.resolve.counter";
+    static final String RELOAD_TIMER_NAME = "genie.jpa.criteriaResolutionIndex.reload.timer";
+    static final String MISMATCH_COUNTER_NAME = "genie.jpa.criteriaResolutionIndex.mismatch.counter";
+    static final String CLUSTERS_GAUGE_NAME = "genie.jpa.criteriaResolutionIndex.clusters.gauge";
+    static final String COMMANDS_GAUGE_NAME = "genie.jpa.criteriaResolutionIndex.commands.gauge";
+    static final String RESOLUTION_TAG_KEY = "resolution";
+    static final String HIT = "hit";
+    static final String STALE = "stale";
+    static final String UNSUPPORTED = "unsupported";
+
+    private static final String DEFAULT_CLUSTER_STATUS = ClusterStatus.UP.name();
+    private static final String DEFAULT_COMMAND_STATUS = CommandStatus.ACTIVE.name();
+
+    private final JpaClusterRepository clusterRepository;
+    private final JpaCommandRepository commandRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskScheduler taskScheduler;
+    private final boolean consistencyCheck;
+    private final MeterRegistry registry;
+    private final Counter mismatchCounter;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicBoolean reloadPending = new AtomicBoolean();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    /**
+     * Constructor. Schedules the periodic rebuild of the index.
+     *
+     * @param clusterRepository  The {@link JpaClusterRepository} to load clusters from
+     * @param commandRepository  The {@link JpaCommandRepository} to load commands from
+     * @param transactionManager The transaction manager used to load the index in a read only transaction
+     * @param taskScheduler      The scheduler used for periodic and change triggered rebuilds
+     * @param properties         The {@link CriteriaResolutionIndexProperties} to configure this index with
+     * @param registry           The metrics registry to use
+     */
+    public CriteriaResolutionIndex(
+        final JpaClusterRepository clusterRepository,
+        final JpaCommandRepository commandRepository,
+        final PlatformTransactionManager transactionManager,
+        final TaskScheduler taskScheduler,
+        final CriteriaResolutionIndexProperties properties,
+        final MeterRegistry registry
+    ) {
+        this.clusterRepository = clusterRepository;
+        this.commandRepository = commandRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.taskScheduler = taskScheduler;
+        this.consistencyCheck = properties.isConsistencyCheck();
+        this.registry = registry;
+        this.mismatchCounter = registry.counter(MISMATCH_COUNTER_NAME);
+        registry.gauge(CLUSTERS_GAUGE_NAME, this.snapshot, ref -> ref.get() == null ? 0 : ref.get().getNumClusters());
+        registry.gauge(COMMANDS_GAUGE_NAME, this.snapshot, ref -> ref.get() == null ? 0 : ref.get().getNumCommands());
+
+        this.taskScheduler.scheduleWithFixedDelay(this::reload, properties.getRefreshRate());
+    }
+
+    /**
+     * Whether every answer from the index should also be verified against the database.
+     *
+     * @return true if the consistency check mode is enabled
+     */
+    public boolean isConsistencyCheckEnabled() {
+        return this.consistencyCheck;
+    }
+
+    /**
+     * Resolve the clusters and commands matching the given criteria. Semantics are identical to
+     * {@link com.netflix.genie.web.jpa.repositories.CriteriaResolutionRepository}: cluster criteria are evaluated in
+     * order and the first one which matches at least one cluster with a matching command wins. For each cluster the
+     * first matching command in the cluster's command order is selected.
+     *
+     * @param clusterCriteria  The ordered cluster criteria
+     * @param commandCriterion The command criterion
+     * @return The map of cluster to selected command id or {@link Optional#empty()} if the index can't currently
+     * answer and the caller should go to the database
+     */
+    public Optional<Map<Cluster, String>> resolve(
+        @NotNull final List<Criterion> clusterCriteria,
+        @NotNull final Criterion commandCriterion
+    ) {
+        final Snapshot current = this.snapshot.get();
+        if (current == null || current.getGeneration() != this.generation.get()) {
+            this.countResolution(STALE);
+            return Optional.empty();
+        }
+        if (!isIndexable(commandCriterion, DEFAULT_COMMAND_STATUS)
+            || !clusterCriteria.stream().allMatch(criterion -> isIndexable(criterion, DEFAULT_CLUSTER_STATUS))) {
+            this.countResolution(UNSUPPORTED);
+            return Optional.empty();
+        }
+
+        this.countResolution(HIT);
+        for (final Criterion clusterCriterion : clusterCriteria) {
+            final Map<Cluster, String> found = current.resolve(clusterCriterion, commandCriterion);
+            if (!found.isEmpty()) {
+                return Optional.of(found);
+            }
+        }
+        return Optional.of(Maps.newHashMap());
+    }
+
+    /**
+     * Compare a result produced by the index against the one produced by the database. Any difference is logged and
+     * counted.
+     *
+     * @param clusterCriteria  The cluster criteria which were resolved
+     * @param commandCriterion The command criterion which was resolved
+     * @param indexed          The result from {@link #resolve(List, Criterion)}
+     * @param database         The result from the database
+     * @return true if the results select the same clusters and commands
+     */
+    public boolean verify(
+        final List<Criterion> clusterCriteria,
+        final Criterion commandCriterion,
+        final Map<Cluster, String> indexed,
+        final Map<Cluster, String> database
+    ) {
+        final Map<String, String> indexedIds = toIds(indexed);
+        final Map<String, String> databaseIds = toIds(database);
+        if (indexedIds.equals(databaseIds)) {
+            return true;
+        }
+        this.mismatchCounter.increment();
+        log.warn(
+            "Criteria resolution index disagreed with database for cluster criteria {} and command criterion {}. "
+                + "Index: {} Database: {}",
+            clusterCriteria,
+            commandCriterion,
+            indexedIds,
+            databaseIds
+        );
+        return false;
+    }
+
+    /**
+     * Mark the index stale when a cluster or command is changed locally and schedule a rebuild. Multiple changes
+     * arriving before the rebuild starts are coalesced into a single rebuild.
+     *
+     * @param event The change event
+     */
+    @EventListener
+    public void onResourceChanged(final ResourceChangedEvent event) {
+        if (event.getResourceType() == ResourceType.APPLICATION) {
+            return;
+        }
+        this.generation.incrementAndGet();
+        if (this.reloadPending.compareAndSet(false, true)) {
+            this.taskScheduler.schedule(this::reload, new Date());
+        }
+    }
+
+    /**
+     * Rebuild the index from the database and atomically swap it in.
+     */
+    public synchronized void reload() {
+        // Clear the flag before reading the generation so a change arriving mid load schedules another reload
+        this.reloadPending.set(false);
+        final long reloadGeneration = this.generation.get();
+        final long start = System.nanoTime();
+        final Set<Tag> tags = Sets.newHashSet();
+        try {
+            final Snapshot loaded = this.transactionTemplate.execute(status -> this.load(reloadGeneration));
+            this.snapshot.set(loaded);
+            MetricsUtils.addSuccessTags(tags);
+            log.debug(
+                "Rebuilt criteria resolution index with {} clusters and {} commands",
+                loaded.getNumClusters(),
+                loaded.getNumCommands()
+            );
+        } catch (final Throwable t) {
+            MetricsUtils.addFailureTagsWithException(tags, t);
+            log.error("Unable to rebuild criteria resolution index due to {}", t.getMessage(), t);
+        } finally {
+            this.registry
+                .timer(RELOAD_TIMER_NAME, tags)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Snapshot load(final long loadGeneration) {
+        final Snapshot.Builder builder = new Snapshot.Builder();
+        final List<CommandEntity> commands = this.commandRepository.findAll(
+            JpaCommandSpecs.find(null, null, EnumSet.of(CommandStatus.ACTIVE), null)
+        );
+        for (final CommandEntity command : commands) {
+            builder.addCommand(command.getUniqueId(), command.getName(), command.getVersion(), toTags(command));
+        }
+        final List<ClusterEntity> clusters = this.clusterRepository.findAll(
+            JpaClusterSpecs.find(null, EnumSet.of(ClusterStatus.UP), null, null, null)
+        );
+        for (final ClusterEntity cluster : clusters) {
+            builder.addCluster(
+                EntityDtoConverters.toV4ClusterDto(cluster),
+                cluster
+                    .getCommands()
+                    .stream()
+                    .filter(command -> command.getStatus() == CommandStatus.ACTIVE)
+                    .map(CommandEntity::getUniqueId)
+                    .collect(Collectors.toList())
+            );
+        }
+        return builder.build(loadGeneration);
+    }
+
+    private void countResolution(final String resolution) {
+        this.registry.counter(RESOLVE_COUNTER_NAME, RESOLUTION_TAG_KEY, resolution).increment();
+    }
+
+    private static Set<String> toTags(final CommandEntity command) {
+        return command.getTags().stream().map(TagEntity::getTag).collect(Collectors.toSet());
+    }
+
+    private static Map<String, String> toIds(final Map<Cluster, String> clustersAndCommands) {
+        final Map<String, String> ids = Maps.newHashMap();
+        clustersAndCommands.forEach((cluster, commandId) -> ids.put(cluster.getId(), commandId));
+        return ids;
+    }
+
+    /**
+     * Whether the index can answer for the given criterion. The index only holds resources in their default status.
+     *
+     * @param criterion     The criterion to check
+     * @param defaultStatus The status the index holds for this resource type
+     * @return true if the index can answer
+     */
+    static boolean isIndexable(final Criterion criterion, final String defaultStatus) {
+        final String status = criterion.getStatus().orElse(null);
+        return StringUtils.isBlank(status) || defaultStatus.equals(status);
+    }
+
+    /**
+     * Immutable point in time view of the clusters and commands in the database.
+     */
+    static final class Snapshot {
+        private final long generation;
+        private final Cluster[] clusters;
+        private final int[][] clusterCommands;
+        private final ResourceIndex clusterIndex;
+        private final ResourceIndex commandIndex;
+
+        private Snapshot(
+            final long generation,
+            final Cluster[] clusters,
+            final int[][] clusterCommands,
+            final ResourceIndex clusterIndex,
+            final ResourceIndex commandIndex
+        ) {
+            this.generation = generation;
+            this.clusters = clusters;
+            this.clusterCommands = clusterCommands;
+            this.clusterIndex = clusterIndex;
+            this.commandIndex = commandIndex;
+        }
+
+        long getGeneration() {
+            return this.generation;
+        }
+
+        int getNumClusters() {
+            return this.clusters.length;
+        }
+
+        int getNumCommands() {
+            return this.commandIndex.size();
+        }
+
+        Map<Cluster, String> resolve(final Criterion clusterCriterion, final Criterion commandCriterion) {
+            final Map<Cluster, String> found = Maps.newHashMap();
+            final BitSet clusterMatches = this.clusterIndex.match(clusterCriterion);
+            if (clusterMatches.isEmpty()) {
+                return found;
+            }
+            final BitSet commandMatches = this.commandIndex.match(commandCriterion);
+            for (int i = clusterMatches.nextSetBit(0); i >= 0; i = clusterMatches.nextSetBit(i + 1)) {
+                for (final int command : this.clusterCommands[i]) {
+                    if (commandMatches.get(command)) {
+                        found.put(this.clusters[i], this.commandIndex.getId(command));
+                        break;
+                    }
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Builder for a {@link Snapshot}. Commands must be added before the clusters which reference them.
+         */
+        static final class Builder {
+            private final List<Cluster> clusters = Lists.newArrayList();
+            private final List<int[]> clusterCommands = Lists.newArrayList();
+            private final ResourceIndex.Builder clusterIndex = new ResourceIndex.Builder();
+            private final ResourceIndex.Builder commandIndex = new ResourceIndex.Builder();
+
+            Builder addCommand(
+                final String id,
+                final String name,
+                final String version,
+                final Set<String> tags
+            ) {
+                this.commandIndex.add(id, name, version, tags);
+                return this;
+            }
+
+            Builder addCluster(final Cluster cluster, final List<String> orderedCommandIds) {
+                this.clusterIndex.add(
+                    cluster.getId(),
+                    cluster.getMetadata().getName(),
+                    cluster.getMetadata().getVersion(),
+                    cluster.getMetadata().getTags()
+                );
+                this.clusters.add(cluster);
+                this.clusterCommands.add(
+                    orderedCommandIds
+                        .stream()
+                        .map(this.commandIndex::getPosition)
+                        .filter(position -> position != null)
+                        .mapToInt(Integer::intValue)
+                        .toArray()
+                );
+                return this;
+            }
+
+            Snapshot build(final long generation) {
+                return new Snapshot(
+                    generation,
+                    this.clusters.toArray(new Cluster[0]),
+                    this.clusterCommands.toArray(new int[0][]),
+                    this.clusterIndex.build(),
+                    this.commandIndex.build()
+                );
+            }
+        }
+    }
+
+    /**
+     * Bitmap index over the fields a {@link Criterion} can match on. Positions are the order resources were added.
+     */
+    private static final class ResourceIndex {
+        private final String[] ids;
+        private final Map<String, Integer> positions;
+        private final Map<String, BitSet> names;
+        private final Map<String, BitSet> versions;
+        private final Map<String, BitSet> tags;
+
+        private ResourceIndex(
+            final String[] ids,
+            final Map<String, Integer> positions,
+            final Map<String, BitSet> names,
+            final Map<String, BitSet> versions,
+            final Map<String, BitSet> tags
+        ) {
+            this.ids = ids;
+            this.positions = positions;
+            this.names = names;
+            this.versions = versions;
+            this.tags = tags;
+        }
+
+        int size() {
+            return this.ids.length;
+        }
+
+        String getId(final int position) {
+            return this.ids[position];
+        }
+
+        BitSet match(final Criterion criterion) {
+            final BitSet matches = new BitSet(this.ids.length);
+            matches.set(0, this.ids.length);
+
+            final String id = criterion.getId().orElse(null);
+            if (StringUtils.isNotBlank(id)) {
+                final Integer position = this.positions.get(id);
+                final boolean found = position != null && matches.get(position);
+                matches.clear();
+                if (found) {
+                    matches.set(position);
+                }
+            }
+            final String name = criterion.getName().orElse(null);
+            if (StringUtils.isNotBlank(name)) {
+                and(matches, this.names.get(name));
+            }
+            final String version = criterion.getVersion().orElse(null);
+            if (StringUtils.isNotBlank(version)) {
+                and(matches, this.versions.get(version));
+            }
+            for (final String tag : criterion.getTags()) {
+                and(matches, this.tags.get(tag));
+            }
+            return matches;
+        }
+
+        private static void and(final BitSet matches, @Nullable final BitSet other) {
+            if (other == null) {
+                matches.clear();
+            } else {
+                matches.and(other);
+            }
+        }
+
+        static final class Builder {
+            private final List<String> ids = Lists.newArrayList();
+            private final Map<String, Integer> positions = Maps.newHashMap();
+            private final Map<String, BitSet> names = Maps.newHashMap();
+            private final Map<String, BitSet> versions = Maps.newHashMap();
+            private final Map<String, BitSet> tags = Maps.newHashMap();
+
+            void add(final String id, final String name, final String version, final Set<String> resourceTags) {
+                final int position = this.ids.size();
+                this.ids.add(id);
+                this.positions.put(id, position);
+                this.names.computeIfAbsent(name, key -> new BitSet()).set(position);
+                this.versions.computeIfAbsent(version, key -> new BitSet()).set(position);
+                for (final String tag : resourceTags) {
+                    this.tags.computeIfAbsent(tag, key -> new BitSet()).set(position);
+                }
+            }
+
+            @Nullable
+            Integer getPosition(final String id) {
+                return this.positions.get(id);
+            }
+
+            ResourceIndex build() {
+                return new ResourceIndex(
+                    this.ids.toArray(new String[0]),
+                    this.positions,
+                    this.names,
+                    this.versions,
+                    this.tags
+                );
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.jpa.services;
+
+import com.netflix.genie.common.exceptions.GeniePreconditionException;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * The position of the last job of a page of job search results: the sort property and direction of the search and
+ * the sort key and database id of the job. Clients only see it as an opaque token.
+ *
+ * @since 4.0.0
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+final class JobSearchCursor {
+
+    private static final String VERSION = "1";
+    private static final String SEPARATOR = "\n";
+    private static final int FIELDS = 5;
+
+    private final String property;
+    private final boolean ascending;
+    private final long id;
+    private final String sortKey;
+
+    /**
+     * Constructor.
+     *
+     * @param property  The sort property
+     * @param ascending Whether the sort is ascending
+     * @param id        The database id of the last job of the page
+     * @param sortKey   The value of the sort property of the last job of the page
+     */
+    JobSearchCursor(final String property, final boolean ascending, final long id, final String sortKey) {
+        this.property = property;
+        this.ascending = ascending;
+        this.id = id;
+        this.sortKey = sortKey;
+    }
+
+    /**
+     * Decode a token created by {@link #encode()}.
+     *
+     * @param token The token
+     * @return The cursor
+     * @throws GeniePreconditionException If the token isn't a valid cursor
+     */
+    static JobSearchCursor decode(final String token) throws GeniePreconditionException {
+        try {
+            // The sort key is last so it may contain the separator
+            final String[] fields = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+                .split(SEPARATOR, FIELDS);
+            if (fields.length != FIELDS || !VERSION.equals(fields[0])) {
+                throw new GeniePreconditionException("Invalid cursor: " + token);
+            }
+            return new JobSearchCursor(
+                fields[1],
+                Boolean.parseBoolean(fields[2]),
+                Long.parseLong(fields[3]),
+                fields[4]
+            );
+        } catch (final IllegalArgumentException e) {
+            throw new GeniePreconditionException("Invalid cursor: " + token, e);
+        }
+    }
+
+    /**
+     * Encode this cursor as an opaque, URL safe token.
+     *
+     * @return The token
+     */
+    String encode() {
+        final String value = String.join(
+            SEPARATOR,
+            VERSION,
+            this.property,
+            Boolean.toString(this.ascending),
+            Long.toString(this.id),
+            this.sortKey
+        );
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,449 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.jpa.services;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.netflix.genie.common.dto.JobStatus;
+import com.netflix.genie.common.dto.search.JobSearchResult;
+import com.netflix.genie.web.jpa.entities.JobEntity;
+import com.netflix.genie.web.jpa.entities.TagEntity;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.Sort;
+
+import javax.annotation.Nullable;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.SingularAttribute;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A job search compiled to JPQL.
+ * <p>
+ * The query text only depends on the shape of a search: which filters are present, whether string filters are
+ * patterns or exact values and whether tags are matched through the join table. Plans are cached by shape so
+ * searches of the same shape reuse the same query text, and with it the query plan Hibernate caches for that text,
+ * and only bind new values. Clusters and commands are filtered by a sub select on their unique id rather than by a
+ * loaded entity and results are constructed directly as {@link JobSearchResult} rows so they're never managed by the
+ * persistence context.
+ * <p>
+ * Offset pages, keyset pages and the counts of both are all created from the same plan so they always agree on which
+ * jobs match.
+ *
+ * @since 4.0.0
+ */
+final class JobSearchPlan {
+
+    private static final String ALIAS = "j";
+    private static final String TAGGED_ALIAS = "tj";
+    private static final String FROM = " FROM " + JobEntity.class.getSimpleName() + " " + ALIAS;
+    private static final String COUNT = "SELECT COUNT(" + ALIAS + ")" + FROM;
+    private static final String ID = "SELECT " + ALIAS + ".id" + FROM;
+    private static final String RESULT_COLUMNS = ALIAS + ".uniqueId, "
+        + ALIAS + ".name, "
+        + ALIAS + ".user, "
+        + ALIAS + ".status, "
+        + ALIAS + ".started, "
+        + ALIAS + ".finished, "
+        + ALIAS + ".clusterName, "
+        + ALIAS + ".commandName";
+    private static final String CONTENT = "SELECT new " + JobSearchResult.class.getName() + "(" + RESULT_COLUMNS + ")"
+        + FROM;
+    // The sort key and the id follow the result columns in a seek row
+    private static final String SEEK = "SELECT " + RESULT_COLUMNS + ", " + ALIAS + ".%1$s, " + ALIAS + ".id" + FROM;
+    private static final int SEEK_SORT_KEY_INDEX = 8;
+    private static final int SEEK_ID_INDEX = 9;
+    private static final String AFTER_SORT_KEY_PARAMETER = "afterSortKey";
+    private static final String AFTER_ID_PARAMETER = "afterId";
+    private static final String TAG_ENTITIES_PARAMETER = "tagEntities";
+    private static final String TAG_COUNT_PARAMETER = "tagCount";
+    private static final String TAGS_PARAMETER = "tags";
+    private static final long MAX_CACHED_PLANS = 1_000L;
+    private static final Cache<String, JobSearchPlan> PLANS = CacheBuilder
+        .newBuilder()
+        .maximumSize(MAX_CACHED_PLANS)
+        .build();
+
+    private final String where;
+    private final String countQuery;
+    private final String idQuery;
+    private final String contentQuery;
+
+    private JobSearchPlan(final String where) {
+        this.where = where;
+        this.countQuery = COUNT + where;
+        this.idQuery = ID + where;
+        this.contentQuery = CONTENT + where;
+    }
+
+    /**
+     * Start describing a search.
+     *
+     * @return A new search builder
+     */
+    static Search search() {
+        return new Search();
+    }
+
+    /**
+     * Get the search result from a row of a seek query.
+     *
+     * @param row The row returned by a query created by {@link Search#createSeekQuery(EntityManager, String, boolean)}
+     * @return The search result
+     */
+    static JobSearchResult toSearchResult(final Object[] row) {
+        return new JobSearchResult(
+            (String) row[0],
+            (String) row[1],
+            (String) row[2],
+            (JobStatus) row[3],
+            (Instant) row[4],
+            (Instant) row[5],
+            (String) row[6],
+            (String) row[7]
+        );
+    }
+
+    /**
+     * Get the value of the sort property from a row of a seek query.
+     *
+     * @param row The row returned by a query created by {@link Search#createSeekQuery(EntityManager, String, boolean)}
+     * @return The sort key of the job
+     */
+    static Object getSortKey(final Object[] row) {
+        return row[SEEK_SORT_KEY_INDEX];
+    }
+
+    /**
+     * Get the id from a row of a seek query.
+     *
+     * @param row The row returned by a query created by {@link Search#createSeekQuery(EntityManager, String, boolean)}
+     * @return The id of the job
+     */
+    static long getId(final Object[] row) {
+        return (Long) row[SEEK_ID_INDEX];
+    }
+
+    /**
+     * The filters and parameter values of a single search. Adding a filter with a null or empty value leaves it out.
+     */
+    static final class Search {
+        private final StringBuilder shape = new StringBuilder();
+        private final List<String> clauses = new ArrayList<>();
+        // Clauses on the job which also narrow down the jobs grouped by the tag sub query
+        private final List<String> taggedClauses = new ArrayList<>();
+        private final Map<String, Object> parameters = new LinkedHashMap<>();
+        // The keyset is only part of the seek query so it isn't part of the shape of the filters
+        private final Map<String, Object> keysetParameters = new LinkedHashMap<>();
+        @Nullable
+        private String keysetProperty;
+        private boolean keysetAscending;
+        private boolean taggedWith;
+
+        private Search() {
+        }
+
+        /**
+         * Match a string attribute exactly or, if the value contains a {@literal %}, as a {@code LIKE} pattern.
+         *
+         * @param attribute The attribute of the job
+         * @param value     The value or pattern to match. Ignored if null
+         * @return This search
+         */
+        Search matching(final SingularAttribute<? super JobEntity, String> attribute, @Nullable final String value) {
+            if (value != null) {
+                final String name = attribute.getName();
+                final boolean like = StringUtils.contains(value, "%");
+                this.add(name + (like ? "~" : "="), ALIAS + "." + name + (like ? " LIKE :" : " = :") + name, false);
+                this.parameters.put(name, value);
+            }
+            return this;
+        }
+
+        /**
+         * Match any of the given values of an attribute.
+         *
+         * @param attribute The attribute of the job
+         * @param values    The values to match. Ignored if null or empty
+         * @return This search
+         */
+        Search anyOf(final SingularAttribute<? super JobEntity, ?> attribute, @Nullable final Collection<?> values) {
+            if (values != null && !values.isEmpty()) {
+                final String name = attribute.getName();
+                this.add(name + "[]", "%1$s." + name + " IN :" + name, true);
+                this.parameters.put(name, values);
+            }
+            return this;
+        }
+
+        /**
+         * Match jobs whose value of the attribute is at or after the given instant.
+         *
+         * @param attribute The attribute of the job
+         * @param min       The inclusive lower bound. Ignored if null
+         * @return This search
+         */
+        Search atLeast(final SingularAttribute<? super JobEntity, Instant> attribute, @Nullable final Instant min) {
+            return this.bound(attribute, min, "min", " >= :");
+        }
+
+        /**
+         * Match jobs whose value of the attribute is before the given instant.
+         *
+         * @param attribute The attribute of the job
+         * @param max       The exclusive upper bound. Ignored if null
+         * @return This search
+         */
+        Search before(final SingularAttribute<? super JobEntity, Instant> attribute, @Nullable final Instant max) {
+            return this.bound(attribute, max, "max", " < :");
+        }
+
+        /**
+         * Match jobs referencing the resource with the given unique id. The foreign key is compared to a sub select
+         * on the referenced table so the resource doesn't have to be loaded. If no resource has the id no job
+         * matches.
+         *
+         * @param attribute The many to one attribute of the job
+         * @param uniqueId  The unique id of the referenced resource. Ignored if null
+         * @return This search
+         */
+        Search referencing(final SingularAttribute<? super JobEntity, ?> attribute, @Nullable final String uniqueId) {
+            if (uniqueId != null) {
+                final String name = attribute.getName();
+                final String parameter = name + "Id";
+                this.add(
+                    name + "->",
+                    ALIAS + "." + name + ".id IN (SELECT r.id FROM " + attribute.getJavaType().getSimpleName()
+                        + " r WHERE r.uniqueId = :" + parameter + ")",
+                    false
+                );
+                this.parameters.put(parameter, uniqueId);
+            }
+            return this;
+        }
+
+        /**
+         * Match jobs with all the given tags using a {@code LIKE} on their tag search string.
+         *
+         * @param tagLikeString The pattern created from the tags. Ignored if null
+         * @return This search
+         */
+        Search taggedLike(@Nullable final String tagLikeString) {
+            if (tagLikeString != null) {
+                this.add("tags~", ALIAS + ".tagSearchString LIKE :" + TAGS_PARAMETER, false);
+                this.parameters.put(TAGS_PARAMETER, tagLikeString);
+            }
+            return this;
+        }
+
+        /**
+         * Match jobs with all the given tags through the jobs to tags join table.
+         *
+         * @param tags The tag entities the jobs must all have. Ignored if null or empty
+         * @return This search
+         */
+        Search taggedWith(@Nullable final Set<TagEntity> tags) {
+            if (tags != null && !tags.isEmpty()) {
+                this.taggedWith = true;
+                this.parameters.put(TAG_ENTITIES_PARAMETER, tags);
+                this.parameters.put(TAG_COUNT_PARAMETER, (long) tags.size());
+            }
+            return this;
+        }
+
+        /**
+         * Only seek jobs positioned after the given job in the order of the seek query. A position is the value of
+         * the sort property followed by the id, which breaks ties between jobs with the same value. The filters
+         * aren't affected so counts still cover every matching job.
+         *
+         * @param sortProperty The property the jobs are sorted on
+         * @param sortKey      The value of the sort property of the job to seek past
+         * @param id           The id of the job to seek past
+         * @param ascending    Whether the jobs are sorted in ascending order
+         * @return This search
+         */
+        Search after(final String sortProperty, final Object sortKey, final long id, final boolean ascending) {
+            this.keysetProperty = sortProperty;
+            this.keysetAscending = ascending;
+            this.keysetParameters.put(AFTER_SORT_KEY_PARAMETER, sortKey);
+            this.keysetParameters.put(AFTER_ID_PARAMETER, id);
+            return this;
+        }
+
+        /**
+         * Create the query counting the jobs matching this search.
+         *
+         * @param entityManager The entity manager to create the query with
+         * @return The query with all the parameters bound
+         */
+        TypedQuery<Long> createCountQuery(final EntityManager entityManager) {
+            return this.bind(entityManager.createQuery(this.getPlan().countQuery, Long.class));
+        }
+
+        /**
+         * Create the query returning the ids of the jobs matching this search in no particular order.
+         *
+         * @param entityManager The entity manager to create the query with
+         * @return The query with all the parameters bound
+         */
+        TypedQuery<Long> createIdQuery(final EntityManager entityManager) {
+            return this.bind(entityManager.createQuery(this.getPlan().idQuery, Long.class));
+        }
+
+        /**
+         * Create the query returning the jobs matching this search, and positioned after the job given to
+         * {@link #after(String, Object, long, boolean)} if any, as rows of the result columns followed by the sort key
+         * and the id. The jobs are ordered by the sort property then the id so every job has a unique position.
+         *
+         * @param entityManager The entity manager to create the query with
+         * @param sortProperty  The property to sort on. It must be an attribute of the job
+         * @param ascending     Whether to sort in ascending order
+         * @return The query with all the parameters bound
+         * @throws IllegalArgumentException If the sort property isn't an attribute of the job or the sort doesn't
+         *                                  match the one of the job to seek past
+         */
+        TypedQuery<Object[]> createSeekQuery(
+            final EntityManager entityManager,
+            final String sortProperty,
+            final boolean ascending
+        ) {
+            final String property = getAttributeName(entityManager, sortProperty);
+            final String sortKeyPath = ALIAS + "." + property;
+            final String where = this.getPlan().where;
+            final StringBuilder query = new StringBuilder(String.format(SEEK, property)).append(where);
+            if (this.keysetProperty != null) {
+                if (!this.keysetProperty.equals(sortProperty) || this.keysetAscending != ascending) {
+                    throw new IllegalArgumentException("The job to seek past wasn't positioned by the same sort");
+                }
+                final String operator = ascending ? " > :" : " < :";
+                query
+                    .append(where.isEmpty() ? " WHERE (" : " AND (")
+                    .append(sortKeyPath).append(operator).append(AFTER_SORT_KEY_PARAMETER)
+                    .append(" OR (")
+                    .append(sortKeyPath).append(" = :").append(AFTER_SORT_KEY_PARAMETER)
+                    .append(" AND ").append(ALIAS).append(".id").append(operator).append(AFTER_ID_PARAMETER)
+                    .append("))");
+            }
+            final String direction = ascending ? " ASC" : " DESC";
+            query
+                .append(" ORDER BY ")
+                .append(sortKeyPath).append(direction)
+                .append(", ")
+                .append(ALIAS).append(".id").append(direction);
+            final TypedQuery<Object[]> seekQuery
+                = this.bind(entityManager.createQuery(query.toString(), Object[].class));
+            if (this.keysetProperty != null) {
+                this.keysetParameters.forEach(seekQuery::setParameter);
+            }
+            return seekQuery;
+        }
+
+        /**
+         * Create the query returning the jobs matching this search.
+         *
+         * @param entityManager The entity manager to create the query with
+         * @param sort          The order of the results. The properties must be attributes of the job
+         * @return The query with all the parameters bound
+         * @throws IllegalArgumentException If a sort property isn't an attribute of the job
+         */
+        TypedQuery<JobSearchResult> createContentQuery(final EntityManager entityManager, final Sort sort) {
+            final StringBuilder query = new StringBuilder(this.getPlan().contentQuery);
+            String separator = " ORDER BY ";
+            for (final Sort.Order order : sort) {
+                final String property = getAttributeName(entityManager, order.getProperty());
+                query
+                    .append(separator)
+                    .append(ALIAS)
+                    .append('.')
+                    .append(property)
+                    .append(order.isAscending() ? " ASC" : " DESC");
+                separator = ", ";
+            }
+            return this.bind(entityManager.createQuery(query.toString(), JobSearchResult.class));
+        }
+
+        private static String getAttributeName(final EntityManager entityManager, final String property) {
+            // Resolve through the metamodel first as the property ends up in the query text
+            return entityManager.getMetamodel().entity(JobEntity.class).getAttribute(property).getName();
+        }
+
+        private Search bound(
+            final SingularAttribute<? super JobEntity, Instant> attribute,
+            @Nullable final Instant value,
+            final String prefix,
+            final String operator
+        ) {
+            if (value != null) {
+                final String name = attribute.getName();
+                final String parameter = prefix + StringUtils.capitalize(name);
+                this.add(parameter, "%1$s." + name + operator + parameter, true);
+                this.parameters.put(parameter, value);
+            }
+            return this;
+        }
+
+        private void add(final String shapeToken, final String clause, final boolean tagged) {
+            this.shape.append(shapeToken).append('|');
+            if (tagged) {
+                // Formatted with the alias of the outer query here and the one of the tag sub query when compiled
+                this.clauses.add(String.format(clause, ALIAS));
+                this.taggedClauses.add(clause);
+            } else {
+                this.clauses.add(clause);
+            }
+        }
+
+        private JobSearchPlan getPlan() {
+            final String key = this.taggedWith ? this.shape + "tags[]" : this.shape.toString();
+            try {
+                return PLANS.get(key, this::compile);
+            } catch (final ExecutionException e) {
+                // compile doesn't throw checked exceptions
+                throw new IllegalStateException("Unable to compile job search " + key, e.getCause());
+            }
+        }
+
+        private JobSearchPlan compile() {
+            final List<String> where = new ArrayList<>(this.clauses);
+            if (this.taggedWith) {
+                final List<String> tagged = new ArrayList<>();
+                this.taggedClauses.forEach(clause -> tagged.add(String.format(clause, TAGGED_ALIAS)));
+                tagged.add("t IN :" + TAG_ENTITIES_PARAMETER);
+                where.add(
+                    ALIAS + ".id IN (SELECT " + TAGGED_ALIAS + ".id FROM " + JobEntity.class.getSimpleName() + " "
+                        + TAGGED_ALIAS + " JOIN " + TAGGED_ALIAS + ".tags t WHERE " + String.join(" AND ", tagged)
+                        + " GROUP BY " + TAGGED_ALIAS + ".id HAVING COUNT(" + TAGGED_ALIAS + ".id) = :"
+                        + TAG_COUNT_PARAMETER + ")"
+                );
+            }
+            return new JobSearchPlan(where.isEmpty() ? "" : " WHERE " + String.join(" AND ", where));
+        }
+
+        private <T> TypedQuery<T> bind(final TypedQuery<T> query) {
+            this.parameters.forEach(query::setParameter);
+            return query;
+        }
+    }
+}
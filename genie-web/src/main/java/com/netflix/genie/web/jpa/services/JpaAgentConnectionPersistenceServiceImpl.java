@@ -25,7 +25,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.validation.constraints.NotBlank;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * JPA implementation of AgentConnectionPersistenceService.
@@ -76,6 +80,36 @@ public class JpaAgentConnectionPersistenceServiceImpl implements AgentConnection
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void saveAgentConnections(final Set<String> jobIds, @NotBlank final String hostname) {
+        final Map<String, AgentConnectionEntity> existingEntities = this.getAgentConnections(jobIds);
+        for (final String jobId : jobIds) {
+            final AgentConnectionEntity existingEntity = existingEntities.get(jobId);
+            if (existingEntity != null) {
+                existingEntity.setServerHostname(hostname);
+            } else {
+                this.agentConnectionRepository.save(toEntity(jobId, hostname));
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeAgentConnections(final Set<String> jobIds, @NotBlank final String hostname) {
+        this.agentConnectionRepository.deleteAll(
+            this.getAgentConnections(jobIds)
+                .values()
+                .stream()
+                .filter(entity -> entity.getServerHostname().equals(hostname))
+                .collect(Collectors.toList())
+        );
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -93,6 +127,13 @@ public class JpaAgentConnectionPersistenceServiceImpl implements AgentConnection
         return this.agentConnectionRepository.findByJobId(jobId);
     }
 
+    private Map<String, AgentConnectionEntity> getAgentConnections(final Set<String> jobIds) {
+        return this.agentConnectionRepository
+            .findByJobIdIn(jobIds)
+            .stream()
+            .collect(Collectors.toMap(AgentConnectionEntity::getJobId, Function.identity()));
+    }
+
     private AgentConnectionEntity toEntity(
         final @NotBlank String jobId,
         final @NotBlank String hostname
@@ -35,6 +35,9 @@ import com.netflix.genie.common.internal.dto.v4.Command;
 import com.netflix.genie.common.internal.dto.v4.ExecutionEnvironment;
 import com.netflix.genie.common.internal.exceptions.unchecked.GenieRuntimeException;
 import com.netflix.genie.common.util.GenieObjectMapper;
+import com.netflix.genie.web.events.GenieEventBus;
+import com.netflix.genie.web.events.ResourceChangedEvent;
+import com.netflix.genie.web.events.ResourceType;
 import com.netflix.genie.web.jpa.entities.ApplicationEntity;
 import com.netflix.genie.web.jpa.entities.CommandEntity;
 import com.netflix.genie.web.jpa.entities.FileEntity;
@@ -81,6 +84,8 @@ import java.util.stream.Collectors;
 @Slf4j
 public class JpaApplicationPersistenceServiceImpl extends JpaBaseService implements ApplicationPersistenceService {
 
+    private final GenieEventBus genieEventBus;
+
     /**
      * Default constructor.
      *
@@ -89,13 +94,15 @@ public class JpaApplicationPersistenceServiceImpl extends JpaBaseService impleme
      * @param applicationRepository  The {@link JpaApplicationRepository} to use
      * @param clusterRepository      The {@link JpaClusterRepository} to use
      * @param commandRepository      The {@link JpaCommandRepository} to use
+     * @param genieEventBus          The {@link GenieEventBus} to publish resource changes on
      */
     public JpaApplicationPersistenceServiceImpl(
         final JpaTagPersistenceService tagPersistenceService,
         final JpaFilePersistenceService filePersistenceService,
         final JpaApplicationRepository applicationRepository,
         final JpaClusterRepository clusterRepository,
-        final JpaCommandRepository commandRepository
+        final JpaCommandRepository commandRepository,
+        final GenieEventBus genieEventBus
     ) {
         super(
             tagPersistenceService,
@@ -104,6 +111,7 @@ public class JpaApplicationPersistenceServiceImpl extends JpaBaseService impleme
             clusterRepository,
             commandRepository
         );
+        this.genieEventBus = genieEventBus;
     }
 
     /**
@@ -124,6 +132,7 @@ public class JpaApplicationPersistenceServiceImpl extends JpaBaseService impleme
                 e
             );
         }
+        this.publishChangeOnCommit(applicationEntity.getUniqueId());
         return applicationEntity.getUniqueId();
     }
 
@@ -184,6 +193,7 @@ public class JpaApplicationPersistenceServiceImpl extends JpaBaseService impleme
         @NotNull(message = "No application information entered. Unable to update.")
         @Valid final Application updateApp
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         if (!this.getApplicationRepository().existsByUniqueId(id)) {
             throw new GenieNotFoundException("No application with id " + id + " exists. Unable to update.");
         }
@@ -201,6 +211,7 @@ public class JpaApplicationPersistenceServiceImpl extends JpaBaseService impleme
      */
     @Override
     public void patchApplication(@NotBlank final String id, @NotNull final JsonPatch patch) throws GenieException {
+        this.publishChangeOnCommit(id);
         final ApplicationEntity applicationEntity = this.findApplication(id);
         try {
             final Application appToPatch = EntityDtoConverters.toV4ApplicationDto(applicationEntity);
@@ -227,6 +238,8 @@ public class JpaApplicationPersistenceServiceImpl extends JpaBaseService impleme
             this.checkCommands(applicationEntity);
         }
         this.getApplicationRepository().deleteAll();
+        // Every application is gone so drop everything cached for them rather than one event per application
+        this.publishChangeOnCommit(null);
     }
 
     /**
@@ -236,6 +249,7 @@ public class JpaApplicationPersistenceServiceImpl extends JpaBaseService impleme
     public void deleteApplication(
         @NotBlank(message = "No application id entered. Unable to delete.") final String id
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         log.debug("Called with id {}", id);
         final ApplicationEntity applicationEntity = this.findApplication(id);
         this.checkCommands(applicationEntity);
@@ -250,6 +264,7 @@ public class JpaApplicationPersistenceServiceImpl extends JpaBaseService impleme
         @NotBlank(message = "No application id entered. Unable to add configurations.") final String id,
         @NotEmpty(message = "No configuration files entered.") final Set<String> configs
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findApplication(id).getConfigs().addAll(this.createAndGetFileEntities(configs));
     }
 
@@ -274,6 +289,7 @@ public class JpaApplicationPersistenceServiceImpl extends JpaBaseService impleme
             message = "No configs entered. Unable to update. If you want, use delete API."
         ) final Set<String> configs
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findApplication(id).setConfigs(this.createAndGetFileEntities(configs));
     }
 
@@ -284,6 +300,7 @@ public class JpaApplicationPersistenceServiceImpl extends JpaBaseService impleme
     public void removeAllConfigsForApplication(
         @NotBlank(message = "No application id entered. Unable to remove configs.") final String id
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findApplication(id).getConfigs().clear();
     }
 
@@ -295,6 +312,7 @@ public class JpaApplicationPersistenceServiceImpl extends JpaBaseService impleme
         @NotBlank(message = "No application id entered. Unable to remove configuration.") final String id,
         @NotBlank(message = "No config entered. Unable to remove.") final String config
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.getFilePersistenceService().getFile(config).ifPresent(this.findApplication(id).getConfigs()::remove);
     }
 
@@ -306,6 +324,7 @@ public class JpaApplicationPersistenceServiceImpl extends JpaBaseService impleme
         @NotBlank(message = "No application id entered. Unable to add dependencies.") final String id,
         @NotEmpty(message = "No dependencies entered. Unable to add dependencies.") final Set<String> dependencies
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findApplication(id).getDependencies().addAll(this.createAndGetFileEntities(dependencies));
     }
 
@@ -328,6 +347,7 @@ public class JpaApplicationPersistenceServiceImpl extends JpaBaseService impleme
         @NotBlank(message = "No application id entered. Unable to update dependencies.") final String id,
         @NotNull(message = "No dependencies entered. Unable to update.") final Set<String> dependencies
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findApplication(id).setDependencies(this.createAndGetFileEntities(dependencies));
     }
 
@@ -338,6 +358,7 @@ public class JpaApplicationPersistenceServiceImpl extends JpaBaseService impleme
     public void removeAllDependenciesForApplication(
         @NotBlank(message = "No application id entered. Unable to remove dependencies.") final String id
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findApplication(id).getDependencies().clear();
     }
 
@@ -349,6 +370,7 @@ public class JpaApplicationPersistenceServiceImpl extends JpaBaseService impleme
         @NotBlank(message = "No application id entered. Unable to remove dependency.") final String id,
         @NotBlank(message = "No dependency entered. Unable to remove dependency.") final String dependency
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.getFilePersistenceService()
             .getFile(dependency)
             .ifPresent(this.findApplication(id).getDependencies()::remove);
@@ -362,6 +384,7 @@ public class JpaApplicationPersistenceServiceImpl extends JpaBaseService impleme
         @NotBlank(message = "No application id entered. Unable to add tags.") final String id,
         @NotEmpty(message = "No tags entered. Unable to add.") final Set<String> tags
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findApplication(id).getTags().addAll(this.createAndGetTagEntities(tags));
     }
 
@@ -384,6 +407,7 @@ public class JpaApplicationPersistenceServiceImpl extends JpaBaseService impleme
         @NotBlank(message = "No application id entered. Unable to update tags.") final String id,
         @NotNull(message = "No tags entered unable to update tags.") final Set<String> tags
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findApplication(id).setTags(this.createAndGetTagEntities(tags));
     }
 
@@ -394,6 +418,7 @@ public class JpaApplicationPersistenceServiceImpl extends JpaBaseService impleme
     public void removeAllTagsForApplication(
         @NotBlank(message = "No application id entered. Unable to remove tags.") final String id
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findApplication(id).getTags().clear();
     }
 
@@ -405,6 +430,7 @@ public class JpaApplicationPersistenceServiceImpl extends JpaBaseService impleme
         @NotBlank(message = "No application id entered. Unable to remove tag.") final String id,
         @NotBlank(message = "No tag entered. Unable to remove.") final String tag
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.getTagPersistenceService().getTag(tag).ifPresent(this.findApplication(id).getTags()::remove);
     }
 
@@ -486,4 +512,11 @@ public class JpaApplicationPersistenceServiceImpl extends JpaBaseService impleme
             );
         }
     }
+
+    private void publishChangeOnCommit(@Nullable final String id) {
+        JpaServiceUtils.publishAfterCommit(
+            this.genieEventBus,
+            new ResourceChangedEvent(ResourceType.APPLICATION, id, this)
+        );
+    }
 }
@@ -41,6 +41,9 @@ import com.netflix.genie.common.internal.dto.v4.ExecutionEnvironment;
 import com.netflix.genie.common.internal.exceptions.unchecked.GenieRuntimeException;
 import com.netflix.genie.common.util.GenieObjectMapper;
 import com.netflix.genie.web.controllers.DtoConverters;
+import com.netflix.genie.web.events.GenieEventBus;
+import com.netflix.genie.web.events.ResourceChangedEvent;
+import com.netflix.genie.web.events.ResourceType;
 import com.netflix.genie.web.jpa.entities.ClusterEntity;
 import com.netflix.genie.web.jpa.entities.CommandEntity;
 import com.netflix.genie.web.jpa.entities.FileEntity;
@@ -52,6 +55,7 @@ import com.netflix.genie.web.jpa.repositories.JpaClusterRepository;
 import com.netflix.genie.web.jpa.repositories.JpaCommandRepository;
 import com.netflix.genie.web.jpa.specifications.JpaClusterSpecs;
 import com.netflix.genie.web.services.ClusterPersistenceService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
@@ -90,21 +94,39 @@ import java.util.stream.Collectors;
 @Slf4j
 public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements ClusterPersistenceService {
 
+    private static final String RESOLUTION_QUERIES_SUMMARY_NAME
+        = "genie.jpa.clusterPersistenceService.resolveClustersAndCommands.queries.summary";
+
+    private final GenieEventBus genieEventBus;
+    private final MeterRegistry registry;
+    private final StatementCountingInspector statementCountingInspector;
+    @Nullable
+    private final CriteriaResolutionIndex criteriaResolutionIndex;
+
     /**
      * Default constructor.
      *
-     * @param tagPersistenceService  The {@link JpaTagPersistenceService} to use
-     * @param filePersistenceService The {@link JpaFilePersistenceService} to use
-     * @param applicationRepository  The {@link JpaApplicationRepository} to use
-     * @param clusterRepository      The {@link JpaClusterRepository} to use
-     * @param commandRepository      The {@link JpaCommandRepository} to use
+     * @param tagPersistenceService      The {@link JpaTagPersistenceService} to use
+     * @param filePersistenceService     The {@link JpaFilePersistenceService} to use
+     * @param applicationRepository      The {@link JpaApplicationRepository} to use
+     * @param clusterRepository          The {@link JpaClusterRepository} to use
+     * @param commandRepository          The {@link JpaCommandRepository} to use
+     * @param genieEventBus              The {@link GenieEventBus} to publish resource changes on
+     * @param registry                   The metrics registry to use
+     * @param statementCountingInspector The {@link StatementCountingInspector} registered with Hibernate
+     * @param criteriaResolutionIndex    The {@link CriteriaResolutionIndex} to try before the database.
+     *                                   Null if disabled.
      */
     public JpaClusterPersistenceServiceImpl(
         final JpaTagPersistenceService tagPersistenceService,
         final JpaFilePersistenceService filePersistenceService,
         final JpaApplicationRepository applicationRepository,
         final JpaClusterRepository clusterRepository,
-        final JpaCommandRepository commandRepository
+        final JpaCommandRepository commandRepository,
+        final GenieEventBus genieEventBus,
+        final MeterRegistry registry,
+        final StatementCountingInspector statementCountingInspector,
+        @Nullable final CriteriaResolutionIndex criteriaResolutionIndex
     ) {
         super(
             tagPersistenceService,
@@ -113,6 +135,10 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
             clusterRepository,
             commandRepository
         );
+        this.genieEventBus = genieEventBus;
+        this.registry = registry;
+        this.statementCountingInspector = statementCountingInspector;
+        this.criteriaResolutionIndex = criteriaResolutionIndex;
     }
 
     /**
@@ -133,6 +159,7 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
                 e
             );
         }
+        this.publishChangeOnCommit(clusterEntity.getUniqueId());
         return clusterEntity.getUniqueId();
     }
 
@@ -230,6 +257,7 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
         @NotNull(message = "No cluster information entered. Unable to update.")
         @Valid final Cluster updateCluster
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         log.debug("Called with id {} and cluster {}", id, updateCluster);
         if (!this.getClusterRepository().existsByUniqueId(id)) {
             throw new GenieNotFoundException("No cluster exists with the given id. Unable to update.");
@@ -247,6 +275,7 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
      */
     @Override
     public void patchCluster(@NotBlank final String id, @NotNull final JsonPatch patch) throws GenieException {
+        this.publishChangeOnCommit(id);
         final ClusterEntity clusterEntity = this.findCluster(id);
         try {
             final Cluster clusterToPatch = EntityDtoConverters.toV4ClusterDto(clusterEntity);
@@ -280,6 +309,7 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
     public void deleteCluster(
         @NotBlank(message = "No id entered unable to delete.") final String id
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         log.debug("Called");
         final ClusterEntity clusterEntity = this.findCluster(id);
         final List<CommandEntity> commandEntities = clusterEntity.getCommands();
@@ -302,6 +332,7 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No cluster id entered. Unable to add configurations.") final String id,
         @NotEmpty(message = "No configuration files entered. Unable to add.") final Set<String> configs
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         log.debug("called");
         this.findCluster(id).getConfigs().addAll(this.createAndGetFileEntities(configs));
     }
@@ -326,6 +357,7 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No cluster id entered. Unable to update configurations.") final String id,
         @NotEmpty(message = "No configs entered. Unable to update.") final Set<String> configs
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         log.debug("called with id {} and configs {}", id, configs);
         this.findCluster(id).setConfigs(this.createAndGetFileEntities(configs));
     }
@@ -337,6 +369,7 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
     public void removeAllConfigsForCluster(
         @NotBlank(message = "No cluster id entered. Unable to remove configs.") final String id
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findCluster(id).getConfigs().clear();
     }
 
@@ -348,6 +381,7 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No cluster id entered. Unable to add dependencies.") final String id,
         @NotEmpty(message = "No dependencies entered. Unable to add dependencies.") final Set<String> dependencies
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findCluster(id).getDependencies().addAll(this.createAndGetFileEntities(dependencies));
     }
 
@@ -370,6 +404,7 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No cluster id entered. Unable to update dependencies.") final String id,
         @NotNull(message = "No dependencies entered. Unable to update.") final Set<String> dependencies
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findCluster(id).setDependencies(this.createAndGetFileEntities(dependencies));
     }
 
@@ -380,6 +415,7 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
     public void removeAllDependenciesForCluster(
         @NotBlank(message = "No cluster id entered. Unable to remove dependencies.") final String id
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findCluster(id).getDependencies().clear();
     }
 
@@ -391,6 +427,7 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No cluster id entered. Unable to remove dependency.") final String id,
         @NotBlank(message = "No dependency entered. Unable to remove dependency.") final String dependency
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.getFilePersistenceService().getFile(dependency).ifPresent(this.findCluster(id).getDependencies()::remove);
     }
 
@@ -402,6 +439,7 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No cluster id entered. Unable to add tags.") final String id,
         @NotEmpty(message = "No tags entered. Unable to add to tags.") final Set<String> tags
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findCluster(id).getTags().addAll(this.createAndGetTagEntities(tags));
     }
 
@@ -424,6 +462,7 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No cluster id entered. Unable to update tags.") final String id,
         @NotEmpty(message = "No tags entered. Unable to update.") final Set<String> tags
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findCluster(id).setTags(this.createAndGetTagEntities(tags));
     }
 
@@ -434,6 +473,7 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
     public void removeAllTagsForCluster(
         @NotBlank(message = "No cluster id entered. Unable to remove tags.") final String id
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findCluster(id).getTags().clear();
     }
 
@@ -445,6 +485,7 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No cluster id entered. Unable to remove tag.") final String id,
         @NotBlank(message = "No tag entered. Unable to remove.") final String tag
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.getTagPersistenceService().getTag(tag).ifPresent(this.findCluster(id).getTags()::remove);
     }
 
@@ -456,6 +497,7 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No cluster id entered. Unable to add commands.") final String id,
         @NotEmpty(message = "No command ids entered. Unable to add commands.") final List<String> commandIds
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         if (commandIds.size() != commandIds.stream().filter(this.getCommandRepository()::existsByUniqueId).count()) {
             throw new GeniePreconditionException("All commands need to exist to add to a cluster");
         }
@@ -503,6 +545,7 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No cluster id entered. Unable to update commands.") final String id,
         @NotNull(message = "No command ids entered. Unable to update commands.") final List<String> commandIds
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         if (commandIds.size() != commandIds.stream().filter(this.getCommandRepository()::existsByUniqueId).count()) {
             throw new GeniePreconditionException("All commands need to exist to add to a cluster");
         }
@@ -526,6 +569,7 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
     public void removeAllCommandsForCluster(
         @NotBlank(message = "No cluster id entered. Unable to remove commands.") final String id
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findCluster(id).removeAllCommands();
     }
 
@@ -537,6 +581,7 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No cluster id entered. Unable to remove command.") final String id,
         @NotBlank(message = "No command id entered. Unable to remove command.") final String cmdId
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findCluster(id)
             .removeCommand(
                 this.getCommandEntity(cmdId).orElseThrow(
@@ -550,13 +595,17 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
      */
     @Override
     public long deleteTerminatedClusters() {
-        return this.getClusterRepository().deleteByIdIn(
+        final long deleted = this.getClusterRepository().deleteByIdIn(
             this.getClusterRepository()
                 .findTerminatedUnusedClusters()
                 .stream()
                 .map(Number::longValue)
                 .collect(Collectors.toSet())
         );
+        if (deleted > 0) {
+            this.publishChangeOnCommit(null);
+        }
+        return deleted;
     }
 
     private ClusterEntity createClusterEntity(final ClusterRequest request) {
@@ -596,39 +645,95 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
         final List<Criterion> clusterCriteria,
         final Criterion commandCriterion
     ) throws GenieServerException {
-        final Map<Cluster, String> foundClusters = Maps.newHashMap();
-        for (final Criterion clusterCriterion : clusterCriteria) {
-            final List<Object[]> clusterCommands = this.getClusterRepository().resolveClustersAndCommands(
-                clusterCriterion,
-                commandCriterion
-            );
-
-            if (!clusterCommands.isEmpty()) {
-                for (final Object[] ids : clusterCommands) {
-                    if (ids.length != 2) {
-                        throw new GenieServerException("Expected result length 2 but got " + ids.length);
-                    }
-                    final long clusterId;
-                    if (ids[0] instanceof Number) {
-                        clusterId = ((Number) ids[0]).longValue();
-                    } else {
-                        throw new GenieServerException("Expected number type but got " + ids[0].getClass().getName());
-                    }
-                    final String commandUniqueId;
-                    if (ids[1] instanceof String) {
-                        commandUniqueId = (String) ids[1];
-                    } else {
-                        throw new GenieServerException("Expected String type but got " + ids[1].getClass().getName());
-                    }
-
-                    final ClusterEntity clusterEntity = this.getClusterRepository().getOne(clusterId);
-                    foundClusters.put(EntityDtoConverters.toV4ClusterDto(clusterEntity), commandUniqueId);
+        if (this.criteriaResolutionIndex != null) {
+            final Optional<Map<Cluster, String>> indexed
+                = this.criteriaResolutionIndex.resolve(clusterCriteria, commandCriterion);
+            if (indexed.isPresent()) {
+                if (!this.criteriaResolutionIndex.isConsistencyCheckEnabled()) {
+                    return indexed.get();
                 }
-                return foundClusters;
+                final Map<Cluster, String> database = this.queryClustersAndCommands(clusterCriteria, commandCriterion);
+                this.criteriaResolutionIndex.verify(clusterCriteria, commandCriterion, indexed.get(), database);
+                return database;
             }
         }
+        return this.queryClustersAndCommands(clusterCriteria, commandCriterion);
+    }
+
+    private Map<Cluster, String> queryClustersAndCommands(
+        final List<Criterion> clusterCriteria,
+        final Criterion commandCriterion
+    ) throws GenieServerException {
+        // Count what Hibernate actually executes, including any lazy loading during conversion, so a change to the
+        // fetch plan that brings back per cluster queries shows up in the metric
+        this.statementCountingInspector.start();
+        try {
+            return this.resolveClustersAndCommands(clusterCriteria, commandCriterion);
+        } finally {
+            this.registry.summary(RESOLUTION_QUERIES_SUMMARY_NAME).record(this.statementCountingInspector.stop());
+        }
+    }
 
-        //if we've gotten to here no clusters were found so return empty map
+    private Map<Cluster, String> resolveClustersAndCommands(
+        final List<Criterion> clusterCriteria,
+        final Criterion commandCriterion
+    ) throws GenieServerException {
+        final List<Object[]> clusterCommands = this.getClusterRepository().resolveClustersAndCommands(
+            clusterCriteria,
+            commandCriterion
+        );
+
+        // Rows are ordered by criterion so the first criterion with any results is the one to use
+        final Map<Long, String> clusterIdsToCommandIds = Maps.newHashMap();
+        Integer selectedRank = null;
+        for (final Object[] ids : clusterCommands) {
+            if (ids.length != 3) {
+                throw new GenieServerException("Expected result length 3 but got " + ids.length);
+            }
+            final int rank;
+            if (ids[0] instanceof Number) {
+                rank = ((Number) ids[0]).intValue();
+            } else {
+                throw new GenieServerException("Expected number type but got " + ids[0].getClass().getName());
+            }
+            if (selectedRank == null) {
+                selectedRank = rank;
+            } else if (rank != selectedRank) {
+                break;
+            }
+            final long clusterId;
+            if (ids[1] instanceof Number) {
+                clusterId = ((Number) ids[1]).longValue();
+            } else {
+                throw new GenieServerException("Expected number type but got " + ids[1].getClass().getName());
+            }
+            final String commandUniqueId;
+            if (ids[2] instanceof String) {
+                commandUniqueId = (String) ids[2];
+            } else {
+                throw new GenieServerException("Expected String type but got " + ids[2].getClass().getName());
+            }
+
+            clusterIdsToCommandIds.put(clusterId, commandUniqueId);
+        }
+
+        final Map<Cluster, String> foundClusters = Maps.newHashMap();
+        //if no rows were returned no clusters were found so this is an empty map
+        if (!clusterIdsToCommandIds.isEmpty()) {
+            // Hydrate all the matched clusters in a fixed number of queries. The later queries initialize the
+            // remaining lazy collections of the same managed entities returned by the first.
+            final Set<Long> clusterIds = clusterIdsToCommandIds.keySet();
+            final List<ClusterEntity> clusterEntities
+                = this.getClusterRepository().findWithTagsAndSetupFileByIdIn(clusterIds);
+            this.getClusterRepository().findWithConfigsByIdIn(clusterIds);
+            this.getClusterRepository().findWithDependenciesByIdIn(clusterIds);
+            for (final ClusterEntity clusterEntity : clusterEntities) {
+                foundClusters.put(
+                    EntityDtoConverters.toV4ClusterDto(clusterEntity),
+                    clusterIdsToCommandIds.get(clusterEntity.getId())
+                );
+            }
+        }
         return foundClusters;
     }
 
@@ -644,4 +749,11 @@ public class JpaClusterPersistenceServiceImpl extends JpaBaseService implements
             .findByUniqueId(id)
             .orElseThrow(() -> new GenieNotFoundException("No cluster with id " + id + " exists."));
     }
+
+    private void publishChangeOnCommit(@Nullable final String id) {
+        JpaServiceUtils.publishAfterCommit(
+            this.genieEventBus,
+            new ResourceChangedEvent(ResourceType.CLUSTER, id, this)
+        );
+    }
 }
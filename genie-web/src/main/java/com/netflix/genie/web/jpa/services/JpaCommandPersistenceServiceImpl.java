@@ -38,6 +38,9 @@ import com.netflix.genie.common.internal.dto.v4.CommandRequest;
 import com.netflix.genie.common.internal.dto.v4.ExecutionEnvironment;
 import com.netflix.genie.common.internal.exceptions.unchecked.GenieRuntimeException;
 import com.netflix.genie.common.util.GenieObjectMapper;
+import com.netflix.genie.web.events.GenieEventBus;
+import com.netflix.genie.web.events.ResourceChangedEvent;
+import com.netflix.genie.web.events.ResourceType;
 import com.netflix.genie.web.jpa.entities.ApplicationEntity;
 import com.netflix.genie.web.jpa.entities.ClusterEntity;
 import com.netflix.genie.web.jpa.entities.CommandEntity;
@@ -86,6 +89,8 @@ import java.util.stream.Collectors;
 @Slf4j
 public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements CommandPersistenceService {
 
+    private final GenieEventBus genieEventBus;
+
     /**
      * Default constructor.
      *
@@ -94,13 +99,15 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
      * @param applicationRepository  The {@link JpaApplicationRepository} to use
      * @param clusterRepository      The {@link JpaClusterRepository} to use
      * @param commandRepository      The {@link JpaCommandRepository} to use
+     * @param genieEventBus          The {@link GenieEventBus} to publish resource changes on
      */
     public JpaCommandPersistenceServiceImpl(
         final JpaTagPersistenceService tagPersistenceService,
         final JpaFilePersistenceService filePersistenceService,
         final JpaApplicationRepository applicationRepository,
         final JpaClusterRepository clusterRepository,
-        final JpaCommandRepository commandRepository
+        final JpaCommandRepository commandRepository,
+        final GenieEventBus genieEventBus
     ) {
         super(
             tagPersistenceService,
@@ -109,6 +116,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
             clusterRepository,
             commandRepository
         );
+        this.genieEventBus = genieEventBus;
     }
 
     /**
@@ -129,6 +137,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
                 e
             );
         }
+        this.publishChangeOnCommit(commandEntity.getUniqueId());
         return commandEntity.getUniqueId();
     }
 
@@ -192,6 +201,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
         @NotNull(message = "No command information entered. Unable to update.")
         @Valid final Command updateCommand
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         if (!this.getCommandRepository().existsByUniqueId(id)) {
             throw new GenieNotFoundException("No command exists with the given id. Unable to update.");
         }
@@ -210,6 +220,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
      */
     @Override
     public void patchCommand(@NotBlank final String id, @NotNull final JsonPatch patch) throws GenieException {
+        this.publishChangeOnCommit(id);
         final CommandEntity commandEntity = this.findCommand(id);
         try {
             final Command commandToPatch = EntityDtoConverters.toV4CommandDto(commandEntity);
@@ -243,6 +254,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
     public void deleteCommand(
         @NotBlank(message = "No id entered. Unable to delete.") final String id
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         log.debug("Called to delete command config with id {}", id);
         final CommandEntity commandEntity = this.findCommand(id);
 
@@ -269,6 +281,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No command id entered. Unable to add configurations.") final String id,
         @NotEmpty(message = "No configuration files entered. Unable to add.") final Set<String> configs
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findCommand(id).getConfigs().addAll(this.createAndGetFileEntities(configs));
     }
 
@@ -291,6 +304,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No command id entered. Unable to update configurations.") final String id,
         @NotEmpty(message = "No configs entered. Unable to update.") final Set<String> configs
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findCommand(id).setConfigs(this.createAndGetFileEntities(configs));
     }
 
@@ -301,6 +315,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
     public void removeAllConfigsForCommand(
         @NotBlank(message = "No command id entered. Unable to remove configs.") final String id
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findCommand(id).getConfigs().clear();
     }
 
@@ -312,6 +327,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No command id entered. Unable to remove configuration.") final String id,
         @NotBlank(message = "No config entered. Unable to remove.") final String config
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.getFilePersistenceService().getFile(config).ifPresent(this.findCommand(id).getConfigs()::remove);
     }
 
@@ -323,6 +339,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No command id entered. Unable to add dependencies.") final String id,
         @NotEmpty(message = "No dependencies entered. Unable to add dependencies.") final Set<String> dependencies
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findCommand(id).getDependencies().addAll(this.createAndGetFileEntities(dependencies));
     }
 
@@ -345,6 +362,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No command id entered. Unable to update dependencies.") final String id,
         @NotNull(message = "No dependencies entered. Unable to update.") final Set<String> dependencies
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findCommand(id).setDependencies(this.createAndGetFileEntities(dependencies));
     }
 
@@ -355,6 +373,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
     public void removeAllDependenciesForCommand(
         @NotBlank(message = "No command id entered. Unable to remove dependencies.") final String id
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findCommand(id).getDependencies().clear();
     }
 
@@ -366,6 +385,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No command id entered. Unable to remove dependency.") final String id,
         @NotBlank(message = "No dependency entered. Unable to remove dependency.") final String dependency
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.getFilePersistenceService().getFile(dependency).ifPresent(this.findCommand(id).getDependencies()::remove);
     }
 
@@ -377,6 +397,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No command id entered. Unable to add tags.") final String id,
         @NotEmpty(message = "No tags entered. Unable to add.") final Set<String> tags
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findCommand(id).getTags().addAll(this.createAndGetTagEntities(tags));
     }
 
@@ -399,6 +420,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No command id entered. Unable to update tags.") final String id,
         @NotEmpty(message = "No tags entered. Unable to update.") final Set<String> tags
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findCommand(id).setTags(this.createAndGetTagEntities(tags));
     }
 
@@ -409,6 +431,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
     public void removeAllTagsForCommand(
         @NotBlank(message = "No command id entered. Unable to remove tags.") final String id
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findCommand(id).getTags().clear();
     }
 
@@ -420,6 +443,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No command id entered. Unable to remove tag.") final String id,
         @NotBlank(message = "No tag entered. Unable to remove.") final String tag
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.getTagPersistenceService().getTag(tag).ifPresent(this.findCommand(id).getTags()::remove);
     }
 
@@ -431,6 +455,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No command id entered. Unable to add applications.") final String id,
         @NotEmpty(message = "No application ids entered. Unable to add applications.") final List<String> applicationIds
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         if (applicationIds.size()
             != applicationIds.stream().filter(this.getApplicationRepository()::existsByUniqueId).count()) {
             throw new GeniePreconditionException("All applications need to exist to add to a command");
@@ -453,6 +478,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No command id entered. Unable to set applications.") final String id,
         @NotNull(message = "No application ids entered. Unable to set applications.") final List<String> applicationIds
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         if (applicationIds.size()
             != applicationIds.stream().filter(this.getApplicationRepository()::existsByUniqueId).count()) {
             throw new GeniePreconditionException("All applications need to exist to add to a command");
@@ -494,6 +520,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
     public void removeApplicationsForCommand(
         @NotBlank(message = "No command id entered. Unable to remove applications.") final String id
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.findCommand(id).setApplications(null);
     }
 
@@ -505,6 +532,7 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
         @NotBlank(message = "No command id entered. Unable to remove application.") final String id,
         @NotBlank(message = "No application id entered. Unable to remove application.") final String appId
     ) throws GenieException {
+        this.publishChangeOnCommit(id);
         this.getApplicationRepository().findByUniqueId(appId).ifPresent(this.findCommand(id).getApplications()::remove);
     }
 
@@ -581,4 +609,11 @@ public class JpaCommandPersistenceServiceImpl extends JpaBaseService implements
         entity.setStatus(metadata.getStatus());
         EntityDtoConverters.setJsonField(metadata.getMetadata().orElse(null), entity::setMetadata);
     }
+
+    private void publishChangeOnCommit(@Nullable final String id) {
+        JpaServiceUtils.publishAfterCommit(
+            this.genieEventBus,
+            new ResourceChangedEvent(ResourceType.COMMAND, id, this)
+        );
+    }
 }
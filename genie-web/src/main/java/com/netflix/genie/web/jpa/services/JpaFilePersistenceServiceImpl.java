@@ -21,11 +21,14 @@ import com.netflix.genie.web.jpa.entities.FileEntity;
 import com.netflix.genie.web.jpa.repositories.JpaFileRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -85,6 +88,34 @@ public class JpaFilePersistenceServiceImpl implements JpaFilePersistenceService
         );
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Long> findUnusedFileIds(
+        @NotNull final Instant createdThreshold,
+        final long lastId,
+        @Min(1) final int batchSize
+    ) {
+        return this.fileRepository
+            .findUnusedFileIds(lastId, createdThreshold, PageRequest.of(0, batchSize))
+            .stream()
+            .map(Number::longValue)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long deleteFilesIfUnused(@NotNull final Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0L;
+        }
+        return this.fileRepository.deleteUnusedFilesByIdIn(ids);
+    }
+
     /**
      * {@inheritDoc}
      */
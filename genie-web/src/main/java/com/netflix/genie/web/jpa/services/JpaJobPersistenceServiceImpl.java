@@ -68,6 +68,7 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.Nullable;
@@ -315,6 +316,25 @@ public class JpaJobPersistenceServiceImpl extends JpaBaseService implements JobP
         return totalAttemptedDeletions;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long bulkDeleteJobsCreatedBeforeDate(@NotNull final Instant date, @Min(1) final int maxDeleted) {
+        final List<Long> ids = this.jobRepository
+            .findByCreatedBefore(date, PageRequest.of(0, maxDeleted, Sort.by("created")))
+            .getContent()
+            .stream()
+            .map(IdProjection::getId)
+            .collect(Collectors.toList());
+        final long deletedJobs = this.jobRepository.bulkDeleteByIdIn(ids);
+        if (deletedJobs != ids.size()) {
+            log.error("Deleted {} job records but expected to delete {}", deletedJobs, ids.size());
+        }
+        log.debug("Deleted a chunk of {} jobs created before {}", deletedJobs, date);
+        return deletedJobs;
+    }
+
     /**
      * {@inheritDoc}
      */
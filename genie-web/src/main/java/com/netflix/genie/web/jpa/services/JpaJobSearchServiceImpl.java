@@ -17,6 +17,7 @@
  */
 package com.netflix.genie.web.jpa.services;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.netflix.genie.common.dto.Application;
 import com.netflix.genie.common.dto.Cluster;
@@ -29,9 +30,10 @@ import com.netflix.genie.common.dto.JobStatus;
 import com.netflix.genie.common.dto.search.JobSearchResult;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieNotFoundException;
+import com.netflix.genie.common.exceptions.GeniePreconditionException;
 import com.netflix.genie.common.exceptions.GenieServerException;
-import com.netflix.genie.web.jpa.entities.JobEntity;
 import com.netflix.genie.web.jpa.entities.JobEntity_;
+import com.netflix.genie.web.jpa.entities.TagEntity;
 import com.netflix.genie.web.jpa.entities.projections.AgentHostnameProjection;
 import com.netflix.genie.web.jpa.entities.projections.JobApplicationsProjection;
 import com.netflix.genie.web.jpa.entities.projections.JobClusterProjection;
@@ -41,12 +43,12 @@ import com.netflix.genie.web.jpa.entities.projections.JobMetadataProjection;
 import com.netflix.genie.web.jpa.entities.projections.JobProjection;
 import com.netflix.genie.web.jpa.entities.projections.JobRequestProjection;
 import com.netflix.genie.web.jpa.entities.projections.JobStatusProjection;
-import com.netflix.genie.web.jpa.repositories.JpaClusterRepository;
-import com.netflix.genie.web.jpa.repositories.JpaCommandRepository;
 import com.netflix.genie.web.jpa.repositories.JpaJobRepository;
-import com.netflix.genie.web.jpa.specifications.JpaJobSpecs;
+import com.netflix.genie.web.jpa.repositories.JpaTagRepository;
+import com.netflix.genie.web.jpa.specifications.JpaSpecificationUtils;
 import com.netflix.genie.web.services.JobSearchService;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -56,18 +58,14 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.annotation.Nullable;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
-import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.CriteriaQuery;
-import javax.persistence.criteria.Order;
-import javax.persistence.criteria.Predicate;
-import javax.persistence.criteria.Root;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -80,9 +78,19 @@ import java.util.stream.Collectors;
 @Slf4j
 public class JpaJobSearchServiceImpl implements JobSearchService {
 
+    private static final String DEFAULT_SEEK_PROPERTY = "created";
+    // The properties jobs can be sorted on when seeking and how to read their values back from a cursor. They must be
+    // non-null so every job has a position.
+    private static final Map<String, Function<String, Comparable<?>>> SEEK_PROPERTIES = ImmutableMap.of(
+        DEFAULT_SEEK_PROPERTY, Instant::parse,
+        "updated", Instant::parse,
+        "name", value -> value,
+        "user", value -> value
+    );
+
     private final JpaJobRepository jobRepository;
-    private final JpaClusterRepository clusterRepository;
-    private final JpaCommandRepository commandRepository;
+    // When set tags are matched through the jobs_tags join table instead of the tag search string
+    private final JpaTagRepository tagRepository;
 
     @PersistenceContext
     private EntityManager entityManager;
@@ -90,18 +98,25 @@ public class JpaJobSearchServiceImpl implements JobSearchService {
     /**
      * Constructor.
      *
-     * @param jobRepository     The repository to use for job entities
-     * @param clusterRepository The repository to use for cluster entities
-     * @param commandRepository The repository to use for command entities
+     * @param jobRepository The repository to use for job entities
+     */
+    public JpaJobSearchServiceImpl(final JpaJobRepository jobRepository) {
+        this(jobRepository, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param jobRepository The repository to use for job entities
+     * @param tagRepository The repository to use for tag entities. If not null searches by tag use the indexed jobs
+     *                      to tags join table rather than a {@code LIKE} on the job's tag search string
      */
     public JpaJobSearchServiceImpl(
         final JpaJobRepository jobRepository,
-        final JpaClusterRepository clusterRepository,
-        final JpaCommandRepository commandRepository
+        @Nullable final JpaTagRepository tagRepository
     ) {
         this.jobRepository = jobRepository;
-        this.clusterRepository = clusterRepository;
-        this.commandRepository = commandRepository;
+        this.tagRepository = tagRepository;
     }
 
     /**
@@ -129,70 +144,33 @@ public class JpaJobSearchServiceImpl implements JobSearchService {
     ) {
         log.debug("called");
 
-        // TODO: Re-write with projections however not currently supported: https://jira.spring.io/browse/DATAJPA-1033
-        final CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
-        final CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
-        final Root<JobEntity> root = countQuery.from(JobEntity.class);
-
-        final Predicate whereClause = JpaJobSpecs
-            .getFindPredicate(
-                root,
-                cb,
-                id,
-                jobName,
-                user,
-                statuses,
-                tags,
-                clusterName,
-                clusterId == null ? null : this.clusterRepository.findByUniqueId(clusterId).orElse(null),
-                commandName,
-                commandId == null ? null : this.commandRepository.findByUniqueId(commandId).orElse(null),
-                minStarted,
-                maxStarted,
-                minFinished,
-                maxFinished,
-                grouping,
-                groupingInstance
-            );
-
-        countQuery.select(cb.count(root)).where(whereClause);
+        final JobSearchPlan.Search search = this.createSearch(
+            id,
+            jobName,
+            user,
+            statuses,
+            tags,
+            clusterName,
+            clusterId,
+            commandName,
+            commandId,
+            minStarted,
+            maxStarted,
+            minFinished,
+            maxFinished,
+            grouping,
+            groupingInstance
+        );
+        if (search == null) {
+            return new PageImpl<>(Lists.newArrayList(), page, 0L);
+        }
 
-        final Long count = this.entityManager.createQuery(countQuery).getSingleResult();
+        final long count = search.createCountQuery(this.entityManager).getSingleResult();
 
         // Use the count to make sure we even need to make this query
         if (count > 0) {
-            final CriteriaQuery<JobSearchResult> contentQuery = cb.createQuery(JobSearchResult.class);
-            contentQuery.from(JobEntity.class);
-
-            contentQuery.multiselect(
-                root.get(JobEntity_.uniqueId),
-                root.get(JobEntity_.name),
-                root.get(JobEntity_.user),
-                root.get(JobEntity_.status),
-                root.get(JobEntity_.started),
-                root.get(JobEntity_.finished),
-                root.get(JobEntity_.clusterName),
-                root.get(JobEntity_.commandName)
-            );
-
-            contentQuery.where(whereClause);
-
-            final Sort sort = page.getSort();
-            final List<Order> orders = new ArrayList<>();
-            sort.iterator().forEachRemaining(
-                order -> {
-                    if (order.isAscending()) {
-                        orders.add(cb.asc(root.get(order.getProperty())));
-                    } else {
-                        orders.add(cb.desc(root.get(order.getProperty())));
-                    }
-                }
-            );
-
-            contentQuery.orderBy(orders);
-
-            final List<JobSearchResult> results = this.entityManager
-                .createQuery(contentQuery)
+            final List<JobSearchResult> results = search
+                .createContentQuery(this.entityManager, page.getSort())
                 .setFirstResult(((Long) page.getOffset()).intValue())
                 .setMaxResults(page.getPageSize())
                 .getResultList();
@@ -203,6 +181,113 @@ public class JpaJobSearchServiceImpl implements JobSearchService {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("checkstyle:parameternumber")
+    public JobSearchCursorPage seekJobs(
+        @Nullable final String id,
+        @Nullable final String jobName,
+        @Nullable final String user,
+        @Nullable final Set<JobStatus> statuses,
+        @Nullable final Set<String> tags,
+        @Nullable final String clusterName,
+        @Nullable final String clusterId,
+        @Nullable final String commandName,
+        @Nullable final String commandId,
+        @Nullable final Instant minStarted,
+        @Nullable final Instant maxStarted,
+        @Nullable final Instant minFinished,
+        @Nullable final Instant maxFinished,
+        @Nullable final String grouping,
+        @Nullable final String groupingInstance,
+        @Nullable final String cursor,
+        @NotNull final Pageable page,
+        @Nullable final Integer countLimit
+    ) throws GeniePreconditionException {
+        log.debug("called");
+
+        if (countLimit != null && (countLimit < 1 || countLimit > MAX_SEEK_COUNT_LIMIT)) {
+            throw new GeniePreconditionException("The count limit must be between 1 and " + MAX_SEEK_COUNT_LIMIT);
+        }
+        final Sort.Order order = getSeekOrder(page.getSort());
+        final boolean ascending = order.isAscending();
+        final JobSearchCursor after = cursor == null ? null : JobSearchCursor.decode(cursor);
+        if (after != null && (!after.getProperty().equals(order.getProperty()) || after.isAscending() != ascending)) {
+            throw new GeniePreconditionException("The sort can't change between pages of a search");
+        }
+        final Comparable<?> afterSortKey = after == null ? null : getSortKey(after);
+
+        final JobSearchPlan.Search search = this.createSearch(
+            id,
+            jobName,
+            user,
+            statuses,
+            tags,
+            clusterName,
+            clusterId,
+            commandName,
+            commandId,
+            minStarted,
+            maxStarted,
+            minFinished,
+            maxFinished,
+            grouping,
+            groupingInstance
+        );
+        if (search == null) {
+            return new JobSearchCursorPage(Lists.newArrayList(), null, countLimit == null ? null : 0L);
+        }
+        if (after != null) {
+            search.after(order.getProperty(), afterSortKey, after.getId(), ascending);
+        }
+
+        // Fetch one extra row to find out whether there is a next page
+        final List<Object[]> rows = search
+            .createSeekQuery(this.entityManager, order.getProperty(), ascending)
+            .setMaxResults(page.getPageSize() + 1)
+            .getResultList();
+        final boolean hasNext = rows.size() > page.getPageSize();
+        final List<Object[]> pageRows = hasNext ? rows.subList(0, page.getPageSize()) : rows;
+
+        final List<JobSearchResult> results = pageRows
+            .stream()
+            .map(JobSearchPlan::toSearchResult)
+            .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasNext) {
+            final Object[] last = pageRows.get(pageRows.size() - 1);
+            nextCursor = new JobSearchCursor(
+                order.getProperty(),
+                ascending,
+                JobSearchPlan.getId(last),
+                String.valueOf(JobSearchPlan.getSortKey(last))
+            ).encode();
+        }
+
+        final Long count = countLimit == null ? null : this.countJobs(search, countLimit);
+        return new JobSearchCursorPage(results, nextCursor, count);
+    }
+
+    /* Count the matching jobs, stopping at the limit. JPQL has no subqueries in the FROM clause to count over a
+     * limited select, so first probe for the job at the limit, a single row however many jobs match, and only count
+     * all of them when there are fewer.
+     */
+    private long countJobs(final JobSearchPlan.Search search, final int countLimit) {
+        final boolean atLimit = !search
+            .createIdQuery(this.entityManager)
+            .setFirstResult(countLimit - 1)
+            .setMaxResults(1)
+            .getResultList()
+            .isEmpty();
+        if (atLimit) {
+            return countLimit;
+        }
+        return search.createCountQuery(this.entityManager).getSingleResult();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -381,4 +466,77 @@ public class JpaJobSearchServiceImpl implements JobSearchService {
                 .orElseThrow(() -> new GenieNotFoundException("No job metadata found for id " + id))
         );
     }
+
+    /* The search for the given filters or null if it can't match any job */
+    @Nullable
+    @SuppressWarnings("checkstyle:parameternumber")
+    private JobSearchPlan.Search createSearch(
+        @Nullable final String id,
+        @Nullable final String jobName,
+        @Nullable final String user,
+        @Nullable final Set<JobStatus> statuses,
+        @Nullable final Set<String> tags,
+        @Nullable final String clusterName,
+        @Nullable final String clusterId,
+        @Nullable final String commandName,
+        @Nullable final String commandId,
+        @Nullable final Instant minStarted,
+        @Nullable final Instant maxStarted,
+        @Nullable final Instant minFinished,
+        @Nullable final Instant maxFinished,
+        @Nullable final String grouping,
+        @Nullable final String groupingInstance
+    ) {
+        final JobSearchPlan.Search search = JobSearchPlan
+            .search()
+            .matching(JobEntity_.uniqueId, StringUtils.defaultIfBlank(id, null))
+            .matching(JobEntity_.name, StringUtils.defaultIfBlank(jobName, null))
+            .matching(JobEntity_.user, StringUtils.defaultIfBlank(user, null))
+            .anyOf(JobEntity_.status, statuses)
+            .matching(JobEntity_.clusterName, StringUtils.defaultIfBlank(clusterName, null))
+            .referencing(JobEntity_.cluster, StringUtils.defaultIfBlank(clusterId, null))
+            .matching(JobEntity_.commandName, StringUtils.defaultIfBlank(commandName, null))
+            .referencing(JobEntity_.command, StringUtils.defaultIfBlank(commandId, null))
+            .atLeast(JobEntity_.started, minStarted)
+            .before(JobEntity_.started, maxStarted)
+            .atLeast(JobEntity_.finished, minFinished)
+            .before(JobEntity_.finished, maxFinished)
+            .matching(JobEntity_.grouping, grouping)
+            .matching(JobEntity_.groupingInstance, groupingInstance);
+        if (tags != null && !tags.isEmpty()) {
+            if (this.tagRepository == null) {
+                search.taggedLike(JpaSpecificationUtils.getTagLikeString(tags));
+            } else {
+                final Set<TagEntity> tagEntities = this.tagRepository.findByTagIn(tags);
+                if (tagEntities.size() < tags.size()) {
+                    // At least one of the tags doesn't exist at all so no job can have all of them
+                    return null;
+                }
+                search.taggedWith(tagEntities);
+            }
+        }
+        return search;
+    }
+
+    private static Sort.Order getSeekOrder(final Sort sort) throws GeniePreconditionException {
+        final List<Sort.Order> orders = Lists.newArrayList(sort.iterator());
+        if (orders.isEmpty()) {
+            return Sort.Order.desc(DEFAULT_SEEK_PROPERTY);
+        }
+        if (orders.size() > 1 || !SEEK_PROPERTIES.containsKey(orders.get(0).getProperty())) {
+            throw new GeniePreconditionException(
+                "Seeking requires a sort on a single one of these properties: " + SEEK_PROPERTIES.keySet()
+            );
+        }
+        return orders.get(0);
+    }
+
+    /* The value of the sort key of the cursor typed like the sort property */
+    private static Comparable<?> getSortKey(final JobSearchCursor after) throws GeniePreconditionException {
+        try {
+            return SEEK_PROPERTIES.get(after.getProperty()).apply(after.getSortKey());
+        } catch (final RuntimeException e) {
+            throw new GeniePreconditionException("Invalid cursor sort key: " + after.getSortKey(), e);
+        }
+    }
 }
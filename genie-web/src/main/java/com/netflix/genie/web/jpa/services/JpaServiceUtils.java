@@ -30,6 +30,7 @@ import com.netflix.genie.common.dto.JobExecution;
 import com.netflix.genie.common.dto.JobMetadata;
 import com.netflix.genie.common.dto.JobRequest;
 import com.netflix.genie.common.exceptions.GeniePreconditionException;
+import com.netflix.genie.web.events.GenieEventBus;
 import com.netflix.genie.web.jpa.entities.ApplicationEntity;
 import com.netflix.genie.web.jpa.entities.BaseEntity;
 import com.netflix.genie.web.jpa.entities.ClusterEntity;
@@ -44,6 +45,9 @@ import com.netflix.genie.web.jpa.entities.projections.JobProjection;
 import com.netflix.genie.web.jpa.entities.projections.JobRequestProjection;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -313,4 +317,26 @@ public final class JpaServiceUtils {
             entity.setMetadata(null);
         }
     }
+
+    /**
+     * Publish an event once the current transaction commits. Events are dropped if the transaction rolls back. If
+     * there is no transaction synchronization active on the calling thread the event is published immediately.
+     *
+     * @param genieEventBus The event bus to publish the event on
+     * @param event         The event to publish
+     */
+    static void publishAfterCommit(final GenieEventBus genieEventBus, final ApplicationEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCommit() {
+                        genieEventBus.publishSynchronousEvent(event);
+                    }
+                }
+            );
+        } else {
+            genieEventBus.publishSynchronousEvent(event);
+        }
+    }
 }
@@ -21,11 +21,14 @@ import com.netflix.genie.web.jpa.entities.TagEntity;
 import com.netflix.genie.web.jpa.repositories.JpaTagRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -82,6 +85,34 @@ public class JpaTagPersistenceServiceImpl implements JpaTagPersistenceService {
         );
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Long> findUnusedTagIds(
+        @NotNull final Instant createdThreshold,
+        final long lastId,
+        @Min(1) final int batchSize
+    ) {
+        return this.tagRepository
+            .findUnusedTagIds(lastId, createdThreshold, PageRequest.of(0, batchSize))
+            .stream()
+            .map(Number::longValue)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long deleteTagsIfUnused(@NotNull final Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0L;
+        }
+        return this.tagRepository.deleteUnusedTagsByIdIn(ids);
+    }
+
     /**
      * {@inheritDoc}
      */
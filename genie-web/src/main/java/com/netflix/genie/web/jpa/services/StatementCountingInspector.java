@@ -0,0 +1,66 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.jpa.services;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * A Hibernate {@link StatementInspector} which counts the SQL statements prepared by the current thread between a
+ * call to {@link #start()} and the matching call to {@link #stop()}. The statements themselves are never modified.
+ * <p>
+ * Unlike the session factory statistics the count is kept per thread so concurrent requests don't affect each other.
+ *
+ * @since 4.0.0
+ */
+public class StatementCountingInspector implements StatementInspector {
+
+    private static final long serialVersionUID = 5460234198532076815L;
+
+    private static final ThreadLocal<int[]> COUNTS = new ThreadLocal<>();
+
+    /**
+     * Start counting the statements prepared by the current thread. Any count already in progress on the thread is
+     * discarded.
+     */
+    public void start() {
+        COUNTS.set(new int[1]);
+    }
+
+    /**
+     * Stop counting the statements prepared by the current thread.
+     *
+     * @return The number of statements prepared since {@link #start()} was called or 0 if it wasn't
+     */
+    public int stop() {
+        final int[] count = COUNTS.get();
+        COUNTS.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String inspect(final String sql) {
+        final int[] count = COUNTS.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
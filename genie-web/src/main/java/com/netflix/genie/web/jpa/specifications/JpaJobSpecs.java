@@ -18,14 +18,19 @@ package com.netflix.genie.web.jpa.specifications;
 import com.netflix.genie.common.dto.JobStatus;
 import com.netflix.genie.web.jpa.entities.ClusterEntity;
 import com.netflix.genie.web.jpa.entities.CommandEntity;
+import com.netflix.genie.web.jpa.entities.IdEntity_;
 import com.netflix.genie.web.jpa.entities.JobEntity;
 import com.netflix.genie.web.jpa.entities.JobEntity_;
+import com.netflix.genie.web.jpa.entities.TagEntity;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.annotation.Nullable;
+import javax.persistence.criteria.AbstractQuery;
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Join;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -88,7 +93,151 @@ public final class JpaJobSpecs {
         @Nullable final String grouping,
         @Nullable final String groupingInstance
     ) {
-        final List<Predicate> predicates = new ArrayList<>();
+        final List<Predicate> predicates = getPredicates(
+            root,
+            cb,
+            id,
+            name,
+            user,
+            statuses,
+            clusterName,
+            cluster,
+            commandName,
+            command,
+            minStarted,
+            maxStarted,
+            minFinished,
+            maxFinished,
+            grouping,
+            groupingInstance
+        );
+        if (tags != null && !tags.isEmpty()) {
+            predicates.add(cb.like(root.get(JobEntity_.tagSearchString), JpaSpecificationUtils.getTagLikeString(tags)));
+        }
+        return cb.and(predicates.toArray(new Predicate[predicates.size()]));
+    }
+
+    /**
+     * Generate a criteria query predicate for a where clause based on the given parameters. Unlike
+     * {@link #getFindPredicate(Root, CriteriaBuilder, String, String, String, Set, Set, String, ClusterEntity, String,
+     * CommandEntity, Instant, Instant, Instant, Instant, String, String)} the tags are matched through the
+     * {@code jobs_tags} join table rather than with a {@code LIKE} on the denormalized tag string, which can't use an
+     * index. The jobs with all the tags are found with an {@code IN} sub query grouping the join rows for the given
+     * tag ids by job and keeping the groups with one row per tag. The status and time range restrictions are applied
+     * inside the sub query as well so the database only has to group the candidate jobs.
+     *
+     * @param root             The root to use
+     * @param query            The query the predicate is for. Used to create the tag sub query
+     * @param cb               The criteria builder to use
+     * @param id               The job id
+     * @param name             The job name
+     * @param user             The user who created the job
+     * @param statuses         The job statuses
+     * @param tags             The tag entities the jobs must all have. Tags which don't exist in the database can't
+     *                         match any job so callers should short circuit rather than leave them out
+     * @param clusterName      The cluster name
+     * @param cluster          The cluster the job should have been run on
+     * @param commandName      The command name
+     * @param command          The command the job should have been run with
+     * @param minStarted       The time which the job had to start after in order to be return (inclusive)
+     * @param maxStarted       The time which the job had to start before in order to be returned (exclusive)
+     * @param minFinished      The time which the job had to finish after in order to be return (inclusive)
+     * @param maxFinished      The time which the job had to finish before in order to be returned (exclusive)
+     * @param grouping         The job grouping to search for
+     * @param groupingInstance The job grouping instance to search for
+     * @return The specification
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    public static Predicate getFindPredicate(
+        final Root<JobEntity> root,
+        final AbstractQuery<?> query,
+        final CriteriaBuilder cb,
+        @Nullable final String id,
+        @Nullable final String name,
+        @Nullable final String user,
+        @Nullable final Set<JobStatus> statuses,
+        @Nullable final Set<TagEntity> tags,
+        @Nullable final String clusterName,
+        @Nullable final ClusterEntity cluster,
+        @Nullable final String commandName,
+        @Nullable final CommandEntity command,
+        @Nullable final Instant minStarted,
+        @Nullable final Instant maxStarted,
+        @Nullable final Instant minFinished,
+        @Nullable final Instant maxFinished,
+        @Nullable final String grouping,
+        @Nullable final String groupingInstance
+    ) {
+        final List<Predicate> predicates = getPredicates(
+            root,
+            cb,
+            id,
+            name,
+            user,
+            statuses,
+            clusterName,
+            cluster,
+            commandName,
+            command,
+            minStarted,
+            maxStarted,
+            minFinished,
+            maxFinished,
+            grouping,
+            groupingInstance
+        );
+        if (tags != null && !tags.isEmpty()) {
+            final Subquery<Long> taggedJobs = query.subquery(Long.class);
+            final Root<JobEntity> taggedRoot = taggedJobs.from(JobEntity.class);
+            final Join<JobEntity, TagEntity> tagJoin = taggedRoot.join(JobEntity_.tags);
+            final List<Predicate> taggedPredicates = getStatusAndTimePredicates(
+                taggedRoot,
+                cb,
+                statuses,
+                minStarted,
+                maxStarted,
+                minFinished,
+                maxFinished
+            );
+            taggedPredicates.add(tagJoin.in(tags));
+            taggedJobs
+                .select(taggedRoot.get(IdEntity_.id))
+                .where(taggedPredicates.toArray(new Predicate[taggedPredicates.size()]))
+                .groupBy(taggedRoot.get(IdEntity_.id))
+                .having(cb.equal(cb.count(taggedRoot.get(IdEntity_.id)), (long) tags.size()));
+            predicates.add(root.get(IdEntity_.id).in(taggedJobs));
+        }
+        return cb.and(predicates.toArray(new Predicate[predicates.size()]));
+    }
+
+    @SuppressWarnings("checkstyle:parameternumber")
+    private static List<Predicate> getPredicates(
+        final Root<JobEntity> root,
+        final CriteriaBuilder cb,
+        @Nullable final String id,
+        @Nullable final String name,
+        @Nullable final String user,
+        @Nullable final Set<JobStatus> statuses,
+        @Nullable final String clusterName,
+        @Nullable final ClusterEntity cluster,
+        @Nullable final String commandName,
+        @Nullable final CommandEntity command,
+        @Nullable final Instant minStarted,
+        @Nullable final Instant maxStarted,
+        @Nullable final Instant minFinished,
+        @Nullable final Instant maxFinished,
+        @Nullable final String grouping,
+        @Nullable final String groupingInstance
+    ) {
+        final List<Predicate> predicates = getStatusAndTimePredicates(
+            root,
+            cb,
+            statuses,
+            minStarted,
+            maxStarted,
+            minFinished,
+            maxFinished
+        );
         if (StringUtils.isNotBlank(id)) {
             predicates.add(JpaSpecificationUtils.getStringLikeOrEqualPredicate(cb, root.get(JobEntity_.uniqueId), id));
         }
@@ -98,17 +247,6 @@ public final class JpaJobSpecs {
         if (StringUtils.isNotBlank(user)) {
             predicates.add(JpaSpecificationUtils.getStringLikeOrEqualPredicate(cb, root.get(JobEntity_.user), user));
         }
-        if (statuses != null && !statuses.isEmpty()) {
-            final List<Predicate> orPredicates =
-                statuses
-                    .stream()
-                    .map(status -> cb.equal(root.get(JobEntity_.status), status))
-                    .collect(Collectors.toList());
-            predicates.add(cb.or(orPredicates.toArray(new Predicate[orPredicates.size()])));
-        }
-        if (tags != null && !tags.isEmpty()) {
-            predicates.add(cb.like(root.get(JobEntity_.tagSearchString), JpaSpecificationUtils.getTagLikeString(tags)));
-        }
         if (cluster != null) {
             predicates.add(cb.equal(root.get(JobEntity_.cluster), cluster));
         }
@@ -125,18 +263,6 @@ public final class JpaJobSpecs {
                 JpaSpecificationUtils.getStringLikeOrEqualPredicate(cb, root.get(JobEntity_.commandName), commandName)
             );
         }
-        if (minStarted != null) {
-            predicates.add(cb.greaterThanOrEqualTo(root.get(JobEntity_.started), minStarted));
-        }
-        if (maxStarted != null) {
-            predicates.add(cb.lessThan(root.get(JobEntity_.started), maxStarted));
-        }
-        if (minFinished != null) {
-            predicates.add(cb.greaterThanOrEqualTo(root.get(JobEntity_.finished), minFinished));
-        }
-        if (maxFinished != null) {
-            predicates.add(cb.lessThan(root.get(JobEntity_.finished), maxFinished));
-        }
         if (grouping != null) {
             predicates.add(
                 JpaSpecificationUtils.getStringLikeOrEqualPredicate(cb, root.get(JobEntity_.grouping), grouping)
@@ -151,6 +277,39 @@ public final class JpaJobSpecs {
                 )
             );
         }
-        return cb.and(predicates.toArray(new Predicate[predicates.size()]));
+        return predicates;
+    }
+
+    private static List<Predicate> getStatusAndTimePredicates(
+        final Root<JobEntity> root,
+        final CriteriaBuilder cb,
+        @Nullable final Set<JobStatus> statuses,
+        @Nullable final Instant minStarted,
+        @Nullable final Instant maxStarted,
+        @Nullable final Instant minFinished,
+        @Nullable final Instant maxFinished
+    ) {
+        final List<Predicate> predicates = new ArrayList<>();
+        if (statuses != null && !statuses.isEmpty()) {
+            final List<Predicate> orPredicates =
+                statuses
+                    .stream()
+                    .map(status -> cb.equal(root.get(JobEntity_.status), status))
+                    .collect(Collectors.toList());
+            predicates.add(cb.or(orPredicates.toArray(new Predicate[orPredicates.size()])));
+        }
+        if (minStarted != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get(JobEntity_.started), minStarted));
+        }
+        if (maxStarted != null) {
+            predicates.add(cb.lessThan(root.get(JobEntity_.started), maxStarted));
+        }
+        if (minFinished != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get(JobEntity_.finished), minFinished));
+        }
+        if (maxFinished != null) {
+            predicates.add(cb.lessThan(root.get(JobEntity_.finished), maxFinished));
+        }
+        return predicates;
     }
 }
@@ -85,7 +85,7 @@ public final class JpaSpecificationUtils {
      * @param tags The tags to use. Not null.
      * @return The tags sorted while ignoring case delimited with percent symbol.
      */
-    static String getTagLikeString(@NotNull final Set<String> tags) {
+    public static String getTagLikeString(@NotNull final Set<String> tags) {
         final StringBuilder builder = new StringBuilder();
         tags.stream()
             .filter(StringUtils::isNotBlank)
@@ -0,0 +1,73 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Properties related to the {@link com.netflix.genie.web.services.impl.AgentRoutingServiceImpl} which tracks which
+ * Genie node each agent is connected to.
+ *
+ * @since 4.0.0
+ */
+@ConfigurationProperties(prefix = AgentRoutingProperties.PROPERTY_PREFIX)
+@Validated
+@Getter
+@Setter
+public class AgentRoutingProperties {
+    /**
+     * The common prefix for all properties in this group.
+     */
+    public static final String PROPERTY_PREFIX = "genie.agent.routing";
+
+    /**
+     * Whether agent connections to this node should be tracked in memory and written to the database in the
+     * background. When false every connection and disconnection is written, and every lookup is read, synchronously.
+     */
+    private boolean writeBehind;
+
+    /**
+     * How often (in milliseconds) connection changes are written to the database. Changes to the same connection
+     * within this window are coalesced into a single write.
+     */
+    @Min(1L)
+    private long flushInterval = 1_000L;
+
+    /**
+     * The maximum number of connections written to the database in a single batch.
+     */
+    @Min(1L)
+    private int maxBatchSize = 500;
+
+    /**
+     * How long (in milliseconds) the node owning a connection to another node may be served from memory.
+     */
+    @Min(1L)
+    private long remoteRouteExpireAfterWrite = 5_000L;
+
+    /**
+     * The maximum number of routes to other nodes to keep in memory.
+     */
+    @Min(1L)
+    private long remoteRouteMaxSize = 10_000L;
+}
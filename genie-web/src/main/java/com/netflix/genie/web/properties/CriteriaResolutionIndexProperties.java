@@ -0,0 +1,62 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Properties related to the {@link com.netflix.genie.web.jpa.services.CriteriaResolutionIndex} which resolves
+ * cluster and command criteria from memory instead of the database.
+ *
+ * @since 4.0.0
+ */
+@ConfigurationProperties(prefix = CriteriaResolutionIndexProperties.PROPERTY_PREFIX)
+@Validated
+@Getter
+@Setter
+public class CriteriaResolutionIndexProperties {
+    /**
+     * The common prefix for all properties in this group.
+     */
+    public static final String PROPERTY_PREFIX = "genie.data.criteria-index";
+
+    /**
+     * Feature flag constant. Property with this key should be true if this feature should be enabled.
+     */
+    public static final String ENABLED_PROPERTY = PROPERTY_PREFIX + ".enabled";
+
+    private boolean enabled;
+
+    /**
+     * When true every resolution answered by the index is also run against the database and any difference is
+     * logged and counted. The database result is the one returned.
+     */
+    private boolean consistencyCheck;
+
+    /**
+     * How often (in milliseconds) the index is fully rebuilt from the database regardless of local changes.
+     * This is what picks up changes made through other Genie nodes.
+     */
+    @Min(1L)
+    private long refreshRate = 60_000L;
+}
@@ -22,6 +22,8 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.constraints.Min;
+
 /**
  * Properties controlling the behavior of the database cleanup leadership task.
  *
@@ -53,4 +55,13 @@ public class DatabaseCleanupProperties {
     private boolean skipClustersCleanup;
     private boolean skipTagsCleanup;
     private boolean skipFilesCleanup;
+    private boolean bulkDelete;
+    @Min(0)
+    private int maxDeletedPerSecond;
+    @Min(0)
+    private long targetTransactionLatency = 1_000L;
+    @Min(0)
+    private long maxDuration;
+    @Min(0)
+    private int unusedReferenceBatchSize;
 }
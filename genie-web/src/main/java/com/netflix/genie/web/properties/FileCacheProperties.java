@@ -23,6 +23,7 @@ import org.hibernate.validator.constraints.URL;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 
 /**
@@ -45,4 +46,18 @@ public class FileCacheProperties {
     @NotBlank
     @URL
     private String location = "file:///tmp/genie/cache";
+
+    /**
+     * The maximum total size (in bytes) of the cached files. Least recently used files are deleted from disk when
+     * it's exceeded. 0 means no limit. Defaults to 10 GB.
+     */
+    @Min(0L)
+    private long maxSize = 10_737_418_240L;
+
+    /**
+     * How long (in milliseconds) a cached file is used before checking again whether the remote file changed.
+     * 0 means every use is checked. Defaults to one minute.
+     */
+    @Min(0L)
+    private long revalidationInterval = 60_000L;
 }
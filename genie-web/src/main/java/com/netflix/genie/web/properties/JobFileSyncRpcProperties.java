@@ -41,4 +41,7 @@ public class JobFileSyncRpcProperties {
 
     private int maxSyncMessages = 10;
     private long ackIntervalMilliseconds = 30_000L;
+    private int writeThreads = 4;
+    private int ackThreads = 2;
+    private int maxQueuedWrites = 64;
 }
@@ -0,0 +1,67 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Properties related to archiving the directories of finished jobs.
+ *
+ * @since 4.0.0
+ */
+@ConfigurationProperties(prefix = JobsArchiveProperties.PROPERTY_PREFIX)
+@Getter
+@Setter
+@Validated
+public class JobsArchiveProperties {
+
+    /**
+     * The property prefix for all properties in this group.
+     */
+    public static final String PROPERTY_PREFIX = "genie.jobs.archive";
+
+    /**
+     * Whether the job directory should be compressed in parallel and streamed straight to the archive location rather
+     * than first written to a local archive file by tar and then uploaded.
+     */
+    private boolean streamingEnabled;
+
+    /**
+     * The number of threads, shared by all jobs, used to compress archive blocks when streaming.
+     */
+    @Min(value = 1, message = "At least one compression thread is required")
+    private int compressionThreads = 4;
+
+    /**
+     * The number of uncompressed bytes compressed as a single block when streaming.
+     */
+    @Min(value = 65_536, message = "The compression block size must be at least 64 KB")
+    private int compressionBlockSize = 1_048_576;
+
+    /**
+     * The maximum time in milliseconds tar may take to stream a job directory before it's killed and the archive
+     * discarded. 0 for no limit.
+     */
+    @Min(value = 0, message = "The streaming timeout can't be negative")
+    private long streamingTimeout = 10_800_000L;
+}
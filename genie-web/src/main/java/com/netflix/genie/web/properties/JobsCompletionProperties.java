@@ -0,0 +1,66 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Properties related to handling the completion of jobs.
+ *
+ * @since 4.0.0
+ */
+@ConfigurationProperties(prefix = JobsCompletionProperties.PROPERTY_PREFIX)
+@Getter
+@Setter
+@Validated
+public class JobsCompletionProperties {
+
+    /**
+     * The property prefix for all properties in this group.
+     */
+    public static final String PROPERTY_PREFIX = "genie.jobs.completion";
+
+    /**
+     * Whether job completions should be handled by dedicated bounded worker pools, recording final statuses
+     * separately from the slower archival, rather than inline on the event thread.
+     */
+    private boolean stagedEnabled;
+
+    /**
+     * The number of threads recording the final status of finished jobs.
+     */
+    @Min(value = 1, message = "At least one status thread is required")
+    private int statusThreads = 2;
+
+    /**
+     * The number of threads archiving the directories of finished jobs and sending emails.
+     */
+    @Min(value = 1, message = "At least one archive thread is required")
+    private int archiveThreads = 4;
+
+    /**
+     * The maximum number of completions waiting in each stage. Once full the submitting thread does the work itself.
+     */
+    @Min(value = 1, message = "The queue capacity must be at least one")
+    private int queueCapacity = 1_000;
+}
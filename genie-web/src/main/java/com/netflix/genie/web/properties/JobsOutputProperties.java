@@ -0,0 +1,47 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Properties related to serving the output files of jobs.
+ *
+ * @since 4.0.0
+ */
+@ConfigurationProperties(prefix = JobsOutputProperties.PROPERTY_PREFIX)
+@Getter
+@Setter
+@Validated
+public class JobsOutputProperties {
+
+    /**
+     * The property prefix for all properties in this group.
+     */
+    public static final String PROPERTY_PREFIX = "genie.jobs.output";
+
+    /**
+     * Whether job files should be served by copying straight from the file channel (or the container's sendfile
+     * support) with range, conditional and tail request support, and directory listings written straight to the
+     * response, rather than through the default Spring resource handling.
+     */
+    private boolean streamingEnabled;
+}
@@ -0,0 +1,60 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Properties related to how the processes of jobs running on this node are checked for completion.
+ *
+ * @since 4.0.0
+ */
+@ConfigurationProperties(prefix = JobsProcessCheckProperties.PROPERTY_PREFIX)
+@Getter
+@Setter
+@Validated
+public class JobsProcessCheckProperties {
+
+    /**
+     * The property prefix for all properties in this group.
+     */
+    public static final String PROPERTY_PREFIX = "genie.jobs.process-check";
+
+    /**
+     * Whether a single periodic sweep of /proc should check the liveness and output sizes of all jobs on the node
+     * instead of each job forking a ps process every time it is checked. Only used where /proc is available.
+     */
+    private boolean sweepEnabled;
+
+    /**
+     * Whether a job should be marked finished as soon as the process launched for it exits instead of when the next
+     * completion check notices. Costs a mostly idle thread per running job.
+     */
+    private boolean exitNotificationEnabled;
+
+    /**
+     * How long (in milliseconds) to wait between the end of one sweep and the start of the next.
+     */
+    @Min(value = 1L, message = "The sweep interval has to be at least 1 millisecond")
+    private long sweepInterval = 1_000L;
+}
@@ -41,9 +41,15 @@ public class JobsProperties {
      */
     public static final String PROPERTY_PREFIX = "genie.jobs";
 
+    @Valid
+    private JobsArchiveProperties archive = new JobsArchiveProperties();
+
     @Valid
     private JobsCleanupProperties cleanup = new JobsCleanupProperties();
 
+    @Valid
+    private JobsCompletionProperties completion = new JobsCompletionProperties();
+
     @Valid
     private JobsForwardingProperties forwarding = new JobsForwardingProperties();
 
@@ -56,6 +62,12 @@ public class JobsProperties {
     @Valid
     private JobsMemoryProperties memory = new JobsMemoryProperties();
 
+    @Valid
+    private JobsOutputProperties output = new JobsOutputProperties();
+
+    @Valid
+    private JobsProcessCheckProperties processCheck = new JobsProcessCheckProperties();
+
     @Valid
     private JobsUsersProperties users = new JobsUsersProperties();
 
@@ -0,0 +1,60 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Properties related to the {@link com.netflix.genie.web.services.impl.ResourceDtoCache} which caches cluster,
+ * command and application DTOs read on the job submission path.
+ *
+ * @since 4.0.0
+ */
+@ConfigurationProperties(prefix = ResourceDtoCacheProperties.PROPERTY_PREFIX)
+@Validated
+@Getter
+@Setter
+public class ResourceDtoCacheProperties {
+    /**
+     * The common prefix for all properties in this group.
+     */
+    public static final String PROPERTY_PREFIX = "genie.data.dto-cache";
+
+    /**
+     * Whether DTOs should be cached. When false every read goes to the persistence services.
+     */
+    private boolean enabled;
+
+    /**
+     * The maximum number of entries to keep for each resource type.
+     */
+    @Min(1L)
+    private long maxSize = 1_000L;
+
+    /**
+     * How long (in milliseconds) an entry may be served after it was loaded. Local changes invalidate entries
+     * immediately; this bounds how stale an entry can be after a change made through another Genie node.
+     */
+    @Min(1L)
+    private long expireAfterWrite = 60_000L;
+}
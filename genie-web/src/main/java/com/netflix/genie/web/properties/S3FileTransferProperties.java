@@ -23,6 +23,9 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
 /**
  * Properties for S3FileTransfer.
  *
@@ -41,4 +44,9 @@ public class S3FileTransferProperties {
     public static final String PROPERTY_PREFIX = "genie.s3filetransfer";
 
     private boolean strictUrlCheckEnabled;
+
+    // S3 requires every part but the last of a multipart upload to be at least 5 MB
+    @Min(value = 5_242_880, message = "Multipart upload parts must be at least 5 MB")
+    @Max(value = 268_435_456, message = "Multipart upload parts are held in memory so can be at most 256 MB")
+    private int multipartPartSize = 16_777_216;
 }
@@ -23,6 +23,7 @@ import com.netflix.genie.web.services.JobFileService;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.servlet.HandlerMapping;
@@ -61,6 +62,8 @@ public class GenieResourceHttpRequestHandler extends ResourceHttpRequestHandler
 
     private final DirectoryWriter directoryWriter;
     private final JobFileService jobFileService;
+    private final boolean streamingEnabled;
+    private final ZeroCopyFileWriter fileWriter = new ZeroCopyFileWriter();
 
     /**
      * Constructor.
@@ -69,9 +72,26 @@ public class GenieResourceHttpRequestHandler extends ResourceHttpRequestHandler
      * @param jobFileService  The log service to use
      */
     public GenieResourceHttpRequestHandler(final DirectoryWriter directoryWriter, final JobFileService jobFileService) {
+        this(directoryWriter, jobFileService, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param directoryWriter  The class to use to convert directories to representations like HTML
+     * @param jobFileService   The log service to use
+     * @param streamingEnabled Whether files should be copied straight from disk to the response with range and tail
+     *                         support and directory listings written straight to the response
+     */
+    public GenieResourceHttpRequestHandler(
+        final DirectoryWriter directoryWriter,
+        final JobFileService jobFileService,
+        final boolean streamingEnabled
+    ) {
         super();
         this.directoryWriter = directoryWriter;
         this.jobFileService = jobFileService;
+        this.streamingEnabled = streamingEnabled;
     }
 
     /**
@@ -108,30 +128,40 @@ public class GenieResourceHttpRequestHandler extends ResourceHttpRequestHandler
             try {
                 if (accept != null && accept.contains(MediaType.TEXT_HTML_VALUE)) {
                     response.setContentType(MediaType.TEXT_HTML_VALUE);
-                    response
-                        .getOutputStream()
-                        .write(
-                            this.directoryWriter.toHtml(
-                                file,
-                                requestUrl,
-                                !isRootDirectory
-                            ).getBytes(UTF_8)
-                        );
+                    if (this.streamingEnabled) {
+                        this.directoryWriter.writeHtml(file, requestUrl, !isRootDirectory, response.getOutputStream());
+                    } else {
+                        response
+                            .getOutputStream()
+                            .write(
+                                this.directoryWriter.toHtml(
+                                    file,
+                                    requestUrl,
+                                    !isRootDirectory
+                                ).getBytes(UTF_8)
+                            );
+                    }
                 } else {
                     response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-                    response
-                        .getOutputStream()
-                        .write(
-                            this.directoryWriter.toJson(
-                                file,
-                                requestUrl,
-                                !isRootDirectory
-                            ).getBytes(UTF_8)
-                        );
+                    if (this.streamingEnabled) {
+                        this.directoryWriter.writeJson(file, requestUrl, !isRootDirectory, response.getOutputStream());
+                    } else {
+                        response
+                            .getOutputStream()
+                            .write(
+                                this.directoryWriter.toJson(
+                                    file,
+                                    requestUrl,
+                                    !isRootDirectory
+                                ).getBytes(UTF_8)
+                            );
+                    }
                 }
             } catch (final Exception e) {
                 throw new ServletException(e);
             }
+        } else if (this.streamingEnabled && this.isReadRequest(request)) {
+            this.fileWriter.write(request, response, file, this.getMediaType(request, resource));
         } else {
             super.handleRequest(request, response);
         }
@@ -153,6 +183,10 @@ public class GenieResourceHttpRequestHandler extends ResourceHttpRequestHandler
         return this.jobFileService.getJobFileAsResource(jobId, relativePath);
     }
 
+    private boolean isReadRequest(final HttpServletRequest request) {
+        return HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -0,0 +1,183 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.resources.handlers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writes a local file, or a region of it, to a HTTP response without ever holding more than a small buffer of it
+ * on the heap.
+ * <p>
+ * When the servlet container supports sendfile (Tomcat advertises this through a request attribute) the kernel is
+ * asked to copy the region straight to the socket. Otherwise the region is copied using
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)}. Supports conditional requests using
+ * If-None-Match and If-Modified-Since, a single HTTP Range (with If-Range) and a {@literal tail} query parameter
+ * returning only the last N bytes of the file.
+ *
+ * @since 4.0.0
+ */
+@Slf4j
+final class ZeroCopyFileWriter {
+
+    /**
+     * Query parameter to request only the given number of bytes from the end of the file.
+     */
+    static final String TAIL_PARAMETER = "tail";
+
+    static final String SENDFILE_SUPPORTED_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+    private static final String BYTES = "bytes";
+
+    /**
+     * Write the requested region of the file to the response.
+     *
+     * @param request   The request
+     * @param response  The response to write to
+     * @param file      The file to serve. Must be a regular file.
+     * @param mediaType The media type of the file
+     * @throws IOException On error reading the file or writing the response
+     */
+    void write(
+        final HttpServletRequest request,
+        final HttpServletResponse response,
+        final File file,
+        final MediaType mediaType
+    ) throws IOException {
+        // Job output is often still being written so take a single snapshot of the size to serve
+        final long length = file.length();
+        final long lastModified = file.lastModified();
+        final String etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"";
+
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, BYTES);
+        long start = 0L;
+        long end = length - 1;
+
+        final String tail = request.getParameter(TAIL_PARAMETER);
+        final String range = request.getHeader(HttpHeaders.RANGE);
+        if (StringUtils.isNotBlank(tail)) {
+            final long tailLength;
+            try {
+                tailLength = Long.parseLong(tail.trim());
+            } catch (final NumberFormatException e) {
+                response.sendError(HttpStatus.BAD_REQUEST.value(), "Invalid " + TAIL_PARAMETER + " value: " + tail);
+                return;
+            }
+            if (tailLength < 0) {
+                response.sendError(HttpStatus.BAD_REQUEST.value(), "Invalid " + TAIL_PARAMETER + " value: " + tail);
+                return;
+            }
+            start = Math.max(length - tailLength, 0L);
+        } else if (range != null && this.isRangeApplicable(request, etag, lastModified)) {
+            final List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+            } catch (final IllegalArgumentException e) {
+                this.sendRangeNotSatisfiable(response, length);
+                return;
+            }
+            // Multiple ranges are rare for file output. Ignoring the header and returning everything is allowed.
+            if (ranges.size() == 1) {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+                if (start >= length || start > end) {
+                    this.sendRangeNotSatisfiable(response, length);
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, BYTES + " " + start + "-" + end + "/" + length);
+            }
+        }
+
+        final long count = end - start + 1;
+        response.setContentType(mediaType.toString());
+        response.setContentLengthLong(count);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTRIBUTE))) {
+            // The container will copy the region once the request returns. The end is exclusive.
+            request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, file.getCanonicalPath());
+            request.setAttribute(SENDFILE_START_ATTRIBUTE, start);
+            request.setAttribute(SENDFILE_END_ATTRIBUTE, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                final long transferred = channel.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    // The file was truncated after we took its length
+                    log.warn("Only wrote {} of {} bytes of {}", count - remaining, count, file);
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    private boolean isRangeApplicable(final HttpServletRequest request, final String etag, final long lastModified) {
+        final String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // Range requests require a strong comparison
+            return ifRange.equals(etag);
+        }
+        try {
+            // HTTP dates only have second precision
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (final IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private void sendRangeNotSatisfiable(final HttpServletResponse response, final long length) throws IOException {
+        response.setHeader(HttpHeaders.CONTENT_RANGE, BYTES + " */" + length);
+        response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+    }
+}
@@ -17,6 +17,7 @@
  */
 package com.netflix.genie.web.resources.writers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.collect.Lists;
 import com.netflix.genie.common.util.GenieObjectMapper;
 import lombok.Data;
@@ -30,8 +31,14 @@ import org.hibernate.validator.constraints.URL;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.Comparator;
 import java.util.Date;
@@ -68,45 +75,100 @@ public class DefaultDirectoryWriter implements DirectoryWriter {
         final boolean includeParent
     ) throws IOException {
         final Directory dir = this.getDirectory(directory, requestURL, includeParent);
+        final StringWriter writer = new StringWriter();
+        this.renderHtml(dir, directory.getName(), writer);
+        return writer.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The page is written to the stream as it is rendered rather than first built up as a string.
+     */
+    @Override
+    public void writeHtml(
+        @NotNull final File directory,
+        @URL final String requestURL,
+        final boolean includeParent,
+        @NotNull final OutputStream outputStream
+    ) throws IOException {
+        final Directory dir = this.getDirectory(directory, requestURL, includeParent);
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        this.renderHtml(dir, directory.getName(), writer);
+        // Flush but don't close as the stream belongs to the caller
+        writer.flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toJson(
+        @NotNull final File directory,
+        @URL final String requestURL,
+        final boolean includeParent
+    ) throws Exception {
+        final Directory dir = this.getDirectory(directory, requestURL, includeParent);
+        return GenieObjectMapper.getMapper().writeValueAsString(dir);
+    }
 
-        final StringBuilder builder = new StringBuilder();
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The JSON is generated straight onto the stream rather than first built up as a string.
+     */
+    @Override
+    public void writeJson(
+        @NotNull final File directory,
+        @URL final String requestURL,
+        final boolean includeParent,
+        @NotNull final OutputStream outputStream
+    ) throws IOException {
+        final Directory dir = this.getDirectory(directory, requestURL, includeParent);
+        GenieObjectMapper
+            .getMapper()
+            .writer()
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .writeValue(outputStream, dir);
+    }
 
+    private void renderHtml(final Directory dir, final String name, final Writer writer) throws IOException {
         // Render the page header
-        builder.append("<!DOCTYPE html>");
-        builder.append("<html>");
-        builder.append("<head>");
-        builder.append("<title>");
-        builder.append(directory.getName());
-        builder.append("</title>");
-        builder.append("<style type=\"text/css\"><!--");
-        builder.append(DEFAULT_CSS);
-        builder.append("--></style> ");
-        builder.append("</head>");
+        writer.append("<!DOCTYPE html>");
+        writer.append("<html>");
+        writer.append("<head>");
+        writer.append("<title>");
+        writer.append(name);
+        writer.append("</title>");
+        writer.append("<style type=\"text/css\"><!--");
+        writer.append(DEFAULT_CSS);
+        writer.append("--></style> ");
+        writer.append("</head>");
 
         // Body
-        builder.append("<body>");
-        builder.append("<h1>").append(directory.getName()).append("</h1>");
+        writer.append("<body>");
+        writer.append("<h1>").append(name).append("</h1>");
 
-        builder.append("<HR size=\"1\" noshade=\"noshade\">");
+        writer.append("<HR size=\"1\" noshade=\"noshade\">");
 
-        builder.append("<table width=\"100%\" cellspacing=\"0\"" + " cellpadding=\"5\" align=\"center\">");
+        writer.append("<table width=\"100%\" cellspacing=\"0\"" + " cellpadding=\"5\" align=\"center\">");
 
         // Render the column headings
-        builder.append("<tr>");
-        builder.append("<td align=\"left\"><font size=\"+1\"><strong>");
-        builder.append("Filename");
-        builder.append("</strong></font></td>");
-        builder.append("<td align=\"right\"><font size=\"+1\"><strong>");
-        builder.append("Size");
-        builder.append("</strong></font></td>");
-        builder.append("<td align=\"right\"><font size=\"+1\"><strong>");
-        builder.append("Last Modified");
-        builder.append("</strong></font></td>");
-        builder.append("</tr>");
+        writer.append("<tr>");
+        writer.append("<td align=\"left\"><font size=\"+1\"><strong>");
+        writer.append("Filename");
+        writer.append("</strong></font></td>");
+        writer.append("<td align=\"right\"><font size=\"+1\"><strong>");
+        writer.append("Size");
+        writer.append("</strong></font></td>");
+        writer.append("<td align=\"right\"><font size=\"+1\"><strong>");
+        writer.append("Last Modified");
+        writer.append("</strong></font></td>");
+        writer.append("</tr>");
 
         // Write parent if necessary
         if (dir.getParent() != null) {
-            this.writeFileHtml(builder, false, dir.getParent(), true);
+            this.writeFileHtml(writer, false, dir.getParent(), true);
         }
 
         boolean shade = true;
@@ -114,7 +176,7 @@ public class DefaultDirectoryWriter implements DirectoryWriter {
         // Write directories
         if (dir.getDirectories() != null) {
             for (final Entry entry : dir.getDirectories()) {
-                this.writeFileHtml(builder, shade, entry, true);
+                this.writeFileHtml(writer, shade, entry, true);
                 shade = !shade;
             }
         }
@@ -122,61 +184,46 @@ public class DefaultDirectoryWriter implements DirectoryWriter {
         // Write files
         if (dir.getFiles() != null) {
             for (final Entry entry : dir.getFiles()) {
-                this.writeFileHtml(builder, shade, entry, false);
+                this.writeFileHtml(writer, shade, entry, false);
                 shade = !shade;
             }
         }
 
         // Render the page footer
-        builder.append("</table>");
+        writer.append("</table>");
 
-        builder.append("<HR size=\"1\" noshade=\"noshade\">");
+        writer.append("<HR size=\"1\" noshade=\"noshade\">");
         // TODO: replace with something related to Genie
-        builder.append("<h3>").append(ServerInfo.getServerInfo()).append("</h3>");
-        builder.append("</body>");
-        builder.append("</html>");
-
-        return builder.toString();
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public String toJson(
-        @NotNull final File directory,
-        @URL final String requestURL,
-        final boolean includeParent
-    ) throws Exception {
-        final Directory dir = this.getDirectory(directory, requestURL, includeParent);
-        return GenieObjectMapper.getMapper().writeValueAsString(dir);
+        writer.append("<h3>").append(ServerInfo.getServerInfo()).append("</h3>");
+        writer.append("</body>");
+        writer.append("</html>");
     }
 
     private void writeFileHtml(
-        final StringBuilder builder,
+        final Writer writer,
         final boolean shade,
         final Entry entry,
         final boolean isDirectory
-    ) {
-        builder.append("<tr");
+    ) throws IOException {
+        writer.append("<tr");
         if (shade) {
-            builder.append(" bgcolor=\"#eeeeee\"");
+            writer.append(" bgcolor=\"#eeeeee\"");
         }
-        builder.append(">");
+        writer.append(">");
 
-        builder.append("<td align=\"left\">&nbsp;&nbsp;");
-        builder.append("<a href=\"").append(entry.getUrl()).append("\">");
-        builder.append("<tt>").append(entry.getName()).append("</tt></a></td>");
-        builder.append("<td align=\"right\"><tt>");
+        writer.append("<td align=\"left\">&nbsp;&nbsp;");
+        writer.append("<a href=\"").append(entry.getUrl()).append("\">");
+        writer.append("<tt>").append(entry.getName()).append("</tt></a></td>");
+        writer.append("<td align=\"right\"><tt>");
         if (isDirectory) {
-            builder.append("-");
+            writer.append("-");
         } else {
-            builder.append(FileUtils.byteCountToDisplaySize(entry.getSize()));
+            writer.append(FileUtils.byteCountToDisplaySize(entry.getSize()));
         }
-        builder.append("</tt></td>");
+        writer.append("</tt></td>");
         final String lastModified = ConcurrentDateFormat.formatRfc1123(Date.from(entry.getLastModified()));
-        builder.append("<td align=\"right\"><tt>").append(lastModified).append("</tt></td>");
-        builder.append("</tr>");
+        writer.append("<td align=\"right\"><tt>").append(lastModified).append("</tt></td>");
+        writer.append("</tr>");
     }
 
     protected Directory getDirectory(final File directory, final String requestUrl, final boolean includeParent) {
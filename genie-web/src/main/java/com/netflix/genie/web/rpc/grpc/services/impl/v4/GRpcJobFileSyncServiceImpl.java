@@ -19,6 +19,7 @@ package com.netflix.genie.web.rpc.grpc.services.impl.v4;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.genie.common.internal.dto.v4.files.JobFileState;
 import com.netflix.genie.proto.BeginAcknowledgement;
 import com.netflix.genie.proto.BeginSync;
@@ -35,6 +36,7 @@ import com.netflix.genie.proto.SyncResponse;
 import com.netflix.genie.web.properties.GRpcServerProperties;
 import com.netflix.genie.web.properties.JobFileSyncRpcProperties;
 import com.netflix.genie.web.services.JobFileService;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -44,21 +46,45 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.TaskScheduler;
 
+import javax.annotation.Nullable;
 import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * Implementation of the gRPC Job File Sync interface for syncing job files from agent to server via bi-directional
  * connection.
+ * <p>
+ * If write threads are configured the file updates and deletes of each job are handed to a shared pool of writer
+ * threads, in order, so the gRPC threads never wait on disk. When writeThreads is 0, writes are performed on the
+ * calling gRPC thread.
+ * <p>
+ * With writer threads, whenever a job's queue of writes drains everything written is acknowledged straight away, so
+ * the last few uploads of a burst aren't left waiting for the acknowledgement interval. At most maxQueuedWrites writes
+ * of a job wait at once. Beyond that the connection stops reading further messages until the writer threads catch up,
+ * so gRPC flow control slows the agent down rather than the server buffering everything a slow disk can't keep up
+ * with.
+ * <p>
+ * If acknowledgement threads are configured each connection is assigned one of them and schedules its own, coalesced,
+ * acknowledgement there when it has results to send. The acknowledgement is held back while gRPC flow control says
+ * the connection isn't ready and sent once it is, so a slow agent never delays anyone else's acknowledgements.
+ * Otherwise a single periodic task sends the pending acknowledgements of all the connections.
  *
  * @author tgianos
  * @since 4.0.0
@@ -71,8 +97,11 @@ public class GRpcJobFileSyncServiceImpl extends JobFileSyncServiceGrpc.JobFileSy
     private final JobFileSyncRpcProperties jobFileSyncRpcProperties;
     private final JobFileService jobFileService;
     private final ScheduledFuture<?> ackFuture;
+    private final ExecutorService writeExecutor;
+    private final ScheduledExecutorService[] ackExecutors;
 
     private final ConcurrentMap<String, JobFileSyncObserver> jobSyncRequestObservers = Maps.newConcurrentMap();
+    private final AtomicInteger nextAckExecutor = new AtomicInteger();
 
     /**
      * Constructor.
@@ -88,11 +117,29 @@ public class GRpcJobFileSyncServiceImpl extends JobFileSyncServiceGrpc.JobFileSy
     ) {
         this.jobFileSyncRpcProperties = jobFileSyncProperties;
         this.jobFileService = jobFileService;
-
-        this.ackFuture = taskScheduler.scheduleWithFixedDelay(
-            this::executeObserverAcknowledgements,
-            this.jobFileSyncRpcProperties.getAckIntervalMilliseconds()
-        );
+        this.writeExecutor = this.jobFileSyncRpcProperties.getWriteThreads() > 0
+            ? Executors.newFixedThreadPool(
+                this.jobFileSyncRpcProperties.getWriteThreads(),
+                new ThreadFactoryBuilder().setNameFormat("genie-job-file-sync-writer-%d").setDaemon(true).build()
+            )
+            : null;
+
+        final int ackThreads = this.jobFileSyncRpcProperties.getAckThreads();
+        if (ackThreads > 0) {
+            final ThreadFactory ackThreadFactory
+                = new ThreadFactoryBuilder().setNameFormat("genie-job-file-sync-ack-%d").setDaemon(true).build();
+            this.ackExecutors = new ScheduledExecutorService[ackThreads];
+            for (int i = 0; i < ackThreads; i++) {
+                this.ackExecutors[i] = Executors.newSingleThreadScheduledExecutor(ackThreadFactory);
+            }
+            this.ackFuture = null;
+        } else {
+            this.ackExecutors = null;
+            this.ackFuture = taskScheduler.scheduleWithFixedDelay(
+                this::executeObserverAcknowledgements,
+                this.jobFileSyncRpcProperties.getAckIntervalMilliseconds()
+            );
+        }
     }
 
     /**
@@ -107,6 +154,8 @@ public class GRpcJobFileSyncServiceImpl extends JobFileSyncServiceGrpc.JobFileSy
             this.jobFileSyncRpcProperties,
             responseObserver,
             this.jobFileService,
+            this.writeExecutor,
+            this.getAckExecutor(),
             this::addJobFileSyncObserver,
             this::removeJobFileSyncObserver
         );
@@ -126,6 +175,14 @@ public class GRpcJobFileSyncServiceImpl extends JobFileSyncServiceGrpc.JobFileSy
                 log.debug("Cancelled the job file sync acknowledgement thread");
             }
         }
+        if (this.writeExecutor != null) {
+            this.writeExecutor.shutdown();
+        }
+        if (this.ackExecutors != null) {
+            for (final ScheduledExecutorService ackExecutor : this.ackExecutors) {
+                ackExecutor.shutdownNow();
+            }
+        }
     }
 
     /**
@@ -178,6 +235,20 @@ public class GRpcJobFileSyncServiceImpl extends JobFileSyncServiceGrpc.JobFileSy
         );
     }
 
+    /**
+     * Pick the thread a new connection sends its acknowledgements on. Connections are spread over the threads
+     * round robin.
+     *
+     * @return The executor or null if there are no dedicated acknowledgement threads
+     */
+    @Nullable
+    private ScheduledExecutorService getAckExecutor() {
+        if (this.ackExecutors == null) {
+            return null;
+        }
+        return this.ackExecutors[Math.floorMod(this.nextAckExecutor.getAndIncrement(), this.ackExecutors.length)];
+    }
+
     /**
      * Send acknowledgement messages from all the observers.
      */
@@ -258,16 +329,30 @@ public class GRpcJobFileSyncServiceImpl extends JobFileSyncServiceGrpc.JobFileSy
         @Getter
         private final String id = UUID.randomUUID().toString();
         private final Object messagesLock = new Object();
+        private final Object responsesLock = new Object();
 
         // Use lists to maintain order
         private final List<SyncRequestResult> requestResults = Lists.newArrayList();
 
         private final StreamObserver<SyncResponse> responseObserver;
         private final JobFileService jobFileService;
+        private final Executor writeExecutor;
+        private final Object writesLock = new Object();
+        private CompletableFuture<Void> pendingWrites = CompletableFuture.completedFuture(null);
+        private final AtomicInteger queuedWrites = new AtomicInteger();
+        private final int maxQueuedWrites;
+        private final boolean inboundFlowControlled;
+        private final AtomicBoolean inboundPaused = new AtomicBoolean(false);
+        private final ScheduledExecutorService ackExecutor;
+        private final ServerCallStreamObserver<SyncResponse> serverCallStreamObserver;
         private final Consumer<JobFileSyncObserver> jobIdPopulatedCallback;
         private final Consumer<JobFileSyncObserver> completionCallback;
         private final AtomicBoolean cleanedUp = new AtomicBoolean(false);
         private final int maxSyncMessages;
+        private final long ackIntervalMilliseconds;
+        // Guarded by the messages lock
+        private ScheduledFuture<?> delayedAck;
+        private boolean immediateAckScheduled; // default false
         private boolean waitingForBeginMessage = true;
         private boolean sentResetMessage; // default false
         private String jobId;
@@ -276,14 +361,37 @@ public class GRpcJobFileSyncServiceImpl extends JobFileSyncServiceGrpc.JobFileSy
             final JobFileSyncRpcProperties jobFileSyncRpcProperties,
             final StreamObserver<SyncResponse> responseObserver,
             final JobFileService jobFileService,
+            @Nullable final Executor writeExecutor,
+            @Nullable final ScheduledExecutorService ackExecutor,
             final Consumer<JobFileSyncObserver> jobIdPopulatedCallback,
             final Consumer<JobFileSyncObserver> completionCallback
         ) {
             this.responseObserver = responseObserver;
             this.jobFileService = jobFileService;
+            this.writeExecutor = writeExecutor;
+            this.ackExecutor = ackExecutor;
             this.jobIdPopulatedCallback = jobIdPopulatedCallback;
             this.completionCallback = completionCallback;
             this.maxSyncMessages = jobFileSyncRpcProperties.getMaxSyncMessages();
+            this.ackIntervalMilliseconds = jobFileSyncRpcProperties.getAckIntervalMilliseconds();
+            this.maxQueuedWrites = Math.max(1, jobFileSyncRpcProperties.getMaxQueuedWrites());
+
+            if (responseObserver instanceof ServerCallStreamObserver) {
+                // The handler and flow control can only be set while the call is being started which is when this is
+                // constructed
+                this.serverCallStreamObserver = (ServerCallStreamObserver<SyncResponse>) responseObserver;
+                if (this.ackExecutor != null) {
+                    this.serverCallStreamObserver.setOnReadyHandler(this::onReady);
+                }
+                this.inboundFlowControlled = this.writeExecutor != null;
+                if (this.inboundFlowControlled) {
+                    this.serverCallStreamObserver.disableAutoInboundFlowControl();
+                    this.serverCallStreamObserver.request(1);
+                }
+            } else {
+                this.serverCallStreamObserver = null;
+                this.inboundFlowControlled = false;
+            }
         }
 
         /**
@@ -308,6 +416,8 @@ public class GRpcJobFileSyncServiceImpl extends JobFileSyncServiceGrpc.JobFileSy
                 // TODO: Should probably catch every kind of exception here but findbugs yelling at me late on a Friday
                 //       stash for now
                 log.error("Error for upload request {}", request, e);
+            } finally {
+                this.requestNextMessage();
             }
         }
 
@@ -344,6 +454,16 @@ public class GRpcJobFileSyncServiceImpl extends JobFileSyncServiceGrpc.JobFileSy
             if (!this.cleanedUp.getAndSet(true)) {
                 log.debug("Cleaning up");
                 this.completionCallback.accept(this);
+                synchronized (this.messagesLock) {
+                    if (this.delayedAck != null) {
+                        this.delayedAck.cancel(false);
+                        this.delayedAck = null;
+                    }
+                }
+                final String cleanedUpJobId = this.jobId;
+                if (cleanedUpJobId != null) {
+                    this.serializeWrite(() -> this.jobFileService.closeJobFiles(cleanedUpJobId));
+                }
                 log.debug("Cleaned up");
             }
         }
@@ -353,25 +473,31 @@ public class GRpcJobFileSyncServiceImpl extends JobFileSyncServiceGrpc.JobFileSy
          */
         @Override
         public void sendSyncAckMessageIfNecessary() {
-            synchronized (this.messagesLock) {
-                // Only send if we have something to send
-                if (!this.requestResults.isEmpty()) {
-                    log.debug("Sending sync acknowledgment for messages {}", this.requestResults);
-
-                    this.responseObserver.onNext(
-                        SyncResponse
-                            .newBuilder()
-                            .setSyncAck(
-                                SyncAcknowledgement
-                                    .newBuilder()
-                                    .addAllResults(this.requestResults)
-                                    .build()
-                            )
-                            .build()
-                    );
-
+            // Hold the responses lock so acknowledgements go out in order but don't hold up new results being recorded
+            // while the message is sent
+            synchronized (this.responsesLock) {
+                final List<SyncRequestResult> results;
+                synchronized (this.messagesLock) {
+                    // Only send if we have something to send
+                    if (this.requestResults.isEmpty()) {
+                        return;
+                    }
+                    results = Lists.newArrayList(this.requestResults);
                     this.requestResults.clear();
                 }
+                log.debug("Sending sync acknowledgment for messages {}", results);
+
+                this.send(
+                    SyncResponse
+                        .newBuilder()
+                        .setSyncAck(
+                            SyncAcknowledgement
+                                .newBuilder()
+                                .addAllResults(results)
+                                .build()
+                        )
+                        .build()
+                );
             }
         }
 
@@ -404,7 +530,7 @@ public class GRpcJobFileSyncServiceImpl extends JobFileSyncServiceGrpc.JobFileSy
                 // Tell the agent server is ready for it to send files and give it the state of the job directory
                 // on the server so it can determine where to start sending files from to save on redundant
                 // sending of data
-                this.responseObserver.onNext(
+                this.send(
                     SyncResponse
                         .newBuilder()
                         .setBeginAck(
@@ -453,35 +579,40 @@ public class GRpcJobFileSyncServiceImpl extends JobFileSyncServiceGrpc.JobFileSy
                 );
                 this.sendResetMessageIfNecessary();
             } else {
-                try {
-                    this.jobFileService.updateFile(
-                        this.jobId,
-                        dataUpload.getPath(),
-                        dataUpload.getStartByte(),
-                        // TODO: There are other methods here to go right to a ByteBuffer we might want to explore
-                        dataUpload.getData().toByteArray()
-                    );
+                this.serializeWrite(() -> this.writeDataUpload(dataUpload));
+            }
+        }
 
-                    synchronized (this.messagesLock) {
-                        this.requestResults.add(this.createRequestResult(messageId, true));
-                    }
-                } catch (final Exception e) {
-                    // For some reason saving the log failed. Mark this as a failed message
-                    log.error(
-                        "Unable to save data for job {} from message {} due to {}",
-                        this.jobId,
-                        messageId,
-                        e.getMessage(),
-                        e
-                    );
+        private void writeDataUpload(final DataUpload dataUpload) {
+            final String messageId = dataUpload.getId();
+            try {
+                // Write straight from the message's buffers rather than copying them to an array first
+                this.jobFileService.updateFile(
+                    this.jobId,
+                    dataUpload.getPath(),
+                    dataUpload.getStartByte(),
+                    dataUpload.getData().asReadOnlyByteBufferList()
+                );
 
-                    synchronized (this.messagesLock) {
-                        this.requestResults.add(this.createRequestResult(messageId, false));
-                    }
+                synchronized (this.messagesLock) {
+                    this.requestResults.add(this.createRequestResult(messageId, true));
                 }
+            } catch (final Exception e) {
+                // For some reason saving the log failed. Mark this as a failed message
+                log.error(
+                    "Unable to save data for job {} from message {} due to {}",
+                    this.jobId,
+                    messageId,
+                    e.getMessage(),
+                    e
+                );
 
-                this.checkIfShouldSendAck();
+                synchronized (this.messagesLock) {
+                    this.requestResults.add(this.createRequestResult(messageId, false));
+                }
             }
+
+            this.checkIfShouldSendAck();
         }
 
         private void handleDeleteFile(final DeleteFile deleteFile) {
@@ -495,32 +626,38 @@ public class GRpcJobFileSyncServiceImpl extends JobFileSyncServiceGrpc.JobFileSy
                     messageId
                 );
                 this.sendResetMessageIfNecessary();
+                this.checkIfShouldSendAck();
             } else {
-                try {
-                    this.jobFileService.deleteJobFile(this.jobId, deleteFile.getPath());
+                this.serializeWrite(() -> this.writeDeleteFile(deleteFile));
+            }
+        }
 
-                    synchronized (this.messagesLock) {
-                        this.requestResults.add(this.createRequestResult(messageId, true));
-                    }
-                } catch (final Exception e) {
-                    log.error(
-                        "Deleting {} for job {} failed due to {}",
-                        deleteFile.getPath(),
-                        this.jobId,
-                        e.getMessage(),
-                        e
-                    );
+        private void writeDeleteFile(final DeleteFile deleteFile) {
+            final String messageId = deleteFile.getId();
+            try {
+                this.jobFileService.deleteJobFile(this.jobId, deleteFile.getPath());
 
-                    synchronized (this.messagesLock) {
-                        this.requestResults.add(this.createRequestResult(messageId, false));
-                    }
+                synchronized (this.messagesLock) {
+                    this.requestResults.add(this.createRequestResult(messageId, true));
+                }
+            } catch (final Exception e) {
+                log.error(
+                    "Deleting {} for job {} failed due to {}",
+                    deleteFile.getPath(),
+                    this.jobId,
+                    e.getMessage(),
+                    e
+                );
+
+                synchronized (this.messagesLock) {
+                    this.requestResults.add(this.createRequestResult(messageId, false));
                 }
             }
 
             this.checkIfShouldSendAck();
         }
 
-        private void handleSyncComplete(final SyncComplete syncComplete) throws IOException {
+        private void handleSyncComplete(final SyncComplete syncComplete) {
             if (this.waitingForBeginMessage) {
                 log.debug(
                     "Haven't received a {} message. Ignoring file sync complete message {}.",
@@ -529,59 +666,139 @@ public class GRpcJobFileSyncServiceImpl extends JobFileSyncServiceGrpc.JobFileSy
                 );
                 this.sendResetMessageIfNecessary();
             } else {
-                log.debug("Job file synchronization from agent for job {} is complete.", this.jobId);
+                // Only complete once all the writes received before this message are done
+                this.serializeWrite(
+                    () -> {
+                        try {
+                            this.completeSync(syncComplete);
+                        } catch (final IOException e) {
+                            log.error("Error completing job file sync for job {}", this.jobId, e);
+                        }
+                    }
+                );
+            }
+        }
 
-                // TODO: We really might not need to do this, though what happened if there were failures
-                //       At this point the agent thinks it's done syncing and can shut down. If we send back
-                //       some failure messages there's not really much sense in it retrying. Perhaps we build in
-                //       a different message for this end case to do one more set of exchanges.
-                this.sendSyncAckMessageIfNecessary();
+        private void completeSync(final SyncComplete syncComplete) throws IOException {
+            log.debug("Job file synchronization from agent for job {} is complete.", this.jobId);
 
-                // Stop the watcher thread
-                this.cleanup();
-
-                final JobDirectoryState agentJobDirectoryState = syncComplete.getFinalAgentDirectoryState();
-                final boolean includeMd5 = agentJobDirectoryState.getIncludesMd5();
-                final Set<JobFileState> agentJobFileStates = agentJobDirectoryState
-                    .getFilesList()
-                    .stream()
-                    .map(
-                        jobFileState ->
-                            new JobFileState(
-                                jobFileState.getPath(),
-                                jobFileState.getSize(),
-                                includeMd5 ? jobFileState.getMd5() : null
-                            )
-                    )
-                    .collect(Collectors.toSet());
-
-                final Set<JobFileState> serverJobFileStates
-                    = this.jobFileService.getJobDirectoryFileState(this.jobId, includeMd5);
+            // TODO: We really might not need to do this, though what happened if there were failures
+            //       At this point the agent thinks it's done syncing and can shut down. If we send back
+            //       some failure messages there's not really much sense in it retrying. Perhaps we build in
+            //       a different message for this end case to do one more set of exchanges.
+            this.sendSyncAckMessageIfNecessary();
 
-                if (!agentJobFileStates.equals(serverJobFileStates)) {
-                    log.warn(
-                        "After the agent finished syncing job files for job {} the state of the files on the "
-                            + "server {} is different than the supplied state of the files on the agent {}",
-                        this.jobId,
-                        serverJobFileStates,
-                        agentJobFileStates
-                    );
+            // Stop the watcher thread
+            this.cleanup();
 
-                    // TODO: Probably invoke some service API which will in the background download from long term
-                    //       storage location into a tmp location and then swap it into place for existing
-                    //       job directory locally
-                }
+            final JobDirectoryState agentJobDirectoryState = syncComplete.getFinalAgentDirectoryState();
+            final boolean includeMd5 = agentJobDirectoryState.getIncludesMd5();
+            final Set<JobFileState> agentJobFileStates = agentJobDirectoryState
+                .getFilesList()
+                .stream()
+                .map(
+                    jobFileState ->
+                        new JobFileState(
+                            jobFileState.getPath(),
+                            jobFileState.getSize(),
+                            includeMd5 ? jobFileState.getMd5() : null
+                        )
+                )
+                .collect(Collectors.toSet());
+
+            final Set<JobFileState> serverJobFileStates
+                = this.jobFileService.getJobDirectoryFileState(this.jobId, includeMd5);
+
+            if (!agentJobFileStates.equals(serverJobFileStates)) {
+                log.warn(
+                    "After the agent finished syncing job files for job {} the state of the files on the "
+                        + "server {} is different than the supplied state of the files on the agent {}",
+                    this.jobId,
+                    serverJobFileStates,
+                    agentJobFileStates
+                );
 
-                // TODO: Should invoke some log upload service here to backup the completed logs somewhere OR
-                //       if we've been pushing logs to long term archival in the background signal that these are done
-                //       and can be closed
+                // TODO: Probably invoke some service API which will in the background download from long term
+                //       storage location into a tmp location and then swap it into place for existing
+                //       job directory locally
+            }
+
+            // TODO: Should invoke some log upload service here to backup the completed logs somewhere OR
+            //       if we've been pushing logs to long term archival in the background signal that these are done
+            //       and can be closed
+        }
+
+        /**
+         * Run a file update or anything which must happen in order with them. With a write executor the tasks run one
+         * at a time, in submission order, on the executor's threads, otherwise immediately on the calling thread.
+         *
+         * @param task The task to run
+         */
+        private void serializeWrite(final Runnable task) {
+            if (this.writeExecutor == null) {
+                task.run();
+                return;
+            }
+            this.queuedWrites.incrementAndGet();
+            synchronized (this.writesLock) {
+                this.pendingWrites = this.pendingWrites.handleAsync(
+                    (ignored, throwable) -> {
+                        try {
+                            task.run();
+                        } catch (final RuntimeException e) {
+                            log.error("Error writing job files for job {}", this.jobId, e);
+                        }
+                        final int remainingWrites = this.queuedWrites.decrementAndGet();
+                        if (remainingWrites < this.maxQueuedWrites && this.inboundPaused.compareAndSet(true, false)) {
+                            log.debug("Writes for job {} caught up. Resuming reading messages.", this.jobId);
+                            this.serverCallStreamObserver.request(1);
+                        }
+                        if (remainingWrites == 0) {
+                            this.onWritesDrained();
+                        }
+                        return null;
+                    },
+                    this.writeExecutor
+                );
+            }
+        }
+
+        /**
+         * With inbound flow control gRPC only delivers the messages asked for. Ask for the next one unless too many
+         * writes are already waiting, in which case the last write to finish below the limit asks for it instead.
+         */
+        private void requestNextMessage() {
+            if (!this.inboundFlowControlled) {
+                return;
+            }
+            if (this.queuedWrites.get() < this.maxQueuedWrites) {
+                this.serverCallStreamObserver.request(1);
+                return;
+            }
+            log.debug("Too many writes queued for job {}. Pausing reading messages.", this.jobId);
+            this.inboundPaused.set(true);
+            // The writes may have caught up before the pause was visible to the writer threads
+            if (this.queuedWrites.get() < this.maxQueuedWrites && this.inboundPaused.compareAndSet(true, false)) {
+                this.serverCallStreamObserver.request(1);
+            }
+        }
+
+        /**
+         * Everything the agent sent so far has been written. Acknowledge it now rather than waiting for more messages
+         * or the acknowledgement interval as the agent may have nothing more to send until it hears back.
+         */
+        private void onWritesDrained() {
+            if (this.ackExecutor != null) {
+                this.scheduleAck(true);
+            } else {
+                this.sendSyncAckMessageIfNecessary();
             }
         }
 
         private void sendResetMessageIfNecessary() {
             if (!this.sentResetMessage) {
                 log.debug("Sending job file sync reset message to agent");
-                this.responseObserver.onNext(
+                this.send(
                     SyncResponse
                         .newBuilder()
                         .setReset(ResetSync.newBuilder().build())
@@ -591,7 +808,18 @@ public class GRpcJobFileSyncServiceImpl extends JobFileSyncServiceGrpc.JobFileSy
             }
         }
 
+        private void send(final SyncResponse response) {
+            // Responses are sent from the gRPC, writer and acknowledgement threads but the observer isn't thread safe
+            synchronized (this.responsesLock) {
+                this.responseObserver.onNext(response);
+            }
+        }
+
         private void checkIfShouldSendAck() {
+            if (this.ackExecutor != null) {
+                this.scheduleAck(false);
+                return;
+            }
             boolean sendAck = false;
             synchronized (this.messagesLock) {
                 if (this.requestResults.size() == this.maxSyncMessages) {
@@ -605,6 +833,63 @@ public class GRpcJobFileSyncServiceImpl extends JobFileSyncServiceGrpc.JobFileSy
             }
         }
 
+        /**
+         * Make sure an acknowledgement of the pending results is scheduled on this observer's acknowledgement thread.
+         * It's sent straight away once there are enough results to acknowledge, otherwise after the acknowledgement
+         * interval. Results arriving in the meantime are coalesced into the same acknowledgement.
+         *
+         * @param now Whether to send the acknowledgement straight away regardless of the number of results
+         */
+        private void scheduleAck(final boolean now) {
+            synchronized (this.messagesLock) {
+                if (this.requestResults.isEmpty() || this.cleanedUp.get()) {
+                    return;
+                }
+                if (now || this.requestResults.size() >= this.maxSyncMessages) {
+                    if (!this.immediateAckScheduled) {
+                        this.immediateAckScheduled = true;
+                        this.ackExecutor.execute(this::sendScheduledAck);
+                    }
+                } else if (this.delayedAck == null) {
+                    this.delayedAck = this.ackExecutor.schedule(
+                        this::sendScheduledAck,
+                        this.ackIntervalMilliseconds,
+                        TimeUnit.MILLISECONDS
+                    );
+                }
+            }
+        }
+
+        private void sendScheduledAck() {
+            synchronized (this.messagesLock) {
+                this.immediateAckScheduled = false;
+                if (this.delayedAck != null) {
+                    this.delayedAck.cancel(false);
+                    this.delayedAck = null;
+                }
+            }
+            if (this.serverCallStreamObserver != null && !this.serverCallStreamObserver.isReady()) {
+                // The agent isn't reading. Keep collecting results and send them all once it's ready again.
+                log.debug("Connection for job {} isn't ready. Holding acknowledgement back.", this.jobId);
+                return;
+            }
+            try {
+                this.sendSyncAckMessageIfNecessary();
+            } catch (final RuntimeException e) {
+                log.error("Unable to send acknowledgement for job {}", this.jobId, e);
+            }
+        }
+
+        private void onReady() {
+            // Called by gRPC when the connection can take more data. Send anything which was held back.
+            synchronized (this.messagesLock) {
+                if (!this.requestResults.isEmpty() && !this.cleanedUp.get() && !this.immediateAckScheduled) {
+                    this.immediateAckScheduled = true;
+                    this.ackExecutor.execute(this::sendScheduledAck);
+                }
+            }
+        }
+
         private SyncRequestResult createRequestResult(final String messageId, final boolean successful) {
             return SyncRequestResult.newBuilder().setId(messageId).setSuccessful(successful).build();
         }
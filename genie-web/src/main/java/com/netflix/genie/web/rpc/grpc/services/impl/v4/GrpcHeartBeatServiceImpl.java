@@ -18,28 +18,44 @@
 
 package com.netflix.genie.web.rpc.grpc.services.impl.v4;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.genie.proto.AgentHeartBeat;
 import com.netflix.genie.proto.HeartBeatServiceGrpc;
 import com.netflix.genie.proto.ServerHeartBeat;
 import com.netflix.genie.web.rpc.grpc.interceptors.SimpleLoggingInterceptor;
 import com.netflix.genie.web.services.AgentRoutingService;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.springboot.autoconfigure.grpc.server.GrpcService;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.scheduling.TaskScheduler;
 
 import javax.annotation.PreDestroy;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * An edge gRPC service that uses bi-directional streaming.
  * This is useful to reliably track which connection is handled by which server and to detect disconnections on both
  * ends.
+ * <p>
+ * Streams are tracked in a concurrent map so connections, heartbeats and disconnections never wait for each other or
+ * for the server heartbeats to be sent. Server heartbeats are sent to batches of streams in parallel, skipping
+ * streams which aren't ready for more data, and streams which haven't sent a heartbeat for a while are considered
+ * dead and closed even if the connection itself never failed.
  *
  * @author mprimi
  * @since 4.0.0
@@ -54,17 +70,39 @@ import java.util.concurrent.ScheduledFuture;
 class GrpcHeartBeatServiceImpl extends HeartBeatServiceGrpc.HeartBeatServiceImplBase {
 
     private static final long HEART_BEAT_PERIOD_MILLIS = 5_000L; // TODO make configurable
+    private static final long HEART_BEAT_TIMEOUT_MILLIS = 30_000L; // TODO make configurable
+    private static final int HEART_BEAT_BATCH_SIZE = 500; // TODO make configurable
+    private static final int HEART_BEAT_SEND_THREADS = 4; // TODO make configurable
     private final TaskScheduler taskScheduler;
-    private final Map<String, AgentStreamRecord> activeStreamsMap = Maps.newHashMap();
+    private final ConcurrentMap<String, AgentStreamRecord> activeStreamsMap = Maps.newConcurrentMap();
     private final ScheduledFuture<?> sendHeartbeatsFuture;
     private final AgentRoutingService agentRoutingService;
+    private final ExecutorService sendHeartbeatsExecutor;
+    private final long heartBeatTimeoutMillis;
+    private final int heartBeatBatchSize;
 
+    @Autowired
     GrpcHeartBeatServiceImpl(
         final AgentRoutingService agentRoutingService,
         @Qualifier("heartBeatServiceTaskScheduler") final TaskScheduler taskScheduler
+    ) {
+        this(agentRoutingService, taskScheduler, HEART_BEAT_TIMEOUT_MILLIS, HEART_BEAT_BATCH_SIZE);
+    }
+
+    GrpcHeartBeatServiceImpl(
+        final AgentRoutingService agentRoutingService,
+        final TaskScheduler taskScheduler,
+        final long heartBeatTimeoutMillis,
+        final int heartBeatBatchSize
     ) {
         this.agentRoutingService = agentRoutingService;
         this.taskScheduler = taskScheduler;
+        this.heartBeatTimeoutMillis = heartBeatTimeoutMillis;
+        this.heartBeatBatchSize = heartBeatBatchSize;
+        this.sendHeartbeatsExecutor = Executors.newFixedThreadPool(
+            HEART_BEAT_SEND_THREADS,
+            new ThreadFactoryBuilder().setNameFormat("genie-heartbeat-sender-%d").setDaemon(true).build()
+        );
         this.sendHeartbeatsFuture = this.taskScheduler.scheduleWithFixedDelay(
             this::sendHeartbeats,
             HEART_BEAT_PERIOD_MILLIS
@@ -77,25 +115,63 @@ class GrpcHeartBeatServiceImpl extends HeartBeatServiceGrpc.HeartBeatServiceImpl
             sendHeartbeatsFuture.cancel(false);
         }
 
-        synchronized (activeStreamsMap) {
-            for (final AgentStreamRecord agentStreamRecord : activeStreamsMap.values()) {
-                agentStreamRecord.responseObserver.onCompleted();
+        for (final String streamId : activeStreamsMap.keySet()) {
+            final AgentStreamRecord agentStreamRecord = activeStreamsMap.remove(streamId);
+            if (agentStreamRecord != null) {
+                agentStreamRecord.complete();
                 if (agentStreamRecord.hasJobId()) {
                     notifyAgentDisconnected(agentStreamRecord.getJobId());
                 }
             }
-            activeStreamsMap.clear();
         }
+        sendHeartbeatsExecutor.shutdown();
     }
 
     /**
      * Regularly scheduled to send heartbeat to the client.
      * Using the connection ensures server-side eventually detects a broken connection.
+     * Streams which haven't heard from their agent within the timeout are closed.
      */
     private void sendHeartbeats() {
-        synchronized (activeStreamsMap) {
-            for (final AgentStreamRecord agentStreamRecord : activeStreamsMap.values()) {
-                agentStreamRecord.responseObserver.onNext(ServerHeartBeat.getDefaultInstance());
+        final long lastSeenCutoff = System.currentTimeMillis() - heartBeatTimeoutMillis;
+        final List<Map.Entry<String, AgentStreamRecord>> streams = Lists.newArrayList(activeStreamsMap.entrySet());
+        final AtomicInteger sent = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+
+        final CompletableFuture<?>[] batches = Lists
+            .partition(streams, heartBeatBatchSize)
+            .stream()
+            .map(
+                batch -> CompletableFuture.runAsync(
+                    () -> sendHeartbeats(batch, lastSeenCutoff, sent, skipped),
+                    sendHeartbeatsExecutor
+                )
+            )
+            .toArray(CompletableFuture[]::new);
+
+        // Wait so runs never overlap. Only this scheduler's thread waits, everything else carries on.
+        CompletableFuture.allOf(batches).join();
+        log.debug("Sent {} heartbeats, skipped {} streams not ready for more data", sent.get(), skipped.get());
+    }
+
+    private void sendHeartbeats(
+        final List<Map.Entry<String, AgentStreamRecord>> batch,
+        final long lastSeenCutoff,
+        final AtomicInteger sent,
+        final AtomicInteger skipped
+    ) {
+        for (final Map.Entry<String, AgentStreamRecord> stream : batch) {
+            final AgentStreamRecord agentStreamRecord = stream.getValue();
+            try {
+                if (agentStreamRecord.getLastSeen() < lastSeenCutoff) {
+                    handleStreamTimeout(stream.getKey(), agentStreamRecord);
+                } else if (agentStreamRecord.sendHeartBeat()) {
+                    sent.incrementAndGet();
+                } else {
+                    skipped.incrementAndGet();
+                }
+            } catch (final RuntimeException e) {
+                log.warn("Failed to send heartbeat on stream {}", stream.getKey(), e);
             }
         }
     }
@@ -110,11 +186,9 @@ class GrpcHeartBeatServiceImpl extends HeartBeatServiceGrpc.HeartBeatServiceImpl
         // Handle new stream / client connection
         final String streamId = UUID.randomUUID().toString();
         final RequestObserver requestObserver = new RequestObserver(this, streamId);
-        synchronized (activeStreamsMap) {
 
-            // Create a record for this connection
-            activeStreamsMap.put(streamId, new AgentStreamRecord(responseObserver));
-        }
+        // Create a record for this connection
+        activeStreamsMap.put(streamId, new AgentStreamRecord(responseObserver));
         return requestObserver;
     }
 
@@ -123,15 +197,16 @@ class GrpcHeartBeatServiceImpl extends HeartBeatServiceGrpc.HeartBeatServiceImpl
         final AgentHeartBeat agentHeartBeat
     ) {
         // Pull the record, if one exists
-        final AgentStreamRecord agentStreamRecord;
-        synchronized (activeStreamsMap) {
-            agentStreamRecord = activeStreamsMap.get(streamId);
-        }
+        final AgentStreamRecord agentStreamRecord = activeStreamsMap.get(streamId);
 
         final String claimedJobId = agentHeartBeat.getClaimedJobId();
         if (agentStreamRecord == null) {
             log.warn("Received heartbeat from an unknown stream");
-        } else if (StringUtils.isBlank(claimedJobId)) {
+            return;
+        }
+
+        agentStreamRecord.touch();
+        if (StringUtils.isBlank(claimedJobId)) {
             log.warn("Ignoring heartbeat lacking job id");
         } else {
             log.info("Received heartbeat from agent that claimed job: {}", claimedJobId);
@@ -145,15 +220,12 @@ class GrpcHeartBeatServiceImpl extends HeartBeatServiceGrpc.HeartBeatServiceImpl
 
     private void handleStreamCompletion(final String streamId) {
         // Pull the record, if one exists
-        final AgentStreamRecord agentStreamRecord;
-        synchronized (activeStreamsMap) {
-            agentStreamRecord = activeStreamsMap.remove(streamId);
-        }
+        final AgentStreamRecord agentStreamRecord = activeStreamsMap.remove(streamId);
 
         if (agentStreamRecord == null) {
             log.warn("Received completion from an unknown stream");
         } else {
-            agentStreamRecord.responseObserver.onCompleted();
+            agentStreamRecord.complete();
             if (agentStreamRecord.hasJobId()) {
                 notifyAgentDisconnected(agentStreamRecord.getJobId());
             }
@@ -162,15 +234,29 @@ class GrpcHeartBeatServiceImpl extends HeartBeatServiceGrpc.HeartBeatServiceImpl
 
     private void handleStreamError(final String streamId, final Throwable t) {
         // Pull the record, if one exists
-        final AgentStreamRecord agentStreamRecord;
-        synchronized (activeStreamsMap) {
-            agentStreamRecord = activeStreamsMap.remove(streamId);
-        }
+        final AgentStreamRecord agentStreamRecord = activeStreamsMap.remove(streamId);
 
         if (agentStreamRecord == null) {
             log.warn("Received error from an unknown stream");
         } else {
-            agentStreamRecord.responseObserver.onError(t);
+            agentStreamRecord.error(t);
+            if (agentStreamRecord.hasJobId()) {
+                notifyAgentDisconnected(agentStreamRecord.getJobId());
+            }
+        }
+    }
+
+    private void handleStreamTimeout(final String streamId, final AgentStreamRecord agentStreamRecord) {
+        // Only act if the stream wasn't closed some other way in the meantime
+        if (activeStreamsMap.remove(streamId, agentStreamRecord)) {
+            log.warn(
+                "No heartbeat received from agent for job {} in {}ms. Closing stream.",
+                agentStreamRecord.getJobId(),
+                heartBeatTimeoutMillis
+            );
+            agentStreamRecord.error(
+                Status.DEADLINE_EXCEEDED.withDescription("No heartbeat received in time").asRuntimeException()
+            );
             if (agentStreamRecord.hasJobId()) {
                 notifyAgentDisconnected(agentStreamRecord.getJobId());
             }
@@ -185,9 +271,15 @@ class GrpcHeartBeatServiceImpl extends HeartBeatServiceGrpc.HeartBeatServiceImpl
         agentRoutingService.handleClientDisconnected(jobId);
     }
 
+    /**
+     * The state of a single agent stream. The response observer isn't thread safe so all calls to it are synchronized
+     * on the record, which only ever blocks callers dealing with the same stream.
+     */
     private static class AgentStreamRecord {
         private final StreamObserver<ServerHeartBeat> responseObserver;
-        private String claimedJobId;
+        private volatile String claimedJobId;
+        private volatile long lastSeen = System.currentTimeMillis();
+        private boolean closed; // default false
 
         AgentStreamRecord(
             final StreamObserver<ServerHeartBeat> responseObserver
@@ -211,6 +303,45 @@ class GrpcHeartBeatServiceImpl extends HeartBeatServiceGrpc.HeartBeatServiceImpl
         boolean hasJobId() {
             return !StringUtils.isBlank(claimedJobId);
         }
+
+        void touch() {
+            this.lastSeen = System.currentTimeMillis();
+        }
+
+        long getLastSeen() {
+            return lastSeen;
+        }
+
+        /**
+         * Send a heartbeat unless the stream is closed or flow control says it can't take more data right now.
+         *
+         * @return true if the heartbeat was sent
+         */
+        synchronized boolean sendHeartBeat() {
+            if (closed) {
+                return false;
+            }
+            if (responseObserver instanceof ServerCallStreamObserver
+                && !((ServerCallStreamObserver<ServerHeartBeat>) responseObserver).isReady()) {
+                return false;
+            }
+            responseObserver.onNext(ServerHeartBeat.getDefaultInstance());
+            return true;
+        }
+
+        synchronized void complete() {
+            if (!closed) {
+                closed = true;
+                responseObserver.onCompleted();
+            }
+        }
+
+        synchronized void error(final Throwable t) {
+            if (!closed) {
+                closed = true;
+                responseObserver.onError(t);
+            }
+        }
     }
 
     private static class RequestObserver implements StreamObserver<AgentHeartBeat> {
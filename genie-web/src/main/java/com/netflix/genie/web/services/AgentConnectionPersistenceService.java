@@ -21,6 +21,7 @@ import org.springframework.validation.annotation.Validated;
 
 import javax.validation.constraints.NotBlank;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Persistence service to store and lookup which server is a given job/agent connected to.
@@ -54,6 +55,29 @@ public interface AgentConnectionPersistenceService {
         @NotBlank final String hostname
     );
 
+    /**
+     * Store connections currently active from the agents running the given jobs to the given node. Implementations
+     * should do this in as few round trips as possible; the default saves them one at a time.
+     *
+     * @param jobIds   the ids of the jobs the agents are running
+     * @param hostname the server owning the connections
+     */
+    default void saveAgentConnections(final Set<String> jobIds, @NotBlank final String hostname) {
+        jobIds.forEach(jobId -> this.saveAgentConnection(jobId, hostname));
+    }
+
+    /**
+     * Remove existing connections from the agents running the given jobs to the given node. Connections already
+     * modified by a different server aren't deleted. Implementations should do this in as few round trips as
+     * possible; the default removes them one at a time.
+     *
+     * @param jobIds   the ids of the jobs the agents are running
+     * @param hostname the hostname expected to be associated to the connections
+     */
+    default void removeAgentConnections(final Set<String> jobIds, @NotBlank final String hostname) {
+        jobIds.forEach(jobId -> this.removeAgentConnection(jobId, hostname));
+    }
+
     /**
      * Lookup the hostname/address of the server with an active connection to a given agent.
      *
@@ -19,9 +19,12 @@ package com.netflix.genie.web.services;
 
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.time.Instant;
+import java.util.List;
+import java.util.Set;
 
 /**
  * API definition for manipulating file references within Genie.
@@ -48,4 +51,29 @@ public interface FilePersistenceService {
      * @return The number of files deleted
      */
     long deleteUnusedFiles(@NotNull final Instant createdThreshold);
+
+    /**
+     * Find the ids of the next batch of files, in id order, that aren't referenced and were created before the
+     * supplied threshold. Nothing is locked so the files must be deleted with {@link #deleteFilesIfUnused(Set)}.
+     *
+     * @param createdThreshold The instant in time where files created before this time that aren't referenced
+     *                         will be returned. Inclusive
+     * @param lastId           Only files with an id greater than this are considered. The last id of the previous
+     *                         batch or 0 to start from the beginning
+     * @param batchSize        The maximum number of ids to return
+     * @return The ids of the unused files
+     */
+    List<Long> findUnusedFileIds(
+        @NotNull final Instant createdThreshold,
+        final long lastId,
+        @Min(1) final int batchSize
+    );
+
+    /**
+     * Delete the files with the given ids which still aren't referenced. Only the files being deleted are locked.
+     *
+     * @param ids The ids of the files to delete
+     * @return The number of files deleted
+     */
+    long deleteFilesIfUnused(@NotNull final Set<Long> ids);
 }
@@ -18,6 +18,10 @@
 package com.netflix.genie.web.services;
 
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.web.util.AbortableOutputStream;
+
+import java.io.IOException;
 
 /**
  * API to handle file transfer for genie jobs. There will be an implementation for different files systems
@@ -57,6 +61,34 @@ public interface FileTransfer {
      */
     void putFile(String srcLocalPath, String dstRemotePath) throws GenieException;
 
+    /**
+     * Opens a stream whose contents are put to a remote location once it is closed. If the data can't be produced
+     * completely the stream should be aborted rather than closed so nothing is put.
+     * <p>
+     * The default implementation spools the data to a local temporary file and calls
+     * {@link #putFile(String, String)} with it on close. Implementations able to stream directly to the remote
+     * location should override this.
+     *
+     * @param dstRemotePath Destination path of the data
+     * @return The stream to write the data to
+     * @throws GenieException exception in case of an error
+     */
+    default AbortableOutputStream putStream(final String dstRemotePath) throws GenieException {
+        try {
+            return AbortableOutputStream.spoolToFile(
+                spool -> {
+                    try {
+                        this.putFile(spool.getAbsolutePath(), dstRemotePath);
+                    } catch (final GenieException ge) {
+                        throw new IOException(ge);
+                    }
+                }
+            );
+        } catch (final IOException ioe) {
+            throw new GenieServerException("Unable to create local spool file to put " + dstRemotePath, ioe);
+        }
+    }
+
     /**
      * Returns the last modified time of the file with the given path.
      *
@@ -23,6 +23,8 @@ import org.springframework.validation.annotation.Validated;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -70,6 +72,47 @@ public interface JobFileService {
         final byte[] data
     ) throws IOException;
 
+    /**
+     * Given a job id and a relative path for a file for that job write the data in the provided buffers, in order,
+     * into the file. The buffers' positions and limits aren't modified and the buffers aren't referenced once this
+     * method returns.
+     * <p>
+     * The default implementation copies the data into a single array and delegates to
+     * {@link #updateFile(String, String, long, byte[])}. Implementations which can write straight from the buffers
+     * should override it.
+     *
+     * @param jobId        The id of the job this log file data belongs to
+     * @param relativePath The relative path (from the log directory root) this file exists at
+     * @param startByte    The starting byte of the data
+     * @param data         The buffers holding the data to be written
+     * @throws IOException On error writing the data to the given file
+     */
+    default void updateFile(
+        final String jobId,
+        final String relativePath,
+        final long startByte,
+        final List<ByteBuffer> data
+    ) throws IOException {
+        final byte[] bytes = new byte[data.stream().mapToInt(ByteBuffer::remaining).sum()];
+        int offset = 0;
+        for (final ByteBuffer buffer : data) {
+            final int length = buffer.remaining();
+            buffer.duplicate().get(bytes, offset, length);
+            offset += length;
+        }
+        this.updateFile(jobId, relativePath, startByte, bytes);
+    }
+
+    /**
+     * Release any resources, such as open files, this service is holding on to for the given job. Further calls for
+     * the job are still allowed and will acquire the resources again. The default implementation holds nothing so
+     * does nothing.
+     *
+     * @param jobId The id of the job to release resources for
+     */
+    default void closeJobFiles(final String jobId) {
+    }
+
     /**
      * Given the expected path of a job resource (file or directory) for a given job return a {@link Resource}
      * handle for this location. A {@link Resource} has an {@link Resource#exists()} method that should be called to
@@ -152,6 +152,17 @@ public interface JobPersistenceService {
         @Min(1) final int pageSize
     );
 
+    /**
+     * Delete the oldest jobs whose creation time is earlier than the given date, at most the given number, in a
+     * single transaction. Unlike {@link #deleteBatchOfJobsCreatedBeforeDate(Instant, int, int)} the jobs and the rows
+     * belonging to them are deleted with set based statements rather than entity by entity.
+     *
+     * @param date       The date before which all jobs should be deleted
+     * @param maxDeleted The maximum number of jobs that should be deleted
+     * @return the number of deleted jobs
+     */
+    long bulkDeleteJobsCreatedBeforeDate(@NotNull final Instant date, @Min(1) final int maxDeleted);
+
     // V4 APIs
 
     /**
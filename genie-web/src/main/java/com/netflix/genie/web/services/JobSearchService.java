@@ -27,15 +27,20 @@ import com.netflix.genie.common.dto.JobRequest;
 import com.netflix.genie.common.dto.JobStatus;
 import com.netflix.genie.common.dto.search.JobSearchResult;
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GeniePreconditionException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.validation.annotation.Validated;
 
 import javax.annotation.Nullable;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.time.Instant;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -47,6 +52,11 @@ import java.util.Set;
 @Validated
 public interface JobSearchService {
 
+    /**
+     * The highest count limit accepted when seeking, which bounds how many rows counting a search may visit.
+     */
+    int MAX_SEEK_COUNT_LIMIT = 10_000;
+
     /**
      * Search for jobs which match the given filter criteria.
      *
@@ -88,6 +98,56 @@ public interface JobSearchService {
         @NotNull final Pageable page
     );
 
+    /**
+     * Search for jobs which match the given filter criteria by seeking past the last job of the previous page instead
+     * of skipping a number of rows, so the cost of a page doesn't grow with its position. Only the size and the sort
+     * of the page are used. The sort must be a single property which supports seeking (created, updated, name or
+     * user) and must not change between pages.
+     *
+     * @param id               id for job
+     * @param name             name of job (can be a SQL-style pattern such as HIVE%)
+     * @param user             user who submitted job
+     * @param statuses         statuses of job
+     * @param tags             tags for the job
+     * @param clusterName      name of cluster for job
+     * @param clusterId        id of cluster for job
+     * @param commandName      name of the command run in the job
+     * @param commandId        id of the command run in the job
+     * @param minStarted       The time which the job had to start after in order to be return (inclusive)
+     * @param maxStarted       The time which the job had to start before in order to be returned (exclusive)
+     * @param minFinished      The time which the job had to finish after in order to be return (inclusive)
+     * @param maxFinished      The time which the job had to finish before in order to be returned (exclusive)
+     * @param grouping         The job grouping to search for
+     * @param groupingInstance The job grouping instance to search for
+     * @param cursor           The cursor returned with the previous page or null for the first page
+     * @param page             The size and sort of the page
+     * @param countLimit       Count the matching jobs up to this number, at most {@link #MAX_SEEK_COUNT_LIMIT}, or
+     *                         null to skip counting
+     * @return The jobs which match the criteria and the cursor of the next page
+     * @throws GeniePreconditionException If the cursor or count limit is invalid or the sort doesn't support seeking
+     */
+    @SuppressWarnings("checkstyle:parameternumber")
+    JobSearchCursorPage seekJobs(
+        @Nullable final String id,
+        @Nullable final String name,
+        @Nullable final String user,
+        @Nullable final Set<JobStatus> statuses,
+        @Nullable final Set<String> tags,
+        @Nullable final String clusterName,
+        @Nullable final String clusterId,
+        @Nullable final String commandName,
+        @Nullable final String commandId,
+        @Nullable final Instant minStarted,
+        @Nullable final Instant maxStarted,
+        @Nullable final Instant minFinished,
+        @Nullable final Instant maxFinished,
+        @Nullable final String grouping,
+        @Nullable final String groupingInstance,
+        @Nullable final String cursor,
+        @NotNull final Pageable page,
+        @Nullable @Min(1) @Max(MAX_SEEK_COUNT_LIMIT) final Integer countLimit
+    ) throws GeniePreconditionException;
+
     /**
      * Given a hostname return a set of all the jobs currently active on that host.
      *
@@ -192,4 +252,57 @@ public interface JobSearchService {
      * @throws GenieException If any error occurs
      */
     JobMetadata getJobMetadata(@NotBlank final String id) throws GenieException;
+
+    /**
+     * A page of job search results found by seeking.
+     */
+    final class JobSearchCursorPage {
+        private final List<JobSearchResult> content;
+        private final String nextCursor;
+        private final Long count;
+
+        /**
+         * Constructor.
+         *
+         * @param content    The jobs in the page
+         * @param nextCursor The cursor of the next page or null if this is the last page
+         * @param count      The number of matching jobs, capped at the requested limit, or null if not counted
+         */
+        public JobSearchCursorPage(
+            final List<JobSearchResult> content,
+            @Nullable final String nextCursor,
+            @Nullable final Long count
+        ) {
+            this.content = Collections.unmodifiableList(content);
+            this.nextCursor = nextCursor;
+            this.count = count;
+        }
+
+        /**
+         * Get the jobs in the page.
+         *
+         * @return The jobs in sort order
+         */
+        public List<JobSearchResult> getContent() {
+            return this.content;
+        }
+
+        /**
+         * Get the cursor to pass to get the next page.
+         *
+         * @return The cursor or empty if this is the last page
+         */
+        public Optional<String> getNextCursor() {
+            return Optional.ofNullable(this.nextCursor);
+        }
+
+        /**
+         * Get the number of jobs which match the criteria, up to the requested limit.
+         *
+         * @return The count or empty if counting wasn't requested
+         */
+        public Optional<Long> getCount() {
+            return Optional.ofNullable(this.count);
+        }
+    }
 }
@@ -39,6 +39,17 @@ public interface JobStateService extends JobMetricsService {
      */
     void init(final String jobId);
 
+    /**
+     * Atomically reserve memory on this node for an initialized job if doing so won't take the total memory used by
+     * all jobs on the node over the given maximum. Once reserved the memory is held until the job is done.
+     *
+     * @param jobId           job id
+     * @param memory          job memory
+     * @param maxSystemMemory the maximum amount of memory all jobs on the node may use
+     * @return true if the memory was reserved. False if there wasn't enough capacity or the job doesn't exist
+     */
+    boolean reserveMemory(final String jobId, final int memory, final int maxSystemMemory);
+
     /**
      * Schedules the job.
      *
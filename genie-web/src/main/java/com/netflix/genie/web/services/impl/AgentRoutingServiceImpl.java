@@ -15,20 +15,39 @@
  *     limitations under the License.
  *
  */
-
 package com.netflix.genie.web.services.impl;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.netflix.genie.common.internal.util.GenieHostInfo;
+import com.netflix.genie.web.properties.AgentRoutingProperties;
 import com.netflix.genie.web.services.AgentConnectionPersistenceService;
 import com.netflix.genie.web.services.AgentRoutingService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.validation.annotation.Validated;
 
+import javax.annotation.PreDestroy;
 import javax.validation.constraints.NotBlank;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of {@link AgentRoutingService}.
+ * <p>
+ * With write behind enabled the agents connected to this node are tracked in memory, which is the authority on
+ * whether a connection is local, and changes are written to the database in batches on a schedule. A connection
+ * which flaps within the flush interval results in a single write of its final state. Lookups of connections to
+ * other nodes are cached for a short time. Otherwise every change and lookup goes straight to the database.
  *
  * @author mprimi
  * @since 4.0.0
@@ -39,6 +58,13 @@ public class AgentRoutingServiceImpl implements AgentRoutingService {
 
     private final AgentConnectionPersistenceService agentConnectionPersistenceService;
     private final GenieHostInfo genieHostInfo;
+    private final boolean writeBehind;
+    private final int maxBatchSize;
+    private final Set<String> localConnections = Sets.newConcurrentHashSet();
+    // Job id to whether the connection should be saved (true) or removed (false) on the next flush
+    private final ConcurrentMap<String, Boolean> pendingChanges = Maps.newConcurrentMap();
+    private final Cache<String, Optional<String>> remoteRoutes;
+    private final ScheduledFuture<?> flushFuture;
 
     /**
      * Constructor.
@@ -52,6 +78,41 @@ public class AgentRoutingServiceImpl implements AgentRoutingService {
     ) {
         this.agentConnectionPersistenceService = agentConnectionPersistenceService;
         this.genieHostInfo = genieHostInfo;
+        this.writeBehind = false;
+        this.maxBatchSize = 1;
+        this.remoteRoutes = null;
+        this.flushFuture = null;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param agentConnectionPersistenceService agent connection persistence service
+     * @param genieHostInfo                     local genie node host information
+     * @param properties                        the agent routing properties
+     * @param taskScheduler                     the scheduler to write connection changes to the database on
+     */
+    public AgentRoutingServiceImpl(
+        final AgentConnectionPersistenceService agentConnectionPersistenceService,
+        final GenieHostInfo genieHostInfo,
+        final AgentRoutingProperties properties,
+        final TaskScheduler taskScheduler
+    ) {
+        this.agentConnectionPersistenceService = agentConnectionPersistenceService;
+        this.genieHostInfo = genieHostInfo;
+        this.writeBehind = properties.isWriteBehind();
+        this.maxBatchSize = properties.getMaxBatchSize();
+        if (this.writeBehind) {
+            this.remoteRoutes = CacheBuilder
+                .newBuilder()
+                .maximumSize(properties.getRemoteRouteMaxSize())
+                .expireAfterWrite(properties.getRemoteRouteExpireAfterWrite(), TimeUnit.MILLISECONDS)
+                .build();
+            this.flushFuture = taskScheduler.scheduleWithFixedDelay(this::flush, properties.getFlushInterval());
+        } else {
+            this.remoteRoutes = null;
+            this.flushFuture = null;
+        }
     }
 
     /**
@@ -59,7 +120,24 @@ public class AgentRoutingServiceImpl implements AgentRoutingService {
      */
     @Override
     public Optional<String> getHostnameForAgentConnection(final @NotBlank String jobId) {
-        return this.agentConnectionPersistenceService.lookupAgentConnectionServer(jobId);
+        if (!this.writeBehind) {
+            return this.agentConnectionPersistenceService.lookupAgentConnectionServer(jobId);
+        }
+        if (this.localConnections.contains(jobId)) {
+            return Optional.of(this.genieHostInfo.getHostname());
+        }
+        try {
+            return this.remoteRoutes.get(
+                jobId,
+                () -> this.agentConnectionPersistenceService.lookupAgentConnectionServer(jobId)
+            );
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Unable to look up connection of job " + jobId, cause);
+        }
     }
 
     /**
@@ -67,6 +145,10 @@ public class AgentRoutingServiceImpl implements AgentRoutingService {
      */
     @Override
     public boolean isAgentConnectionLocal(final @NotBlank String jobId) {
+        if (this.writeBehind) {
+            // Every connection to this node is tracked in memory so there is no need to ask the database
+            return this.localConnections.contains(jobId);
+        }
         final Optional<String> hostname = getHostnameForAgentConnection(jobId);
         return hostname.isPresent() && hostname.get().equals(genieHostInfo.getHostname());
     }
@@ -77,7 +159,13 @@ public class AgentRoutingServiceImpl implements AgentRoutingService {
     @Override
     public void handleClientConnected(@NotBlank final String jobId) {
         log.info("Agent executing job {} connected", jobId);
-        this.agentConnectionPersistenceService.saveAgentConnection(jobId, genieHostInfo.getHostname());
+        if (this.writeBehind) {
+            this.localConnections.add(jobId);
+            this.remoteRoutes.invalidate(jobId);
+            this.pendingChanges.put(jobId, true);
+        } else {
+            this.agentConnectionPersistenceService.saveAgentConnection(jobId, genieHostInfo.getHostname());
+        }
     }
 
     /**
@@ -86,6 +174,68 @@ public class AgentRoutingServiceImpl implements AgentRoutingService {
     @Override
     public void handleClientDisconnected(@NotBlank final String jobId) {
         log.info("Agent executing job {} disconnected", jobId);
-        this.agentConnectionPersistenceService.removeAgentConnection(jobId, genieHostInfo.getHostname());
+        if (this.writeBehind) {
+            this.localConnections.remove(jobId);
+            this.pendingChanges.put(jobId, false);
+        } else {
+            this.agentConnectionPersistenceService.removeAgentConnection(jobId, genieHostInfo.getHostname());
+        }
+    }
+
+    /**
+     * Stop writing in the background and write any outstanding changes.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (this.flushFuture != null) {
+            this.flushFuture.cancel(false);
+            this.flush();
+        }
+    }
+
+    /**
+     * Write the connection changes made since the last flush to the database in batches.
+     */
+    void flush() {
+        if (this.pendingChanges.isEmpty()) {
+            return;
+        }
+        final Set<String> saves = Sets.newHashSet();
+        final Set<String> removes = Sets.newHashSet();
+        for (final String jobId : this.pendingChanges.keySet()) {
+            final Boolean connected = this.pendingChanges.remove(jobId);
+            if (connected == null) {
+                continue;
+            }
+            if (connected) {
+                saves.add(jobId);
+            } else {
+                removes.add(jobId);
+            }
+        }
+        log.debug("Writing {} agent connections and {} disconnections", saves.size(), removes.size());
+
+        final String hostname = this.genieHostInfo.getHostname();
+        for (final List<String> batch : Iterables.partition(saves, this.maxBatchSize)) {
+            try {
+                this.agentConnectionPersistenceService.saveAgentConnections(Sets.newHashSet(batch), hostname);
+            } catch (final RuntimeException e) {
+                log.error("Unable to save {} agent connections. Will retry.", batch.size(), e);
+                this.retry(batch, true);
+            }
+        }
+        for (final List<String> batch : Iterables.partition(removes, this.maxBatchSize)) {
+            try {
+                this.agentConnectionPersistenceService.removeAgentConnections(Sets.newHashSet(batch), hostname);
+            } catch (final RuntimeException e) {
+                log.error("Unable to remove {} agent connections. Will retry.", batch.size(), e);
+                this.retry(batch, false);
+            }
+        }
+    }
+
+    private void retry(final List<String> jobIds, final boolean connected) {
+        // Don't overwrite a change made since this batch was taken
+        jobIds.forEach(jobId -> this.pendingChanges.putIfAbsent(jobId, connected));
     }
 }
@@ -12,10 +12,12 @@
  */
 
 package com.netflix.genie.web.services.impl;
-
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieServerException;
 import com.netflix.genie.web.services.FileTransferFactory;
@@ -28,32 +30,50 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 /**
  * Caches the downloaded file from the remote location.
+ * <p>
+ * Each path is cached in a file named after it, so the files survive a restart and are picked up again as long as the
+ * remote file didn't change. Downloads go to a temporary file which is then atomically renamed into place, so a file
+ * being read is never overwritten mid copy by a refresh (from this or another node sharing the cache location), and
+ * concurrent misses for the same path wait for a single download. Temporary files left behind by a crash are swept
+ * at startup. When a maximum size is set the least recently used files are evicted and deleted from disk. Cached
+ * files are checked against the remote file at most once per revalidation interval, under a lock per path.
  *
  * @author amajumdar
  * @since 7/22/16
  */
 @Slf4j
 public class CacheGenieFileTransferService extends GenieFileTransferService {
+    private static final String UUID_REGEX = "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}";
+    private static final Pattern CACHED_FILE_NAME = Pattern.compile(UUID_REGEX);
+    // Interrupted downloads and files cached under a unique name by older versions
+    private static final Pattern ORPHANED_FILE_NAME
+        = Pattern.compile(UUID_REGEX + "(\\." + UUID_REGEX + "\\.tmp|-" + UUID_REGEX + ")");
+    private static final String DOWNLOAD_SUFFIX = ".tmp";
+    // Leave recent downloads alone in case another node sharing the location is still writing them
+    private static final long ORPHAN_MIN_AGE_MILLIS = TimeUnit.HOURS.toMillis(1);
     //File cache location
     private final String baseCacheLocation;
     //File transfer service to get/put files on a local system
     private final LocalFileTransferImpl localFileTransfer;
+    //How long a cached file is used before checking the remote file again
+    private final long revalidationIntervalNanos;
     //File cache
-    private final LoadingCache<String, File> fileCache = CacheBuilder.newBuilder()
-        .recordStats()
-        .build(
-            new CacheLoader<String, File>() {
-                public File load(@NotNull final String path) throws GenieException {
-                    return loadFile(path);
-                }
-            }
-        );
+    private final LoadingCache<String, CachedFile> fileCache;
 
     /**
      * Constructor.
@@ -69,10 +89,55 @@ public class CacheGenieFileTransferService extends GenieFileTransferService {
         @NotNull final String baseCacheLocation,
         @NotNull final LocalFileTransferImpl localFileTransfer,
         @NotNull final MeterRegistry registry
+    ) throws GenieException {
+        this(fileTransferFactory, baseCacheLocation, 0L, 0L, localFileTransfer, registry);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param fileTransferFactory  file transfer implementation factory
+     * @param baseCacheLocation    file cache location
+     * @param maxSize              maximum total size of the cached files in bytes, 0 for no limit
+     * @param revalidationInterval how long (in milliseconds) a cached file is used before checking whether the remote
+     *                             file changed, 0 to check on every use
+     * @param localFileTransfer    Local file transfer service
+     * @param registry             spectator registry
+     * @throws GenieException If there is any problem
+     */
+    public CacheGenieFileTransferService(
+        @NotNull final FileTransferFactory fileTransferFactory,
+        @NotNull final String baseCacheLocation,
+        final long maxSize,
+        final long revalidationInterval,
+        @NotNull final LocalFileTransferImpl localFileTransfer,
+        @NotNull final MeterRegistry registry
     ) throws GenieException {
         super(fileTransferFactory);
         this.baseCacheLocation = this.createDirectories(baseCacheLocation).toString();
         this.localFileTransfer = localFileTransfer;
+        this.revalidationIntervalNanos = TimeUnit.MILLISECONDS.toNanos(revalidationInterval);
+        this.sweep(Paths.get(this.baseCacheLocation), maxSize);
+
+        final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().recordStats();
+        if (maxSize > 0) {
+            // Weigh in kilobytes so files up to terabytes fit in the int weight
+            cacheBuilder
+                .maximumWeight(Math.max(1L, maxSize / 1024L))
+                .weigher(
+                    (final String path, final CachedFile cachedFile) ->
+                        (int) Math.min(Integer.MAX_VALUE, Math.max(1L, cachedFile.getFile().length() / 1024L))
+                );
+        }
+        this.fileCache = cacheBuilder
+            .<String, CachedFile>removalListener(this::onRemoval)
+            .build(
+                new CacheLoader<String, CachedFile>() {
+                    public CachedFile load(@NotNull final String path) throws GenieException {
+                        return new CachedFile(loadFile(path), System.nanoTime());
+                    }
+                }
+            );
 
         // TODO: May want to switch to DistributionSummary
         registry.gauge("genie.jobs.file.cache.hitRate", this.fileCache, value -> value.stats().hitRate());
@@ -95,28 +160,61 @@ public class CacheGenieFileTransferService extends GenieFileTransferService {
         @NotBlank(message = "Destination local path cannot be empty") final String dstLocalPath
     ) throws GenieException {
         log.debug("Called with src path {} and destination path {}", srcRemotePath, dstLocalPath);
-        File cachedFile;
+        final CachedFile cachedFile = this.getCachedFile(srcRemotePath);
         try {
-            cachedFile = this.fileCache.get(srcRemotePath);
-            // Before using the cached file check if the real file has been modified after we have cached
-            final long lastModifiedTime = getFileTransfer(srcRemotePath).getLastModifiedTime(srcRemotePath);
-            if (lastModifiedTime > cachedFile.lastModified()) {
-                synchronized (this) {
-                    // Check the modification time again because threads that were waiting for a file might have
-                    // been refreshed by a previous thread.
-                    if (lastModifiedTime > cachedFile.lastModified()) {
-                        this.fileCache.invalidate(srcRemotePath);
-                        this.deleteFile(cachedFile);
-                        cachedFile = this.fileCache.get(srcRemotePath);
+            this.localFileTransfer.getFile(cachedFile.getFile().getPath(), dstLocalPath);
+        } catch (final GenieException e) {
+            if (cachedFile.getFile().exists()) {
+                throw e;
+            }
+            // The file was evicted between the lookup and the copy. Copy from a fresh download instead.
+            log.debug("Cached file for {} was evicted while in use, loading it again", srcRemotePath);
+            this.fileCache.asMap().remove(srcRemotePath, cachedFile);
+            this.localFileTransfer.getFile(this.getCachedFile(srcRemotePath).getFile().getPath(), dstLocalPath);
+        }
+    }
+
+    /* Get the cached file for the path, checking first whether the remote file was modified since it was cached if it
+     * wasn't checked within the revalidation interval. Only one thread checks a given path at a time.
+     */
+    private CachedFile getCachedFile(final String srcRemotePath) throws GenieException {
+        final long start = System.nanoTime();
+        try {
+            final CachedFile cachedFile = this.fileCache.get(srcRemotePath);
+            if (!cachedFile.needsRevalidation(start, this.revalidationIntervalNanos)) {
+                return cachedFile;
+            }
+            synchronized (cachedFile) {
+                // Check again as another thread might have revalidated or replaced the file while this one waited
+                if (!cachedFile.isStale() && cachedFile.needsRevalidation(start, this.revalidationIntervalNanos)) {
+                    final long lastModifiedTime = getFileTransfer(srcRemotePath).getLastModifiedTime(srcRemotePath);
+                    if (lastModifiedTime > cachedFile.getFile().lastModified()) {
+                        cachedFile.markStale();
+                        this.fileCache.asMap().remove(srcRemotePath, cachedFile);
+                    } else {
+                        cachedFile.validated(System.nanoTime());
                     }
                 }
             }
-        } catch (Exception e) {
+            return cachedFile.isStale() ? this.fileCache.get(srcRemotePath) : cachedFile;
+        } catch (final GenieException | ExecutionException | UncheckedExecutionException e) {
             final String message = String.format("Failed getting the file %s", srcRemotePath);
             log.error(message);
             throw new GenieServerException(message, e);
         }
-        this.localFileTransfer.getFile(cachedFile.getPath(), dstLocalPath);
+    }
+
+    private void onRemoval(final RemovalNotification<String, CachedFile> notification) {
+        final CachedFile cachedFile = notification.getValue();
+        if (cachedFile == null) {
+            return;
+        }
+        cachedFile.markStale();
+        try {
+            this.deleteFile(cachedFile.getFile());
+        } catch (final IOException e) {
+            log.warn("Unable to delete cached file {} for {}", cachedFile.getFile(), notification.getKey(), e);
+        }
     }
 
     protected void deleteFile(final File file) throws IOException {
@@ -136,9 +234,49 @@ public class CacheGenieFileTransferService extends GenieFileTransferService {
         }
     }
 
+    /* Delete what earlier runs left behind which will never be used again and, when the cache is bounded, the least
+     * recently updated cached files which don't fit. The files which are kept are picked up again when requested.
+     */
+    private void sweep(final Path cacheDirectory, final long maxSize) {
+        final List<File> cachedFiles = new ArrayList<>();
+        final long orphanedBefore = System.currentTimeMillis() - ORPHAN_MIN_AGE_MILLIS;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDirectory)) {
+            for (final Path file : files) {
+                final String name = file.getFileName().toString();
+                if (CACHED_FILE_NAME.matcher(name).matches()) {
+                    cachedFiles.add(file.toFile());
+                } else if (
+                    ORPHANED_FILE_NAME.matcher(name).matches() && file.toFile().lastModified() < orphanedBefore
+                ) {
+                    log.debug("Deleting orphaned cache file {}", file);
+                    this.deleteFile(file.toFile());
+                }
+            }
+        } catch (final IOException e) {
+            log.warn("Unable to sweep the file cache location {}", cacheDirectory, e);
+            return;
+        }
+
+        if (maxSize > 0) {
+            cachedFiles.sort(Comparator.comparingLong(File::lastModified).reversed());
+            long size = 0L;
+            for (final File cachedFile : cachedFiles) {
+                size += cachedFile.length();
+                if (size > maxSize) {
+                    try {
+                        this.deleteFile(cachedFile);
+                    } catch (final IOException e) {
+                        log.warn("Unable to delete cached file {}", cachedFile, e);
+                    }
+                }
+            }
+        }
+    }
+
     /**
-     * Loads the file given the path and stores it under the cache location with file name as UUID string created using
-     * the path.
+     * Downloads the file given the path and stores it under the cache location with file name as UUID string created
+     * using the path. A file already cached under that name, e.g. before a restart, is used as is unless the remote
+     * file was modified after it.
      *
      * @param path Path of the file to be loaded
      * @return loaded file
@@ -147,11 +285,79 @@ public class CacheGenieFileTransferService extends GenieFileTransferService {
     protected File loadFile(final String path) throws GenieException {
         final byte[] pathBytes = path.getBytes(Charset.forName("UTF-8"));
         final String pathUUID = UUID.nameUUIDFromBytes(pathBytes).toString();
-        final String cacheFilePath = String.format("%s/%s", this.baseCacheLocation, pathUUID);
-        final File cacheFile = new File(cacheFilePath);
-        if (!cacheFile.exists()) {
-            getFileTransfer(path).getFile(path, cacheFilePath);
+        final File cacheFile = new File(this.baseCacheLocation, pathUUID);
+        if (cacheFile.exists() && getFileTransfer(path).getLastModifiedTime(path) <= cacheFile.lastModified()) {
+            log.debug("Using file {} cached earlier for {}", cacheFile, path);
+            return cacheFile;
+        }
+
+        final File downloadFile = new File(
+            this.baseCacheLocation,
+            pathUUID + "." + UUID.randomUUID() + DOWNLOAD_SUFFIX
+        );
+        try {
+            getFileTransfer(path).getFile(path, downloadFile.getPath());
+            Files.move(
+                downloadFile.toPath(),
+                cacheFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+        } catch (final IOException e) {
+            this.deleteDownload(downloadFile);
+            throw new GenieServerException("Unable to move the downloaded file for " + path + " into the cache", e);
+        } catch (final GenieException | RuntimeException e) {
+            this.deleteDownload(downloadFile);
+            throw e;
         }
         return cacheFile;
     }
+
+    private void deleteDownload(final File downloadFile) {
+        try {
+            this.deleteFile(downloadFile);
+        } catch (final IOException e) {
+            log.warn("Unable to delete partially downloaded file {}", downloadFile, e);
+        }
+    }
+
+    @VisibleForTesting
+    long getCachedSize() {
+        return this.fileCache.asMap().values().stream().mapToLong(cachedFile -> cachedFile.getFile().length()).sum();
+    }
+
+    /**
+     * A downloaded file and when it was last known to be up to date.
+     */
+    private static final class CachedFile {
+        private final File file;
+        private volatile long validatedAt;
+        private volatile boolean stale;
+
+        CachedFile(final File file, final long validatedAt) {
+            this.file = file;
+            this.validatedAt = validatedAt;
+        }
+
+        File getFile() {
+            return this.file;
+        }
+
+        // Files validated (or loaded) after the request started are never checked again for that request
+        boolean needsRevalidation(final long requestStart, final long revalidationIntervalNanos) {
+            return requestStart - this.validatedAt > revalidationIntervalNanos;
+        }
+
+        void validated(final long time) {
+            this.validatedAt = time;
+        }
+
+        boolean isStale() {
+            return this.stale;
+        }
+
+        void markStale() {
+            this.stale = true;
+        }
+    }
 }
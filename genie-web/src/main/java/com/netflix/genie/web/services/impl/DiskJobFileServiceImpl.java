@@ -17,31 +17,47 @@
  */
 package com.netflix.genie.web.services.impl;
 
-import com.google.common.collect.Sets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.netflix.genie.common.internal.dto.v4.files.JobFileState;
 import com.netflix.genie.web.services.JobFileService;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.core.io.PathResource;
 import org.springframework.core.io.Resource;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
-import java.nio.file.FileVisitResult;
-import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * A local disk based implementation of the {@link JobFileService} interface.
+ * <p>
+ * Files being updated are kept open between updates in a bounded cache so a stream of small appends to the same file
+ * doesn't open, check and close the file every time. Open files are closed after they've been idle for a while, when
+ * they're deleted through this service or when {@link #closeJobFiles(String)} is called for their job.
+ * <p>
+ * The state of each job directory is served from a {@link JobDirectoryManifest} which is built by walking the
+ * directory once and then kept up to date as files are updated and deleted through this service. When the job's files
+ * are closed, or the manifest is evicted from memory, it's saved to a sidecar file inside the job directory so it can
+ * be reloaded without another walk and is cleaned up along with the directory. The sidecar is deleted as soon as the
+ * directory changes again.
  *
  * @author tgianos
  * @since 4.0.0
@@ -51,7 +67,13 @@ public class DiskJobFileServiceImpl implements JobFileService {
 
 //    private static final int DEFAULT_BUFFER_SIZE = 1024;
 
+    static final int DEFAULT_MAX_OPEN_FILES = 1_024;
+    static final long DEFAULT_OPEN_FILE_IDLE_TIMEOUT = 60_000L;
+    static final int DEFAULT_MAX_MANIFESTS = 1_024;
+
     private final Path jobsDirRoot;
+    private final Cache<Path, FileChannel> openFiles;
+    private final Cache<String, JobDirectoryManifest> manifests;
 
     /**
      * Constructor.
@@ -60,6 +82,36 @@ public class DiskJobFileServiceImpl implements JobFileService {
      * @throws IOException When the job directory can't be created or isn't a directory
      */
     public DiskJobFileServiceImpl(final Resource jobsDir) throws IOException {
+        this(jobsDir, DEFAULT_MAX_OPEN_FILES, DEFAULT_OPEN_FILE_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param jobsDir             The job directory resource
+     * @param maxOpenFiles        The maximum number of files to keep open between updates
+     * @param openFileIdleTimeout How long, in milliseconds, to keep a file open after its last update
+     * @throws IOException When the job directory can't be created or isn't a directory
+     */
+    public DiskJobFileServiceImpl(
+        final Resource jobsDir,
+        final int maxOpenFiles,
+        final long openFileIdleTimeout
+    ) throws IOException {
+        this.openFiles = CacheBuilder
+            .newBuilder()
+            .maximumSize(maxOpenFiles)
+            .expireAfterAccess(openFileIdleTimeout, TimeUnit.MILLISECONDS)
+            .<Path, FileChannel>removalListener(DiskJobFileServiceImpl::closeFile)
+            .build();
+        this.manifests = CacheBuilder
+            .newBuilder()
+            .maximumSize(DEFAULT_MAX_MANIFESTS)
+            .<String, JobDirectoryManifest>removalListener(
+                notification -> this.saveManifest(notification.getKey(), notification.getValue())
+            )
+            .build();
+
         /*
            TODO: Note there is a @Bean for jobs dir but it's currently returned as a Spring Resource interface
                  This abstracts the actual underlying implementation and we can't guarantee it's on disk in that case
@@ -101,14 +153,7 @@ public class DiskJobFileServiceImpl implements JobFileService {
         final boolean calculateMd5
     ) throws IOException {
         log.debug("Getting job directory state for job {} {} MD5", jobId, calculateMd5 ? "with" : "without");
-        // TODO: It's possible the system should lock this directory while reading for consistent state?
-        final Path jobDirectory = this.jobsDirRoot.resolve(jobId);
-        this.createOrCheckDirectory(jobDirectory);
-
-        final Set<JobFileState> jobDirectoryFiles = Sets.newHashSet();
-        Files.walkFileTree(jobDirectory, new FileStateVisitor(jobDirectory, calculateMd5, jobDirectoryFiles));
-
-        return jobDirectoryFiles;
+        return this.getManifest(jobId).getFileStates(this.jobsDirRoot.resolve(jobId), calculateMd5);
     }
 
     /**
@@ -123,44 +168,32 @@ public class DiskJobFileServiceImpl implements JobFileService {
         final String relativePath,
         final long startByte,
         final byte[] data
+    ) throws IOException {
+        this.updateFile(jobId, relativePath, startByte, Collections.singletonList(ByteBuffer.wrap(data)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void updateFile(
+        final String jobId,
+        final String relativePath,
+        final long startByte,
+        final List<ByteBuffer> data
     ) throws IOException {
         log.debug(
             "Attempting to write {} bytes from position {} into log file {} for job {}",
-            data.length,
+            data.stream().mapToInt(ByteBuffer::remaining).sum(),
             startByte,
             relativePath,
             jobId
         );
         final Path jobFile = this.jobsDirRoot.resolve(jobId).resolve(relativePath);
+        final JobDirectoryManifest manifest = this.recordChange(jobId);
 
-        if (Files.notExists(jobFile)) {
-            // Make sure all the directories exist on disk
-            final Path logFileParent = jobFile.getParent();
-            if (logFileParent != null) {
-                this.createOrCheckDirectory(logFileParent);
-            }
-        } else if (Files.isDirectory(jobFile)) {
-            // TODO: Perhaps this should be different exception
-            throw new IllegalArgumentException(relativePath + " is a directory not a file. Unable to update");
-        }
-
-        try (
-            final FileChannel fileChannel = FileChannel.open(
-                jobFile,
-                EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.SPARSE)
-            )
-        ) {
-            // Move the byteChannel to the start byte
-            fileChannel.position(startByte);
-
-            // The size and length are ignored in this implementation as we just assume we're writing everything atm
-            // TODO: Would it be better to provide an input stream and buffer the output?
-            final ByteBuffer byteBuffer = ByteBuffer.wrap(data);
-
-            while (byteBuffer.hasRemaining()) {
-                fileChannel.write(byteBuffer);
-            }
-        }
+        final long endByte = this.writeToFile(jobFile, relativePath, startByte, data);
+        manifest.update(relativePath, endByte, System.currentTimeMillis());
     }
 
     /**
@@ -182,97 +215,176 @@ public class DiskJobFileServiceImpl implements JobFileService {
     public void deleteJobFile(final String jobId, final String relativePath) throws IOException {
         log.debug("Requested to delete file {} for job {}", relativePath, jobId);
         final Path jobFile = this.jobsDirRoot.resolve(jobId).resolve(relativePath);
+        this.openFiles.invalidate(jobFile);
+        // Don't load (and possibly create) the directory of an unknown job just to delete nothing from it
+        final JobDirectoryManifest manifest = this.manifests.getIfPresent(jobId);
+        if (manifest == null || manifest.markModified()) {
+            Files.deleteIfExists(this.getManifestSidecar(jobId));
+        }
 
         if (Files.deleteIfExists(jobFile)) {
             log.debug("Deleted file {} for job {}", relativePath, jobId);
         } else {
             log.debug("No file {} exists for job {}. Ignoring", relativePath, jobId);
         }
-    }
-
-    private void createOrCheckDirectory(final Path dir) throws IOException {
-        if (Files.notExists(dir)) {
-            Files.createDirectories(dir);
-        } else if (!Files.isDirectory(dir)) {
-            // TODO: Maybe a more specific exception here? Should be runtime maybe as there's no recovery?
-            throw new IOException(dir + " exists but is not a directory and must be");
+        if (manifest != null) {
+            manifest.remove(relativePath);
         }
     }
 
     /**
-     * This visitor will return immutable state about the files it visits and store them into the collection provided
-     * in the constructor.
-     *
-     * @author tgianos
-     * @since 4.0.0
+     * {@inheritDoc}
      */
-    @Slf4j
-    static class FileStateVisitor implements FileVisitor<Path> {
-
-        private final Path jobDirectoryRoot;
-        private final boolean calculateMd5;
-        private final Set<JobFileState> files;
-
-        /**
-         * Constructor.
-         *
-         * @param jobDirectoryRoot The original root of this visitor
-         * @param calculateMd5     Whether or not an md5 of the file should be calculated during traversal
-         * @param files            The result file metadata that should be added to by every call to
-         *                         {@link #visitFile(Path, BasicFileAttributes)}
-         */
-        FileStateVisitor(final Path jobDirectoryRoot, final boolean calculateMd5, final Set<JobFileState> files) {
-            this.jobDirectoryRoot = jobDirectoryRoot;
-            this.calculateMd5 = calculateMd5;
-            this.files = files;
+    @Override
+    public void closeJobFiles(final String jobId) {
+        final Path jobDirectory = this.jobsDirRoot.resolve(jobId);
+        final List<Path> jobFiles = this.openFiles
+            .asMap()
+            .keySet()
+            .stream()
+            .filter(path -> path.startsWith(jobDirectory))
+            .collect(Collectors.toList());
+        log.debug("Closing {} open files for job {}", jobFiles.size(), jobId);
+        this.openFiles.invalidateAll(jobFiles);
+
+        final JobDirectoryManifest manifest = this.manifests.getIfPresent(jobId);
+        if (manifest != null) {
+            this.saveManifest(jobId, manifest);
         }
+    }
 
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
-            return FileVisitResult.CONTINUE;
+    private FileChannel getOpenFile(final Path jobFile, final String relativePath) throws IOException {
+        return getFromCache(this.openFiles, jobFile, () -> this.openFile(jobFile, relativePath));
+    }
+
+    private JobDirectoryManifest getManifest(final String jobId) throws IOException {
+        return getFromCache(this.manifests, jobId, () -> this.loadManifest(jobId));
+    }
+
+    private JobDirectoryManifest loadManifest(final String jobId) throws IOException {
+        final Path jobDirectory = this.jobsDirRoot.resolve(jobId);
+        // The sidecar is deleted before any change made through this service so it can only be stale if the directory
+        // was changed some other way, which the load checks for
+        final Optional<JobDirectoryManifest> saved = JobDirectoryManifest.load(jobDirectory);
+        if (saved.isPresent()) {
+            log.debug("Loaded saved manifest for job {}", jobId);
+            return saved.get();
         }
 
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
-            log.debug("Visiting file {}", file);
-            final String relativePath = this.jobDirectoryRoot.relativize(file).toString();
-            final long size = Files.size(file);
-            final String md5;
-            if (this.calculateMd5) {
-                try (final InputStream fileInputStream = Files.newInputStream(file, StandardOpenOption.READ)) {
-                    md5 = DigestUtils.md5Hex(fileInputStream);
-                }
-            } else {
-                md5 = null;
+        log.debug("Scanning job directory for job {}", jobId);
+        // Whatever was saved, if anything, no longer matches the directory
+        Files.deleteIfExists(this.getManifestSidecar(jobId));
+        this.createOrCheckDirectory(jobDirectory);
+        return JobDirectoryManifest.scan(jobDirectory);
+    }
+
+    private JobDirectoryManifest recordChange(final String jobId) throws IOException {
+        final JobDirectoryManifest manifest = this.getManifest(jobId);
+        if (manifest.markModified()) {
+            // The saved copy no longer matches the directory
+            Files.deleteIfExists(this.getManifestSidecar(jobId));
+        }
+        return manifest;
+    }
+
+    private void saveManifest(@Nullable final String jobId, @Nullable final JobDirectoryManifest manifest) {
+        if (jobId == null || manifest == null || !manifest.isModified()) {
+            return;
+        }
+        try {
+            manifest.save(this.getManifestSidecar(jobId));
+            log.debug("Saved manifest for job {}", jobId);
+        } catch (final IOException e) {
+            log.warn("Unable to save manifest for job {}", jobId, e);
+        }
+    }
+
+    private Path getManifestSidecar(final String jobId) {
+        return JobDirectoryManifest.getSidecar(this.jobsDirRoot.resolve(jobId));
+    }
+
+    private FileChannel openFile(final Path jobFile, final String relativePath) throws IOException {
+        if (Files.notExists(jobFile)) {
+            // Make sure all the directories exist on disk
+            final Path logFileParent = jobFile.getParent();
+            if (logFileParent != null) {
+                this.createOrCheckDirectory(logFileParent);
+            }
+        } else if (Files.isDirectory(jobFile)) {
+            // TODO: Perhaps this should be different exception
+            throw new IllegalArgumentException(relativePath + " is a directory not a file. Unable to update");
+        }
+
+        return FileChannel.open(
+            jobFile,
+            EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.SPARSE)
+        );
+    }
+
+    private long writeToFile(
+        final Path jobFile,
+        final String relativePath,
+        final long startByte,
+        final List<ByteBuffer> data
+    ) throws IOException {
+        try {
+            return this.write(this.getOpenFile(jobFile, relativePath), startByte, data);
+        } catch (final ClosedChannelException e) {
+            // Evicted and closed by another thread mid write. Everything is written by position so just start over.
+            log.debug("{} was closed while writing. Retrying.", jobFile);
+            this.openFiles.invalidate(jobFile);
+            return this.write(this.getOpenFile(jobFile, relativePath), startByte, data);
+        }
+    }
+
+    private long write(final FileChannel fileChannel, final long startByte, final List<ByteBuffer> data)
+        throws IOException {
+        // Positional writes so concurrent updates of the same open file don't interfere with each other
+        long position = startByte;
+        for (final ByteBuffer buffer : data) {
+            final ByteBuffer source = buffer.duplicate();
+            while (source.hasRemaining()) {
+                position += fileChannel.write(source, position);
             }
+        }
+        return position;
+    }
 
-            final JobFileState jobFileState = new JobFileState(relativePath, size, md5);
-            log.debug("Visited file has state {}", jobFileState);
-            this.files.add(jobFileState);
-            return FileVisitResult.CONTINUE;
+    private static <K, V> V getFromCache(
+        final Cache<K, V> cache,
+        final K key,
+        final Callable<V> loader
+    ) throws IOException {
+        try {
+            return cache.get(key, loader);
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Unable to load " + key, cause);
         }
+    }
 
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public FileVisitResult visitFileFailed(final Path file, final IOException exc) throws IOException {
-            // TODO: What do we think best course of action here is
-            return FileVisitResult.TERMINATE;
+    private static void closeFile(final RemovalNotification<Path, FileChannel> notification) {
+        final FileChannel fileChannel = notification.getValue();
+        if (fileChannel != null) {
+            try {
+                fileChannel.close();
+            } catch (final IOException e) {
+                log.warn("Unable to close {}", notification.getKey(), e);
+            }
         }
+    }
 
-        /**
-         * {@inheritDoc}
-         */
-        @Override
-        public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
-            return FileVisitResult.CONTINUE;
+    private void createOrCheckDirectory(final Path dir) throws IOException {
+        if (Files.notExists(dir)) {
+            Files.createDirectories(dir);
+        } else if (!Files.isDirectory(dir)) {
+            // TODO: Maybe a more specific exception here? Should be runtime maybe as there's no recovery?
+            throw new IOException(dir + " exists but is not a directory and must be");
         }
     }
 }
@@ -21,6 +21,7 @@ import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieNotFoundException;
 import com.netflix.genie.web.services.FileTransfer;
 import com.netflix.genie.web.services.FileTransferFactory;
+import com.netflix.genie.web.util.AbortableOutputStream;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.validation.constraints.NotBlank;
@@ -82,6 +83,22 @@ public class GenieFileTransferService {
         this.getFileTransfer(dstRemotePath).putFile(srcLocalPath, dstRemotePath);
     }
 
+    /**
+     * Open a stream whose contents are put to the remote destination once it is closed.
+     *
+     * @param dstRemotePath The remote destination path where the data has to be put
+     * @return The stream to write the data to. Must be aborted if the data can't be completely written.
+     * @throws GenieException If there is any problem
+     * @see FileTransfer#putStream(String)
+     */
+    public AbortableOutputStream putStream(
+        @NotBlank(message = "Destination remote path cannot be empty") final String dstRemotePath
+    ) throws GenieException {
+        log.debug("Called to stream to destination path {}", dstRemotePath);
+
+        return this.getFileTransfer(dstRemotePath).putStream(dstRemotePath);
+    }
+
     FileTransfer getFileTransfer(final String path) throws GenieNotFoundException {
         final FileTransfer result;
         try {
@@ -39,9 +39,6 @@ import com.netflix.genie.common.internal.jobs.JobConstants;
 import com.netflix.genie.web.controllers.DtoConverters;
 import com.netflix.genie.web.properties.JobsProperties;
 import com.netflix.genie.web.properties.JobsUsersActiveLimitProperties;
-import com.netflix.genie.web.services.ApplicationPersistenceService;
-import com.netflix.genie.web.services.ClusterPersistenceService;
-import com.netflix.genie.web.services.CommandPersistenceService;
 import com.netflix.genie.web.services.JobCoordinatorService;
 import com.netflix.genie.web.services.JobKillService;
 import com.netflix.genie.web.services.JobPersistenceService;
@@ -80,10 +77,8 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
     private final JobPersistenceService jobPersistenceService;
     private final JobKillService jobKillService;
     private final JobStateService jobStateService;
-    private final ApplicationPersistenceService applicationPersistenceService;
     private final JobSearchService jobSearchService;
-    private final ClusterPersistenceService clusterPersistenceService;
-    private final CommandPersistenceService commandPersistenceService;
+    private final ResourceDtoCache resourceDtoCache;
     private final JobSpecificationService specificationService;
     private final JobsProperties jobsProperties;
     private final String hostname;
@@ -99,10 +94,8 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
      * @param jobStateService               The service where we report the job state and keep track of
      *                                      various metrics about jobs currently running
      * @param jobsProperties                The jobs properties to use
-     * @param applicationPersistenceService Implementation of application service interface
      * @param jobSearchService              Implementation of job search service
-     * @param clusterPersistenceService     Implementation of cluster service interface
-     * @param commandPersistenceService     Implementation of command service interface
+     * @param resourceDtoCache              The cache to read clusters, commands and applications through
      * @param specificationService          The job specification service to use
      * @param registry                      The registry
      * @param hostname                      The name of the host this Genie instance is running on
@@ -112,10 +105,8 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
         @NotNull final JobKillService jobKillService,
         @NotNull final JobStateService jobStateService,
         @NotNull final JobsProperties jobsProperties,
-        @NotNull final ApplicationPersistenceService applicationPersistenceService,
         @NotNull final JobSearchService jobSearchService,
-        @NotNull final ClusterPersistenceService clusterPersistenceService,
-        @NotNull final CommandPersistenceService commandPersistenceService,
+        @NotNull final ResourceDtoCache resourceDtoCache,
         @NotNull final JobSpecificationService specificationService,
         @NotNull final MeterRegistry registry,
         @NotBlank final String hostname
@@ -123,10 +114,8 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
         this.jobPersistenceService = jobPersistenceService;
         this.jobKillService = jobKillService;
         this.jobStateService = jobStateService;
-        this.applicationPersistenceService = applicationPersistenceService;
         this.jobSearchService = jobSearchService;
-        this.clusterPersistenceService = clusterPersistenceService;
-        this.commandPersistenceService = commandPersistenceService;
+        this.resourceDtoCache = resourceDtoCache;
         this.specificationService = specificationService;
         this.jobsProperties = jobsProperties;
         this.hostname = hostname;
@@ -198,8 +187,8 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
                 //TODO: Here for now as we figure out what to do with exceptions for JobSpecificationServiceImpl
                 throw new GeniePreconditionException(re.getMessage(), re);
             }
-            final Cluster cluster = this.clusterPersistenceService.getCluster(jobSpecification.getCluster().getId());
-            final Command command = this.commandPersistenceService.getCommand(jobSpecification.getCommand().getId());
+            final Cluster cluster = this.resourceDtoCache.getCluster(jobSpecification.getCluster().getId());
+            final Command command = this.resourceDtoCache.getCommand(jobSpecification.getCommand().getId());
 
             // Now that we have command how much memory should the job use?
             final int memory = jobRequest.getMemory()
@@ -207,7 +196,7 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
 
             final ImmutableList.Builder<Application> applicationsBuilder = ImmutableList.builder();
             for (final JobSpecification.ExecutionResource applicationResource : jobSpecification.getApplications()) {
-                applicationsBuilder.add(this.applicationPersistenceService.getApplication(applicationResource.getId()));
+                applicationsBuilder.add(this.resourceDtoCache.getApplication(applicationResource.getId()));
             }
             final ImmutableList<Application> applications = applicationsBuilder.build();
 
@@ -239,43 +228,34 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
                 }
             }
 
-            synchronized (this) {
-                log.info("Checking if can run job {} on this node", jobRequest.getId());
-                final int maxSystemMemory = this.jobsProperties.getMemory().getMaxSystemMemory();
-                final int usedMemory = this.jobStateService.getUsedMemory();
-                if (usedMemory + memory <= maxSystemMemory) {
-                    log.info(
-                        "Job {} can run on this node as only {}/{} MB are used and requested {} MB",
-                        jobId,
-                        usedMemory,
-                        maxSystemMemory,
-                        memory
-                    );
-                    // Tell the system a new job has been scheduled so any actions can be taken
-                    log.info("Publishing job scheduled event for job {}", jobId);
-                    this.jobStateService.schedule(
-                        jobId,
-                        jobRequest,
-                        cluster,
-                        command,
-                        applications,
-                        memory
-                    );
-                    MetricsUtils.addSuccessTags(tags);
-                    return jobId;
-                } else {
-                    throw new GenieServerUnavailableException(
-                        "Job "
-                            + jobId
-                            + " can't run on this node "
-                            + usedMemory
-                            + "/"
-                            + maxSystemMemory
-                            + " MB are used and requested "
-                            + memory
-                            + " MB"
-                    );
-                }
+            log.info("Checking if can run job {} on this node", jobRequest.getId());
+            final int maxSystemMemory = this.jobsProperties.getMemory().getMaxSystemMemory();
+            if (this.jobStateService.reserveMemory(jobId, memory, maxSystemMemory)) {
+                log.info("Job {} can run on this node as {} MB were reserved", jobId, memory);
+                // Tell the system a new job has been scheduled so any actions can be taken
+                log.info("Publishing job scheduled event for job {}", jobId);
+                this.jobStateService.schedule(
+                    jobId,
+                    jobRequest,
+                    cluster,
+                    command,
+                    applications,
+                    memory
+                );
+                MetricsUtils.addSuccessTags(tags);
+                return jobId;
+            } else {
+                throw new GenieServerUnavailableException(
+                    "Job "
+                        + jobId
+                        + " can't run on this node "
+                        + this.jobStateService.getUsedMemory()
+                        + "/"
+                        + maxSystemMemory
+                        + " MB are used and requested "
+                        + memory
+                        + " MB"
+                );
             }
         } catch (final GenieConflictException e) {
             MetricsUtils.addFailureTagsWithException(tags, e);
@@ -0,0 +1,321 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.services.impl;
+
+import com.netflix.genie.common.internal.dto.v4.files.JobFileState;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * In memory record of the files in a job directory (relative path, size, last modification time and, once calculated,
+ * MD5) kept up to date as the files are updated and deleted through {@link DiskJobFileServiceImpl} so the state of
+ * the directory can be served without walking it.
+ * <p>
+ * The manifest can be saved to a compact sidecar file inside the job directory, so it goes away with the directory,
+ * and loaded again, e.g. after a restart. The sidecar is only trusted while it's in sync with the directory, so it must
+ * be removed (see {@link #markModified()}) before the directory is changed after it was saved. Changes made some other
+ * way are detected by comparing the modification times of all the directories the manifest covers with the sidecar.
+ *
+ * @since 4.0.0
+ */
+@Slf4j
+final class JobDirectoryManifest {
+
+    private static final int MAGIC = 0x47_4A_44_4D;
+    private static final int VERSION = 2;
+    private static final String SIDECAR_DIRECTORY = ".genie-manifest";
+    private static final String SIDECAR_FILE = "manifest";
+
+    private final ConcurrentMap<String, FileEntry> files;
+    private final Set<String> directories;
+    private final AtomicBoolean saved;
+
+    private JobDirectoryManifest(
+        final ConcurrentMap<String, FileEntry> files,
+        final Set<String> directories,
+        final boolean saved
+    ) {
+        this.files = files;
+        this.directories = directories;
+        this.saved = new AtomicBoolean(saved);
+    }
+
+    /**
+     * Get the sidecar file the manifest of the given job directory is saved to. It's kept in a directory of its own
+     * so saving it doesn't touch the modification time of the job directory.
+     *
+     * @param jobDirectory The job directory
+     * @return The sidecar file
+     */
+    static Path getSidecar(final Path jobDirectory) {
+        return jobDirectory.resolve(SIDECAR_DIRECTORY).resolve(SIDECAR_FILE);
+    }
+
+    /**
+     * Create a manifest by walking the given job directory.
+     *
+     * @param jobDirectory The job directory
+     * @return The manifest
+     * @throws IOException On error walking the directory
+     */
+    static JobDirectoryManifest scan(final Path jobDirectory) throws IOException {
+        final ConcurrentMap<String, FileEntry> files = new ConcurrentHashMap<>();
+        final Set<String> directories = ConcurrentHashMap.newKeySet();
+        final Path sidecarDirectory = jobDirectory.resolve(SIDECAR_DIRECTORY);
+        Files.walkFileTree(
+            jobDirectory,
+            new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+                    if (dir.equals(sidecarDirectory)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    directories.add(jobDirectory.relativize(dir).toString());
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                    files.put(
+                        jobDirectory.relativize(file).toString(),
+                        new FileEntry(attrs.size(), attrs.lastModifiedTime().toMillis(), null)
+                    );
+                    return FileVisitResult.CONTINUE;
+                }
+            }
+        );
+        return new JobDirectoryManifest(files, directories, false);
+    }
+
+    /**
+     * Load the manifest previously saved with {@link #save(Path)} for the given job directory, as long as none of the
+     * directories it covers was modified after it was saved.
+     *
+     * @param jobDirectory The job directory
+     * @return The manifest or {@link Optional#empty()} if there is no saved manifest, it can't be read or it's stale
+     */
+    static Optional<JobDirectoryManifest> load(final Path jobDirectory) {
+        final Path sidecar = getSidecar(jobDirectory);
+        try (
+            DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(sidecar, StandardOpenOption.READ))
+            )
+        ) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                log.warn("Ignoring job directory manifest {} in an unknown format", sidecar);
+                return Optional.empty();
+            }
+            final int count = input.readInt();
+            final ConcurrentMap<String, FileEntry> files = new ConcurrentHashMap<>(Math.max(16, count * 2));
+            for (int i = 0; i < count; i++) {
+                final String path = input.readUTF();
+                final long size = input.readLong();
+                final long lastModified = input.readLong();
+                final String md5 = input.readBoolean() ? input.readUTF() : null;
+                files.put(path, new FileEntry(size, lastModified, md5));
+            }
+            final int directoryCount = input.readInt();
+            final Set<String> directories = ConcurrentHashMap.newKeySet(Math.max(16, directoryCount * 2));
+            for (int i = 0; i < directoryCount; i++) {
+                directories.add(input.readUTF());
+            }
+
+            // Anything added, renamed or deleted some other way modifies the directory it happened in
+            final long savedTime = Files.getLastModifiedTime(sidecar).toMillis();
+            for (final String directory : directories) {
+                if (Files.getLastModifiedTime(jobDirectory.resolve(directory)).toMillis() > savedTime) {
+                    log.debug("Ignoring stale job directory manifest {} as {} changed", sidecar, directory);
+                    return Optional.empty();
+                }
+            }
+            return Optional.of(new JobDirectoryManifest(files, directories, true));
+        } catch (final NoSuchFileException e) {
+            return Optional.empty();
+        } catch (final IOException e) {
+            log.warn("Unable to read job directory manifest {}", sidecar, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Save this manifest to the given sidecar file, replacing it atomically where the file system allows.
+     *
+     * @param sidecar The file to save the manifest to
+     * @throws IOException On error writing the file
+     */
+    void save(final Path sidecar) throws IOException {
+        final Map<String, FileEntry> snapshot = new ConcurrentHashMap<>(this.files);
+        final Set<String> directoriesSnapshot = new HashSet<>(this.directories);
+        final Path parent = sidecar.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        final Path temp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+        try (
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))
+        ) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(snapshot.size());
+            for (final Map.Entry<String, FileEntry> file : snapshot.entrySet()) {
+                final FileEntry entry = file.getValue();
+                output.writeUTF(file.getKey());
+                output.writeLong(entry.size);
+                output.writeLong(entry.lastModified);
+                output.writeBoolean(entry.md5 != null);
+                if (entry.md5 != null) {
+                    output.writeUTF(entry.md5);
+                }
+            }
+            output.writeInt(directoriesSnapshot.size());
+            for (final String directory : directoriesSnapshot) {
+                output.writeUTF(directory);
+            }
+        }
+        try {
+            Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING);
+        }
+        this.saved.set(true);
+    }
+
+    /**
+     * Record that the directory is about to change.
+     *
+     * @return true if this manifest had been saved and wasn't modified since, so the saved copy is now stale
+     */
+    boolean markModified() {
+        return this.saved.getAndSet(false);
+    }
+
+    /**
+     * Whether the directory changed since this manifest was last saved (or loaded).
+     *
+     * @return true if the manifest changed since it was saved
+     */
+    boolean isModified() {
+        return !this.saved.get();
+    }
+
+    /**
+     * Record that data was written to a file, creating it if necessary.
+     *
+     * @param relativePath The path of the file relative to the job directory
+     * @param endByte      The position of the byte following the last byte written
+     * @param lastModified The time of the write in epoch milliseconds
+     */
+    void update(final String relativePath, final long endByte, final long lastModified) {
+        for (Path parent = Paths.get(relativePath).getParent(); parent != null; parent = parent.getParent()) {
+            if (!this.directories.add(parent.toString())) {
+                break;
+            }
+        }
+        this.files.merge(
+            relativePath,
+            new FileEntry(endByte, lastModified, null),
+            (current, written) -> new FileEntry(Math.max(current.size, written.size), lastModified, null)
+        );
+    }
+
+    /**
+     * Record that a file was deleted.
+     *
+     * @param relativePath The path of the file relative to the job directory
+     */
+    void remove(final String relativePath) {
+        this.files.remove(relativePath);
+    }
+
+    /**
+     * Get the state of all the files in the job directory. MD5s are calculated (and remembered until the file
+     * changes) only when requested.
+     *
+     * @param jobDirectory The job directory this manifest describes
+     * @param calculateMd5 Whether to include the MD5 of the files
+     * @return The state of the files
+     * @throws IOException On error reading a file to calculate its MD5
+     */
+    Set<JobFileState> getFileStates(final Path jobDirectory, final boolean calculateMd5) throws IOException {
+        if (!calculateMd5) {
+            return this.files
+                .entrySet()
+                .stream()
+                .map(file -> new JobFileState(file.getKey(), file.getValue().size, null))
+                .collect(Collectors.toSet());
+        }
+
+        for (final Map.Entry<String, FileEntry> file : this.files.entrySet()) {
+            final FileEntry entry = file.getValue();
+            if (entry.md5 == null) {
+                final String md5;
+                try (InputStream inputStream = Files.newInputStream(jobDirectory.resolve(file.getKey()))) {
+                    md5 = DigestUtils.md5Hex(inputStream);
+                }
+                // Only remember the hash if the file wasn't changed while it was calculated
+                this.files.replace(file.getKey(), entry, new FileEntry(entry.size, entry.lastModified, md5));
+            }
+        }
+        return this.files
+            .entrySet()
+            .stream()
+            .map(file -> new JobFileState(file.getKey(), file.getValue().size, file.getValue().md5))
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * The recorded state of a single file. Immutable so entries can be swapped atomically.
+     */
+    private static final class FileEntry {
+        private final long size;
+        private final long lastModified;
+        private final String md5;
+
+        FileEntry(final long size, final long lastModified, @Nullable final String md5) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.md5 = md5;
+        }
+    }
+}
@@ -34,10 +34,8 @@ import com.netflix.genie.common.internal.dto.v4.JobRequest;
 import com.netflix.genie.common.internal.dto.v4.JobSpecification;
 import com.netflix.genie.common.internal.jobs.JobConstants;
 import com.netflix.genie.web.properties.JobsProperties;
-import com.netflix.genie.web.services.ApplicationPersistenceService;
 import com.netflix.genie.web.services.ClusterLoadBalancer;
 import com.netflix.genie.web.services.ClusterPersistenceService;
-import com.netflix.genie.web.services.CommandPersistenceService;
 import com.netflix.genie.web.services.JobSpecificationService;
 import com.netflix.genie.web.util.MetricsConstants;
 import com.netflix.genie.web.util.MetricsUtils;
@@ -115,9 +113,8 @@ public class JobSpecificationServiceImpl implements JobSpecificationService {
     private static final String LOAD_BALANCER_STATUS_EXCEPTION = "exception";
     private static final String LOAD_BALANCER_STATUS_INVALID = "invalid";
 
-    private final ApplicationPersistenceService applicationPersistenceService;
+    private final ResourceDtoCache resourceDtoCache;
     private final ClusterPersistenceService clusterPersistenceService;
-    private final CommandPersistenceService commandPersistenceService;
     private final List<ClusterLoadBalancer> clusterLoadBalancers;
     private final MeterRegistry registry;
     private final int defaultMemory;
@@ -128,24 +125,21 @@ public class JobSpecificationServiceImpl implements JobSpecificationService {
     /**
      * Constructor.
      *
-     * @param applicationPersistenceService The service to use to manipulate applications
+     * @param resourceDtoCache              The cache to read commands and applications through
      * @param clusterPersistenceService     The service to use to manipulate clusters
-     * @param commandPersistenceService     The service to use to manipulate commands
      * @param clusterLoadBalancers          The load balancer implementations to use
      * @param registry                      The metrics repository to use
      * @param jobsProperties                The properties for running a job set by the user
      */
     public JobSpecificationServiceImpl(
-        final ApplicationPersistenceService applicationPersistenceService,
+        final ResourceDtoCache resourceDtoCache,
         final ClusterPersistenceService clusterPersistenceService,
-        final CommandPersistenceService commandPersistenceService,
         @NotEmpty final List<ClusterLoadBalancer> clusterLoadBalancers,
         final MeterRegistry registry,
         final JobsProperties jobsProperties
     ) {
-        this.applicationPersistenceService = applicationPersistenceService;
+        this.resourceDtoCache = resourceDtoCache;
         this.clusterPersistenceService = clusterPersistenceService;
-        this.commandPersistenceService = commandPersistenceService;
         this.clusterLoadBalancers = clusterLoadBalancers;
         this.defaultMemory = jobsProperties.getMemory().getDefaultJobMemory();
 
@@ -280,7 +274,7 @@ public class JobSpecificationServiceImpl implements JobSpecificationService {
         final Set<Tag> tags = Sets.newHashSet();
         try {
             log.info("Selecting command for job {} ", jobId);
-            final Command command = this.commandPersistenceService.getCommand(commandId);
+            final Command command = this.resourceDtoCache.getCommand(commandId);
             log.info("Selected command {} for job {} ", commandId, jobId);
             MetricsUtils.addSuccessTags(tags);
             return command;
@@ -307,10 +301,10 @@ public class JobSpecificationServiceImpl implements JobSpecificationService {
             // TODO: What do we do about application status? Should probably check here
             final List<Application> applications = Lists.newArrayList();
             if (jobRequest.getCriteria().getApplicationIds().isEmpty()) {
-                applications.addAll(this.commandPersistenceService.getApplicationsForCommand(commandId));
+                applications.addAll(this.resourceDtoCache.getApplicationsForCommand(commandId));
             } else {
                 for (final String applicationId : jobRequest.getCriteria().getApplicationIds()) {
-                    applications.add(this.applicationPersistenceService.getApplication(applicationId));
+                    applications.add(this.resourceDtoCache.getApplication(applicationId));
                 }
             }
             log.info(
@@ -35,15 +35,19 @@ import lombok.extern.slf4j.Slf4j;
 import org.joda.time.Instant;
 import org.springframework.scheduling.TaskScheduler;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
-import java.util.function.Supplier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * A Service to monitor the state of locally run jobs.
+ * <p>
+ * The memory and number of active jobs on the node are kept as running totals which are only ever modified while
+ * holding the lock of the job they change, so reading them never requires scanning or locking the job table and
+ * concurrent job submissions only contend when they actually race for the last of the node's capacity.
  *
  * @author amajumdar
  * @since 3.0.0
@@ -53,7 +57,9 @@ public class JobStateServiceImpl implements JobStateService {
     protected final TaskScheduler scheduler;
     protected final MeterRegistry registry;
     protected final GenieEventBus genieEventBus;
-    private final Map<String, JobInfo> jobs = Collections.synchronizedMap(new HashMap<>());
+    private final Map<String, JobInfo> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger usedMemory = new AtomicInteger();
+    private final AtomicInteger numActiveJobs = new AtomicInteger();
     private final JobSubmitterService jobSubmitterService;
     private final Counter unableToCancel;
 
@@ -78,8 +84,8 @@ public class JobStateServiceImpl implements JobStateService {
 
         // TODO: Active and running seems backwards here. Might want to review
         this.registry.gauge("genie.jobs.running.gauge", this.jobs, Map::size);
-        this.registry.gauge("genie.jobs.active.gauge", this, JobStateServiceImpl::getNumActiveJobs);
-        this.registry.gauge("genie.jobs.memory.used.gauge", this, JobStateServiceImpl::getUsedMemory);
+        this.registry.gauge("genie.jobs.active.gauge", this.numActiveJobs);
+        this.registry.gauge("genie.jobs.memory.used.gauge", this.usedMemory);
 
         this.unableToCancel = registry.counter("genie.jobs.unableToCancel.rate");
     }
@@ -92,6 +98,30 @@ public class JobStateServiceImpl implements JobStateService {
         this.jobs.putIfAbsent(jobId, new JobInfo());
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean reserveMemory(final String jobId, final int memory, final int maxSystemMemory) {
+        final Boolean reserved = this.handle(
+            jobId,
+            jobInfo -> {
+                final int delta = memory - jobInfo.getMemory();
+                while (true) {
+                    final int current = this.usedMemory.get();
+                    if (delta > 0 && current + delta > maxSystemMemory) {
+                        return false;
+                    }
+                    if (this.usedMemory.compareAndSet(current, current + delta)) {
+                        jobInfo.setMemory(memory);
+                        return true;
+                    }
+                }
+            }
+        );
+        return reserved != null && reserved;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -106,9 +136,8 @@ public class JobStateServiceImpl implements JobStateService {
     ) {
         this.handle(
             jobId,
-            () -> {
-                final JobInfo jobInfo = jobs.get(jobId);
-                jobInfo.setMemory(memory);
+            jobInfo -> {
+                this.setMemory(jobInfo, memory);
                 final JobLauncher jobLauncher = new JobLauncher(
                     this.jobSubmitterService,
                     jobRequest,
@@ -120,7 +149,7 @@ public class JobStateServiceImpl implements JobStateService {
                 );
                 final Future<?> task = this.scheduler.schedule(jobLauncher, Instant.now().toDate());
                 jobInfo.setRunningTask(task);
-                jobInfo.setActive(true);
+                this.setActive(jobInfo);
                 //
                 // This event is fired when a job is scheduled to run on this Genie node. We'll track the future here in
                 // case it needs to be killed while still in INIT state. Once it's running the onJobStarted event will
@@ -139,8 +168,7 @@ public class JobStateServiceImpl implements JobStateService {
     public void done(final String jobId) throws GenieException {
         this.handle(
             jobId,
-            () -> {
-                final JobInfo jobInfo = jobs.get(jobId);
+            jobInfo -> {
                 final Future<?> task = jobInfo.getRunningTask();
                 if (task != null && !task.isDone()) {
                     if (task.cancel(true)) {
@@ -151,6 +179,12 @@ public class JobStateServiceImpl implements JobStateService {
                     }
                 }
                 jobs.remove(jobId);
+                // Release whatever this job was holding
+                this.setMemory(jobInfo, 0);
+                if (jobInfo.isActive()) {
+                    jobInfo.setActive(false);
+                    this.numActiveJobs.decrementAndGet();
+                }
                 return null;
             }
         );
@@ -164,24 +198,32 @@ public class JobStateServiceImpl implements JobStateService {
         return jobs.containsKey(jobId);
     }
 
-    private void handle(final String jobId, final Supplier<Void> supplier) {
-        JobInfo jobInfo = jobs.get(jobId);
+    /**
+     * Run the given action against the job while holding its lock. Nothing is done if the job doesn't exist or is
+     * removed before the lock is acquired.
+     *
+     * @param jobId  The id of the job
+     * @param action The action to run against the job's information
+     * @param <T>    The type of the result of the action
+     * @return The result of the action or null if the job doesn't exist
+     */
+    private <T> T handle(final String jobId, final Function<JobInfo, T> action) {
+        final JobInfo jobInfo = jobs.get(jobId);
         if (jobInfo != null) {
             synchronized (jobInfo) {
-                jobInfo = jobs.get(jobId);
-                if (jobInfo != null) {
-                    supplier.get();
+                if (jobs.get(jobId) == jobInfo) {
+                    return action.apply(jobInfo);
                 }
             }
         }
+        return null;
     }
 
     protected void setMemoryAndTask(final String jobId, final int memory, final Future<?> task) {
-        handle(jobId, () -> {
-            final JobInfo jobInfo = jobs.get(jobId);
-            jobInfo.setMemory(memory);
+        handle(jobId, jobInfo -> {
+            this.setMemory(jobInfo, memory);
             jobInfo.setRunningTask(task);
-            jobInfo.setActive(true);
+            this.setActive(jobInfo);
             return null;
         });
     }
@@ -191,10 +233,7 @@ public class JobStateServiceImpl implements JobStateService {
      */
     @Override
     public int getNumActiveJobs() {
-        // Synchronized to avoid concurrent modification exception
-        synchronized (this.jobs) {
-            return (int) this.jobs.values().stream().filter(JobInfo::isActive).count();
-        }
+        return this.numActiveJobs.get();
     }
 
     /**
@@ -202,10 +241,20 @@ public class JobStateServiceImpl implements JobStateService {
      */
     @Override
     public int getUsedMemory() {
-        // Synchronized to avoid concurrent modification exception
-        synchronized (this.jobs) {
-            return this.jobs.values().stream().map(JobInfo::getMemory)
-                .reduce((a, b) -> a + b).orElse(0);
+        return this.usedMemory.get();
+    }
+
+    // Callers must hold the lock of the job info
+    private void setMemory(final JobInfo jobInfo, final int memory) {
+        this.usedMemory.addAndGet(memory - jobInfo.getMemory());
+        jobInfo.setMemory(memory);
+    }
+
+    // Callers must hold the lock of the job info
+    private void setActive(final JobInfo jobInfo) {
+        if (!jobInfo.isActive()) {
+            jobInfo.setActive(true);
+            this.numActiveJobs.incrementAndGet();
         }
     }
 
@@ -213,7 +262,7 @@ public class JobStateServiceImpl implements JobStateService {
     @Setter
     private static class JobInfo {
         private Future<?> runningTask;
-        private Integer memory = 0;
+        private int memory;
         private boolean active;
     }
 }
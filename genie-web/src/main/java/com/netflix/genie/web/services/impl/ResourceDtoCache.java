@@ -0,0 +1,260 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.services.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.internal.dto.v4.Application;
+import com.netflix.genie.common.internal.dto.v4.Cluster;
+import com.netflix.genie.common.internal.dto.v4.Command;
+import com.netflix.genie.web.events.ResourceChangedEvent;
+import com.netflix.genie.web.properties.ResourceDtoCacheProperties;
+import com.netflix.genie.web.services.ApplicationPersistenceService;
+import com.netflix.genie.web.services.ClusterPersistenceService;
+import com.netflix.genie.web.services.CommandPersistenceService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A read-through cache of the immutable cluster, command and application DTOs read while submitting a job.
+ * <p>
+ * Entries are invalidated as soon as a local change to the resource commits (signalled by a
+ * {@link ResourceChangedEvent}) and otherwise expire after a configured time so changes made through other Genie
+ * nodes are eventually seen. Each cache is versioned so that a value loaded concurrently with a change is never
+ * cached. When disabled every call goes straight to the underlying persistence service.
+ *
+ * @since 4.0.0
+ */
+@Slf4j
+public class ResourceDtoCache {
+
+    static final String REQUESTS_COUNTER_NAME = "genie.services.resourceDtoCache.requests.counter";
+    static final String EVICTIONS_COUNTER_NAME = "genie.services.resourceDtoCache.evictions.counter";
+    static final String INVALIDATIONS_COUNTER_NAME = "genie.services.resourceDtoCache.invalidations.counter";
+    static final String CACHE_TAG_KEY = "cache";
+    static final String RESULT_TAG_KEY = "result";
+    static final String HIT = "hit";
+    static final String MISS = "miss";
+
+    private final ClusterPersistenceService clusterPersistenceService;
+    private final CommandPersistenceService commandPersistenceService;
+    private final ApplicationPersistenceService applicationPersistenceService;
+    private final boolean enabled;
+
+    private final VersionedCache<Cluster> clusters;
+    private final VersionedCache<Command> commands;
+    private final VersionedCache<Application> applications;
+    private final VersionedCache<List<Application>> commandApplications;
+
+    /**
+     * Constructor.
+     *
+     * @param clusterPersistenceService     The service to load clusters from
+     * @param commandPersistenceService     The service to load commands and their applications from
+     * @param applicationPersistenceService The service to load applications from
+     * @param properties                    The {@link ResourceDtoCacheProperties} to configure the caches with
+     * @param registry                      The metrics registry to use
+     */
+    public ResourceDtoCache(
+        final ClusterPersistenceService clusterPersistenceService,
+        final CommandPersistenceService commandPersistenceService,
+        final ApplicationPersistenceService applicationPersistenceService,
+        final ResourceDtoCacheProperties properties,
+        final MeterRegistry registry
+    ) {
+        this.clusterPersistenceService = clusterPersistenceService;
+        this.commandPersistenceService = commandPersistenceService;
+        this.applicationPersistenceService = applicationPersistenceService;
+        this.enabled = properties.isEnabled();
+
+        this.clusters = new VersionedCache<>("clusters", properties, registry);
+        this.commands = new VersionedCache<>("commands", properties, registry);
+        this.applications = new VersionedCache<>("applications", properties, registry);
+        this.commandApplications = new VersionedCache<>("commandApplications", properties, registry);
+    }
+
+    /**
+     * Get the cluster with the given id.
+     *
+     * @param id The id of the cluster
+     * @return The cluster
+     * @throws GenieException On error loading the cluster
+     * @see ClusterPersistenceService#getCluster(String)
+     */
+    public Cluster getCluster(final String id) throws GenieException {
+        if (!this.enabled) {
+            return this.clusterPersistenceService.getCluster(id);
+        }
+        return this.clusters.get(id, () -> this.clusterPersistenceService.getCluster(id));
+    }
+
+    /**
+     * Get the command with the given id.
+     *
+     * @param id The id of the command
+     * @return The command
+     * @throws GenieException On error loading the command
+     * @see CommandPersistenceService#getCommand(String)
+     */
+    public Command getCommand(final String id) throws GenieException {
+        if (!this.enabled) {
+            return this.commandPersistenceService.getCommand(id);
+        }
+        return this.commands.get(id, () -> this.commandPersistenceService.getCommand(id));
+    }
+
+    /**
+     * Get the application with the given id.
+     *
+     * @param id The id of the application
+     * @return The application
+     * @throws GenieException On error loading the application
+     * @see ApplicationPersistenceService#getApplication(String)
+     */
+    public Application getApplication(final String id) throws GenieException {
+        if (!this.enabled) {
+            return this.applicationPersistenceService.getApplication(id);
+        }
+        return this.applications.get(id, () -> this.applicationPersistenceService.getApplication(id));
+    }
+
+    /**
+     * Get the ordered applications of the command with the given id.
+     *
+     * @param commandId The id of the command
+     * @return The immutable list of applications of the command
+     * @throws GenieException On error loading the applications
+     * @see CommandPersistenceService#getApplicationsForCommand(String)
+     */
+    public List<Application> getApplicationsForCommand(final String commandId) throws GenieException {
+        if (!this.enabled) {
+            return this.commandPersistenceService.getApplicationsForCommand(commandId);
+        }
+        return this.commandApplications.get(
+            commandId,
+            () -> ImmutableList.copyOf(this.commandPersistenceService.getApplicationsForCommand(commandId))
+        );
+    }
+
+    /**
+     * Invalidate the cached DTOs affected by a committed change to a resource.
+     *
+     * @param event The change event
+     */
+    @EventListener
+    public void onResourceChanged(final ResourceChangedEvent event) {
+        final String id = event.getId().orElse(null);
+        switch (event.getResourceType()) {
+            case CLUSTER:
+                this.clusters.invalidate(id);
+                break;
+            case COMMAND:
+                this.commands.invalidate(id);
+                this.commandApplications.invalidate(id);
+                break;
+            case APPLICATION:
+                this.applications.invalidate(id);
+                // Any command's application list could contain this application
+                this.commandApplications.invalidate(null);
+                break;
+            default:
+                log.warn("Unhandled resource type {}", event.getResourceType());
+        }
+    }
+
+    /**
+     * Function to load a value on a cache miss.
+     *
+     * @param <V> The type of value
+     */
+    @FunctionalInterface
+    private interface Loader<V> {
+        V load() throws GenieException;
+    }
+
+    /**
+     * A bounded cache of DTOs for a single resource type plus a version which is bumped on every invalidation.
+     *
+     * @param <V> The type of DTO
+     */
+    private static final class VersionedCache<V> {
+        private final Cache<String, V> cache;
+        private final AtomicLong version = new AtomicLong();
+        private final Counter hits;
+        private final Counter misses;
+        private final Counter invalidations;
+
+        VersionedCache(final String name, final ResourceDtoCacheProperties properties, final MeterRegistry registry) {
+            final Counter evictions = registry.counter(EVICTIONS_COUNTER_NAME, CACHE_TAG_KEY, name);
+            this.cache = CacheBuilder
+                .newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(properties.getExpireAfterWrite(), TimeUnit.MILLISECONDS)
+                .<String, V>removalListener(
+                    notification -> {
+                        if (notification.wasEvicted()) {
+                            evictions.increment();
+                        }
+                    }
+                )
+                .build();
+            this.hits = registry.counter(REQUESTS_COUNTER_NAME, CACHE_TAG_KEY, name, RESULT_TAG_KEY, HIT);
+            this.misses = registry.counter(REQUESTS_COUNTER_NAME, CACHE_TAG_KEY, name, RESULT_TAG_KEY, MISS);
+            this.invalidations = registry.counter(INVALIDATIONS_COUNTER_NAME, CACHE_TAG_KEY, name);
+        }
+
+        V get(final String key, final Loader<V> loader) throws GenieException {
+            final V cached = this.cache.getIfPresent(key);
+            if (cached != null) {
+                this.hits.increment();
+                return cached;
+            }
+            this.misses.increment();
+            final long loadVersion = this.version.get();
+            final V loaded = loader.load();
+            if (this.version.get() == loadVersion) {
+                this.cache.put(key, loaded);
+                // An invalidation may have slipped in between the check and the put. If so it may have run before
+                // the put and missed this entry so remove it again.
+                if (this.version.get() != loadVersion) {
+                    this.cache.invalidate(key);
+                }
+            }
+            return loaded;
+        }
+
+        void invalidate(@Nullable final String key) {
+            this.version.incrementAndGet();
+            this.invalidations.increment();
+            if (key == null) {
+                this.cache.invalidateAll();
+            } else {
+                this.cache.invalidate(key);
+            }
+        }
+    }
+}
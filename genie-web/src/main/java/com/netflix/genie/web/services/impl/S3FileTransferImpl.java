@@ -29,6 +29,7 @@ import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieServerException;
 import com.netflix.genie.web.properties.S3FileTransferProperties;
 import com.netflix.genie.web.services.FileTransfer;
+import com.netflix.genie.web.util.AbortableOutputStream;
 import com.netflix.genie.web.util.MetricsUtils;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
@@ -161,6 +162,25 @@ public class S3FileTransferImpl implements FileTransfer {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Streams the data to S3 using a multipart upload rather than spooling it to a local file.
+     */
+    @Override
+    public AbortableOutputStream putStream(
+        @NotBlank(message = "Destination remote path cannot be empty") final String dstRemotePath
+    ) throws GenieException {
+        log.debug("Called to stream to destination path {}", dstRemotePath);
+        final AmazonS3URI s3Uri = this.getS3Uri(dstRemotePath);
+        return new S3MultipartUploadOutputStream(
+            this.amazonS3,
+            s3Uri.getBucket(),
+            s3Uri.getKey(),
+            this.s3FileTransferProperties.getMultipartPartSize()
+        );
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,175 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.services.impl;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.netflix.genie.web.util.AbortableOutputStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams data to an S3 object using a multipart upload so only one part is ever held in memory.
+ * <p>
+ * The upload is only started once a full part has been written; smaller objects are put with a single request on
+ * close. The object only becomes visible once the stream is closed. Aborting the stream aborts the multipart upload so
+ * no parts are left behind.
+ *
+ * @since 4.0.0
+ */
+@Slf4j
+class S3MultipartUploadOutputStream extends AbortableOutputStream {
+
+    private final AmazonS3 amazonS3;
+    private final String bucket;
+    private final String key;
+    private final List<PartETag> partETags = new ArrayList<>();
+    private final byte[] part;
+    private int partLength;
+    private String uploadId;
+    private boolean done;
+
+    /**
+     * Constructor.
+     *
+     * @param amazonS3 The S3 client to use
+     * @param bucket   The bucket to upload to
+     * @param key      The key of the object to create
+     * @param partSize The size of each part in bytes. S3 requires at least 5 MB for all but the last part
+     */
+    S3MultipartUploadOutputStream(final AmazonS3 amazonS3, final String bucket, final String key, final int partSize) {
+        this.amazonS3 = amazonS3;
+        this.bucket = bucket;
+        this.key = key;
+        this.part = new byte[partSize];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final int b) throws IOException {
+        this.write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        if (this.done) {
+            throw new IOException("Stream closed");
+        }
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            final int count = Math.min(remaining, this.part.length - this.partLength);
+            System.arraycopy(b, offset, this.part, this.partLength, count);
+            this.partLength += count;
+            offset += count;
+            remaining -= count;
+            if (this.partLength == this.part.length) {
+                this.uploadPart();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.done) {
+            return;
+        }
+        try {
+            if (this.uploadId == null) {
+                final ObjectMetadata metadata = new ObjectMetadata();
+                metadata.setContentLength(this.partLength);
+                this.amazonS3.putObject(
+                    this.bucket,
+                    this.key,
+                    new ByteArrayInputStream(this.part, 0, this.partLength),
+                    metadata
+                );
+            } else {
+                if (this.partLength > 0) {
+                    this.uploadPart();
+                }
+                this.amazonS3.completeMultipartUpload(
+                    new CompleteMultipartUploadRequest(this.bucket, this.key, this.uploadId, this.partETags)
+                );
+            }
+            this.done = true;
+        } catch (final RuntimeException e) {
+            this.abort();
+            throw new IOException("Unable to upload to s3://" + this.bucket + "/" + this.key, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void abort() {
+        if (this.done) {
+            return;
+        }
+        this.done = true;
+        if (this.uploadId != null) {
+            try {
+                this.amazonS3.abortMultipartUpload(
+                    new AbortMultipartUploadRequest(this.bucket, this.key, this.uploadId)
+                );
+            } catch (final RuntimeException e) {
+                log.error("Unable to abort multipart upload {} to s3://{}/{}", this.uploadId, this.bucket, this.key, e);
+            }
+        }
+    }
+
+    private void uploadPart() throws IOException {
+        try {
+            if (this.uploadId == null) {
+                this.uploadId = this.amazonS3
+                    .initiateMultipartUpload(new InitiateMultipartUploadRequest(this.bucket, this.key))
+                    .getUploadId();
+            }
+            final UploadPartRequest request = new UploadPartRequest()
+                .withBucketName(this.bucket)
+                .withKey(this.key)
+                .withUploadId(this.uploadId)
+                .withPartNumber(this.partETags.size() + 1)
+                .withInputStream(new ByteArrayInputStream(this.part, 0, this.partLength))
+                .withPartSize(this.partLength);
+            this.partETags.add(this.amazonS3.uploadPart(request).getPartETag());
+            this.partLength = 0;
+        } catch (final RuntimeException e) {
+            this.abort();
+            throw new IOException("Unable to upload part to s3://" + this.bucket + "/" + this.key, e);
+        }
+    }
+}
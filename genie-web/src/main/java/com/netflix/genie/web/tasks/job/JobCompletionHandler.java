@@ -34,16 +34,16 @@ import org.springframework.stereotype.Component;
 @Slf4j
 @Component
 public class JobCompletionHandler {
-    private final JobCompletionService jobCompletionService;
+    private final JobCompletionStage jobCompletionStage;
 
     /**
      * Constructor.
      *
-     * @param jobCompletionService An implementation of the job completion service.
+     * @param jobCompletionStage The stage to hand job completions to
      */
     @Autowired
-    public JobCompletionHandler(final JobCompletionService jobCompletionService) {
-        this.jobCompletionService = jobCompletionService;
+    public JobCompletionHandler(final JobCompletionStage jobCompletionStage) {
+        this.jobCompletionStage = jobCompletionStage;
     }
 
     /**
@@ -54,6 +54,6 @@ public class JobCompletionHandler {
      */
     @EventListener
     public void handleJobCompletion(final JobFinishedEvent event) throws GenieException {
-        this.jobCompletionService.handleJobCompletion(event);
+        this.jobCompletionStage.submit(event);
     }
 }
@@ -20,6 +20,7 @@ package com.netflix.genie.web.tasks.job;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.genie.common.dto.Application;
 import com.netflix.genie.common.dto.Job;
 import com.netflix.genie.common.dto.JobExecution;
@@ -34,6 +35,7 @@ import com.netflix.genie.web.events.JobFinishedEvent;
 import com.netflix.genie.web.events.JobFinishedReason;
 import com.netflix.genie.web.jobs.JobDoneFile;
 import com.netflix.genie.web.jobs.JobKillReasonFile;
+import com.netflix.genie.web.properties.JobsArchiveProperties;
 import com.netflix.genie.web.properties.JobsProperties;
 import com.netflix.genie.web.services.JobPersistenceService;
 import com.netflix.genie.web.services.JobSearchService;
@@ -41,24 +43,33 @@ import com.netflix.genie.web.services.MailService;
 import com.netflix.genie.web.services.impl.GenieFileTransferService;
 import com.netflix.genie.web.util.MetricsConstants;
 import com.netflix.genie.web.util.MetricsUtils;
+import com.netflix.genie.web.util.ParallelGzipOutputStream;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.DefaultExecutor;
+import org.apache.commons.exec.ExecuteWatchdog;
 import org.apache.commons.exec.Executor;
 import org.apache.commons.exec.PumpStreamHandler;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.io.Resource;
 import org.springframework.retry.support.RetryTemplate;
 
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 import javax.validation.constraints.NotNull;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -72,9 +83,15 @@ import java.util.concurrent.TimeUnit;
 public class JobCompletionService {
 
     static final String JOB_COMPLETION_TIMER_NAME = "genie.jobs.completion.timer";
+    static final String JOB_COMPLETION_STATUS_TIMER_NAME = "genie.jobs.completion.status.timer";
     static final String JOB_COMPLETION_ERROR_COUNTER_NAME = "genie.jobs.errors.count";
     static final String ERROR_SOURCE_TAG = "error";
     static final String JOB_FINAL_STATE = "jobFinalState";
+    static final String ARCHIVE_UNCOMPRESSED_SUMMARY_NAME = "genie.jobs.archive.uncompressedBytes.summary";
+    static final String ARCHIVE_COMPRESSED_SUMMARY_NAME = "genie.jobs.archive.compressedBytes.summary";
+    static final String ARCHIVE_BYTES_SAVED_COUNTER_NAME = "genie.jobs.archive.bytesSaved.counter";
+    static final String ARCHIVE_THROUGHPUT_SUMMARY_NAME = "genie.jobs.archive.throughput.summary";
+    private static final File NULL_FILE = new File("/dev/null");
     private final JobPersistenceService jobPersistenceService;
     private final JobSearchService jobSearchService;
     private final GenieFileTransferService genieFileTransferService;
@@ -84,6 +101,11 @@ public class JobCompletionService {
     private final boolean deleteArchiveFile;
     private final boolean deleteDependencies;
     private final boolean runAsUserEnabled;
+    // Only set when archives are streamed
+    private final ExecutorService archiveCompressors;
+    private final int archiveCompressionBlockSize;
+    private final int archiveMaxPendingBlocks;
+    private final long archiveStreamingTimeout;
 
     // Metrics
     private final MeterRegistry registry;
@@ -119,6 +141,19 @@ public class JobCompletionService {
         this.deleteArchiveFile = jobsProperties.getCleanup().isDeleteArchiveFile();
         this.deleteDependencies = jobsProperties.getCleanup().isDeleteDependencies();
         this.runAsUserEnabled = jobsProperties.getUsers().isRunAsUserEnabled();
+        final JobsArchiveProperties archiveProperties = jobsProperties.getArchive();
+        if (archiveProperties.isStreamingEnabled()) {
+            this.archiveCompressors = Executors.newFixedThreadPool(
+                archiveProperties.getCompressionThreads(),
+                new ThreadFactoryBuilder().setNameFormat("genie-archive-compressor-%d").setDaemon(true).build()
+            );
+        } else {
+            this.archiveCompressors = null;
+        }
+        this.archiveCompressionBlockSize = archiveProperties.getCompressionBlockSize();
+        // Enough blocks in flight to keep every compressor busy while the oldest one is being written out
+        this.archiveMaxPendingBlocks = 2 * archiveProperties.getCompressionThreads();
+        this.archiveStreamingTimeout = archiveProperties.getStreamingTimeout();
 
         this.executor = new DefaultExecutor();
         this.executor.setStreamHandler(new PumpStreamHandler(null, null));
@@ -142,38 +177,16 @@ public class JobCompletionService {
      */
     void handleJobCompletion(final JobFinishedEvent event) {
         final long start = System.nanoTime();
-        final String jobId = event.getId();
         final Set<Tag> tags = Sets.newHashSet();
 
         try {
-            final Job job = this.retryTemplate.execute(context -> this.getJob(jobId));
-
-            final JobStatus status = job.getStatus();
-
-            // Make sure the job isn't already done before doing something
-            if (status.isActive()) {
-                try {
-                    this.retryTemplate.execute(context -> this.updateJob(job, event, tags));
-                } catch (final Exception e) {
-                    log.error("Failed updating for job: {}", jobId, e);
-                }
-                // Things that should be done either way
-                try {
-                    this.retryTemplate.execute(context -> this.processJobDir(job));
-                } catch (final Exception e) {
-                    log.error("Failed archiving directory for job: {}", jobId, e);
-                    this.incrementErrorCounter("JOB_DIRECTORY_FAILURE", e);
-                }
-                try {
-                    this.retryTemplate.execute(context -> sendEmail(jobId));
-                } catch (final Exception e) {
-                    log.error("Failed sending email for job: {}", jobId, e);
-                    this.incrementErrorCounter("JOB_UPDATE_FAILURE", e);
-                }
+            final Job job = this.recordJobCompletion(event, tags);
+            if (job != null) {
+                this.finalizeJob(event.getId(), job);
             }
             MetricsUtils.addSuccessTags(tags);
         } catch (final Exception e) {
-            log.error("Failed getting job with id: {}", jobId, e);
+            log.error("Failed getting job with id: {}", event.getId(), e);
             MetricsUtils.addFailureTagsWithException(tags, e);
         } finally {
             this.registry
@@ -182,6 +195,75 @@ public class JobCompletionService {
         }
     }
 
+    /**
+     * First stage of handling a job completion. Records the final status of the job in the database only.
+     *
+     * @param event The job finished event
+     * @return The job if it was still active and still needs to be finalized using
+     * {@link #finalizeJob(String, Job)} else null
+     */
+    @Nullable
+    Job handleJobStatus(final JobFinishedEvent event) {
+        final long start = System.nanoTime();
+        final Set<Tag> tags = Sets.newHashSet();
+
+        try {
+            final Job job = this.recordJobCompletion(event, tags);
+            MetricsUtils.addSuccessTags(tags);
+            return job;
+        } catch (final Exception e) {
+            log.error("Failed getting job with id: {}", event.getId(), e);
+            MetricsUtils.addFailureTagsWithException(tags, e);
+            return null;
+        } finally {
+            this.registry
+                .timer(JOB_COMPLETION_STATUS_TIMER_NAME, tags)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Second stage of handling a job completion. Archives the job directory and sends the completion email. Failures
+     * are logged and counted rather than thrown.
+     *
+     * @param jobId The id of the job
+     * @param job   The job returned by {@link #handleJobStatus(JobFinishedEvent)}
+     */
+    void finalizeJob(final String jobId, final Job job) {
+        try {
+            this.retryTemplate.execute(context -> this.processJobDir(job));
+        } catch (final Exception e) {
+            log.error("Failed archiving directory for job: {}", jobId, e);
+            this.incrementErrorCounter("JOB_DIRECTORY_FAILURE", e);
+        }
+        try {
+            this.retryTemplate.execute(context -> sendEmail(jobId));
+        } catch (final Exception e) {
+            log.error("Failed sending email for job: {}", jobId, e);
+            this.incrementErrorCounter("JOB_UPDATE_FAILURE", e);
+        }
+    }
+
+    @Nullable
+    private Job recordJobCompletion(
+        final JobFinishedEvent event,
+        final Set<Tag> tags
+    ) throws GenieException {
+        final String jobId = event.getId();
+        final Job job = this.retryTemplate.execute(context -> this.getJob(jobId));
+
+        // Make sure the job isn't already done before doing something
+        if (!job.getStatus().isActive()) {
+            return null;
+        }
+        try {
+            this.retryTemplate.execute(context -> this.updateJob(job, event, tags));
+        } catch (final Exception e) {
+            log.error("Failed updating for job: {}", jobId, e);
+        }
+        return job;
+    }
+
     private Job getJob(final String jobId) throws GenieException {
         return this.jobSearchService.getJob(jobId);
     }
@@ -513,6 +595,11 @@ public class JobCompletionService {
                 final Optional<String> archiveLocation = job.getArchiveLocation();
                 if (archiveLocation.isPresent() && !Strings.isNullOrEmpty(archiveLocation.get())) {
                     log.debug("Archiving job directory");
+                    if (this.archiveCompressors != null) {
+                        this.streamJobDirArchive(jobId, jobDir, archiveLocation.get());
+                        return true;
+                    }
+
                     // Create the tar file
                     final File localArchiveFile = new File(jobDir, "genie/logs/" + jobId + ".tar.gz");
 
@@ -576,6 +663,123 @@ public class JobCompletionService {
         return result;
     }
 
+    /**
+     * Tar the job directory, compress it in parallel and stream the result straight to the archive location without
+     * ever writing an archive file locally.
+     *
+     * @param jobId           The id of the job
+     * @param jobDir          The job directory
+     * @param archiveLocation The location to write the archive to
+     * @throws GenieException On error opening the archive location
+     * @throws IOException    On error creating or uploading the archive
+     */
+    void streamJobDirArchive(
+        final String jobId,
+        final File jobDir,
+        final String archiveLocation
+    ) throws GenieException, IOException {
+        final long start = System.nanoTime();
+        final CommandLine commandLine;
+        if (this.runAsUserEnabled) {
+            commandLine = new CommandLine("sudo");
+            commandLine.addArgument("tar");
+        } else {
+            commandLine = new CommandLine("tar");
+        }
+        // Write the uncompressed tar to stdout
+        commandLine
+            .addArgument("-c")
+            .addArgument("-f")
+            .addArgument("-")
+            .addArgument("./");
+
+        final ParallelGzipOutputStream archive = new ParallelGzipOutputStream(
+            this.genieFileTransferService.putStream(archiveLocation),
+            this.archiveCompressors,
+            this.archiveCompressionBlockSize,
+            this.archiveMaxPendingBlocks
+        );
+        try {
+            log.debug("Archive command : {}", commandLine);
+            streamCommandOutput(commandLine, jobDir, archive, this.archiveStreamingTimeout);
+        } catch (Throwable t) {
+            log.warn("Failed to stream archive of job files for job: {}", jobId, t);
+            incrementErrorCounter("JOB_ARCHIVAL_FAILURE", t);
+            throw t;
+        }
+
+        final long uncompressed = archive.getBytesIn();
+        final long compressed = archive.getBytesOut();
+        final double seconds = Math.max(System.nanoTime() - start, 1L) / (double) TimeUnit.SECONDS.toNanos(1L);
+        log.debug("Archived {} bytes as {} bytes for job {} in {}s", uncompressed, compressed, jobId, seconds);
+        this.registry.summary(ARCHIVE_UNCOMPRESSED_SUMMARY_NAME).record(uncompressed);
+        this.registry.summary(ARCHIVE_COMPRESSED_SUMMARY_NAME).record(compressed);
+        this.registry.counter(ARCHIVE_BYTES_SAVED_COUNTER_NAME).increment(Math.max(uncompressed - compressed, 0L));
+        this.registry.summary(ARCHIVE_THROUGHPUT_SUMMARY_NAME).record(uncompressed / seconds);
+    }
+
+    /**
+     * Run a command and copy its standard output to the given stream on the calling thread. The stream is only closed
+     * (committing the data) if the command succeeds. If the command fails or times out, or the output can't be
+     * written, the process is destroyed and the stream aborted so a write failure can never leave the command blocked
+     * on a full pipe.
+     *
+     * @param commandLine The command to run
+     * @param workingDir  The directory to run the command in
+     * @param out         The stream to copy the output of the command to
+     * @param timeout     The maximum time in milliseconds the command may run for. 0 for no limit
+     * @throws IOException On error running the command or writing its output
+     */
+    static void streamCommandOutput(
+        final CommandLine commandLine,
+        final File workingDir,
+        final ParallelGzipOutputStream out,
+        final long timeout
+    ) throws IOException {
+        final Process process = new ProcessBuilder(commandLine.toStrings())
+            .directory(workingDir)
+            .redirectError(ProcessBuilder.Redirect.appendTo(NULL_FILE))
+            .start();
+        final ExecuteWatchdog watchdog = new ExecuteWatchdog(timeout > 0 ? timeout : ExecuteWatchdog.INFINITE_TIMEOUT);
+        watchdog.start(process);
+        boolean succeeded = false;
+        try {
+            try (InputStream output = process.getInputStream()) {
+                IOUtils.copy(output, out);
+            }
+            final int exitValue = process.waitFor();
+            watchdog.stop();
+            if (watchdog.killedProcess()) {
+                throw new IOException("Command " + commandLine + " timed out after " + timeout + "ms");
+            }
+            if (exitValue != 0) {
+                throw new IOException("Command " + commandLine + " failed with exit code " + exitValue);
+            }
+            // Closing flushes the last blocks and commits the output
+            out.close();
+            succeeded = true;
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + commandLine);
+        } finally {
+            if (!succeeded) {
+                watchdog.stop();
+                process.destroyForcibly();
+                out.abort();
+            }
+        }
+    }
+
+    /**
+     * Stop the threads used to compress streamed archives.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (this.archiveCompressors != null) {
+            this.archiveCompressors.shutdownNow();
+        }
+    }
+
     /**
      * Sends an email when the job is completed. Returns true if an email has been sent.
      *
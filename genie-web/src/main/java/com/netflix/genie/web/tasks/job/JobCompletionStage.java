@@ -0,0 +1,246 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.job;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.netflix.genie.common.dto.Job;
+import com.netflix.genie.web.events.JobFinishedEvent;
+import com.netflix.genie.web.properties.JobsCompletionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands job completions to the {@link JobCompletionService} off the event thread.
+ * <p>
+ * When staging is enabled each completion goes through two bounded worker pools. The first only records the final
+ * status of the job in the database so it is visible as soon as possible. The second does the slow disk and remote
+ * work of archiving the job directory and sending the email. A burst of completions therefore queues up here rather
+ * than in the shared asynchronous event pool. Completions are never dropped. When the status queue is full the
+ * submitting thread records the status itself. When the archive queue is full the status thread waits for room rather
+ * than archiving itself, so the backlog pushes back on the status stage, and from there on the submitter, without
+ * slow archiving ever holding up the recording of statuses. When staging is disabled completions are handled inline
+ * on the calling thread as before.
+ *
+ * @since 4.0.0
+ */
+@Slf4j
+public class JobCompletionStage {
+
+    static final String QUEUE_DEPTH_GAUGE_NAME = "genie.jobs.completion.queueDepth.gauge";
+    static final String QUEUE_WAIT_TIMER_NAME = "genie.jobs.completion.queueWait.timer";
+    static final String REJECTIONS_COUNTER_NAME = "genie.jobs.completion.rejections.counter";
+    static final String STAGE_TAG_KEY = "stage";
+    static final String STATUS_STAGE = "status";
+    static final String ARCHIVE_STAGE = "archive";
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30L;
+
+    private final JobCompletionService jobCompletionService;
+    private final int queueCapacity;
+    // Both are only set when staging is enabled
+    private final Worker statusWorker;
+    private final Worker archiveWorker;
+
+    /**
+     * Constructor.
+     *
+     * @param jobCompletionService The service doing the actual work of completing a job
+     * @param properties           The properties configuring the stages
+     * @param registry             The metrics registry to use
+     */
+    public JobCompletionStage(
+        final JobCompletionService jobCompletionService,
+        final JobsCompletionProperties properties,
+        final MeterRegistry registry
+    ) {
+        this.jobCompletionService = jobCompletionService;
+        this.queueCapacity = properties.getQueueCapacity();
+        if (properties.isStagedEnabled()) {
+            this.statusWorker
+                = new Worker(STATUS_STAGE, properties.getStatusThreads(), this.queueCapacity, true, registry);
+            this.archiveWorker
+                = new Worker(ARCHIVE_STAGE, properties.getArchiveThreads(), this.queueCapacity, false, registry);
+        } else {
+            this.statusWorker = null;
+            this.archiveWorker = null;
+        }
+    }
+
+    /**
+     * Submit the completion of a job for handling.
+     *
+     * @param event The job finished event
+     */
+    public void submit(final JobFinishedEvent event) {
+        if (this.statusWorker == null || this.archiveWorker == null) {
+            this.jobCompletionService.handleJobCompletion(event);
+            return;
+        }
+        this.statusWorker.submit(
+            () -> {
+                final Job job = this.jobCompletionService.handleJobStatus(event);
+                if (job != null) {
+                    this.archiveWorker.submit(() -> this.jobCompletionService.finalizeJob(event.getId(), job));
+                }
+            }
+        );
+    }
+
+    /**
+     * Whether completions are handled by the staged worker pools.
+     *
+     * @return true if staging is enabled
+     */
+    public boolean isStaged() {
+        return this.statusWorker != null;
+    }
+
+    /**
+     * Get the maximum number of completions which can wait in each stage.
+     *
+     * @return The queue capacity
+     */
+    public int getQueueCapacity() {
+        return this.queueCapacity;
+    }
+
+    /**
+     * Get the number of completions waiting for, or in the middle of, having their final status recorded.
+     *
+     * @return The backlog. Always 0 when staging is disabled
+     */
+    public int getStatusBacklog() {
+        return this.statusWorker == null ? 0 : this.statusWorker.getBacklog();
+    }
+
+    /**
+     * Get the number of completed jobs waiting for, or in the middle of, being archived.
+     *
+     * @return The backlog. Always 0 when staging is disabled
+     */
+    public int getArchiveBacklog() {
+        return this.archiveWorker == null ? 0 : this.archiveWorker.getBacklog();
+    }
+
+    /**
+     * Stop accepting new work and give the queued completions a chance to finish.
+     */
+    @PreDestroy
+    public void shutdown() {
+        // Shut down in order as the status stage feeds the archive stage
+        if (this.statusWorker != null) {
+            this.statusWorker.shutdown();
+        }
+        if (this.archiveWorker != null) {
+            this.archiveWorker.shutdown();
+        }
+    }
+
+    /**
+     * A bounded pool of threads for one stage.
+     */
+    private static final class Worker {
+        private final String stage;
+        private final ThreadPoolExecutor executor;
+        private final Timer queueWaitTimer;
+        private final Counter rejections;
+
+        Worker(
+            final String stage,
+            final int threads,
+            final int queueCapacity,
+            final boolean callerRuns,
+            final MeterRegistry registry
+        ) {
+            this.stage = stage;
+            final Tags tags = Tags.of(STAGE_TAG_KEY, stage);
+            final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>(queueCapacity);
+            this.queueWaitTimer = registry.timer(QUEUE_WAIT_TIMER_NAME, tags);
+            this.rejections = registry.counter(REJECTIONS_COUNTER_NAME, tags);
+            this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                queue,
+                new ThreadFactoryBuilder().setNameFormat("genie-job-completion-" + stage + "-%d").build(),
+                (task, executor) -> {
+                    this.rejections.increment();
+                    if (callerRuns) {
+                        // Never drop a completion. Make the submitter do the work instead.
+                        task.run();
+                    } else if (executor.isShutdown()) {
+                        log.error("Job completion {} stage is shut down. Dropping a completion.", stage);
+                    } else {
+                        // Never drop a completion but don't do the work of this stage on another stage's thread
+                        try {
+                            executor.getQueue().put(task);
+                        } catch (final InterruptedException e) {
+                            log.error("Interrupted waiting for room in the job completion {} stage", stage, e);
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+            );
+            registry.gauge(QUEUE_DEPTH_GAUGE_NAME, tags, queue, BlockingQueue::size);
+        }
+
+        void submit(final Runnable task) {
+            final long queuedAt = System.nanoTime();
+            this.executor.execute(
+                () -> {
+                    this.queueWaitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                    try {
+                        task.run();
+                    } catch (final RuntimeException e) {
+                        log.error("Unexpected error in job completion {} stage", this.stage, e);
+                    }
+                }
+            );
+        }
+
+        int getBacklog() {
+            return this.executor.getQueue().size() + this.executor.getActiveCount();
+        }
+
+        void shutdown() {
+            this.executor.shutdown();
+            try {
+                if (!this.executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    log.warn(
+                        "{} job completions still pending in {} stage at shutdown",
+                        this.executor.getQueue().size(),
+                        this.stage
+                    );
+                    this.executor.shutdownNow();
+                }
+            } catch (final InterruptedException e) {
+                this.executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
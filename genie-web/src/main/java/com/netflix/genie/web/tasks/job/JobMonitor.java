@@ -39,11 +39,13 @@ import org.apache.commons.exec.Executor;
 import org.apache.commons.lang3.SystemUtils;
 import org.springframework.scheduling.Trigger;
 
+import javax.annotation.Nullable;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
+import java.util.function.LongSupplier;
 
 /**
  * Given a process id this class will check if the job client process is running or not.
@@ -61,8 +63,8 @@ public class JobMonitor extends NodeTask {
     private final JobExecution execution;
     private final ProcessChecker processChecker;
     private final GenieEventBus genieEventBus;
-    private final File stdOut;
-    private final File stdErr;
+    private final LongSupplier stdOutLength;
+    private final LongSupplier stdErrLength;
     private final long maxStdOutLength;
     private final long maxStdErrLength;
     private final Trigger trigger;
@@ -95,6 +97,32 @@ public class JobMonitor extends NodeTask {
         @NonNull final GenieEventBus genieEventBus,
         @NotNull final MeterRegistry registry,
         @NotNull final JobsProperties jobsProperties
+    ) {
+        this(execution, stdOut, stdErr, executor, genieEventBus, registry, jobsProperties, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param execution      The job execution object including the pid
+     * @param stdOut         The std out output file
+     * @param stdErr         The std err output file
+     * @param executor       The process executor to use
+     * @param genieEventBus  The event bus implementation to use
+     * @param registry       The metrics event registry
+     * @param jobsProperties The properties for jobs
+     * @param processSweeper The sweeper to register the job process with. If null the process and output files are
+     *                       checked directly on every run
+     */
+    JobMonitor(
+        @Valid final JobExecution execution,
+        @NotNull final File stdOut,
+        @NotNull final File stdErr,
+        @NotNull final Executor executor,
+        @NonNull final GenieEventBus genieEventBus,
+        @NotNull final MeterRegistry registry,
+        @NotNull final JobsProperties jobsProperties,
+        @Nullable final ProcessSweeper processSweeper
     ) {
         if (!SystemUtils.IS_OS_UNIX) {
             throw new UnsupportedOperationException("Genie doesn't currently support " + SystemUtils.OS_NAME);
@@ -107,10 +135,16 @@ public class JobMonitor extends NodeTask {
 
         final int processId = execution.getProcessId().orElseThrow(IllegalArgumentException::new);
         final Instant timeout = execution.getTimeout().orElseThrow(IllegalArgumentException::new);
-        this.processChecker = new UnixProcessChecker(processId, executor, timeout);
-
-        this.stdOut = stdOut;
-        this.stdErr = stdErr;
+        if (processSweeper != null) {
+            final ProcessSweeper.Checker checker = processSweeper.register(this.id, processId, timeout, stdOut, stdErr);
+            this.processChecker = checker;
+            this.stdOutLength = checker::getStdOutLength;
+            this.stdErrLength = checker::getStdErrLength;
+        } else {
+            this.processChecker = new UnixProcessChecker(processId, executor, timeout);
+            this.stdOutLength = () -> stdOut.exists() ? stdOut.length() : 0L;
+            this.stdErrLength = () -> stdErr.exists() ? stdErr.length() : 0L;
+        }
 
         this.maxStdOutLength = jobsProperties.getMax().getStdOutSize();
         this.maxStdErrLength = jobsProperties.getMax().getStdErrSize();
@@ -144,7 +178,7 @@ public class JobMonitor extends NodeTask {
                 this.errorCount = 0;
             }
 
-            if (this.stdOut.exists() && this.stdOut.length() > this.maxStdOutLength) {
+            if (this.stdOutLength.getAsLong() > this.maxStdOutLength) {
                 this.genieEventBus.publishSynchronousEvent(
                     new KillJobEvent(this.id, JobStatusMessages.JOB_EXCEEDED_STDOUT_LENGTH, this)
                 );
@@ -152,7 +186,7 @@ public class JobMonitor extends NodeTask {
                 return;
             }
 
-            if (this.stdErr.exists() && this.stdErr.length() > this.maxStdErrLength) {
+            if (this.stdErrLength.getAsLong() > this.maxStdErrLength) {
                 this.genieEventBus.publishSynchronousEvent(
                     new KillJobEvent(this.id, JobStatusMessages.JOB_EXCEEDED_STDERR_LENGTH, this)
                 );
@@ -29,6 +29,7 @@ import com.netflix.genie.web.events.GenieEventBus;
 import com.netflix.genie.web.events.JobFinishedEvent;
 import com.netflix.genie.web.events.JobFinishedReason;
 import com.netflix.genie.web.events.JobStartedEvent;
+import com.netflix.genie.web.jobs.JobProcessExitNotifier;
 import com.netflix.genie.web.properties.JobsProperties;
 import com.netflix.genie.web.services.JobSearchService;
 import com.netflix.genie.web.services.JobSubmitterService;
@@ -47,6 +48,7 @@ import org.springframework.core.io.Resource;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.util.Set;
@@ -68,6 +70,9 @@ public class JobMonitoringCoordinator extends JobStateServiceImpl {
     private final Executor executor;
     private final File jobsDir;
     private final JobsProperties jobsProperties;
+    @Nullable
+    private final ProcessSweeper processSweeper;
+    private final JobProcessExitNotifier processExitNotifier;
 
     private final Counter unableToReAttach;
 
@@ -83,6 +88,7 @@ public class JobMonitoringCoordinator extends JobStateServiceImpl {
      * @param jobsDir             The directory where job output is stored
      * @param jobsProperties      The properties pertaining to jobs
      * @param jobSubmitterService implementation of the job submitter service
+     * @param processExitNotifier The notifier which detects the exit of job processes launched by this node
      * @throws IOException on error with the filesystem
      */
     @Autowired
@@ -95,7 +101,8 @@ public class JobMonitoringCoordinator extends JobStateServiceImpl {
         final MeterRegistry registry,
         final Resource jobsDir,
         final JobsProperties jobsProperties,
-        final JobSubmitterService jobSubmitterService
+        final JobSubmitterService jobSubmitterService,
+        final JobProcessExitNotifier processExitNotifier
     ) throws IOException {
         super(jobSubmitterService, scheduler, genieEventBus, registry);
         this.hostname = genieHostInfo.getHostname();
@@ -103,6 +110,16 @@ public class JobMonitoringCoordinator extends JobStateServiceImpl {
         this.executor = executor;
         this.jobsDir = jobsDir.getFile();
         this.jobsProperties = jobsProperties;
+        this.processExitNotifier = processExitNotifier;
+        if (jobsProperties.getProcessCheck().isSweepEnabled() && ProcessSweeper.isSupported()) {
+            this.processSweeper = new ProcessSweeper(
+                scheduler,
+                jobsProperties.getProcessCheck().getSweepInterval(),
+                registry
+            );
+        } else {
+            this.processSweeper = null;
+        }
 
         // Automatically track the number of jobs running on this node
         this.unableToReAttach = registry.counter("genie.jobs.unableToReAttach.rate");
@@ -132,6 +149,10 @@ public class JobMonitoringCoordinator extends JobStateServiceImpl {
         final String jobId = event.getJobExecution().getId().orElseThrow(IllegalArgumentException::new);
         setMemoryAndTask(jobId, event.getJobExecution().getMemory().orElse(0),
             scheduleMonitor(event.getJobExecution()));
+        // Now the job is tracked as running its completion can be signalled by the process exiting
+        if (this.processExitNotifier.watch(jobId)) {
+            log.debug("Watching for the process of job {} to exit", jobId);
+        }
     }
 
     /**
@@ -145,6 +166,18 @@ public class JobMonitoringCoordinator extends JobStateServiceImpl {
         this.done(event.getId());
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void done(final String jobId) throws GenieException {
+        super.done(jobId);
+        this.processExitNotifier.unregister(jobId);
+        if (this.processSweeper != null) {
+            this.processSweeper.unregister(jobId);
+        }
+    }
+
     private void reAttach(final ApplicationEvent event) throws GenieException {
         log.info("Application is ready according to event {}. Attempting to re-attach to any active jobs", event);
         final Set<Job> jobsOnHost = this.jobSearchService.getAllActiveJobsOnHost(this.hostname);
@@ -196,7 +229,8 @@ public class JobMonitoringCoordinator extends JobStateServiceImpl {
             this.executor,
             this.genieEventBus,
             this.registry,
-            this.jobsProperties
+            this.jobsProperties,
+            this.processSweeper
         );
         final ScheduledFuture<?> future;
         switch (monitor.getScheduleType()) {
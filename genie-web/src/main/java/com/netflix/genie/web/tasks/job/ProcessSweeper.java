@@ -0,0 +1,207 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.job;
+
+import com.netflix.genie.common.exceptions.GenieTimeoutException;
+import com.netflix.genie.web.util.ProcessChecker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.exec.ExecuteException;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks the processes of all the jobs running on this node in a single periodic sweep rather than forking a
+ * {@code ps} per job per check.
+ * <p>
+ * Each sweep stats {@code /proc/<pid>} and the standard output and error files of every registered job and records
+ * the results. The {@link JobMonitor} of each job still runs on its own back-off trigger but its
+ * {@link ProcessChecker} and output size checks read the most recent sweep results instead of touching the system.
+ *
+ * @since 4.0.0
+ */
+@Slf4j
+public class ProcessSweeper implements Runnable {
+
+    static final String SWEEP_TIMER_NAME = "genie.jobs.processSweeper.sweep.timer";
+    static final String WATCHED_GAUGE_NAME = "genie.jobs.processSweeper.watched.gauge";
+    private static final File DEFAULT_PROC_DIRECTORY = new File("/proc");
+
+    private final Map<String, Checker> checkers = new ConcurrentHashMap<>();
+    private final File procDirectory;
+    private final Timer sweepTimer;
+
+    /**
+     * Constructor. Schedules the sweep on the given scheduler.
+     *
+     * @param scheduler     The scheduler to run the sweep on
+     * @param sweepInterval The delay (in milliseconds) between the end of one sweep and the start of the next
+     * @param registry      The metrics registry to use
+     */
+    public ProcessSweeper(final TaskScheduler scheduler, final long sweepInterval, final MeterRegistry registry) {
+        this(scheduler, sweepInterval, registry, DEFAULT_PROC_DIRECTORY);
+    }
+
+    /**
+     * Constructor for testing with a different directory standing in for {@code /proc}.
+     *
+     * @param scheduler     The scheduler to run the sweep on
+     * @param sweepInterval The delay (in milliseconds) between the end of one sweep and the start of the next
+     * @param registry      The metrics registry to use
+     * @param procDirectory The directory containing a sub directory per running process id
+     */
+    ProcessSweeper(
+        final TaskScheduler scheduler,
+        final long sweepInterval,
+        final MeterRegistry registry,
+        final File procDirectory
+    ) {
+        this.procDirectory = procDirectory;
+        this.sweepTimer = registry.timer(SWEEP_TIMER_NAME);
+        registry.gauge(WATCHED_GAUGE_NAME, this.checkers, Map::size);
+        scheduler.scheduleWithFixedDelay(this, sweepInterval);
+    }
+
+    /**
+     * Whether process liveness can be checked without forking on this system.
+     *
+     * @return true if {@code /proc} is available
+     */
+    public static boolean isSupported() {
+        return new File(DEFAULT_PROC_DIRECTORY, "self").isDirectory();
+    }
+
+    /**
+     * Start watching the process of a job.
+     *
+     * @param jobId   The id of the job
+     * @param pid     The id of the job process
+     * @param timeout The time after which the job should be killed due to timeout
+     * @param stdOut  The standard output file of the job
+     * @param stdErr  The standard error file of the job
+     * @return The checker whose results are updated by every sweep until the job is unregistered
+     */
+    public Checker register(
+        final String jobId,
+        final int pid,
+        final Instant timeout,
+        final File stdOut,
+        final File stdErr
+    ) {
+        final Checker checker = new Checker(pid, timeout, stdOut, stdErr);
+        this.checkers.put(jobId, checker);
+        return checker;
+    }
+
+    /**
+     * Stop watching the process of a job.
+     *
+     * @param jobId The id of the job
+     */
+    public void unregister(final String jobId) {
+        this.checkers.remove(jobId);
+    }
+
+    /**
+     * Check every registered job once.
+     */
+    @Override
+    public void run() {
+        if (this.checkers.isEmpty()) {
+            return;
+        }
+        final long start = System.nanoTime();
+        try {
+            for (final Checker checker : this.checkers.values()) {
+                checker.update(new File(this.procDirectory, Integer.toString(checker.pid)).exists());
+            }
+        } catch (final Throwable t) {
+            // Never let the exception escape or the scheduler will stop running the sweep
+            log.error("Unable to sweep job processes", t);
+        } finally {
+            this.sweepTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * A {@link ProcessChecker} for a single job which reports the state seen by the most recent sweep.
+     */
+    public static final class Checker implements ProcessChecker {
+        private final int pid;
+        private final Instant timeout;
+        private final File stdOut;
+        private final File stdErr;
+        // Until the first sweep the process is assumed to be running
+        private volatile boolean running = true;
+        private volatile long stdOutLength;
+        private volatile long stdErrLength;
+
+        private Checker(final int pid, final Instant timeout, final File stdOut, final File stdErr) {
+            this.pid = pid;
+            this.timeout = timeout;
+            this.stdOut = stdOut;
+            this.stdErr = stdErr;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void checkProcess() throws GenieTimeoutException, ExecuteException {
+            if (!this.running) {
+                throw new ExecuteException("Process " + this.pid + " is no longer running", 1);
+            }
+
+            // If we get here the process is still running. Check if it should be killed due to timeout.
+            if (Instant.now().isAfter(this.timeout)) {
+                throw new GenieTimeoutException("Job has exceeded its timeout time of " + this.timeout);
+            }
+        }
+
+        /**
+         * Get the length of the standard output file as of the last sweep.
+         *
+         * @return The length in bytes. 0 if the file doesn't exist.
+         */
+        public long getStdOutLength() {
+            return this.stdOutLength;
+        }
+
+        /**
+         * Get the length of the standard error file as of the last sweep.
+         *
+         * @return The length in bytes. 0 if the file doesn't exist.
+         */
+        public long getStdErrLength() {
+            return this.stdErrLength;
+        }
+
+        private void update(final boolean processExists) {
+            // File.length() returns 0 for files which don't exist
+            this.stdOutLength = this.stdOut.length();
+            this.stdErrLength = this.stdErr.length();
+            this.running = processExists;
+        }
+    }
+}
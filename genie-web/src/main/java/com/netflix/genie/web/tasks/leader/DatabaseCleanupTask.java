@@ -27,6 +27,7 @@ import com.netflix.genie.web.services.TagPersistenceService;
 import com.netflix.genie.web.tasks.GenieTaskScheduleType;
 import com.netflix.genie.web.tasks.TaskUtils;
 import com.netflix.genie.web.util.MetricsUtils;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
 import lombok.extern.slf4j.Slf4j;
@@ -36,9 +37,12 @@ import org.springframework.scheduling.support.CronTrigger;
 import javax.validation.constraints.NotNull;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
 
 /**
  * A task which will clean up the database of old jobs if desired.
@@ -50,6 +54,11 @@ import java.util.concurrent.atomic.AtomicLong;
 public class DatabaseCleanupTask extends LeadershipTask {
 
     private static final String DATABASE_CLEANUP_DURATION_TIMER_NAME = "genie.tasks.databaseCleanup.duration.timer";
+    static final String UNUSED_REFERENCES_DELETED_COUNTER_NAME
+        = "genie.tasks.databaseCleanup.unusedReferences.deleted.counter";
+    static final String UNUSED_REFERENCES_BATCHES_COUNTER_NAME
+        = "genie.tasks.databaseCleanup.unusedReferences.batches.counter";
+    private static final String REFERENCE_TYPE_TAG_NAME = "type";
     private final DatabaseCleanupProperties cleanupProperties;
     private final JobPersistenceService jobPersistenceService;
     private final ClusterPersistenceService clusterPersistenceService;
@@ -162,7 +171,17 @@ public class DatabaseCleanupTask extends LeadershipTask {
                 log.debug("Skipping files cleanup");
                 this.numDeletedFiles.set(0);
             } else {
-                final long countDeletedFiles = this.filePersistenceService.deleteUnusedFiles(creationThreshold);
+                final long countDeletedFiles = this.cleanupProperties.getUnusedReferenceBatchSize() > 0
+                    ? this.collectUnusedReferences(
+                        "files",
+                        lastId -> this.filePersistenceService.findUnusedFileIds(
+                            creationThreshold,
+                            lastId,
+                            this.cleanupProperties.getUnusedReferenceBatchSize()
+                        ),
+                        this.filePersistenceService::deleteFilesIfUnused
+                    )
+                    : this.filePersistenceService.deleteUnusedFiles(creationThreshold);
                 log.info(
                     "Deleted {} files that were unused by any resource and created over an hour ago",
                     countDeletedFiles
@@ -174,7 +193,17 @@ public class DatabaseCleanupTask extends LeadershipTask {
                 log.debug("Skipping tags cleanup");
                 this.numDeletedTags.set(0);
             } else {
-                final long countDeletedTags = this.tagPersistenceService.deleteUnusedTags(creationThreshold);
+                final long countDeletedTags = this.cleanupProperties.getUnusedReferenceBatchSize() > 0
+                    ? this.collectUnusedReferences(
+                        "tags",
+                        lastId -> this.tagPersistenceService.findUnusedTagIds(
+                            creationThreshold,
+                            lastId,
+                            this.cleanupProperties.getUnusedReferenceBatchSize()
+                        ),
+                        this.tagPersistenceService::deleteTagsIfUnused
+                    )
+                    : this.tagPersistenceService.deleteUnusedTags(creationThreshold);
                 log.info(
                     "Deleted {} tags that were unused by any resource and created over an hour ago",
                     countDeletedTags
@@ -210,6 +239,10 @@ public class DatabaseCleanupTask extends LeadershipTask {
         final int batchSize = this.cleanupProperties.getMaxDeletedPerTransaction();
         final int pageSize = this.cleanupProperties.getPageSize();
 
+        if (this.cleanupProperties.isBulkDelete()) {
+            return this.bulkDeleteJobs(retentionLimit, batchSize);
+        }
+
         log.info(
             "Attempting to delete jobs from before {} in batches of {} jobs per iteration",
             retentionLimit,
@@ -229,4 +262,87 @@ public class DatabaseCleanupTask extends LeadershipTask {
         }
         return totalDeletedJobs;
     }
+
+    private long bulkDeleteJobs(final Instant retentionLimit, final int maxChunkSize) {
+        final JobRetentionPacer pacer = new JobRetentionPacer(
+            maxChunkSize,
+            this.cleanupProperties.getTargetTransactionLatency(),
+            this.cleanupProperties.getMaxDeletedPerSecond()
+        );
+        final long maxDuration = TimeUnit.MILLISECONDS.toNanos(this.cleanupProperties.getMaxDuration());
+        final long start = System.nanoTime();
+
+        log.info("Attempting to bulk delete jobs from before {} in chunks of at most {}", retentionLimit, maxChunkSize);
+        long totalDeletedJobs = 0;
+        while (true) {
+            final int chunkSize = pacer.getChunkSize();
+            final long chunkStart = System.nanoTime();
+            final long numberDeletedJobs = this.jobPersistenceService.bulkDeleteJobsCreatedBeforeDate(
+                retentionLimit,
+                chunkSize
+            );
+            final long chunkEnd = System.nanoTime();
+            totalDeletedJobs += numberDeletedJobs;
+            if (numberDeletedJobs < chunkSize) {
+                break;
+            }
+            // Every chunk commits on its own and the oldest jobs go first so a run cut short here just leaves the
+            // rest for the next run
+            if (maxDuration > 0 && chunkEnd - start >= maxDuration) {
+                log.info(
+                    "Stopping job deletion after {} jobs. The rest will be deleted on the next run",
+                    totalDeletedJobs
+                );
+                break;
+            }
+            final long pause = pacer.record(numberDeletedJobs, chunkEnd - chunkStart);
+            if (pause > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(pause);
+                } catch (final InterruptedException ie) {
+                    log.info("Interrupted while deleting jobs after {} jobs", totalDeletedJobs);
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        return totalDeletedJobs;
+    }
+
+    /*
+     * Walk the unused references in id order one small batch at a time. Finding a batch takes no locks and deleting
+     * it re-checks each row is still unused and locks only the rows deleted, so concurrent job inserts are never
+     * blocked for long. Rows which became used in between are skipped by the keyset.
+     */
+    private long collectUnusedReferences(
+        final String type,
+        final LongFunction<List<Long>> findUnusedIds,
+        final ToLongFunction<Set<Long>> deleteIfUnused
+    ) {
+        final Counter deletedCounter = this.registry.counter(
+            UNUSED_REFERENCES_DELETED_COUNTER_NAME,
+            REFERENCE_TYPE_TAG_NAME,
+            type
+        );
+        final Counter batchesCounter = this.registry.counter(
+            UNUSED_REFERENCES_BATCHES_COUNTER_NAME,
+            REFERENCE_TYPE_TAG_NAME,
+            type
+        );
+        long lastId = 0L;
+        long totalDeleted = 0L;
+        while (true) {
+            final List<Long> ids = findUnusedIds.apply(lastId);
+            if (ids.isEmpty()) {
+                break;
+            }
+            final long deleted = deleteIfUnused.applyAsLong(Sets.newHashSet(ids));
+            totalDeleted += deleted;
+            deletedCounter.increment(deleted);
+            batchesCounter.increment();
+            lastId = ids.get(ids.size() - 1);
+            log.debug("Deleted {} unused {} up to id {}", totalDeleted, type, lastId);
+        }
+        return totalDeleted;
+    }
 }
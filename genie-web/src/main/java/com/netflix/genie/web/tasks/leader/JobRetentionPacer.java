@@ -0,0 +1,89 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.leader;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces the deletion of old jobs in chunks so it doesn't swamp the database.
+ * <p>
+ * The chunk size adapts to the time each chunk takes: it's halved when a chunk takes longer than the target latency
+ * and grows by a tenth of the maximum when a chunk takes less than half of it. Independently, the pause before the
+ * next chunk keeps the average rate at or below the maximum number of jobs deleted per second. Not thread safe.
+ *
+ * @since 4.0.0
+ */
+final class JobRetentionPacer {
+
+    private final int maxChunkSize;
+    private final int chunkSizeStep;
+    private final long targetLatencyNanos;
+    private final int maxDeletedPerSecond;
+    private int chunkSize;
+
+    /**
+     * Constructor.
+     *
+     * @param maxChunkSize        The maximum number of jobs to delete in one chunk
+     * @param targetLatency       The time (in milliseconds) a chunk should take at most. 0 to always use the maximum
+     *                            chunk size
+     * @param maxDeletedPerSecond The maximum average number of jobs to delete per second. 0 for no limit
+     */
+    JobRetentionPacer(final int maxChunkSize, final long targetLatency, final int maxDeletedPerSecond) {
+        if (maxChunkSize < 1) {
+            throw new IllegalArgumentException("The maximum chunk size must be positive");
+        }
+        this.maxChunkSize = maxChunkSize;
+        this.chunkSizeStep = Math.max(1, maxChunkSize / 10);
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatency);
+        this.maxDeletedPerSecond = maxDeletedPerSecond;
+        // Without a latency target there is nothing to adapt to. Otherwise start small and work up to it
+        this.chunkSize = this.targetLatencyNanos > 0 ? this.chunkSizeStep : maxChunkSize;
+    }
+
+    /**
+     * Get the number of jobs to delete in the next chunk.
+     *
+     * @return The chunk size
+     */
+    int getChunkSize() {
+        return this.chunkSize;
+    }
+
+    /**
+     * Record the outcome of a chunk and adjust the size of the next one.
+     *
+     * @param deleted      The number of jobs the chunk deleted
+     * @param elapsedNanos How long the chunk took in nanoseconds
+     * @return How long to pause, in nanoseconds, before the next chunk
+     */
+    long record(final long deleted, final long elapsedNanos) {
+        if (this.targetLatencyNanos > 0) {
+            if (elapsedNanos > this.targetLatencyNanos) {
+                this.chunkSize = Math.max(1, this.chunkSize / 2);
+            } else if (elapsedNanos < this.targetLatencyNanos / 2) {
+                this.chunkSize = Math.min(this.maxChunkSize, this.chunkSize + this.chunkSizeStep);
+            }
+        }
+        if (this.maxDeletedPerSecond > 0 && deleted > 0) {
+            final long minimumNanos = TimeUnit.SECONDS.toNanos(deleted) / this.maxDeletedPerSecond;
+            return Math.max(0L, minimumNanos - elapsedNanos);
+        }
+        return 0L;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+/**
+ * An output stream whose data is only committed to its destination when it is closed. If something goes wrong while
+ * producing the data {@link #abort()} should be called instead so no partial data is ever committed.
+ *
+ * @since 4.0.0
+ */
+@Slf4j
+public abstract class AbortableOutputStream extends OutputStream {
+
+    /**
+     * Discard everything written to this stream and release any resources held. Closing the stream after it has been
+     * aborted does nothing.
+     */
+    public abstract void abort();
+
+    /**
+     * Create a stream which spools the data written to a local temporary file and hands it to the given committer
+     * when closed. The temporary file is deleted afterwards either way.
+     *
+     * @param committer The action to commit the spooled data to its destination
+     * @return The stream
+     * @throws IOException If the temporary file can't be created
+     */
+    public static AbortableOutputStream spoolToFile(final SpoolCommitter committer) throws IOException {
+        final File spool = File.createTempFile("genie-upload-", ".spool");
+        return new AbortableOutputStream() {
+            private final OutputStream out = new FileOutputStream(spool);
+            private boolean done;
+
+            @Override
+            public void write(final int b) throws IOException {
+                this.out.write(b);
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) throws IOException {
+                this.out.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                this.out.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (this.done) {
+                    return;
+                }
+                this.done = true;
+                try {
+                    this.out.close();
+                    committer.commit(spool);
+                } finally {
+                    this.deleteSpool();
+                }
+            }
+
+            @Override
+            public void abort() {
+                if (this.done) {
+                    return;
+                }
+                this.done = true;
+                try {
+                    this.out.close();
+                } catch (final IOException ioe) {
+                    log.debug("Unable to close spool file {}", spool, ioe);
+                }
+                this.deleteSpool();
+            }
+
+            private void deleteSpool() {
+                try {
+                    Files.deleteIfExists(spool.toPath());
+                } catch (final IOException ioe) {
+                    log.warn("Unable to delete spool file {}", spool, ioe);
+                }
+            }
+        };
+    }
+
+    /**
+     * Commits a spooled file to its final destination.
+     */
+    @FunctionalInterface
+    public interface SpoolCommitter {
+
+        /**
+         * Commit the data.
+         *
+         * @param spool The local file containing all the data written to the stream
+         * @throws IOException on error
+         */
+        void commit(File spool) throws IOException;
+    }
+}
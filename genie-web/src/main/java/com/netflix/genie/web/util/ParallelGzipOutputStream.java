@@ -0,0 +1,228 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An output stream which gzip compresses the data written to it in fixed size blocks on multiple threads.
+ * <p>
+ * Each block is compressed independently into its own gzip member and the members are written to the underlying
+ * stream in order. A sequence of gzip members is itself a valid gzip file (RFC 1952) which standard tools such as
+ * {@code gunzip} and {@code tar -z} decompress as a single stream. The number of blocks waiting to be written is
+ * bounded so memory use is roughly {@code blockSize * (maxPendingBlocks + 1)} regardless of the amount of data.
+ * <p>
+ * Not thread safe. Closing this stream closes the underlying stream, aborting it doesn't (unless it's an
+ * {@link AbortableOutputStream}).
+ *
+ * @since 4.0.0
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+    private final OutputStream out;
+    private final ExecutorService compressors;
+    private final int maxPendingBlocks;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private byte[] block;
+    private int blockLength;
+    private long bytesIn;
+    private long bytesOut;
+    private boolean closed;
+
+    /**
+     * Constructor.
+     *
+     * @param out              The stream to write the compressed data to
+     * @param compressors      The executor to compress blocks on
+     * @param blockSize        The number of uncompressed bytes to compress as a single block
+     * @param maxPendingBlocks The maximum number of blocks compressing or waiting to be written at once
+     */
+    public ParallelGzipOutputStream(
+        final OutputStream out,
+        final ExecutorService compressors,
+        final int blockSize,
+        final int maxPendingBlocks
+    ) {
+        if (blockSize < 1 || maxPendingBlocks < 1) {
+            throw new IllegalArgumentException("Block size and max pending blocks must be positive");
+        }
+        this.out = out;
+        this.compressors = compressors;
+        this.maxPendingBlocks = maxPendingBlocks;
+        this.block = new byte[blockSize];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final int b) throws IOException {
+        this.write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        this.ensureOpen();
+        int offset = off;
+        int remaining = len;
+        while (remaining > 0) {
+            final int count = Math.min(remaining, this.block.length - this.blockLength);
+            System.arraycopy(b, offset, this.block, this.blockLength, count);
+            this.blockLength += count;
+            offset += count;
+            remaining -= count;
+            if (this.blockLength == this.block.length) {
+                this.submitBlock();
+            }
+        }
+        this.bytesIn += len;
+    }
+
+    /**
+     * Compress and write out all the data written so far. As every flush ends a gzip member frequent flushing will
+     * hurt the compression ratio.
+     *
+     * @throws IOException on error compressing or writing
+     */
+    @Override
+    public void flush() throws IOException {
+        this.ensureOpen();
+        this.submitBlock();
+        this.drain(0);
+        this.out.flush();
+    }
+
+    /**
+     * Compress and write out the remaining data and close the underlying stream. If that fails the stream is aborted
+     * (see {@link #abort()}) and the underlying stream is never closed so partial data is never committed.
+     *
+     * @throws IOException on error compressing or writing
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        try {
+            this.submitBlock();
+            this.drain(0);
+            if (this.bytesOut == 0) {
+                // Nothing was written but the output should still be a valid (empty) gzip file
+                final byte[] empty = compress(new byte[0]);
+                this.out.write(empty);
+                this.bytesOut += empty.length;
+            }
+        } catch (final IOException | RuntimeException e) {
+            this.abort();
+            throw e;
+        }
+        this.closed = true;
+        this.out.close();
+    }
+
+    /**
+     * Stop compressing and discard any blocks not yet written. If the underlying stream is an
+     * {@link AbortableOutputStream} it's aborted as well, otherwise it's left open for the caller to discard. Closing
+     * the stream after it has been aborted does nothing.
+     */
+    public void abort() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.pending.forEach(future -> future.cancel(true));
+        this.pending.clear();
+        if (this.out instanceof AbortableOutputStream) {
+            ((AbortableOutputStream) this.out).abort();
+        }
+    }
+
+    /**
+     * Get the number of uncompressed bytes written to this stream.
+     *
+     * @return The number of bytes
+     */
+    public long getBytesIn() {
+        return this.bytesIn;
+    }
+
+    /**
+     * Get the number of compressed bytes written to the underlying stream.
+     *
+     * @return The number of bytes
+     */
+    public long getBytesOut() {
+        return this.bytesOut;
+    }
+
+    private void submitBlock() throws IOException {
+        if (this.blockLength == 0) {
+            return;
+        }
+        final byte[] data = this.blockLength == this.block.length
+            ? this.block
+            : Arrays.copyOf(this.block, this.blockLength);
+        this.pending.addLast(this.compressors.submit(() -> compress(data)));
+        this.block = new byte[this.block.length];
+        this.blockLength = 0;
+        this.drain(this.maxPendingBlocks - 1);
+    }
+
+    private void drain(final int leavePending) throws IOException {
+        while (this.pending.size() > leavePending) {
+            final byte[] compressed;
+            try {
+                compressed = this.pending.removeFirst().get();
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while compressing");
+            } catch (final ExecutionException ee) {
+                throw new IOException("Unable to compress block", ee.getCause());
+            }
+            this.out.write(compressed);
+            this.bytesOut += compressed.length;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (this.closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private static byte[] compress(final byte[] data) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(data);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.jpa.services
+
+import com.google.common.collect.Sets
+import com.netflix.genie.common.dto.ClusterStatus
+import com.netflix.genie.common.internal.dto.v4.Cluster
+import com.netflix.genie.common.internal.dto.v4.ClusterMetadata
+import com.netflix.genie.common.internal.dto.v4.Criterion
+import com.netflix.genie.test.categories.UnitTest
+import com.netflix.genie.web.events.ResourceChangedEvent
+import com.netflix.genie.web.events.ResourceType
+import com.netflix.genie.web.jpa.repositories.JpaClusterRepository
+import com.netflix.genie.web.jpa.repositories.JpaCommandRepository
+import com.netflix.genie.web.properties.CriteriaResolutionIndexProperties
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.junit.experimental.categories.Category
+import org.springframework.data.jpa.domain.Specification as JpaSpecification
+import org.springframework.scheduling.TaskScheduler
+import org.springframework.transaction.PlatformTransactionManager
+import spock.lang.Specification
+
+import java.time.Instant
+
+/**
+ * Specifications for the {@link CriteriaResolutionIndex} class.
+ *
+ * @since 4.0.0
+ */
+@Category(UnitTest.class)
+class CriteriaResolutionIndexSpec extends Specification {
+
+    def "Snapshot resolves clusters and first matching command in order"() {
+        def sparkProd = createCluster("c1", "spark", "2.1", Sets.newHashSet("sched:sla", "type:yarn"))
+        def sparkTest = createCluster("c2", "spark", "2.1", Sets.newHashSet("sched:adhoc", "type:yarn"))
+        def presto = createCluster("c3", "presto", "0.2", Sets.newHashSet("sched:sla", "type:presto"))
+        def snapshot = new CriteriaResolutionIndex.Snapshot.Builder()
+            .addCommand("cmd1", "spark-submit", "2.1.0", Sets.newHashSet("type:spark", "ver:2.1.0"))
+            .addCommand("cmd2", "spark-submit", "2.1.1", Sets.newHashSet("type:spark", "ver:2.1.1"))
+            .addCommand("cmd3", "presto", "0.2", Sets.newHashSet("type:presto"))
+            .addCluster(sparkProd, ["cmd2", "cmd1"])
+            .addCluster(sparkTest, ["cmd1", "missing", "cmd2"])
+            .addCluster(presto, ["cmd3"])
+            .build(0L)
+
+        expect:
+        snapshot.getNumClusters() == 3
+        snapshot.getNumCommands() == 3
+        snapshot.resolve(criterion(null, null, ["type:yarn"]), criterion(null, null, ["type:spark"])) == [
+            (sparkProd): "cmd2",
+            (sparkTest): "cmd1"
+        ]
+        snapshot.resolve(criterion(null, null, ["sched:sla"]), criterion(null, null, ["type:spark"])) == [
+            (sparkProd): "cmd2"
+        ]
+        snapshot.resolve(criterion("c2", null, ["type:yarn"]), criterion(null, "spark-submit", ["ver:2.1.1"])) == [
+            (sparkTest): "cmd2"
+        ]
+        snapshot.resolve(criterion(null, "spark", []), criterion(null, null, ["type:presto"])).isEmpty()
+        snapshot.resolve(criterion(null, null, ["sched:sla", "unknown"]), criterion(null, null, ["type:spark"]))
+            .isEmpty()
+        snapshot.resolve(criterion("c4", null, []), criterion(null, null, ["type:spark"])).isEmpty()
+    }
+
+    def "Only default statuses are indexable"() {
+        expect:
+        CriteriaResolutionIndex.isIndexable(new Criterion.Builder().withTags(["a"].toSet()).build(), "UP")
+        CriteriaResolutionIndex.isIndexable(new Criterion.Builder().withStatus("UP").build(), "UP")
+        !CriteriaResolutionIndex.isIndexable(new Criterion.Builder().withStatus("OUT_OF_SERVICE").build(), "UP")
+    }
+
+    def "Index is stale until loaded and after changes until reloaded"() {
+        def clusterRepository = Mock(JpaClusterRepository)
+        def commandRepository = Mock(JpaCommandRepository)
+        def taskScheduler = Mock(TaskScheduler)
+        def properties = new CriteriaResolutionIndexProperties()
+        def clusterCriteria = [criterion(null, null, ["type:yarn"])]
+        def commandCriterion = criterion(null, null, ["type:spark"])
+
+        when:
+        def index = new CriteriaResolutionIndex(
+            clusterRepository,
+            commandRepository,
+            Mock(PlatformTransactionManager),
+            taskScheduler,
+            properties,
+            new SimpleMeterRegistry()
+        )
+
+        then:
+        1 * taskScheduler.scheduleWithFixedDelay(_ as Runnable, properties.getRefreshRate())
+        !index.resolve(clusterCriteria, commandCriterion).isPresent()
+
+        when:
+        index.reload()
+
+        then:
+        1 * commandRepository.findAll(_ as JpaSpecification) >> []
+        1 * clusterRepository.findAll(_ as JpaSpecification) >> []
+        index.resolve(clusterCriteria, commandCriterion).get().isEmpty()
+        !index.resolve([new Criterion.Builder().withStatus("TERMINATED").build()], commandCriterion).isPresent()
+
+        when:
+        index.onResourceChanged(new ResourceChangedEvent(ResourceType.CLUSTER, "c1", this))
+        index.onResourceChanged(new ResourceChangedEvent(ResourceType.COMMAND, null, this))
+        index.onResourceChanged(new ResourceChangedEvent(ResourceType.APPLICATION, "a1", this))
+
+        then:
+        1 * taskScheduler.schedule(_ as Runnable, _ as Date)
+        !index.resolve(clusterCriteria, commandCriterion).isPresent()
+
+        when:
+        index.reload()
+
+        then:
+        1 * commandRepository.findAll(_ as JpaSpecification) >> []
+        1 * clusterRepository.findAll(_ as JpaSpecification) >> []
+        index.resolve(clusterCriteria, commandCriterion).isPresent()
+    }
+
+    def "Can verify results against database"() {
+        def index = new CriteriaResolutionIndex(
+            Mock(JpaClusterRepository),
+            Mock(JpaCommandRepository),
+            Mock(PlatformTransactionManager),
+            Mock(TaskScheduler),
+            new CriteriaResolutionIndexProperties(),
+            new SimpleMeterRegistry()
+        )
+        def cluster1 = createCluster("c1", "spark", "2.1", Sets.newHashSet())
+        def cluster2 = createCluster("c2", "spark", "2.1", Sets.newHashSet())
+        def command = criterion(null, "spark-submit", [])
+
+        expect:
+        index.verify([], command, [(cluster1): "cmd1"], [(cluster1): "cmd1"])
+        !index.verify([], command, [(cluster1): "cmd1"], [(cluster1): "cmd2"])
+        !index.verify([], command, [(cluster1): "cmd1"], [(cluster1): "cmd1", (cluster2): "cmd1"])
+    }
+
+    private static Cluster createCluster(
+        final String id,
+        final String name,
+        final String version,
+        final Set<String> tags
+    ) {
+        return new Cluster(
+            id,
+            Instant.now(),
+            Instant.now(),
+            null,
+            new ClusterMetadata.Builder(name, "genie", version, ClusterStatus.UP).withTags(tags).build()
+        )
+    }
+
+    private static Criterion criterion(final String id, final String name, final List<String> tags) {
+        return new Criterion.Builder().withId(id).withName(name).withTags(tags.toSet()).build()
+    }
+}
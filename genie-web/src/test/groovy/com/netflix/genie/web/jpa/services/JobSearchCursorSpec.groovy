@@ -0,0 +1,69 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.jpa.services
+
+import com.netflix.genie.common.exceptions.GeniePreconditionException
+import com.netflix.genie.test.categories.UnitTest
+import org.junit.experimental.categories.Category
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.charset.StandardCharsets
+
+/**
+ * Specifications for {@link JobSearchCursor}.
+ *
+ * @since 4.0.0
+ */
+@Category(UnitTest.class)
+class JobSearchCursorSpec extends Specification {
+
+    @Unroll
+    def "Can encode and decode a cursor on #property"() {
+        when:
+        def cursor = new JobSearchCursor(property, ascending, 1234L, sortKey)
+        def token = cursor.encode()
+
+        then:
+        token ==~ /[A-Za-z0-9_-]+/
+        JobSearchCursor.decode(token) == cursor
+
+        where:
+        property  | ascending | sortKey
+        "created" | false     | "2016-03-21T01:35:00.123456Z"
+        "name"    | true      | "a name\nwith a new line"
+        "user"    | true      | ""
+    }
+
+    @Unroll
+    def "Can't decode invalid token #token"() {
+        when:
+        JobSearchCursor.decode(token)
+
+        then:
+        thrown(GeniePreconditionException)
+
+        where:
+        token << [
+                "not base 64!",
+                Base64.getUrlEncoder().encodeToString("1\ncreated\nfalse".getBytes(StandardCharsets.UTF_8)),
+                Base64.getUrlEncoder().encodeToString("2\ncreated\nfalse\n1\nkey".getBytes(StandardCharsets.UTF_8)),
+                Base64.getUrlEncoder().encodeToString("1\ncreated\nfalse\nid\nkey".getBytes(StandardCharsets.UTF_8))
+        ]
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.jpa.services
+
+import com.netflix.genie.common.dto.JobStatus
+import com.netflix.genie.common.dto.search.JobSearchResult
+import com.netflix.genie.test.categories.UnitTest
+import com.netflix.genie.web.jpa.entities.ClusterEntity
+import com.netflix.genie.web.jpa.entities.JobEntity
+import com.netflix.genie.web.jpa.entities.TagEntity
+import org.junit.experimental.categories.Category
+import org.springframework.data.domain.Sort
+import spock.lang.Specification
+
+import javax.persistence.EntityManager
+import javax.persistence.TypedQuery
+import javax.persistence.metamodel.Attribute
+import javax.persistence.metamodel.EntityType
+import javax.persistence.metamodel.Metamodel
+import javax.persistence.metamodel.SingularAttribute
+import java.time.Instant
+
+/**
+ * Specifications for {@link JobSearchPlan}.
+ *
+ * @since 4.0.0
+ */
+@Category(UnitTest.class)
+class JobSearchPlanSpec extends Specification {
+
+    SingularAttribute name
+    SingularAttribute status
+    SingularAttribute started
+    SingularAttribute cluster
+
+    def setup() {
+        this.name = this.attribute("name", String)
+        this.status = this.attribute("status", JobStatus)
+        this.started = this.attribute("started", Instant)
+        this.cluster = this.attribute("cluster", ClusterEntity)
+    }
+
+    def "Searches of the same shape share the query text and bind their own values"() {
+        def entityManager = Mock(EntityManager)
+        def firstQuery = Mock(TypedQuery)
+        def secondQuery = Mock(TypedQuery)
+        def firstText = null
+        def secondText = null
+
+        when:
+        JobSearchPlan.search().matching(this.name, "first").createCountQuery(entityManager)
+
+        then:
+        1 * entityManager.createQuery(_ as String, Long) >> { args ->
+            firstText = args[0]
+            return firstQuery
+        }
+        1 * firstQuery.setParameter("name", "first")
+
+        when:
+        JobSearchPlan.search().matching(this.name, "second").createCountQuery(entityManager)
+
+        then:
+        1 * entityManager.createQuery(_ as String, Long) >> { args ->
+            secondText = args[0]
+            return secondQuery
+        }
+        1 * secondQuery.setParameter("name", "second")
+        firstText == secondText
+        firstText == "SELECT COUNT(j) FROM JobEntity j WHERE j.name = :name"
+    }
+
+    def "Patterns, foreign keys and missing values change the shape"() {
+        def entityManager = Mock(EntityManager)
+        def query = Mock(TypedQuery)
+        def texts = []
+        entityManager.createQuery(_ as String, Long) >> { args ->
+            texts.add(args[0])
+            return query
+        }
+
+        when:
+        JobSearchPlan.search().matching(this.name, "job%").createCountQuery(entityManager)
+        JobSearchPlan.search().matching(this.name, null).referencing(this.cluster, "cluster1")
+            .createCountQuery(entityManager)
+        JobSearchPlan.search().createCountQuery(entityManager)
+
+        then:
+        texts == [
+            "SELECT COUNT(j) FROM JobEntity j WHERE j.name LIKE :name",
+            "SELECT COUNT(j) FROM JobEntity j WHERE j.cluster.id IN "
+                + "(SELECT r.id FROM ClusterEntity r WHERE r.uniqueId = :clusterId)",
+            "SELECT COUNT(j) FROM JobEntity j"
+        ]
+    }
+
+    def "Status and time restrictions are pushed into the tag sub query"() {
+        def entityManager = Mock(EntityManager)
+        def query = Mock(TypedQuery)
+        def statuses = [JobStatus.RUNNING] as Set
+        def tags = [new TagEntity("a"), new TagEntity("b")] as Set
+        def minStarted = Instant.now()
+
+        when:
+        JobSearchPlan
+            .search()
+            .anyOf(this.status, statuses)
+            .atLeast(this.started, minStarted)
+            .taggedWith(tags)
+            .createCountQuery(entityManager)
+
+        then:
+        1 * entityManager.createQuery(
+            "SELECT COUNT(j) FROM JobEntity j WHERE j.status IN :status AND j.started >= :minStarted AND j.id IN "
+                + "(SELECT tj.id FROM JobEntity tj JOIN tj.tags t WHERE tj.status IN :status AND "
+                + "tj.started >= :minStarted AND t IN :tagEntities GROUP BY tj.id HAVING COUNT(tj.id) = :tagCount)",
+            Long
+        ) >> query
+        1 * query.setParameter("status", statuses)
+        1 * query.setParameter("minStarted", minStarted)
+        1 * query.setParameter("tagEntities", tags)
+        1 * query.setParameter("tagCount", 2L)
+    }
+
+    def "Sort properties are resolved through the metamodel"() {
+        def entityManager = Mock(EntityManager)
+        def metamodel = Mock(Metamodel)
+        def entityType = Mock(EntityType)
+        def query = Mock(TypedQuery)
+        entityManager.getMetamodel() >> metamodel
+        metamodel.entity(JobEntity) >> entityType
+        entityType.getAttribute("started") >> Mock(Attribute) { getName() >> "started" }
+        entityType.getAttribute("user") >> Mock(Attribute) { getName() >> "user" }
+        entityType.getAttribute("bad) OR (1 = 1") >> { throw new IllegalArgumentException("no") }
+
+        when:
+        JobSearchPlan
+            .search()
+            .createContentQuery(entityManager, Sort.by(Sort.Order.desc("started"), Sort.Order.asc("user")))
+
+        then:
+        1 * entityManager.createQuery(
+            { String text ->
+                text.startsWith("SELECT new " + JobSearchResult.class.getName() + "(j.uniqueId, ")
+                    && text.endsWith(" FROM JobEntity j ORDER BY j.started DESC, j.user ASC")
+            },
+            JobSearchResult
+        ) >> query
+
+        when:
+        JobSearchPlan.search().createContentQuery(entityManager, Sort.by("bad) OR (1 = 1"))
+
+        then:
+        thrown(IllegalArgumentException)
+        0 * entityManager.createQuery(_ as String, JobSearchResult)
+    }
+
+    private SingularAttribute attribute(final String attributeName, final Class<?> javaType) {
+        return Mock(SingularAttribute) {
+            getName() >> attributeName
+            getJavaType() >> javaType
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties
+
+import spock.lang.Specification
+
+/**
+ * Specifications for the {@link AgentRoutingProperties} class.
+ *
+ * @since 4.0.0
+ */
+class AgentRoutingPropertiesSpec extends Specification {
+
+    def "Default parameters are as expected"() {
+        when:
+        def properties = new AgentRoutingProperties()
+
+        then:
+        !properties.isWriteBehind()
+        properties.getFlushInterval() == 1_000L
+        properties.getMaxBatchSize() == 500
+        properties.getRemoteRouteExpireAfterWrite() == 5_000L
+        properties.getRemoteRouteMaxSize() == 10_000L
+    }
+
+    def "Can set new values"() {
+        def properties = new AgentRoutingProperties()
+
+        when:
+        properties.setWriteBehind(true)
+        properties.setFlushInterval(200L)
+        properties.setMaxBatchSize(10)
+        properties.setRemoteRouteExpireAfterWrite(1_000L)
+        properties.setRemoteRouteMaxSize(100L)
+
+        then:
+        properties.isWriteBehind()
+        properties.getFlushInterval() == 200L
+        properties.getMaxBatchSize() == 10
+        properties.getRemoteRouteExpireAfterWrite() == 1_000L
+        properties.getRemoteRouteMaxSize() == 100L
+    }
+}
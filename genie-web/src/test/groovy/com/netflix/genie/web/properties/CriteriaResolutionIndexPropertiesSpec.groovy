@@ -0,0 +1,52 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties
+
+import spock.lang.Specification
+
+/**
+ * Specifications for the {@link CriteriaResolutionIndexProperties} class.
+ *
+ * @since 4.0.0
+ */
+class CriteriaResolutionIndexPropertiesSpec extends Specification {
+
+    def "Default parameters are as expected"() {
+        when:
+        def properties = new CriteriaResolutionIndexProperties()
+
+        then:
+        !properties.isEnabled()
+        !properties.isConsistencyCheck()
+        properties.getRefreshRate() == 60_000L
+    }
+
+    def "Can set new values"() {
+        def properties = new CriteriaResolutionIndexProperties()
+
+        when:
+        properties.setEnabled(true)
+        properties.setConsistencyCheck(true)
+        properties.setRefreshRate(5_000L)
+
+        then:
+        properties.isEnabled()
+        properties.isConsistencyCheck()
+        properties.getRefreshRate() == 5_000L
+    }
+}
@@ -33,6 +33,8 @@ class FileCachePropertiesSpec extends Specification {
 
         then:
         properties.getLocation() == "file:///tmp/genie/cache"
+        properties.getMaxSize() == 10_737_418_240L
+        properties.getRevalidationInterval() == 60_000L
 
         when:
         def newLocation = "file:///tmp/" + UUID.randomUUID().toString()
@@ -40,5 +42,13 @@ class FileCachePropertiesSpec extends Specification {
 
         then:
         properties.getLocation() == newLocation
+
+        when:
+        properties.setMaxSize(10_000L)
+        properties.setRevalidationInterval(60_000L)
+
+        then:
+        properties.getMaxSize() == 10_000L
+        properties.getRevalidationInterval() == 60_000L
     }
 }
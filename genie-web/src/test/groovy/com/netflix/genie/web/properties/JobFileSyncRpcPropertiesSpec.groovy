@@ -35,6 +35,9 @@ class JobFileSyncRpcPropertiesSpec extends Specification {
         then:
         properties.getAckIntervalMilliseconds() == 30_000L
         properties.getMaxSyncMessages() == 10
+        properties.getWriteThreads() == 4
+        properties.getAckThreads() == 2
+        properties.getMaxQueuedWrites() == 64
     }
 
     def "Can set new acknowledgement interval"() {
@@ -66,4 +69,47 @@ class JobFileSyncRpcPropertiesSpec extends Specification {
         then:
         properties.getMaxSyncMessages() == newMax
     }
+
+    def "Can set new write threads"() {
+        when:
+        def properties = new JobFileSyncRpcProperties()
+
+        then:
+        properties.getWriteThreads() == 4
+
+        when:
+        properties.setWriteThreads(0)
+
+        then:
+        properties.getWriteThreads() == 0
+    }
+
+    def "Can set new acknowledgement threads"() {
+        when:
+        def properties = new JobFileSyncRpcProperties()
+
+        then:
+        properties.getAckThreads() == 2
+
+        when:
+        properties.setAckThreads(0)
+
+        then:
+        properties.getAckThreads() == 0
+    }
+
+    def "Can set new max queued writes"() {
+        when:
+        def properties = new JobFileSyncRpcProperties()
+
+        then:
+        properties.getMaxQueuedWrites() == 64
+
+        when:
+        def newMax = RandomSuppliers.INT.get()
+        properties.setMaxQueuedWrites(newMax)
+
+        then:
+        properties.getMaxQueuedWrites() == newMax
+    }
 }
@@ -38,9 +38,12 @@ import org.junit.Rule
 import org.springframework.scheduling.TaskScheduler
 import spock.lang.Shared
 import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
 
+import java.nio.ByteBuffer
 import java.nio.charset.Charset
 import java.nio.charset.StandardCharsets
+import java.util.concurrent.CountDownLatch
 import java.util.concurrent.ScheduledFuture
 
 /**
@@ -74,6 +77,9 @@ class GRpcJobFileSyncServiceImplSpec extends Specification {
     def "Test job file sync workflow"() {
         def jobFileSyncRpcProperties = new JobFileSyncRpcProperties()
         jobFileSyncRpcProperties.setMaxSyncMessages(3)
+        // Write and acknowledge on the calling threads so every step is complete when it returns
+        jobFileSyncRpcProperties.setWriteThreads(0)
+        jobFileSyncRpcProperties.setAckThreads(0)
         JobFileService jobFileService = Mock()
         TaskScheduler taskScheduler = Mock()
         StreamObserver<SyncResponse> responseObserver = Mock()
@@ -118,7 +124,7 @@ class GRpcJobFileSyncServiceImplSpec extends Specification {
         requestObserver.onNext(createDataUpload())
 
         then: "The upload message is ignored and a sync reset message is sent"
-        0 * jobFileService.updateFile(_ as String, _ as String, _ as Long, _ as byte[])
+        0 * jobFileService.updateFile(_ as String, _ as String, _ as Long, _ as List)
         1 * responseObserver.onNext(_ as SyncResponse) >> { arguments -> response = (SyncResponse) arguments[0] }
         response != null
         response.hasReset()
@@ -142,7 +148,7 @@ class GRpcJobFileSyncServiceImplSpec extends Specification {
         requestObserver.onNext(createDataUpload())
 
         then: "The upload message is ignored and another reset message IS NOT sent"
-        0 * jobFileService.updateFile(_ as String, _ as String, _ as Long, _ as byte[])
+        0 * jobFileService.updateFile(_ as String, _ as String, _ as Long, _ as List)
         0 * responseObserver.onNext(_ as SyncResponse)
 
         when: "A first begin sync message is sent"
@@ -175,11 +181,11 @@ class GRpcJobFileSyncServiceImplSpec extends Specification {
         requestObserver.onNext(request)
 
         then: "It is received but not yet acknowledged"
-        1 * jobFileService.updateFile(_ as String, _ as String, _ as Long, _ as byte[]) >> { arguments ->
+        1 * jobFileService.updateFile(_ as String, _ as String, _ as Long, _ as List) >> { arguments ->
             assert arguments[0] == jobId
             assert arguments[1] == dataUpload.getPath()
             assert arguments[2] == dataUpload.getStartByte()
-            assert arguments[3] == dataUpload.getData().toByteArray()
+            assert toBytes(arguments[3] as List<ByteBuffer>) == dataUpload.getData().toByteArray()
         }
         0 * responseObserver.onNext(_ as SyncResponse)
 
@@ -190,11 +196,11 @@ class GRpcJobFileSyncServiceImplSpec extends Specification {
         requestObserver.onNext(request)
 
         then: "It's still not acknowledged yet but saved as a failed upload"
-        1 * jobFileService.updateFile(_ as String, _ as String, _ as Long, _ as byte[]) >> { arguments ->
+        1 * jobFileService.updateFile(_ as String, _ as String, _ as Long, _ as List) >> { arguments ->
             assert arguments[0] == jobId
             assert arguments[1] == dataUpload.getPath()
             assert arguments[2] == dataUpload.getStartByte()
-            assert arguments[3] == dataUpload.getData().toByteArray()
+            assert toBytes(arguments[3] as List<ByteBuffer>) == dataUpload.getData().toByteArray()
             throw new IOException("Something went wrong")
         }
         0 * responseObserver.onNext(_ as SyncResponse)
@@ -206,11 +212,11 @@ class GRpcJobFileSyncServiceImplSpec extends Specification {
         requestObserver.onNext(request)
 
         then: "An acknowledgement message is sent with all previous ids"
-        1 * jobFileService.updateFile(_ as String, _ as String, _ as Long, _ as byte[]) >> { arguments ->
+        1 * jobFileService.updateFile(_ as String, _ as String, _ as Long, _ as List) >> { arguments ->
             assert arguments[0] == jobId
             assert arguments[1] == dataUpload.getPath()
             assert arguments[2] == dataUpload.getStartByte()
-            assert arguments[3] == dataUpload.getData().toByteArray()
+            assert toBytes(arguments[3] as List<ByteBuffer>) == dataUpload.getData().toByteArray()
         }
         1 * responseObserver.onNext(_ as SyncResponse) >> { arguments -> response = (SyncResponse) arguments[0] }
         response != null
@@ -233,11 +239,11 @@ class GRpcJobFileSyncServiceImplSpec extends Specification {
         requestObserver.onNext(request)
 
         then: "No acknowledgement is sent but the id buffers have been reset"
-        1 * jobFileService.updateFile(_ as String, _ as String, _ as Long, _ as byte[]) >> { arguments ->
+        1 * jobFileService.updateFile(_ as String, _ as String, _ as Long, _ as List) >> { arguments ->
             assert arguments[0] == jobId
             assert arguments[1] == dataUpload.getPath()
             assert arguments[2] == dataUpload.getStartByte()
-            assert arguments[3] == dataUpload.getData().toByteArray()
+            assert toBytes(arguments[3] as List<ByteBuffer>) == dataUpload.getData().toByteArray()
         }
         0 * responseObserver.onNext(_ as SyncResponse)
 
@@ -364,6 +370,253 @@ class GRpcJobFileSyncServiceImplSpec extends Specification {
         1 * observer.cleanup()
     }
 
+    def "Writes are performed in order on the writer threads"() {
+        def jobFileSyncRpcProperties = new JobFileSyncRpcProperties()
+        jobFileSyncRpcProperties.setWriteThreads(2)
+        def writes = Collections.synchronizedList([])
+        def threads = Collections.synchronizedSet(new HashSet<String>())
+        def jobFileService = Stub(JobFileService) {
+            getJobDirectoryFileState(_ as String, _ as Boolean) >> Sets.newHashSet()
+            updateFile(_ as String, _ as String, _ as Long, _ as List) >> { arguments ->
+                threads.add(Thread.currentThread().getName())
+                writes.add(arguments[1])
+            }
+            deleteJobFile(_ as String, _ as String) >> { arguments ->
+                threads.add(Thread.currentThread().getName())
+                writes.add("delete " + arguments[1])
+            }
+        }
+        def service = new GRpcJobFileSyncServiceImpl(jobFileSyncRpcProperties, jobFileService, Mock(TaskScheduler))
+        this.gRpcServerRule.getServiceRegistry().addService(service)
+        def requestObserver = JobFileSyncServiceGrpc
+                .newStub(this.gRpcServerRule.getChannel())
+                .sync(Mock(StreamObserver))
+        def expectedWrites = []
+        def jobId = UUID.randomUUID().toString()
+
+        when:
+        requestObserver.onNext(
+                SyncRequest.newBuilder().setBeginSync(BeginSync.newBuilder().setJobId(jobId)).build()
+        )
+        10.times {
+            def request = createDataUpload()
+            expectedWrites.add(request.getDataUpload().getPath())
+            requestObserver.onNext(request)
+        }
+        def deleteRequest = createDeleteFile()
+        expectedWrites.add("delete " + deleteRequest.getDeleteFile().getPath())
+        requestObserver.onNext(deleteRequest)
+        requestObserver.onNext(createSyncComplete())
+
+        then:
+        new PollingConditions(timeout: 5).eventually {
+            assert writes == expectedWrites
+            assert service.jobSyncRequestObservers.isEmpty()
+        }
+        threads.every { it.startsWith("genie-job-file-sync-writer-") }
+
+        cleanup:
+        service.cleanup()
+    }
+
+    def "Acknowledgements are coalesced and sent on the acknowledgement threads"() {
+        def jobFileSyncRpcProperties = new JobFileSyncRpcProperties()
+        jobFileSyncRpcProperties.setAckThreads(2)
+        // Write on the gRPC threads so draining writes doesn't acknowledge early
+        jobFileSyncRpcProperties.setWriteThreads(0)
+        jobFileSyncRpcProperties.setMaxSyncMessages(3)
+        jobFileSyncRpcProperties.setAckIntervalMilliseconds(200L)
+        def jobFileService = Stub(JobFileService) {
+            getJobDirectoryFileState(_ as String, _ as Boolean) >> Sets.newHashSet()
+        }
+        def taskScheduler = Mock(TaskScheduler)
+        def acks = Collections.synchronizedList([])
+        def responseObserver = Stub(StreamObserver) {
+            onNext(_ as SyncResponse) >> { arguments ->
+                def response = (SyncResponse) arguments[0]
+                if (response.hasSyncAck()) {
+                    acks.add(response.getSyncAck().getResultsList()*.getId())
+                }
+            }
+        }
+        GRpcJobFileSyncServiceImpl service
+        StreamObserver<SyncRequest> requestObserver
+        def firstIds = []
+        def secondIds = []
+
+        when: "The service is created"
+        service = new GRpcJobFileSyncServiceImpl(jobFileSyncRpcProperties, jobFileService, taskScheduler)
+        this.gRpcServerRule.getServiceRegistry().addService(service)
+        requestObserver = JobFileSyncServiceGrpc.newStub(this.gRpcServerRule.getChannel()).sync(responseObserver)
+
+        then: "No periodic task is scheduled"
+        0 * taskScheduler.scheduleWithFixedDelay(_ as Runnable, _ as Long)
+
+        when: "Fewer messages than the maximum are received"
+        requestObserver.onNext(
+                SyncRequest.newBuilder().setBeginSync(BeginSync.newBuilder().setJobId(UUID.randomUUID().toString()))
+                        .build()
+        )
+        2.times {
+            def request = createDataUpload()
+            firstIds.add(request.getDataUpload().getId())
+            requestObserver.onNext(request)
+        }
+
+        then: "They're acknowledged together after the interval"
+        new PollingConditions(timeout: 5).eventually {
+            assert acks == [firstIds]
+        }
+
+        when: "The maximum number of messages is received"
+        3.times {
+            def request = createDataUpload()
+            secondIds.add(request.getDataUpload().getId())
+            requestObserver.onNext(request)
+        }
+
+        then: "They're acknowledged without waiting for the interval"
+        new PollingConditions(timeout: 5).eventually {
+            assert acks == [firstIds, secondIds]
+        }
+
+        cleanup:
+        service.cleanup()
+    }
+
+    def "The last uploads are acknowledged when the writes drain and when the sync completes"() {
+        def jobFileSyncRpcProperties = new JobFileSyncRpcProperties()
+        jobFileSyncRpcProperties.setWriteThreads(writeThreads)
+        jobFileSyncRpcProperties.setAckThreads(0)
+        jobFileSyncRpcProperties.setMaxSyncMessages(10)
+        jobFileSyncRpcProperties.setAckIntervalMilliseconds(30_000L)
+        def jobFileService = Stub(JobFileService) {
+            getJobDirectoryFileState(_ as String, _ as Boolean) >> Sets.newHashSet()
+        }
+        def acks = Collections.synchronizedList([])
+        def responseObserver = Stub(StreamObserver) {
+            onNext(_ as SyncResponse) >> { arguments ->
+                def response = (SyncResponse) arguments[0]
+                if (response.hasSyncAck()) {
+                    acks.addAll(response.getSyncAck().getResultsList()*.getId())
+                }
+            }
+        }
+        // The periodic acknowledgement task never runs
+        def service = new GRpcJobFileSyncServiceImpl(jobFileSyncRpcProperties, jobFileService, Mock(TaskScheduler))
+        this.gRpcServerRule.getServiceRegistry().addService(service)
+        def requestObserver = JobFileSyncServiceGrpc
+                .newStub(this.gRpcServerRule.getChannel())
+                .sync(responseObserver)
+        def ids = []
+
+        when: "Fewer uploads than the acknowledgement batch are received"
+        requestObserver.onNext(
+                SyncRequest.newBuilder().setBeginSync(BeginSync.newBuilder().setJobId(UUID.randomUUID().toString()))
+                        .build()
+        )
+        3.times {
+            def request = createDataUpload()
+            ids.add(request.getDataUpload().getId())
+            requestObserver.onNext(request)
+        }
+
+        then: "With write threads they're acknowledged once written"
+        new PollingConditions(timeout: 5).eventually {
+            assert acks == (writeThreads > 0 ? ids : [])
+        }
+
+        when: "The agent completes the sync"
+        requestObserver.onNext(createSyncComplete())
+
+        then: "Everything is acknowledged without waiting for the interval"
+        new PollingConditions(timeout: 5).eventually {
+            assert acks == ids
+            assert service.jobSyncRequestObservers.isEmpty()
+        }
+
+        cleanup:
+        service.cleanup()
+
+        where:
+        writeThreads | _
+        0            | _
+        1            | _
+    }
+
+    def "Stops reading uploads while too many writes are queued"() {
+        def jobFileSyncRpcProperties = new JobFileSyncRpcProperties()
+        jobFileSyncRpcProperties.setWriteThreads(1)
+        jobFileSyncRpcProperties.setMaxQueuedWrites(2)
+        def writing = new CountDownLatch(1)
+        def writes = Collections.synchronizedList([])
+        def jobFileService = Stub(JobFileService) {
+            getJobDirectoryFileState(_ as String, _ as Boolean) >> Sets.newHashSet()
+            updateFile(_ as String, _ as String, _ as Long, _ as List) >> { arguments ->
+                writing.await()
+                writes.add(arguments[1])
+            }
+        }
+        def acks = Collections.synchronizedList([])
+        def responseObserver = Stub(StreamObserver) {
+            onNext(_ as SyncResponse) >> { arguments ->
+                def response = (SyncResponse) arguments[0]
+                if (response.hasSyncAck()) {
+                    acks.addAll(response.getSyncAck().getResultsList()*.getId())
+                }
+            }
+        }
+        def service = new GRpcJobFileSyncServiceImpl(jobFileSyncRpcProperties, jobFileService, Mock(TaskScheduler))
+        this.gRpcServerRule.getServiceRegistry().addService(service)
+        def requestObserver = JobFileSyncServiceGrpc
+                .newStub(this.gRpcServerRule.getChannel())
+                .sync(responseObserver)
+        def jobId = UUID.randomUUID().toString()
+        def paths = []
+        def ids = []
+
+        when: "The agent sends more uploads than may be queued while the first write is stuck"
+        requestObserver.onNext(
+                SyncRequest.newBuilder().setBeginSync(BeginSync.newBuilder().setJobId(jobId)).build()
+        )
+        10.times {
+            def request = createDataUpload()
+            paths.add(request.getDataUpload().getPath())
+            ids.add(request.getDataUpload().getId())
+            requestObserver.onNext(request)
+        }
+
+        then: "Only as many as may be queued are read"
+        new PollingConditions(timeout: 5).eventually {
+            assert service.jobSyncRequestObservers.get(jobId).queuedWrites.get() == 2
+        }
+        Thread.sleep(100)
+        service.jobSyncRequestObservers.get(jobId).queuedWrites.get() == 2
+
+        when: "The writes are unblocked"
+        writing.countDown()
+
+        then: "The remaining uploads are read, written in order and acknowledged"
+        new PollingConditions(timeout: 5).eventually {
+            assert writes == paths
+            assert acks == ids
+        }
+
+        cleanup:
+        writing.countDown()
+        service.cleanup()
+    }
+
+    static byte[] toBytes(final List<ByteBuffer> buffers) {
+        def bytes = new ByteArrayOutputStream()
+        buffers.each { buffer ->
+            def copy = new byte[buffer.remaining()]
+            buffer.duplicate().get(copy)
+            bytes.write(copy)
+        }
+        return bytes.toByteArray()
+    }
+
     SyncRequest createDataUpload() {
         def data = UUID.randomUUID().toString()
         def startByte = RandomSuppliers.LONG.get()
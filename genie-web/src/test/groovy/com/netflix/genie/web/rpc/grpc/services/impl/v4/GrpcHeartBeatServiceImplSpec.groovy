@@ -24,8 +24,13 @@ import com.netflix.genie.web.services.AgentRoutingService
 import io.grpc.stub.StreamObserver
 import org.springframework.scheduling.TaskScheduler
 import spock.lang.Specification
+import spock.lang.Timeout
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
 import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 
 class GrpcHeartBeatServiceImplSpec extends Specification {
     AgentRoutingService agentRoutingService
@@ -259,4 +264,122 @@ class GrpcHeartBeatServiceImplSpec extends Specification {
         1 * responseObserver.onCompleted()
     }
 
+    def "Close streams which stopped sending heartbeats"() {
+        setup:
+        Runnable timeoutTask = null
+        def timeoutTaskScheduler = Mock(TaskScheduler) {
+            1 * scheduleWithFixedDelay(_ as Runnable, _ as Long) >> {
+                args ->
+                    timeoutTask = args[0] as Runnable
+                    return Mock(ScheduledFuture)
+            }
+        }
+        def timeoutService = new GrpcHeartBeatServiceImpl(agentRoutingService, timeoutTaskScheduler, 100L, 10)
+        String jobId = UUID.randomUUID().toString()
+        StreamObserver<ServerHeartBeat> responseObserver = Mock(StreamObserver)
+        StreamObserver<AgentHeartBeat> requestObserver = timeoutService.heartbeat(responseObserver)
+
+        when:
+        requestObserver.onNext(AgentHeartBeat.newBuilder().setClaimedJobId(jobId).build())
+        timeoutTask.run()
+
+        then:
+        1 * agentRoutingService.handleClientConnected(jobId)
+        1 * responseObserver.onNext(_ as ServerHeartBeat)
+        0 * responseObserver.onError(_ as Throwable)
+
+        when:
+        Thread.sleep(200L)
+        timeoutTask.run()
+
+        then:
+        0 * responseObserver.onNext(_ as ServerHeartBeat)
+        1 * responseObserver.onError(_ as Throwable)
+        1 * agentRoutingService.handleClientDisconnected(jobId)
+
+        when:
+        requestObserver.onCompleted()
+
+        then:
+        0 * responseObserver.onCompleted()
+        0 * agentRoutingService.handleClientDisconnected(_ as String)
+
+        cleanup:
+        timeoutService.shutdown()
+    }
+
+    @Timeout(value = 2, unit = TimeUnit.MINUTES)
+    def "Load test with 10k concurrent agent streams"() {
+        setup:
+        def numStreams = 10_000
+        def agentThreads = Executors.newFixedThreadPool(16)
+        def connected = new AtomicInteger()
+        def disconnected = new AtomicInteger()
+        def serverHeartBeats = new AtomicInteger()
+        def completed = new AtomicInteger()
+        def routingService = Stub(AgentRoutingService) {
+            handleClientConnected(_ as String) >> { connected.incrementAndGet() }
+            handleClientDisconnected(_ as String) >> { disconnected.incrementAndGet() }
+        }
+        Runnable loadTask = null
+        def loadTaskScheduler = Stub(TaskScheduler) {
+            scheduleWithFixedDelay(_ as Runnable, _ as Long) >> {
+                args ->
+                    loadTask = args[0] as Runnable
+                    return Stub(ScheduledFuture)
+            }
+        }
+        def loadService = new GrpcHeartBeatServiceImpl(routingService, loadTaskScheduler)
+        def requestObservers = Collections.synchronizedList([])
+        def connectLatch = new CountDownLatch(numStreams)
+
+        when: "All the agents connect and heartbeat concurrently while server heartbeats are sent"
+        numStreams.times { i ->
+            agentThreads.submit {
+                def responseObserver = [
+                        onNext     : { serverHeartBeats.incrementAndGet() },
+                        onError    : { },
+                        onCompleted: { completed.incrementAndGet() }
+                ] as StreamObserver<ServerHeartBeat>
+                def requestObserver = loadService.heartbeat(responseObserver)
+                requestObserver.onNext(AgentHeartBeat.newBuilder().setClaimedJobId("job-" + i).build())
+                requestObservers.add(requestObserver)
+                connectLatch.countDown()
+            }
+        }
+        while (connectLatch.getCount() > 0) {
+            loadTask.run()
+        }
+        connectLatch.await()
+        serverHeartBeats.set(0)
+        def start = System.nanoTime()
+        loadTask.run()
+        def fanOutMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+
+        then: "Every agent is connected and gets a heartbeat in a single fan out"
+        connected.get() == numStreams
+        serverHeartBeats.get() == numStreams
+        fanOutMillis < 10_000
+
+        when: "All the agents disconnect concurrently while server heartbeats are sent"
+        def disconnectLatch = new CountDownLatch(numStreams)
+        requestObservers.each { requestObserver ->
+            agentThreads.submit {
+                ((StreamObserver<AgentHeartBeat>) requestObserver).onCompleted()
+                disconnectLatch.countDown()
+            }
+        }
+        while (disconnectLatch.getCount() > 0) {
+            loadTask.run()
+        }
+        disconnectLatch.await()
+
+        then: "Every stream is closed once"
+        disconnected.get() == numStreams
+        completed.get() == numStreams
+
+        cleanup:
+        agentThreads.shutdownNow()
+        loadService.shutdown()
+    }
 }
@@ -20,11 +20,15 @@ package com.netflix.genie.web.services.impl
 
 import com.netflix.genie.common.internal.util.GenieHostInfo
 import com.netflix.genie.test.categories.UnitTest
+import com.netflix.genie.web.properties.AgentRoutingProperties
 import com.netflix.genie.web.services.AgentConnectionPersistenceService
 import com.netflix.genie.web.services.AgentRoutingService
 import org.junit.experimental.categories.Category
+import org.springframework.scheduling.TaskScheduler
 import spock.lang.Specification
 
+import java.util.concurrent.ScheduledFuture
+
 @Category(UnitTest.class)
 class AgentRoutingServiceImplSpec extends Specification {
     private static final String HOSTNAME = "10.1.2.3"
@@ -123,4 +127,78 @@ class AgentRoutingServiceImplSpec extends Specification {
         1 * genieHostInfo.getHostname() >> HOSTNAME
         1 * persistenceService.removeAgentConnection(jobId, HOSTNAME)
     }
+
+    def "Write behind tracks local connections in memory and writes them in coalesced batches"() {
+        def properties = new AgentRoutingProperties()
+        properties.setWriteBehind(true)
+        properties.setMaxBatchSize(2)
+        def taskScheduler = Mock(TaskScheduler)
+        def flushFuture = Mock(ScheduledFuture)
+        def jobId2 = UUID.randomUUID().toString()
+        def jobId3 = UUID.randomUUID().toString()
+        def remoteJobId = UUID.randomUUID().toString()
+        AgentRoutingServiceImpl writeBehindService
+
+        when:
+        writeBehindService = new AgentRoutingServiceImpl(persistenceService, genieHostInfo, properties, taskScheduler)
+
+        then:
+        1 * taskScheduler.scheduleWithFixedDelay(_ as Runnable, properties.getFlushInterval()) >> flushFuture
+
+        when: "Agents connect and one flaps"
+        writeBehindService.handleClientConnected(jobId)
+        writeBehindService.handleClientConnected(jobId2)
+        writeBehindService.handleClientConnected(jobId3)
+        writeBehindService.handleClientDisconnected(jobId3)
+        writeBehindService.handleClientConnected(jobId3)
+        writeBehindService.handleClientDisconnected(jobId2)
+
+        then: "Nothing is written yet and local lookups are answered from memory"
+        0 * persistenceService._
+        writeBehindService.isAgentConnectionLocal(jobId)
+        !writeBehindService.isAgentConnectionLocal(jobId2)
+        writeBehindService.isAgentConnectionLocal(jobId3)
+
+        when: "The changes are flushed"
+        writeBehindService.flush()
+
+        then: "Only the final state of each connection is written, in batches"
+        _ * genieHostInfo.getHostname() >> HOSTNAME
+        1 * persistenceService.saveAgentConnections([jobId, jobId3].toSet(), HOSTNAME)
+        1 * persistenceService.removeAgentConnections([jobId2].toSet(), HOSTNAME)
+        0 * persistenceService._
+
+        when: "A write fails"
+        writeBehindService.handleClientDisconnected(jobId)
+        writeBehindService.flush()
+        writeBehindService.flush()
+
+        then: "It's retried on the next flush"
+        _ * genieHostInfo.getHostname() >> HOSTNAME
+        1 * persistenceService.removeAgentConnections([jobId].toSet(), HOSTNAME) >> {
+            throw new RuntimeException("down")
+        }
+        1 * persistenceService.removeAgentConnections([jobId].toSet(), HOSTNAME)
+
+        when: "Remote routes are looked up twice"
+        def local = writeBehindService.getHostnameForAgentConnection(jobId3)
+        def remote = writeBehindService.getHostnameForAgentConnection(remoteJobId)
+        def cachedRemote = writeBehindService.getHostnameForAgentConnection(remoteJobId)
+
+        then: "The database is only asked once"
+        1 * genieHostInfo.getHostname() >> HOSTNAME
+        1 * persistenceService.lookupAgentConnectionServer(remoteJobId) >> Optional.of("another.hostname")
+        local == Optional.of(HOSTNAME)
+        remote == Optional.of("another.hostname")
+        cachedRemote == Optional.of("another.hostname")
+
+        when: "The service shuts down"
+        writeBehindService.handleClientDisconnected(jobId3)
+        writeBehindService.shutdown()
+
+        then: "Outstanding changes are written"
+        1 * flushFuture.cancel(false)
+        _ * genieHostInfo.getHostname() >> HOSTNAME
+        1 * persistenceService.removeAgentConnections([jobId3].toSet(), HOSTNAME)
+    }
 }
@@ -19,6 +19,7 @@ package com.netflix.genie.web.services.impl
 
 import com.netflix.genie.common.exceptions.GenieServerException
 import com.netflix.genie.test.categories.UnitTest
+import com.netflix.genie.web.services.FileTransfer
 import com.netflix.genie.web.services.FileTransferFactory
 import io.micrometer.core.instrument.MeterRegistry
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry
@@ -26,6 +27,11 @@ import org.junit.experimental.categories.Category
 import spock.lang.Specification
 import spock.lang.Unroll
 
+import java.nio.file.Files
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
 /**
  * Unit tests for CacheGenieFileTransferService.
  *
@@ -64,7 +70,7 @@ class CacheGenieFileTransferServiceSpec extends Specification {
         then:
         noExceptionThrown()
         1 * s.loadFile(_) >> cachedFile
-        2 * cachedFile.lastModified() >> -1
+        1 * cachedFile.lastModified() >> -1
         when:
         s.getFile('file:/tmp/setup', 'file:/mnt/')
         then:
@@ -78,4 +84,119 @@ class CacheGenieFileTransferServiceSpec extends Specification {
         1 * s.loadFile(_) >> { throw new GenieServerException("null") }
         cachedFile.lastModified() >> -1
     }
+
+    def 'Cached files are bounded, revalidated per interval and downloaded once per miss'() {
+        setup:
+        def cacheDir = Files.createTempDirectory("genie-file-cache")
+        def remoteTransfer = Mock(FileTransfer)
+        def transferFactory = Mock(FileTransferFactory) {
+            get(_) >> remoteTransfer
+        }
+        def service = new CacheGenieFileTransferService(
+                transferFactory,
+                cacheDir.toUri().toString(),
+                3 * 1024L,
+                60_000L,
+                localFileTransfer,
+                registry
+        )
+        def download = { String src, String dst -> new File(dst).bytes = new byte[2048] }
+
+        when: "The same file is requested by many threads at once"
+        def executor = Executors.newFixedThreadPool(8)
+        def futures = (1..8).collect {
+            executor.submit({ service.getFile("s3://bucket/a", "/tmp/dst") } as Callable)
+        }
+        futures.each { it.get() }
+        executor.shutdown()
+
+        then: "It is downloaded once and not revalidated within the interval"
+        1 * remoteTransfer.getFile("s3://bucket/a", _ as String) >> { String src, String dst -> download(src, dst) }
+        0 * remoteTransfer.getLastModifiedTime(_)
+        8 * localFileTransfer.getFile(_ as String, "/tmp/dst")
+        cacheDir.toFile().list().length == 1
+
+        when: "Another file pushes the cache over its maximum size"
+        service.getFile("s3://bucket/b", "/tmp/dst")
+
+        then: "The least recently used file is evicted and deleted"
+        1 * remoteTransfer.getFile("s3://bucket/b", _ as String) >> { String src, String dst -> download(src, dst) }
+        1 * localFileTransfer.getFile(_ as String, "/tmp/dst")
+        cacheDir.toFile().list().length == 1
+        service.getCachedSize() == 2048L
+
+        cleanup:
+        cacheDir.toFile().deleteDir()
+    }
+
+    def 'Cached files survive a restart and leftovers are swept'() {
+        setup:
+        def cacheDir = Files.createTempDirectory("genie-file-cache")
+        def remoteTransfer = Mock(FileTransfer)
+        def transferFactory = Mock(FileTransferFactory) {
+            get(_) >> remoteTransfer
+        }
+        def pathUUID = UUID.nameUUIDFromBytes("s3://bucket/a".getBytes("UTF-8")).toString()
+        def interrupted = cacheDir.resolve(pathUUID + "." + UUID.randomUUID() + ".tmp").toFile()
+        def legacy = cacheDir.resolve(pathUUID + "-" + UUID.randomUUID()).toFile()
+        def inProgress = cacheDir.resolve(pathUUID + "." + UUID.randomUUID() + ".tmp").toFile()
+        def unrelated = cacheDir.resolve("unrelated").toFile()
+        [interrupted, legacy, inProgress, unrelated].each { it.bytes = new byte[16] }
+        def old = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2)
+        interrupted.setLastModified(old)
+        legacy.setLastModified(old)
+        def download = { String src, String dst -> new File(dst).bytes = new byte[2048] }
+
+        when: "A file is cached"
+        def service = new CacheGenieFileTransferService(
+                transferFactory,
+                cacheDir.toUri().toString(),
+                0L,
+                60_000L,
+                localFileTransfer,
+                registry
+        )
+        service.getFile("s3://bucket/a", "/tmp/dst")
+
+        then: "Old leftovers are swept and the file is cached under a name derived from its path"
+        1 * remoteTransfer.getFile("s3://bucket/a", _ as String) >> { String src, String dst -> download(src, dst) }
+        1 * localFileTransfer.getFile(cacheDir.resolve(pathUUID).toString(), "/tmp/dst")
+        !interrupted.exists()
+        !legacy.exists()
+        inProgress.exists()
+        unrelated.exists()
+        cacheDir.resolve(pathUUID).toFile().length() == 2048L
+
+        when: "The service is restarted and the remote file didn't change"
+        service = new CacheGenieFileTransferService(
+                transferFactory,
+                cacheDir.toUri().toString(),
+                0L,
+                60_000L,
+                localFileTransfer,
+                registry
+        )
+        service.getFile("s3://bucket/a", "/tmp/dst")
+
+        then: "The file cached before the restart is used"
+        1 * remoteTransfer.getLastModifiedTime("s3://bucket/a") >> 0L
+        0 * remoteTransfer.getFile(_, _)
+        1 * localFileTransfer.getFile(cacheDir.resolve(pathUUID).toString(), "/tmp/dst")
+
+        when: "The service is restarted with a smaller maximum size"
+        new CacheGenieFileTransferService(
+                transferFactory,
+                cacheDir.toUri().toString(),
+                1024L,
+                60_000L,
+                localFileTransfer,
+                registry
+        )
+
+        then: "The cached files which don't fit are deleted"
+        !cacheDir.resolve(pathUUID).toFile().exists()
+
+        cleanup:
+        cacheDir.toFile().deleteDir()
+    }
 }
@@ -27,9 +27,11 @@ import org.junit.rules.TemporaryFolder
 import org.springframework.core.io.PathResource
 import spock.lang.Specification
 
+import java.nio.ByteBuffer
 import java.nio.charset.Charset
 import java.nio.file.Files
 import java.nio.file.Paths
+import java.nio.file.attribute.FileTime
 /**
  * Specifications for the {@link DiskJobFileServiceImpl} class.
  *
@@ -234,4 +236,127 @@ class DiskJobFileServiceImplSpec extends Specification {
         resource.getFile().isDirectory()
         resource.getFile().toPath() == this.temporaryFolder.getRoot().toPath().resolve(jobId)
     }
+
+    def "Can write buffers through open files"() {
+        def utf8 = Charset.forName("UTF-8")
+        def jobId = UUID.randomUUID().toString()
+        def file1 = "stdout"
+        def file2 = "genie/logs/genie.log"
+        def jobDir = this.temporaryFolder.getRoot().toPath().resolve(jobId)
+        def service = new DiskJobFileServiceImpl(new PathResource(this.temporaryFolder.getRoot().toPath()), 1, 60_000L)
+        def buffers = [
+                ByteBuffer.wrap("hello ".getBytes(utf8)).asReadOnlyBuffer(),
+                ByteBuffer.wrap("world".getBytes(utf8)).asReadOnlyBuffer()
+        ]
+
+        when: "Buffers are written in order"
+        service.updateFile(jobId, file1, 0L, buffers)
+
+        then: "The buffers aren't consumed"
+        new String(Files.readAllBytes(jobDir.resolve(file1)), utf8) == "hello world"
+        buffers*.remaining() == [6, 5]
+
+        when: "Another file evicts the open file and both are appended to"
+        service.updateFile(jobId, file2, 0L, [ByteBuffer.wrap("log".getBytes(utf8))])
+        service.updateFile(jobId, file1, 11L, [ByteBuffer.wrap("!".getBytes(utf8))])
+        service.updateFile(jobId, file2, 3L, [ByteBuffer.wrap(" more".getBytes(utf8))])
+
+        then:
+        new String(Files.readAllBytes(jobDir.resolve(file1)), utf8) == "hello world!"
+        new String(Files.readAllBytes(jobDir.resolve(file2)), utf8) == "log more"
+
+        when: "The job's files are closed and a file is updated again"
+        service.closeJobFiles(jobId)
+        service.updateFile(jobId, file1, 0L, [ByteBuffer.wrap("HELLO".getBytes(utf8))])
+
+        then:
+        new String(Files.readAllBytes(jobDir.resolve(file1)), utf8) == "HELLO world!"
+
+        when: "An open file is deleted and written again"
+        service.deleteJobFile(jobId, file1)
+        service.updateFile(jobId, file1, 0L, [ByteBuffer.wrap("new".getBytes(utf8))])
+
+        then: "The data goes to the new file"
+        new String(Files.readAllBytes(jobDir.resolve(file1)), utf8) == "new"
+
+        when: "A directory is updated"
+        service.updateFile(jobId, "genie", 0L, [ByteBuffer.wrap("bad".getBytes(utf8))])
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "Job directory state is served from saved manifests"() {
+        def utf8 = Charset.forName("UTF-8")
+        def jobId = UUID.randomUUID().toString()
+        def root = this.temporaryFolder.getRoot().toPath()
+        def jobDir = root.resolve(jobId)
+        def sidecar = JobDirectoryManifest.getSidecar(jobDir)
+        def contents = "some output".getBytes(utf8)
+
+        when: "A file is written and the job's files are closed"
+        this.diskLogService.updateFile(jobId, "stdout", 0L, contents)
+        def state = this.diskLogService.getJobDirectoryFileState(jobId, true)
+        this.diskLogService.closeJobFiles(jobId)
+
+        then: "The manifest is saved inside the job directory without being part of its state"
+        state == Sets.newHashSet(new JobFileState("stdout", contents.length, DigestUtils.md5Hex(contents)))
+        Files.exists(sidecar)
+        sidecar.startsWith(jobDir)
+        Files.list(root).count() == 1
+        new DiskJobFileServiceImpl(new PathResource(root)).getJobDirectoryFileState(jobId, false) == Sets.newHashSet(
+                new JobFileState("stdout", contents.length, null)
+        )
+
+        when: "Another service reads the directory after a file was written behind its back"
+        Files.write(jobDir.resolve("stderr"), contents)
+        Files.setLastModifiedTime(sidecar, Files.getLastModifiedTime(jobDir))
+        def service = new DiskJobFileServiceImpl(new PathResource(root))
+
+        then: "The saved manifest is used as it isn't older than the directory"
+        service.getJobDirectoryFileState(jobId, false) == Sets.newHashSet(
+                new JobFileState("stdout", contents.length, null)
+        )
+
+        when: "A nested directory the manifest covers is changed after it was saved"
+        service.updateFile(jobId, "genie/logs/env.log", 0L, contents)
+        service.closeJobFiles(jobId)
+        Files.write(jobDir.resolve("genie/logs/other.log"), contents)
+        Files.setLastModifiedTime(
+                jobDir.resolve("genie/logs"),
+                FileTime.fromMillis(Files.getLastModifiedTime(sidecar).toMillis() + 10_000L)
+        )
+        service = new DiskJobFileServiceImpl(new PathResource(root))
+
+        then: "The stale manifest is ignored and the directory is walked"
+        service.getJobDirectoryFileState(jobId, false) == Sets.newHashSet(
+                new JobFileState("stdout", contents.length, null),
+                new JobFileState("stderr", contents.length, null),
+                new JobFileState("genie/logs/env.log", contents.length, null),
+                new JobFileState("genie/logs/other.log", contents.length, null)
+        )
+
+        when: "The directory is changed through the service"
+        service.updateFile(jobId, "stdout", contents.length, contents)
+
+        then: "The stale manifest is deleted and the change is reflected"
+        Files.notExists(sidecar)
+        service.getJobDirectoryFileState(jobId, false) == Sets.newHashSet(
+                new JobFileState("stdout", contents.length * 2, null),
+                new JobFileState("stderr", contents.length, null),
+                new JobFileState("genie/logs/env.log", contents.length, null),
+                new JobFileState("genie/logs/other.log", contents.length, null)
+        )
+
+        when: "The directory is read by a new service without a saved manifest"
+        service = new DiskJobFileServiceImpl(new PathResource(root))
+
+        then: "It is walked"
+        service.getJobDirectoryFileState(jobId, false) == Sets.newHashSet(
+                new JobFileState("stdout", contents.length * 2, null),
+                new JobFileState("stderr", contents.length, null),
+                new JobFileState("genie/logs/env.log", contents.length, null),
+                new JobFileState("genie/logs/other.log", contents.length, null)
+        )
+    }
 }
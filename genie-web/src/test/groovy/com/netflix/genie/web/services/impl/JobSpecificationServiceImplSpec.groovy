@@ -36,6 +36,7 @@ import com.netflix.genie.common.internal.jobs.JobConstants
 import com.netflix.genie.common.util.GenieObjectMapper
 import com.netflix.genie.test.categories.UnitTest
 import com.netflix.genie.web.properties.JobsProperties
+import com.netflix.genie.web.properties.ResourceDtoCacheProperties
 import com.netflix.genie.web.services.ApplicationPersistenceService
 import com.netflix.genie.web.services.ClusterLoadBalancer
 import com.netflix.genie.web.services.ClusterPersistenceService
@@ -158,9 +159,14 @@ class JobSpecificationServiceImplSpec extends Specification {
             1 * getApplicationsForCommand(commandId) >> Lists.newArrayList()
         }
         def service = new JobSpecificationServiceImpl(
-                applicationService,
+                new ResourceDtoCache(
+                        clusterService,
+                        commandService,
+                        applicationService,
+                        new ResourceDtoCacheProperties(),
+                        new SimpleMeterRegistry()
+                ),
                 clusterService,
-                commandService,
                 Lists.newArrayList(loadBalancer),
                 new SimpleMeterRegistry(),
                 jobsProperties
@@ -181,9 +187,14 @@ class JobSpecificationServiceImplSpec extends Specification {
 
     def "Can convert tags to string"() {
         def service = new JobSpecificationServiceImpl(
-                Mock(ApplicationPersistenceService),
+                new ResourceDtoCache(
+                        Mock(ClusterPersistenceService),
+                        Mock(CommandPersistenceService),
+                        Mock(ApplicationPersistenceService),
+                        new ResourceDtoCacheProperties(),
+                        new SimpleMeterRegistry()
+                ),
                 Mock(ClusterPersistenceService),
-                Mock(CommandPersistenceService),
                 Lists.newArrayList(),
                 Mock(MeterRegistry),
                 new JobsProperties()
@@ -208,9 +219,14 @@ class JobSpecificationServiceImplSpec extends Specification {
     def "Can generate correct environment variables"() {
         def jobsProperties = new JobsProperties()
         def service = new JobSpecificationServiceImpl(
-                Mock(ApplicationPersistenceService),
+                new ResourceDtoCache(
+                        Mock(ClusterPersistenceService),
+                        Mock(CommandPersistenceService),
+                        Mock(ApplicationPersistenceService),
+                        new ResourceDtoCacheProperties(),
+                        new SimpleMeterRegistry()
+                ),
                 Mock(ClusterPersistenceService),
-                Mock(CommandPersistenceService),
                 Lists.newArrayList(),
                 Mock(MeterRegistry),
                 jobsProperties
@@ -298,9 +314,14 @@ class JobSpecificationServiceImplSpec extends Specification {
     def "Can convert V4 Criterion to V3 tags"() {
         def jobsProperties = new JobsProperties()
         def service = new JobSpecificationServiceImpl(
-                Mock(ApplicationPersistenceService),
+                new ResourceDtoCache(
+                        Mock(ClusterPersistenceService),
+                        Mock(CommandPersistenceService),
+                        Mock(ApplicationPersistenceService),
+                        new ResourceDtoCacheProperties(),
+                        new SimpleMeterRegistry()
+                ),
                 Mock(ClusterPersistenceService),
-                Mock(CommandPersistenceService),
                 Lists.newArrayList(),
                 Mock(MeterRegistry),
                 jobsProperties
@@ -378,9 +399,14 @@ class JobSpecificationServiceImplSpec extends Specification {
 
         def jobsProperties = new JobsProperties()
         def service = new JobSpecificationServiceImpl(
-                Mock(ApplicationPersistenceService),
+                new ResourceDtoCache(
+                        Mock(ClusterPersistenceService),
+                        Mock(CommandPersistenceService),
+                        Mock(ApplicationPersistenceService),
+                        new ResourceDtoCacheProperties(),
+                        new SimpleMeterRegistry()
+                ),
                 Mock(ClusterPersistenceService),
-                Mock(CommandPersistenceService),
                 Lists.newArrayList(),
                 Mock(MeterRegistry),
                 jobsProperties
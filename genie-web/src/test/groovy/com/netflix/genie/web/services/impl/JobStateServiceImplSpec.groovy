@@ -32,6 +32,9 @@ import org.junit.experimental.categories.Category
 import org.springframework.scheduling.TaskScheduler
 import spock.lang.Specification
 
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
 /**
  * Test JobStateService
  *
@@ -102,4 +105,51 @@ class JobStateServiceImplSpec extends Specification {
         jobStateService.getNumActiveJobs() == 0
         jobStateService.getUsedMemory() == 0
     }
+
+    def testReserveMemory() {
+        when:
+        jobStateService.init(job1Id)
+        jobStateService.init(job2Id)
+        then:
+        !jobStateService.reserveMemory("unknown", memory, 2048)
+        jobStateService.reserveMemory(job1Id, memory, 1536)
+        !jobStateService.reserveMemory(job2Id, memory, 1536)
+        jobStateService.getUsedMemory() == 1024
+        jobStateService.getNumActiveJobs() == 0
+        when:
+        jobStateService.schedule(job1Id, jobRequest, cluster, command, applications, memory)
+        then:
+        jobStateService.getUsedMemory() == 1024
+        jobStateService.getNumActiveJobs() == 1
+        registry.find("genie.jobs.memory.used.gauge").gauge().value() == 1024.0d
+        registry.find("genie.jobs.active.gauge").gauge().value() == 1.0d
+        when:
+        jobStateService.done(job1Id)
+        then:
+        jobStateService.getUsedMemory() == 0
+        jobStateService.getNumActiveJobs() == 0
+        jobStateService.reserveMemory(job2Id, memory, 1536)
+        jobStateService.getUsedMemory() == 1024
+    }
+
+    def testConcurrentReservationsNeverExceedCapacity() {
+        def numJobs = 50
+        def maxMemory = 10 * memory
+        def pool = Executors.newFixedThreadPool(8)
+
+        when:
+        def futures = (1..numJobs).collect { i ->
+            pool.submit({
+                def id = "job" + i
+                jobStateService.init(id)
+                return jobStateService.reserveMemory(id, memory, maxMemory)
+            } as Callable<Boolean>)
+        }
+        def reserved = futures.count { it.get() }
+        pool.shutdown()
+
+        then:
+        reserved == 10
+        jobStateService.getUsedMemory() == maxMemory
+    }
 }
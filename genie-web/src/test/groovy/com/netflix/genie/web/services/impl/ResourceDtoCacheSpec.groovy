@@ -0,0 +1,156 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.services.impl
+
+import com.netflix.genie.common.internal.dto.v4.Application
+import com.netflix.genie.common.internal.dto.v4.Cluster
+import com.netflix.genie.common.internal.dto.v4.Command
+import com.netflix.genie.test.categories.UnitTest
+import com.netflix.genie.web.events.ResourceChangedEvent
+import com.netflix.genie.web.events.ResourceType
+import com.netflix.genie.web.properties.ResourceDtoCacheProperties
+import com.netflix.genie.web.services.ApplicationPersistenceService
+import com.netflix.genie.web.services.ClusterPersistenceService
+import com.netflix.genie.web.services.CommandPersistenceService
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.junit.experimental.categories.Category
+import spock.lang.Specification
+
+/**
+ * Specifications for the {@link ResourceDtoCache} class.
+ *
+ * @since 4.0.0
+ */
+@Category(UnitTest.class)
+class ResourceDtoCacheSpec extends Specification {
+
+    ClusterPersistenceService clusterPersistenceService
+    CommandPersistenceService commandPersistenceService
+    ApplicationPersistenceService applicationPersistenceService
+    ResourceDtoCacheProperties properties
+    SimpleMeterRegistry registry
+
+    def setup() {
+        this.clusterPersistenceService = Mock(ClusterPersistenceService)
+        this.commandPersistenceService = Mock(CommandPersistenceService)
+        this.applicationPersistenceService = Mock(ApplicationPersistenceService)
+        this.properties = new ResourceDtoCacheProperties()
+        this.registry = new SimpleMeterRegistry()
+    }
+
+    def "When disabled every call goes to the persistence services"() {
+        def cache = createCache()
+        def cluster = Mock(Cluster)
+
+        when:
+        def first = cache.getCluster("c1")
+        def second = cache.getCluster("c1")
+
+        then:
+        2 * this.clusterPersistenceService.getCluster("c1") >> cluster
+        first == cluster
+        second == cluster
+    }
+
+    def "Values are cached until the resource changes"() {
+        this.properties.setEnabled(true)
+        def cache = createCache()
+        def cluster = Mock(Cluster)
+        def command = Mock(Command)
+        def application = Mock(Application)
+
+        when:
+        cache.getCluster("c1")
+        cache.getCluster("c1")
+        cache.getCommand("cmd1")
+        cache.getCommand("cmd1")
+        cache.getApplication("a1")
+        cache.getApplication("a1")
+        def applications = cache.getApplicationsForCommand("cmd1")
+        cache.getApplicationsForCommand("cmd1")
+
+        then:
+        1 * this.clusterPersistenceService.getCluster("c1") >> cluster
+        1 * this.commandPersistenceService.getCommand("cmd1") >> command
+        1 * this.applicationPersistenceService.getApplication("a1") >> application
+        1 * this.commandPersistenceService.getApplicationsForCommand("cmd1") >> [application]
+        applications == [application]
+        this.registry
+            .counter(ResourceDtoCache.REQUESTS_COUNTER_NAME, "cache", "clusters", "result", ResourceDtoCache.HIT)
+            .count() == 1.0d
+        this.registry
+            .counter(ResourceDtoCache.REQUESTS_COUNTER_NAME, "cache", "clusters", "result", ResourceDtoCache.MISS)
+            .count() == 1.0d
+
+        when:
+        cache.onResourceChanged(new ResourceChangedEvent(ResourceType.CLUSTER, "c1", this))
+        cache.getCluster("c1")
+        cache.getCommand("cmd1")
+
+        then:
+        1 * this.clusterPersistenceService.getCluster("c1") >> cluster
+        0 * this.commandPersistenceService.getCommand(_)
+
+        when:
+        cache.onResourceChanged(new ResourceChangedEvent(ResourceType.COMMAND, "cmd1", this))
+        cache.getCommand("cmd1")
+        cache.getApplicationsForCommand("cmd1")
+        cache.getApplication("a1")
+
+        then:
+        1 * this.commandPersistenceService.getCommand("cmd1") >> command
+        1 * this.commandPersistenceService.getApplicationsForCommand("cmd1") >> [application]
+        0 * this.applicationPersistenceService.getApplication(_)
+
+        when:
+        cache.onResourceChanged(new ResourceChangedEvent(ResourceType.APPLICATION, "a1", this))
+        cache.getApplication("a1")
+        cache.getApplicationsForCommand("cmd1")
+
+        then:
+        1 * this.applicationPersistenceService.getApplication("a1") >> application
+        1 * this.commandPersistenceService.getApplicationsForCommand("cmd1") >> [application]
+    }
+
+    def "Value loaded concurrently with a change isn't cached"() {
+        this.properties.setEnabled(true)
+        def cache = createCache()
+        def cluster = Mock(Cluster)
+
+        when:
+        cache.getCluster("c1")
+        cache.getCluster("c1")
+
+        then:
+        1 * this.clusterPersistenceService.getCluster("c1") >> {
+            cache.onResourceChanged(new ResourceChangedEvent(ResourceType.CLUSTER, "c1", this))
+            return cluster
+        }
+        1 * this.clusterPersistenceService.getCluster("c1") >> cluster
+    }
+
+    private ResourceDtoCache createCache() {
+        return new ResourceDtoCache(
+            this.clusterPersistenceService,
+            this.commandPersistenceService,
+            this.applicationPersistenceService,
+            this.properties,
+            this.registry
+        )
+    }
+}
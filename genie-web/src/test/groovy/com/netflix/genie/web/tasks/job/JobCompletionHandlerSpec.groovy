@@ -30,18 +30,18 @@ import spock.lang.Specification
  */
 @Category(UnitTest.class)
 class JobCompletionHandlerSpec extends Specification{
-    JobCompletionService jobCompletionService = Mock(JobCompletionService)
-    JobCompletionHandler jobCompletionHandler = new JobCompletionHandler(jobCompletionService)
+    JobCompletionStage jobCompletionStage = Mock(JobCompletionStage)
+    JobCompletionHandler jobCompletionHandler = new JobCompletionHandler(jobCompletionStage)
     def testHandleJobCompletion(){
         when:
         jobCompletionHandler.handleJobCompletion(null)
         then:
         noExceptionThrown()
-        1 * jobCompletionService.handleJobCompletion(null)
+        1 * jobCompletionStage.submit(null)
         when:
         jobCompletionHandler.handleJobCompletion(null)
         then:
         thrown(GenieException)
-        1 * jobCompletionService.handleJobCompletion(null) >> { throw new GenieException(1,"")}
+        1 * jobCompletionStage.submit(null) >> { throw new GenieException(1,"")}
     }
 }
@@ -30,10 +30,13 @@ import com.netflix.genie.web.services.JobPersistenceService
 import com.netflix.genie.web.services.JobSearchService
 import com.netflix.genie.web.services.MailService
 import com.netflix.genie.web.services.impl.GenieFileTransferService
+import com.netflix.genie.web.util.AbortableOutputStream
 import com.netflix.genie.web.util.MetricsConstants
+import com.netflix.genie.web.util.ParallelGzipOutputStream
 import io.micrometer.core.instrument.Counter
 import io.micrometer.core.instrument.MeterRegistry
 import io.micrometer.core.instrument.Tag
+import org.apache.commons.exec.CommandLine
 import org.assertj.core.util.Lists
 import org.assertj.core.util.Sets
 import org.junit.Rule
@@ -42,8 +45,11 @@ import org.junit.rules.TemporaryFolder
 import org.springframework.core.io.FileSystemResource
 import org.springframework.retry.support.RetryTemplate
 import spock.lang.Specification
+import spock.lang.Timeout
 
+import java.util.concurrent.Executors
 import java.util.concurrent.TimeUnit
+import java.util.zip.GZIPInputStream
 /**
  * Unit tests for JobCompletionHandler
  *
@@ -213,4 +219,85 @@ class JobCompletionServiceSpec extends Specification {
             assert !d.exists()
         })
     }
+
+    @Timeout(30)
+    def "Streaming an archive aborts the upload without hanging when a part can't be uploaded"() {
+        given:
+        def jobDir = tmpJobDir.newFolder("streamed")
+        def data = new byte[4 * 1024 * 1024]
+        new Random(42L).nextBytes(data)
+        Files.write(data, new File(jobDir, "stdout"))
+        jobsProperties.archive.streamingEnabled = true
+        jobsProperties.archive.compressionThreads = 1
+        jobsProperties.archive.compressionBlockSize = 65_536
+        def streamingService = new JobCompletionService(jobPersistenceService, jobSearchService,
+                genieFileTransferService, new FileSystemResource("/tmp"), mailService, registry,
+                jobsProperties, new RetryTemplate())
+        def upload = Mock(AbortableOutputStream)
+
+        when:
+        streamingService.streamJobDirArchive("1", jobDir, "s3://bucket/archive.tar.gz")
+
+        then:
+        thrown(IOException)
+        1 * genieFileTransferService.putStream("s3://bucket/archive.tar.gz") >> upload
+        _ * upload.write(_) >> { throw new IOException("Unable to upload part") }
+        1 * upload.abort()
+        0 * upload.close()
+        1 * errorCounter.increment()
+
+        cleanup:
+        streamingService.shutdown()
+    }
+
+    @Timeout(30)
+    def "Streaming command output only commits the output of a successful command"() {
+        given:
+        def compressors = Executors.newSingleThreadExecutor()
+        def bytes = new ByteArrayOutputStream()
+        def out = new ParallelGzipOutputStream(bytes, compressors, 65_536, 2)
+        def upload = Mock(AbortableOutputStream)
+        def failedOut = new ParallelGzipOutputStream(upload, compressors, 65_536, 2)
+        def command = new CommandLine("sh").addArgument("-c").addArgument("printf data", false)
+        def failingCommand = new CommandLine("sh").addArgument("-c").addArgument("printf data; exit 2", false)
+
+        when:
+        JobCompletionService.streamCommandOutput(command, tmpJobDir.root, out, 10_000L)
+
+        then:
+        new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray())).text == "data"
+
+        when:
+        JobCompletionService.streamCommandOutput(failingCommand, tmpJobDir.root, failedOut, 10_000L)
+
+        then:
+        def e = thrown(IOException)
+        e.message.contains("exit code 2")
+        1 * upload.abort()
+        0 * upload.close()
+
+        cleanup:
+        compressors.shutdownNow()
+    }
+
+    @Timeout(30)
+    def "Streaming command output kills commands which time out"() {
+        given:
+        def compressors = Executors.newSingleThreadExecutor()
+        def upload = Mock(AbortableOutputStream)
+        def out = new ParallelGzipOutputStream(upload, compressors, 65_536, 2)
+        def command = new CommandLine("sh").addArgument("-c").addArgument("exec sleep 60", false)
+
+        when:
+        JobCompletionService.streamCommandOutput(command, tmpJobDir.root, out, 500L)
+
+        then:
+        def e = thrown(IOException)
+        e.message.contains("timed out")
+        1 * upload.abort()
+        0 * upload.close()
+
+        cleanup:
+        compressors.shutdownNow()
+    }
 }
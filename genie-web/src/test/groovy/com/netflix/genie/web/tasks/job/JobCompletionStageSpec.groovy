@@ -0,0 +1,193 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.job
+
+import com.netflix.genie.common.dto.Job
+import com.netflix.genie.test.categories.UnitTest
+import com.netflix.genie.web.events.JobFinishedEvent
+import com.netflix.genie.web.events.JobFinishedReason
+import com.netflix.genie.web.properties.JobsCompletionProperties
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.junit.experimental.categories.Category
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * Specifications for the {@link JobCompletionStage} class.
+ *
+ * @since 4.0.0
+ */
+@Category(UnitTest.class)
+class JobCompletionStageSpec extends Specification {
+
+    def "Completions are handled inline when staging is disabled"() {
+        def service = Mock(JobCompletionService)
+        def stage = new JobCompletionStage(service, new JobsCompletionProperties(), new SimpleMeterRegistry())
+        def event = new JobFinishedEvent("job1", JobFinishedReason.KILLED, "killed", this)
+
+        when:
+        stage.submit(event)
+
+        then:
+        1 * service.handleJobCompletion(event)
+        0 * service.handleJobStatus(_)
+        !stage.isStaged()
+        stage.getStatusBacklog() == 0
+        stage.getArchiveBacklog() == 0
+    }
+
+    def "Completions are recorded then finalized on separate pools"() {
+        def service = Mock(JobCompletionService)
+        def properties = new JobsCompletionProperties()
+        properties.setStagedEnabled(true)
+        def registry = new SimpleMeterRegistry()
+        def stage = new JobCompletionStage(service, properties, registry)
+        def job = Mock(Job)
+        def finalized = new CountDownLatch(1)
+        def statusThread = null
+        def archiveThread = null
+
+        when:
+        stage.submit(new JobFinishedEvent("job1", JobFinishedReason.KILLED, "killed", this))
+        stage.submit(new JobFinishedEvent("job2", JobFinishedReason.KILLED, "killed", this))
+        def done = finalized.await(10, TimeUnit.SECONDS)
+        stage.shutdown()
+
+        then:
+        1 * service.handleJobStatus({ it.getId() == "job1" }) >> {
+            statusThread = Thread.currentThread().getName()
+            return job
+        }
+        1 * service.handleJobStatus({ it.getId() == "job2" }) >> null
+        1 * service.finalizeJob("job1", job) >> {
+            archiveThread = Thread.currentThread().getName()
+            finalized.countDown()
+        }
+        0 * service.handleJobCompletion(_)
+        done
+        stage.isStaged()
+        statusThread.startsWith("genie-job-completion-status-")
+        archiveThread.startsWith("genie-job-completion-archive-")
+        registry
+            .find(JobCompletionStage.QUEUE_WAIT_TIMER_NAME)
+            .tags(JobCompletionStage.STAGE_TAG_KEY, JobCompletionStage.STATUS_STAGE)
+            .timer()
+            .count() == 2
+        registry
+            .find(JobCompletionStage.QUEUE_DEPTH_GAUGE_NAME)
+            .tags(JobCompletionStage.STAGE_TAG_KEY, JobCompletionStage.ARCHIVE_STAGE)
+            .gauge() != null
+    }
+
+    def "Submitter does the work when a stage is full"() {
+        def service = Mock(JobCompletionService)
+        def properties = new JobsCompletionProperties()
+        properties.setStagedEnabled(true)
+        properties.setStatusThreads(1)
+        properties.setQueueCapacity(1)
+        def registry = new SimpleMeterRegistry()
+        def stage = new JobCompletionStage(service, properties, registry)
+        def blocked = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def callerThread = Thread.currentThread().getName()
+        def job3Thread = null
+
+        when: "One completion blocks the only worker and another fills the queue"
+        stage.submit(new JobFinishedEvent("job1", JobFinishedReason.KILLED, "killed", this))
+        blocked.await(10, TimeUnit.SECONDS)
+        stage.submit(new JobFinishedEvent("job2", JobFinishedReason.KILLED, "killed", this))
+        def backlog = stage.getStatusBacklog()
+        stage.submit(new JobFinishedEvent("job3", JobFinishedReason.KILLED, "killed", this))
+        release.countDown()
+        stage.shutdown()
+
+        then:
+        1 * service.handleJobStatus({ it.getId() == "job1" }) >> {
+            blocked.countDown()
+            release.await(10, TimeUnit.SECONDS)
+            return null
+        }
+        1 * service.handleJobStatus({ it.getId() == "job2" }) >> null
+        1 * service.handleJobStatus({ it.getId() == "job3" }) >> {
+            job3Thread = Thread.currentThread().getName()
+            return null
+        }
+        backlog == 2
+        job3Thread == callerThread
+        registry
+            .find(JobCompletionStage.REJECTIONS_COUNTER_NAME)
+            .tags(JobCompletionStage.STAGE_TAG_KEY, JobCompletionStage.STATUS_STAGE)
+            .counter()
+            .count() == 1
+    }
+
+    def "Status threads wait for room rather than archive when the archive stage is full"() {
+        def service = Mock(JobCompletionService)
+        def properties = new JobsCompletionProperties()
+        properties.setStagedEnabled(true)
+        properties.setStatusThreads(1)
+        properties.setArchiveThreads(1)
+        properties.setQueueCapacity(1)
+        def registry = new SimpleMeterRegistry()
+        def stage = new JobCompletionStage(service, properties, registry)
+        def job = Mock(Job)
+        def blocked = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def finalized = new CountDownLatch(3)
+        def archiveThreads = [].asSynchronized()
+        def rejections = {
+            registry
+                .find(JobCompletionStage.REJECTIONS_COUNTER_NAME)
+                .tags(JobCompletionStage.STAGE_TAG_KEY, JobCompletionStage.ARCHIVE_STAGE)
+                .counter()
+                .count()
+        }
+
+        when: "One archive blocks the only archive worker, another fills its queue and a third is rejected"
+        stage.submit(new JobFinishedEvent("job1", JobFinishedReason.KILLED, "killed", this))
+        blocked.await(10, TimeUnit.SECONDS)
+        stage.submit(new JobFinishedEvent("job2", JobFinishedReason.KILLED, "killed", this))
+        stage.submit(new JobFinishedEvent("job3", JobFinishedReason.KILLED, "killed", this))
+        def deadline = System.currentTimeMillis() + 10_000L
+        while (rejections() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L)
+        }
+        release.countDown()
+        def done = finalized.await(10, TimeUnit.SECONDS)
+        stage.shutdown()
+
+        then: "Every archive still runs on the archive pool"
+        3 * service.handleJobStatus(_) >> job
+        1 * service.finalizeJob("job1", job) >> {
+            blocked.countDown()
+            release.await(10, TimeUnit.SECONDS)
+            archiveThreads << Thread.currentThread().getName()
+            finalized.countDown()
+        }
+        2 * service.finalizeJob({ it != "job1" }, job) >> {
+            archiveThreads << Thread.currentThread().getName()
+            finalized.countDown()
+        }
+        done
+        rejections() == 1
+        archiveThreads.size() == 3
+        archiveThreads.every { it.startsWith("genie-job-completion-archive-") }
+    }
+}
@@ -183,8 +183,12 @@ public class GenieApiAutoConfigurationUnitTests {
         final ApplicationContext context = Mockito.mock(ApplicationContext.class);
         final JobFileService jobFileService = Mockito.mock(JobFileService.class);
 
-        final GenieResourceHttpRequestHandler handler
-            = this.genieApiAutoConfiguration.genieResourceHttpRequestHandler(directoryWriter, context, jobFileService);
+        final GenieResourceHttpRequestHandler handler = this.genieApiAutoConfiguration.genieResourceHttpRequestHandler(
+            directoryWriter,
+            context,
+            jobFileService,
+            new JobsProperties()
+        );
         Assert.assertThat(handler.getApplicationContext(), Matchers.is(context));
     }
 }
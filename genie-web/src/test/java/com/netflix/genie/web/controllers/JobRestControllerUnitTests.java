@@ -46,8 +46,10 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.ClientHttpRequest;
@@ -61,6 +63,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.net.URI;
 import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.Set;
@@ -352,12 +355,10 @@ public class JobRestControllerUnitTests {
         Mockito
             .verify(this.restTemplate, Mockito.never())
             .execute(
-                Mockito.anyString(),
-                Mockito.any(),
+                Mockito.any(URI.class),
                 Mockito.any(),
                 Mockito.any(),
-                Mockito.anyString(),
-                Mockito.anyString()
+                Mockito.any()
             );
         Mockito.verify(this.genieResourceHttpRequestHandler, Mockito.times(1)).handleRequest(request, response);
     }
@@ -394,32 +395,50 @@ public class JobRestControllerUnitTests {
         final String requestUrl = UUID.randomUUID().toString();
         Mockito.when(request.getRequestURL()).thenReturn(new StringBuffer(requestUrl));
 
-        final int errorCode = 404;
+        final ByteArrayServletOutputStream bos = new ByteArrayServletOutputStream();
+        Mockito.when(response.getOutputStream()).thenReturn(bos);
+
+        final int errorCode = 416;
+        final String contentRange = "bytes */100";
+        final HttpHeaders errorHeaders = new HttpHeaders();
+        errorHeaders.set(HttpHeaders.CONTENT_RANGE, contentRange);
+        errorHeaders.set(HttpHeaders.TRANSFER_ENCODING, "chunked");
+        final String errorBody = UUID.randomUUID().toString();
         Mockito.when(
             this.restTemplate.execute(
-                Mockito.anyString(),
-                Mockito.any(),
+                Mockito.any(URI.class),
                 Mockito.any(),
                 Mockito.any(),
-                Mockito.anyString(),
-                Mockito.anyString()
+                Mockito.any()
             )
         )
-            .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+            .thenThrow(
+                new HttpClientErrorException(
+                    HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE,
+                    HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.getReasonPhrase(),
+                    errorHeaders,
+                    errorBody.getBytes(UTF_8),
+                    UTF_8
+                )
+            );
 
         this.controller.getJobOutput(jobId, forwardedFrom, request, response);
 
         Mockito.verify(this.jobSearchService, Mockito.times(1)).getJobHost(Mockito.eq(jobId));
         Mockito.verify(this.restTemplate, Mockito.times(1))
             .execute(
-                Mockito.anyString(),
+                Mockito.any(URI.class),
                 Mockito.any(),
                 Mockito.any(),
-                Mockito.any(),
-                Mockito.anyString(),
-                Mockito.anyString()
+                Mockito.any()
             );
-        Mockito.verify(response, Mockito.times(1)).sendError(Mockito.eq(errorCode), Mockito.anyString());
+        Mockito.verify(response, Mockito.times(1)).setStatus(errorCode);
+        Mockito.verify(response, Mockito.times(1)).setHeader(HttpHeaders.CONTENT_RANGE, contentRange);
+        Mockito
+            .verify(response, Mockito.never())
+            .setHeader(Mockito.eq(HttpHeaders.TRANSFER_ENCODING), Mockito.anyString());
+        Mockito.verify(response, Mockito.never()).sendError(Mockito.anyInt(), Mockito.anyString());
+        Assert.assertThat(new String(bos.toByteArray(), UTF_8), Matchers.is(errorBody));
         Mockito.verify(this.genieResourceHttpRequestHandler, Mockito.never()).handleRequest(request, response);
     }
 
@@ -516,4 +535,78 @@ public class JobRestControllerUnitTests {
         Mockito.verify(response, Mockito.never()).sendError(Mockito.anyInt());
         Mockito.verify(this.genieResourceHttpRequestHandler, Mockito.never()).handleRequest(request, response);
     }
+
+    /**
+     * Make sure the query string and range header are forwarded and the partial response is relayed.
+     *
+     * @throws IOException      on error
+     * @throws ServletException on error
+     * @throws GenieException   on error
+     */
+    @Test
+    public void canForwardJobOutputRequestWithTailAndRange() throws IOException, ServletException, GenieException {
+        this.jobsProperties.getForwarding().setEnabled(true);
+        final String jobId = UUID.randomUUID().toString();
+        final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        final HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+
+        final String jobHostName = UUID.randomUUID().toString();
+        Mockito.when(this.jobSearchService.getJobHost(jobId)).thenReturn(jobHostName);
+
+        final String queryString = "tail=1024";
+        Mockito.when(request.getQueryString()).thenReturn(queryString);
+        final String range = "bytes=0-9";
+        Mockito.when(request.getHeaderNames()).thenReturn(Collections.enumeration(Sets.newHashSet(HttpHeaders.RANGE)));
+        Mockito.when(request.getHeader(HttpHeaders.RANGE)).thenReturn(range);
+
+        final ByteArrayServletOutputStream bos = new ByteArrayServletOutputStream();
+        Mockito.when(response.getOutputStream()).thenReturn(bos);
+
+        final String text = "0123456789";
+        final String contentRange = "bytes 0-9/1024";
+        final MockClientHttpResponse forwardResponse
+            = new MockClientHttpResponse(text.getBytes(UTF_8), HttpStatus.PARTIAL_CONTENT);
+        forwardResponse.getHeaders().set(HttpHeaders.CONTENT_RANGE, contentRange);
+
+        final HttpHeaders forwardHeaders = new HttpHeaders();
+        final ClientHttpRequestFactory factory = Mockito.mock(ClientHttpRequestFactory.class);
+        final ClientHttpRequest clientHttpRequest = Mockito.mock(ClientHttpRequest.class);
+        Mockito.when(clientHttpRequest.execute()).thenReturn(forwardResponse);
+        Mockito.when(clientHttpRequest.getHeaders()).thenReturn(forwardHeaders);
+        Mockito.when(factory.createRequest(Mockito.any(), Mockito.any())).thenReturn(clientHttpRequest);
+        final MeterRegistry registry = Mockito.mock(MeterRegistry.class);
+        Mockito.when(registry.counter(Mockito.anyString())).thenReturn(Mockito.mock(Counter.class));
+
+        final JobRestController jobController = new JobRestController(
+            Mockito.mock(JobCoordinatorService.class),
+            this.jobSearchService,
+            Mockito.mock(AttachmentService.class),
+            Mockito.mock(ApplicationResourceAssembler.class),
+            Mockito.mock(ClusterResourceAssembler.class),
+            Mockito.mock(CommandResourceAssembler.class),
+            Mockito.mock(JobResourceAssembler.class),
+            Mockito.mock(JobRequestResourceAssembler.class),
+            Mockito.mock(JobExecutionResourceAssembler.class),
+            Mockito.mock(JobMetadataResourceAssembler.class),
+            Mockito.mock(JobSearchResultResourceAssembler.class),
+            new GenieHostInfo(this.hostname),
+            new RestTemplate(factory),
+            this.genieResourceHttpRequestHandler,
+            this.jobsProperties,
+            registry
+        );
+        jobController.getJobOutput(jobId, null, request, response);
+
+        final ArgumentCaptor<URI> uriCaptor = ArgumentCaptor.forClass(URI.class);
+        Mockito.verify(factory, Mockito.times(1)).createRequest(uriCaptor.capture(), Mockito.eq(HttpMethod.GET));
+        Assert.assertThat(uriCaptor.getValue().getHost(), Matchers.is(jobHostName));
+        Assert.assertThat(uriCaptor.getValue().getPath(), Matchers.is("/api/v3/jobs/" + jobId + "/output/"));
+        Assert.assertThat(uriCaptor.getValue().getRawQuery(), Matchers.is(queryString));
+        Assert.assertThat(forwardHeaders.getFirst(HttpHeaders.RANGE), Matchers.is(range));
+
+        Mockito.verify(response, Mockito.times(1)).setStatus(HttpStatus.PARTIAL_CONTENT.value());
+        Mockito.verify(response, Mockito.times(1)).setHeader(HttpHeaders.CONTENT_RANGE, contentRange);
+        Assert.assertThat(new String(bos.toByteArray(), UTF_8), Matchers.is(text));
+        Mockito.verify(this.genieResourceHttpRequestHandler, Mockito.never()).handleRequest(request, response);
+    }
 }
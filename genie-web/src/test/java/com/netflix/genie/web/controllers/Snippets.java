@@ -421,6 +421,21 @@ final class Snippets {
             RequestDocumentation
                 .parameterWithName("groupingInstance")
                 .description("The grouping instance the job should be a member of. Use % symbol for regex like search.")
+                .optional(),
+            RequestDocumentation
+                .parameterWithName("cursor")
+                .description(
+                    "Seek past the last job of the previous page instead of skipping to a page number. Empty for the "
+                        + "first page, then the cursor from the next link. The sort must be a single one of created, "
+                        + "updated, name or user."
+                )
+                .optional(),
+            RequestDocumentation
+                .parameterWithName("countLimit")
+                .description(
+                    "When seeking, count the matching jobs up to this number (at most 10000) for the page totals. "
+                        + "Not counted, and the page totals left out, when absent."
+                )
                 .optional()
         )
     );
@@ -0,0 +1,70 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.health;
+
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.genie.web.tasks.job.JobCompletionStage;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+/**
+ * Unit tests for JobCompletionHealthIndicator.
+ *
+ * @since 4.0.0
+ */
+@Category(UnitTest.class)
+public class JobCompletionHealthIndicatorUnitTests {
+
+    private JobCompletionStage jobCompletionStage;
+    private JobCompletionHealthIndicator jobCompletionHealthIndicator;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.jobCompletionStage = Mockito.mock(JobCompletionStage.class);
+        Mockito.when(this.jobCompletionStage.isStaged()).thenReturn(true);
+        Mockito.when(this.jobCompletionStage.getQueueCapacity()).thenReturn(10);
+        this.jobCompletionHealthIndicator = new JobCompletionHealthIndicator(this.jobCompletionStage);
+    }
+
+    /**
+     * Make sure the backlog is exposed and a full status stage takes the node out of service.
+     */
+    @Test
+    public void canGetHealth() {
+        Mockito.when(this.jobCompletionStage.getStatusBacklog()).thenReturn(3, 10);
+        Mockito.when(this.jobCompletionStage.getArchiveBacklog()).thenReturn(25, 40);
+
+        final Health health = this.jobCompletionHealthIndicator.health();
+        Assert.assertThat(health.getStatus(), Matchers.is(Status.UP));
+        Assert.assertThat(health.getDetails().get("staged"), Matchers.is(true));
+        Assert.assertThat(health.getDetails().get("statusBacklog"), Matchers.is(3));
+        Assert.assertThat(health.getDetails().get("archiveBacklog"), Matchers.is(25));
+        Assert.assertThat(health.getDetails().get("queueCapacity"), Matchers.is(10));
+
+        Assert.assertThat(this.jobCompletionHealthIndicator.health().getStatus(), Matchers.is(Status.OUT_OF_SERVICE));
+    }
+}
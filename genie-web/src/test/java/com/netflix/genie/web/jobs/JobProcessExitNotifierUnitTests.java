@@ -0,0 +1,136 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.jobs;
+
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.genie.web.events.GenieEventBus;
+import com.netflix.genie.web.events.JobFinishedEvent;
+import com.netflix.genie.web.events.JobFinishedReason;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for the {@link JobProcessExitNotifier} class.
+ *
+ * @since 4.0.0
+ */
+@Category(UnitTest.class)
+public class JobProcessExitNotifierUnitTests {
+
+    private static final String JOB_ID = "job1";
+
+    private GenieEventBus genieEventBus;
+    private JobProcessExitNotifier notifier;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.genieEventBus = Mockito.mock(GenieEventBus.class);
+        this.notifier = new JobProcessExitNotifier(true, this.genieEventBus, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Clean up after the tests.
+     */
+    @After
+    public void cleanup() {
+        this.notifier.shutdown();
+    }
+
+    /**
+     * Make sure a finished event is published when a watched process exits.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canPublishOnExit() throws Exception {
+        final CountDownLatch published = new CountDownLatch(1);
+        Mockito
+            .doAnswer(invocation -> {
+                published.countDown();
+                return null;
+            })
+            .when(this.genieEventBus)
+            .publishAsynchronousEvent(Mockito.any(JobFinishedEvent.class));
+        final Process process = Mockito.mock(Process.class);
+        Mockito.when(process.waitFor()).thenReturn(0);
+
+        this.notifier.register(JOB_ID, process);
+        Assert.assertTrue(this.notifier.watch(JOB_ID));
+        Assert.assertTrue(published.await(10, TimeUnit.SECONDS));
+
+        final ArgumentCaptor<JobFinishedEvent> captor = ArgumentCaptor.forClass(JobFinishedEvent.class);
+        Mockito.verify(this.genieEventBus, Mockito.times(1)).publishAsynchronousEvent(captor.capture());
+        Assert.assertThat(captor.getValue().getId(), Matchers.is(JOB_ID));
+        Assert.assertThat(captor.getValue().getReason(), Matchers.is(JobFinishedReason.PROCESS_COMPLETED));
+
+        // Already notified so nothing left to watch
+        Assert.assertFalse(this.notifier.watch(JOB_ID));
+    }
+
+    /**
+     * Make sure nothing is published for a job unregistered before its process exits.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void wontPublishForUnregisteredJob() throws Exception {
+        final CountDownLatch exited = new CountDownLatch(1);
+        final CountDownLatch waiting = new CountDownLatch(1);
+        final Process process = Mockito.mock(Process.class);
+        Mockito.when(process.waitFor()).thenAnswer(invocation -> {
+            waiting.countDown();
+            exited.await();
+            return 0;
+        });
+
+        this.notifier.register(JOB_ID, process);
+        Assert.assertTrue(this.notifier.watch(JOB_ID));
+        Assert.assertTrue(waiting.await(10, TimeUnit.SECONDS));
+        this.notifier.unregister(JOB_ID);
+        exited.countDown();
+        this.notifier.shutdown();
+
+        Mockito.verify(this.genieEventBus, Mockito.never()).publishAsynchronousEvent(Mockito.any());
+    }
+
+    /**
+     * Make sure nothing is tracked when disabled.
+     */
+    @Test
+    public void canDisable() {
+        final JobProcessExitNotifier disabled
+            = new JobProcessExitNotifier(false, this.genieEventBus, new SimpleMeterRegistry());
+        disabled.register(JOB_ID, Mockito.mock(Process.class));
+        Assert.assertFalse(disabled.watch(JOB_ID));
+        Assert.assertFalse(this.notifier.watch(JOB_ID));
+        disabled.shutdown();
+    }
+}
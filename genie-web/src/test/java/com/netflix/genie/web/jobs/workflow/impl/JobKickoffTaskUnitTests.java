@@ -20,6 +20,7 @@ package com.netflix.genie.web.jobs.workflow.impl;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieServerException;
 import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.genie.web.jobs.JobProcessExitNotifier;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.exec.CommandLine;
@@ -59,7 +60,8 @@ public class JobKickoffTaskUnitTests {
             false,
             this.executor,
             "localhost",
-            new SimpleMeterRegistry()
+            new SimpleMeterRegistry(),
+            Mockito.mock(JobProcessExitNotifier.class)
         );
     }
 
@@ -30,6 +30,9 @@ import com.netflix.genie.common.internal.dto.v4.ApplicationMetadata;
 import com.netflix.genie.common.internal.dto.v4.ApplicationRequest;
 import com.netflix.genie.common.internal.dto.v4.ExecutionEnvironment;
 import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.genie.web.events.GenieEventBus;
+import com.netflix.genie.web.events.ResourceChangedEvent;
+import com.netflix.genie.web.events.ResourceType;
 import com.netflix.genie.web.jpa.entities.ApplicationEntity;
 import com.netflix.genie.web.jpa.entities.CommandEntity;
 import com.netflix.genie.web.jpa.repositories.JpaApplicationRepository;
@@ -59,6 +62,7 @@ public class JpaApplicationPersistenceServiceImplUnitTests {
     private static final String APP_1_VERSION = "1.2.3";
 
     private JpaApplicationRepository jpaApplicationRepository;
+    private GenieEventBus genieEventBus;
     private JpaApplicationPersistenceServiceImpl appService;
 
     /**
@@ -67,12 +71,14 @@ public class JpaApplicationPersistenceServiceImplUnitTests {
     @Before
     public void setup() {
         this.jpaApplicationRepository = Mockito.mock(JpaApplicationRepository.class);
+        this.genieEventBus = Mockito.mock(GenieEventBus.class);
         this.appService = new JpaApplicationPersistenceServiceImpl(
             Mockito.mock(JpaTagPersistenceService.class),
             Mockito.mock(JpaFilePersistenceService.class),
             this.jpaApplicationRepository,
             Mockito.mock(JpaClusterRepository.class),
-            Mockito.mock(JpaCommandRepository.class)
+            Mockito.mock(JpaCommandRepository.class),
+            this.genieEventBus
         );
     }
 
@@ -190,6 +196,15 @@ public class JpaApplicationPersistenceServiceImplUnitTests {
         Mockito.when(applicationEntity.getCommands()).thenReturn(null);
         this.appService.deleteAllApplications();
         Mockito.verify(this.jpaApplicationRepository, Mockito.times(1)).deleteAll();
+        Mockito
+            .verify(this.genieEventBus, Mockito.times(1))
+            .publishSynchronousEvent(
+                Mockito.argThat(
+                    event -> event instanceof ResourceChangedEvent
+                        && ((ResourceChangedEvent) event).getResourceType() == ResourceType.APPLICATION
+                        && !((ResourceChangedEvent) event).getId().isPresent()
+                )
+            );
     }
 
     /**
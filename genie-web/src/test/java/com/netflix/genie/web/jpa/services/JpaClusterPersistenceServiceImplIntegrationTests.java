@@ -39,6 +39,8 @@ import com.netflix.genie.common.util.GenieObjectMapper;
 import com.netflix.genie.test.categories.IntegrationTest;
 import com.netflix.genie.web.services.ClusterPersistenceService;
 import com.netflix.genie.web.services.CommandPersistenceService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
 import org.junit.Test;
@@ -93,12 +95,18 @@ public class JpaClusterPersistenceServiceImplIntegrationTests extends DBIntegrat
 
     private static final Pageable PAGE = PageRequest.of(0, 10, Sort.Direction.DESC, "updated");
 
+    private static final String RESOLUTION_QUERIES_SUMMARY_NAME
+        = "genie.jpa.clusterPersistenceService.resolveClustersAndCommands.queries.summary";
+
     @Autowired
     private ClusterPersistenceService service;
 
     @Autowired
     private CommandPersistenceService commandPersistenceService;
 
+    @Autowired
+    private MeterRegistry registry;
+
     /**
      * Test the get cluster method.
      *
@@ -518,6 +526,40 @@ public class JpaClusterPersistenceServiceImplIntegrationTests extends DBIntegrat
         Assert.assertTrue(clustersAndCommands.containsValue(COMMAND_3_ID));
     }
 
+    /**
+     * Make sure the number of statements executed for each resolution is recorded.
+     *
+     * @throws GenieException For any problem
+     */
+    @Test
+    public void canRecordStatementsPerResolution() throws GenieException {
+        final DistributionSummary summary = this.registry.summary(RESOLUTION_QUERIES_SUMMARY_NAME);
+        final long count = summary.count();
+        final double total = summary.totalAmount();
+
+        // One query for the matching ids then one for the tags and setup file, one for configs and one for dependencies
+        Assert.assertThat(
+            this.service.findClustersAndCommandsForCriteria(
+                Lists.newArrayList(new Criterion.Builder().withId(CLUSTER_1_ID).build()),
+                new Criterion.Builder().withTags(Sets.newHashSet("pig")).build()
+            ).size(),
+            Matchers.is(1)
+        );
+        Assert.assertThat(summary.count(), Matchers.is(count + 1));
+        Assert.assertThat(summary.totalAmount() - total, Matchers.is(4.0));
+
+        // Nothing to hydrate when no cluster matches
+        Assert.assertThat(
+            this.service.findClustersAndCommandsForCriteria(
+                Lists.newArrayList(new Criterion.Builder().withId(UUID.randomUUID().toString()).build()),
+                new Criterion.Builder().withTags(Sets.newHashSet("pig")).build()
+            ).size(),
+            Matchers.is(0)
+        );
+        Assert.assertThat(summary.count(), Matchers.is(count + 2));
+        Assert.assertThat(summary.totalAmount() - total, Matchers.is(5.0));
+    }
+
     /**
      * Test the create method.
      *
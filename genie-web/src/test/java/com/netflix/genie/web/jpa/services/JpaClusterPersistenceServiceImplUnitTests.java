@@ -28,8 +28,10 @@ import com.netflix.genie.common.exceptions.GeniePreconditionException;
 import com.netflix.genie.common.internal.dto.v4.Cluster;
 import com.netflix.genie.common.internal.dto.v4.ClusterMetadata;
 import com.netflix.genie.common.internal.dto.v4.ClusterRequest;
+import com.netflix.genie.common.internal.dto.v4.Criterion;
 import com.netflix.genie.common.internal.dto.v4.ExecutionEnvironment;
 import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.genie.web.events.GenieEventBus;
 import com.netflix.genie.web.jpa.entities.ClusterEntity;
 import com.netflix.genie.web.jpa.entities.CommandEntity;
 import com.netflix.genie.web.jpa.entities.FileEntity;
@@ -37,6 +39,11 @@ import com.netflix.genie.web.jpa.entities.projections.ClusterCommandsProjection;
 import com.netflix.genie.web.jpa.repositories.JpaApplicationRepository;
 import com.netflix.genie.web.jpa.repositories.JpaClusterRepository;
 import com.netflix.genie.web.jpa.repositories.JpaCommandRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
@@ -46,6 +53,7 @@ import org.springframework.dao.DuplicateKeyException;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -63,11 +71,15 @@ public class JpaClusterPersistenceServiceImplUnitTests {
     private static final String CLUSTER_1_USER = "tgianos";
     private static final String CLUSTER_1_NAME = "h2prod";
     private static final String CLUSTER_1_VERSION = "2.4.0";
+    private static final String RESOLUTION_QUERIES_SUMMARY_NAME
+        = "genie.jpa.clusterPersistenceService.resolveClustersAndCommands.queries.summary";
 
     private JpaClusterPersistenceServiceImpl service;
     private JpaClusterRepository jpaClusterRepository;
     private JpaCommandRepository jpaCommandRepository;
     private JpaFilePersistenceService filePersistenceService;
+    private MeterRegistry registry;
+    private StatementCountingInspector statementCountingInspector;
 
     /**
      * Setup for the tests.
@@ -77,12 +89,18 @@ public class JpaClusterPersistenceServiceImplUnitTests {
         this.jpaClusterRepository = Mockito.mock(JpaClusterRepository.class);
         this.jpaCommandRepository = Mockito.mock(JpaCommandRepository.class);
         this.filePersistenceService = Mockito.mock(JpaFilePersistenceService.class);
+        this.registry = new SimpleMeterRegistry();
+        this.statementCountingInspector = new StatementCountingInspector();
         this.service = new JpaClusterPersistenceServiceImpl(
             Mockito.mock(JpaTagPersistenceService.class),
             this.filePersistenceService,
             Mockito.mock(JpaApplicationRepository.class),
             this.jpaClusterRepository,
-            this.jpaCommandRepository
+            this.jpaCommandRepository,
+            Mockito.mock(GenieEventBus.class),
+            this.registry,
+            this.statementCountingInspector,
+            null
         );
     }
 
@@ -490,4 +508,57 @@ public class JpaClusterPersistenceServiceImplUnitTests {
         Mockito.when(this.jpaClusterRepository.findByUniqueId(id)).thenReturn(Optional.empty());
         this.service.removeTagForCluster(id, "something");
     }
+
+    /**
+     * Make sure resolved clusters are hydrated in bulk and only the rows of the first matching criterion are used.
+     *
+     * @throws GenieException For any problem
+     */
+    @Test
+    public void canHydrateResolvedClustersInBulk() throws GenieException {
+        final Criterion criterion = new Criterion.Builder().withName(CLUSTER_1_NAME).build();
+        final List<Object[]> rows = Lists.newArrayList(
+            new Object[]{0, 1L, "command1"},
+            new Object[]{0, 2L, "command2"},
+            new Object[]{1, 3L, "command3"}
+        );
+        // Each repository call stands in for one statement prepared by Hibernate
+        Mockito
+            .when(this.jpaClusterRepository.resolveClustersAndCommands(Mockito.anyList(), Mockito.eq(criterion)))
+            .thenAnswer(invocation -> this.inspect(rows));
+        final ClusterEntity cluster1 = Mockito.mock(ClusterEntity.class);
+        Mockito.when(cluster1.getId()).thenReturn(1L);
+        Mockito.when(cluster1.getUniqueId()).thenReturn(CLUSTER_1_ID);
+        final ClusterEntity cluster2 = Mockito.mock(ClusterEntity.class);
+        Mockito.when(cluster2.getId()).thenReturn(2L);
+        Mockito.when(cluster2.getUniqueId()).thenReturn(UUID.randomUUID().toString());
+        final Set<Long> expectedIds = Sets.newHashSet(1L, 2L);
+        Mockito
+            .when(this.jpaClusterRepository.findWithTagsAndSetupFileByIdIn(expectedIds))
+            .thenAnswer(invocation -> this.inspect(Lists.newArrayList(cluster1, cluster2)));
+        Mockito
+            .when(this.jpaClusterRepository.findWithConfigsByIdIn(expectedIds))
+            .thenAnswer(invocation -> this.inspect(Lists.newArrayList(cluster1, cluster2)));
+        Mockito
+            .when(this.jpaClusterRepository.findWithDependenciesByIdIn(expectedIds))
+            .thenAnswer(invocation -> this.inspect(Lists.newArrayList(cluster1, cluster2)));
+
+        final Map<Cluster, String> clustersAndCommands
+            = this.service.findClustersAndCommandsForCriteria(Lists.newArrayList(criterion, criterion), criterion);
+
+        Assert.assertThat(clustersAndCommands.size(), Matchers.is(2));
+        Assert.assertThat(clustersAndCommands.values(), Matchers.containsInAnyOrder("command1", "command2"));
+        Mockito.verify(this.jpaClusterRepository, Mockito.times(1)).findWithConfigsByIdIn(expectedIds);
+        Mockito.verify(this.jpaClusterRepository, Mockito.times(1)).findWithDependenciesByIdIn(expectedIds);
+        Mockito.verify(this.jpaClusterRepository, Mockito.never()).getOne(Mockito.anyLong());
+
+        final DistributionSummary summary = this.registry.summary(RESOLUTION_QUERIES_SUMMARY_NAME);
+        Assert.assertThat(summary.count(), Matchers.is(1L));
+        Assert.assertThat(summary.totalAmount(), Matchers.is(4.0));
+    }
+
+    private <T> T inspect(final T result) {
+        this.statementCountingInspector.inspect("select 1");
+        return result;
+    }
 }
@@ -30,6 +30,7 @@ import com.netflix.genie.common.internal.dto.v4.CommandMetadata;
 import com.netflix.genie.common.internal.dto.v4.CommandRequest;
 import com.netflix.genie.common.internal.dto.v4.ExecutionEnvironment;
 import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.genie.web.events.GenieEventBus;
 import com.netflix.genie.web.jpa.entities.ApplicationEntity;
 import com.netflix.genie.web.jpa.entities.CommandEntity;
 import com.netflix.genie.web.jpa.repositories.JpaApplicationRepository;
@@ -80,7 +81,8 @@ public class JpaCommandPersistenceServiceImplUnitTests {
             Mockito.mock(JpaFilePersistenceService.class),
             this.jpaApplicationRepository,
             Mockito.mock(JpaClusterRepository.class),
-            this.jpaCommandRepository
+            this.jpaCommandRepository,
+            Mockito.mock(GenieEventBus.class)
         );
     }
 
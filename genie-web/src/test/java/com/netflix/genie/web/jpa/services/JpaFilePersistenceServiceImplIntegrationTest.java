@@ -34,6 +34,7 @@ import org.junit.experimental.categories.Category;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -137,6 +138,68 @@ public class JpaFilePersistenceServiceImplIntegrationTest extends DBIntegrationT
         this.applicationPersistenceService.deleteApplication(appId);
     }
 
+    /**
+     * Make sure we can find and delete unused files in keyset paged batches.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canDeleteUnusedFilesInBatches() throws GenieException {
+        Assert.assertThat(this.fileRepository.count(), Matchers.is(0L));
+        final String file1 = UUID.randomUUID().toString();
+        final String file2 = UUID.randomUUID().toString();
+        final String file3 = UUID.randomUUID().toString();
+        final String file4 = UUID.randomUUID().toString();
+
+        this.filePersistenceService.createFileIfNotExists(file1);
+        this.filePersistenceService.createFileIfNotExists(file4);
+
+        final ApplicationRequest app = new ApplicationRequest.Builder(
+            new ApplicationMetadata.Builder(
+                UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(),
+                ApplicationStatus.ACTIVE
+            ).build())
+            .withResources(
+                new ExecutionEnvironment(
+                    Sets.newHashSet(file3),
+                    null,
+                    file2
+                )
+            )
+            .build();
+
+        final String appId = this.applicationPersistenceService.createApplication(app);
+
+        final Instant now = Instant.now();
+        final long file1Id = this.getFileId(file1);
+        final long file2Id = this.getFileId(file2);
+        final long file3Id = this.getFileId(file3);
+        final long file4Id = this.getFileId(file4);
+
+        final List<Long> firstBatch = this.filePersistenceService.findUnusedFileIds(now, 0L, 1);
+        Assert.assertThat(firstBatch, Matchers.contains(Math.min(file1Id, file4Id)));
+        Assert.assertThat(
+            this.filePersistenceService.findUnusedFileIds(now, firstBatch.get(0), 10),
+            Matchers.contains(Math.max(file1Id, file4Id))
+        );
+        Assert.assertTrue(this.filePersistenceService.findUnusedFileIds(now.minusSeconds(3600L), 0L, 10).isEmpty());
+
+        // Used files are re-checked and left alone even if they're passed in
+        Assert.assertThat(
+            this.filePersistenceService.deleteFilesIfUnused(Sets.newHashSet(file1Id, file2Id, file3Id, file4Id)),
+            Matchers.is(2L)
+        );
+
+        Assert.assertFalse(this.fileRepository.existsByFile(file1));
+        Assert.assertTrue(this.fileRepository.existsByFile(file2));
+        Assert.assertTrue(this.fileRepository.existsByFile(file3));
+        Assert.assertFalse(this.fileRepository.existsByFile(file4));
+
+        this.applicationPersistenceService.deleteApplication(appId);
+    }
+
     /**
      * Make sure we can find files.
      */
@@ -164,4 +227,8 @@ public class JpaFilePersistenceServiceImplIntegrationTest extends DBIntegrationT
         Assert.assertThat(files.size(), Matchers.is(1));
         Assert.assertThat(files, Matchers.hasItem(fileEntity1));
     }
+
+    private long getFileId(final String file) {
+        return this.filePersistenceService.getFile(file).orElseThrow(IllegalArgumentException::new).getId();
+    }
 }
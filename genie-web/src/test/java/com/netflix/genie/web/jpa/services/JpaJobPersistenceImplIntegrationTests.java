@@ -65,6 +65,8 @@ import org.junit.experimental.categories.Category;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.annotation.Nullable;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
@@ -88,7 +90,16 @@ import java.util.UUID;
 @DatabaseTearDown("cleanup.xml")
 public class JpaJobPersistenceImplIntegrationTests extends DBIntegrationTestBase {
 
+    private static final String JOB_1_ID = "job1";
+    private static final String JOB_2_ID = "job2";
     private static final String JOB_3_ID = "job3";
+    private static final List<String> JOB_CHILD_TABLES = Lists.newArrayList(
+        "jobs_tags",
+        "jobs_applications",
+        "job_environment_variables",
+        "job_command_arguments",
+        "jobs_cluster_criteria"
+    );
 
     // Job Request fields
     private static final String UNIQUE_ID = UUID.randomUUID().toString();
@@ -161,6 +172,8 @@ public class JpaJobPersistenceImplIntegrationTests extends DBIntegrationTestBase
     private CommandPersistenceService commandPersistenceService;
     @Autowired
     private ApplicationPersistenceService applicationPersistenceService;
+    @PersistenceContext
+    private EntityManager entityManager;
 
     /**
      * Setup.
@@ -234,6 +247,38 @@ public class JpaJobPersistenceImplIntegrationTests extends DBIntegrationTestBase
         Assert.assertTrue(this.jobRepository.findByUniqueId(JOB_3_ID).isPresent());
     }
 
+    /**
+     * Make sure we can bulk delete jobs that were created before a given date along with the rows belonging to them.
+     */
+    @Test
+    public void canBulkDeleteJobsCreatedBeforeDate() {
+        final Instant cal = ZonedDateTime
+            .of(2016, Month.JANUARY.getValue(), 1, 0, 0, 0, 0, ZoneId.of("UTC"))
+            .toInstant();
+
+        Assert.assertThat(this.jobPersistenceService.bulkDeleteJobsCreatedBeforeDate(cal, 1), Matchers.is(1L));
+        Assert.assertThat(this.jobRepository.count(), Matchers.is(2L));
+        Assert.assertFalse(this.jobRepository.findByUniqueId(JOB_1_ID).isPresent());
+        Assert.assertTrue(this.jobRepository.findByUniqueId(JOB_2_ID).isPresent());
+
+        Assert.assertThat(this.jobPersistenceService.bulkDeleteJobsCreatedBeforeDate(cal, 10), Matchers.is(1L));
+        Assert.assertThat(this.jobRepository.count(), Matchers.is(1L));
+        Assert.assertTrue(this.jobRepository.findByUniqueId(JOB_3_ID).isPresent());
+
+        Assert.assertThat(this.jobPersistenceService.bulkDeleteJobsCreatedBeforeDate(cal, 10), Matchers.is(0L));
+
+        // Jobs 1 and 2 owned criteria 0 to 5 and job 3 owns criteria 6 to 8
+        final List<Long> deletedJobs = Lists.newArrayList(1L, 2L);
+        final List<Long> deletedCriteria = Lists.newArrayList(0L, 1L, 2L, 3L, 4L, 5L);
+        for (final String table : JOB_CHILD_TABLES) {
+            Assert.assertThat(table, this.countRows(table, "job_id", deletedJobs), Matchers.is(0L));
+            Assert.assertThat(table, this.countRows(table, "job_id", Lists.newArrayList(3L)), Matchers.greaterThan(0L));
+        }
+        Assert.assertThat(this.countRows("criteria", "id", deletedCriteria), Matchers.is(0L));
+        Assert.assertThat(this.countRows("criteria_tags", "criterion_id", deletedCriteria), Matchers.is(0L));
+        Assert.assertThat(this.countRows("criteria", "id", Lists.newArrayList(6L, 7L, 8L)), Matchers.is(3L));
+    }
+
     /**
      * Make sure a job can be saved AND criterion are saved properly.
      *
@@ -890,4 +935,12 @@ public class JpaJobPersistenceImplIntegrationTests extends DBIntegrationTestBase
             jobDirectoryLocation
         );
     }
+
+    private long countRows(final String table, final String column, final List<Long> ids) {
+        return ((Number) this.entityManager
+            .createNativeQuery("SELECT COUNT(*) FROM " + table + " WHERE " + column + " IN (:ids)")
+            .setParameter("ids", ids)
+            .getSingleResult()
+        ).longValue();
+    }
 }
@@ -19,6 +19,7 @@ package com.netflix.genie.web.jpa.services;
 
 import com.github.springtestdbunit.annotation.DatabaseSetup;
 import com.github.springtestdbunit.annotation.DatabaseTearDown;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.netflix.genie.common.dto.Application;
 import com.netflix.genie.common.dto.Job;
@@ -27,6 +28,7 @@ import com.netflix.genie.common.dto.JobStatus;
 import com.netflix.genie.common.dto.search.JobSearchResult;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieNotFoundException;
+import com.netflix.genie.common.exceptions.GeniePreconditionException;
 import com.netflix.genie.test.categories.IntegrationTest;
 import com.netflix.genie.test.suppliers.RandomSuppliers;
 import com.netflix.genie.web.services.JobSearchService;
@@ -35,15 +37,18 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
+import javax.validation.ConstraintViolationException;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Integration tests for the Job Search Service using JPA.
@@ -64,6 +69,9 @@ public class JpaJobSearchServiceImplIntegrationTests extends DBIntegrationTestBa
     @Autowired
     private JobSearchService service;
 
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
     /**
      * Make sure we can search jobs successfully.
      */
@@ -231,6 +239,185 @@ public class JpaJobSearchServiceImplIntegrationTests extends DBIntegrationTestBa
         Assert.assertTrue(jobs.getContent().isEmpty());
     }
 
+    /**
+     * Make sure jobs can be paged through by seeking with cursors.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canSeekJobs() throws GenieException {
+        final Pageable page = PageRequest.of(0, 2, Sort.Direction.DESC, "created");
+        final JobSearchService.JobSearchCursorPage firstPage = this.seekJobs(null, page, 2);
+        Assert.assertThat(firstPage.getContent().size(), Matchers.is(2));
+        Assert.assertThat(firstPage.getCount().orElseThrow(IllegalArgumentException::new), Matchers.is(2L));
+        final String cursor = firstPage.getNextCursor().orElseThrow(IllegalArgumentException::new);
+
+        final JobSearchService.JobSearchCursorPage secondPage = this.seekJobs(cursor, page, null);
+        Assert.assertThat(secondPage.getContent().size(), Matchers.is(1));
+        Assert.assertFalse(secondPage.getNextCursor().isPresent());
+        Assert.assertFalse(secondPage.getCount().isPresent());
+
+        final Set<String> ids = Sets.newHashSet();
+        firstPage.getContent().forEach(job -> ids.add(job.getId()));
+        secondPage.getContent().forEach(job -> ids.add(job.getId()));
+        Assert.assertThat(ids, Matchers.containsInAnyOrder(JOB_1_ID, JOB_2_ID, JOB_3_ID));
+
+        try {
+            this.seekJobs(cursor, PageRequest.of(0, 2, Sort.Direction.ASC, "created"), null);
+            Assert.fail("The sort of a search can't change between pages");
+        } catch (final GeniePreconditionException e) {
+            // expected
+        }
+        try {
+            this.seekJobs(null, PageRequest.of(0, 2, Sort.Direction.ASC, "status"), null);
+            Assert.fail("Seeking isn't supported on every property");
+        } catch (final GeniePreconditionException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Make sure seeking counts the matching jobs up to the requested limit.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canCountSeekedJobsUpToTheLimit() throws GenieException {
+        final Pageable page = PageRequest.of(0, 1, Sort.Direction.DESC, "created");
+        Assert.assertThat(
+            this.seekJobs(null, page, 2).getCount().orElseThrow(IllegalArgumentException::new),
+            Matchers.is(2L)
+        );
+        Assert.assertThat(
+            this.seekJobs(null, page, 3).getCount().orElseThrow(IllegalArgumentException::new),
+            Matchers.is(3L)
+        );
+        Assert.assertThat(
+            this.seekJobs(null, page, JobSearchService.MAX_SEEK_COUNT_LIMIT)
+                .getCount()
+                .orElseThrow(IllegalArgumentException::new),
+            Matchers.is(3L)
+        );
+        for (final int countLimit : new int[]{0, JobSearchService.MAX_SEEK_COUNT_LIMIT + 1}) {
+            try {
+                this.seekJobs(null, page, countLimit);
+                Assert.fail("The count limit must be within bounds");
+            } catch (final ConstraintViolationException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Make sure jobs can be found by the unique id of the cluster and command they ran with.
+     */
+    @Test
+    public void canFindJobsByClusterAndCommandId() {
+        Assert.assertThat(
+            this.findJobIds("cluster1", "command1"),
+            Matchers.containsInAnyOrder(JOB_1_ID, JOB_2_ID, JOB_3_ID)
+        );
+        Assert.assertThat(this.findJobIds("cluster1", null).size(), Matchers.is(3));
+        Assert.assertTrue(this.findJobIds(UUID.randomUUID().toString(), null).isEmpty());
+        Assert.assertTrue(this.findJobIds(null, UUID.randomUUID().toString()).isEmpty());
+    }
+
+    /**
+     * Make sure seeking by the unique id of a cluster or command which doesn't exist finds no jobs rather than
+     * ignoring the id.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canSeekJobsByClusterAndCommandId() throws GenieException {
+        final Pageable page = PageRequest.of(0, 10, Sort.Direction.DESC, "created");
+        Assert.assertThat(this.seekJobs("cluster1", "command1", page).getContent().size(), Matchers.is(3));
+        Assert.assertThat(this.seekJobs("cluster1", null, page).getContent().size(), Matchers.is(3));
+        Assert.assertTrue(this.seekJobs(UUID.randomUUID().toString(), null, page).getContent().isEmpty());
+        Assert.assertTrue(this.seekJobs(null, UUID.randomUUID().toString(), page).getContent().isEmpty());
+        Assert.assertTrue(this.seekJobs("cluster1", UUID.randomUUID().toString(), page).getContent().isEmpty());
+    }
+
+    /**
+     * Make sure searching tags through the jobs to tags join table finds the same jobs as the tag search string.
+     */
+    @Test
+    public void canFindJobsByIndexedTags() {
+        final JobSearchService indexedService = new JpaJobSearchServiceImpl(this.jobRepository, this.tagRepository);
+        this.beanFactory.autowireBean(indexedService);
+
+        final List<Set<String>> tagSets = Lists.newArrayList(
+            Sets.newHashSet("type:yarn"),
+            Sets.newHashSet("sched:adhoc", "type:yarn"),
+            Sets.newHashSet("sched:adhoc", "sched:sla"),
+            Sets.newHashSet("type:yarn", UUID.randomUUID().toString())
+        );
+        for (final Set<String> tags : tagSets) {
+            Assert.assertThat(
+                this.findJobIds(indexedService, null, tags),
+                Matchers.is(this.findJobIds(this.service, null, tags))
+            );
+        }
+
+        Assert.assertThat(
+            this.findJobIds(indexedService, null, Sets.newHashSet("type:yarn")),
+            Matchers.containsInAnyOrder(JOB_1_ID, JOB_2_ID, JOB_3_ID)
+        );
+        Assert.assertThat(
+            this.findJobIds(indexedService, null, Sets.newHashSet("type:yarn", "sched:adhoc")),
+            Matchers.contains(JOB_1_ID)
+        );
+        Assert.assertThat(
+            this.findJobIds(indexedService, Sets.newHashSet(JobStatus.RUNNING), Sets.newHashSet("type:yarn")),
+            Matchers.contains(JOB_3_ID)
+        );
+        Assert.assertTrue(
+            this.findJobIds(indexedService, null, Sets.newHashSet("type:yarn", "sched:adhoc", "sched:sla")).isEmpty()
+        );
+        Assert.assertTrue(
+            this.findJobIds(indexedService, null, Sets.newHashSet(UUID.randomUUID().toString())).isEmpty()
+        );
+    }
+
+    /**
+     * Make sure seeking with tags matched through the jobs to tags join table pages and counts the same jobs.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canSeekJobsByIndexedTags() throws GenieException {
+        final JobSearchService indexedService = new JpaJobSearchServiceImpl(this.jobRepository, this.tagRepository);
+        this.beanFactory.autowireBean(indexedService);
+        final Pageable page = PageRequest.of(0, 2, Sort.Direction.ASC, "created");
+        final Set<String> tags = Sets.newHashSet("type:yarn");
+
+        final JobSearchService.JobSearchCursorPage firstPage = this.seekJobs(indexedService, tags, null, page, 3);
+        Assert.assertThat(firstPage.getContent().size(), Matchers.is(2));
+        Assert.assertThat(firstPage.getCount().orElseThrow(IllegalArgumentException::new), Matchers.is(3L));
+        final String cursor = firstPage.getNextCursor().orElseThrow(IllegalArgumentException::new);
+
+        final JobSearchService.JobSearchCursorPage secondPage = this.seekJobs(indexedService, tags, cursor, page, 2);
+        Assert.assertThat(secondPage.getContent().size(), Matchers.is(1));
+        Assert.assertFalse(secondPage.getNextCursor().isPresent());
+        // The count covers every matching job, not only the ones after the cursor
+        Assert.assertThat(secondPage.getCount().orElseThrow(IllegalArgumentException::new), Matchers.is(2L));
+
+        final Set<String> ids = Sets.newHashSet();
+        firstPage.getContent().forEach(job -> ids.add(job.getId()));
+        secondPage.getContent().forEach(job -> ids.add(job.getId()));
+        Assert.assertThat(ids, Matchers.containsInAnyOrder(JOB_1_ID, JOB_2_ID, JOB_3_ID));
+
+        final JobSearchService.JobSearchCursorPage unknownTag = this.seekJobs(
+            indexedService,
+            Sets.newHashSet("type:yarn", UUID.randomUUID().toString()),
+            null,
+            page,
+            3
+        );
+        Assert.assertTrue(unknownTag.getContent().isEmpty());
+        Assert.assertThat(unknownTag.getCount().orElseThrow(IllegalArgumentException::new), Matchers.is(0L));
+    }
+
     /**
      * Make sure we can get the correct number of jobs which are active on a given host.
      */
@@ -445,4 +632,134 @@ public class JpaJobSearchServiceImplIntegrationTests extends DBIntegrationTestBa
         Assert.assertThat(jobMetadata.getStdErrSize(), Matchers.is(Optional.empty()));
         Assert.assertThat(jobMetadata.getStdOutSize(), Matchers.is(Optional.empty()));
     }
+
+    private JobSearchService.JobSearchCursorPage seekJobs(
+        final String cursor,
+        final Pageable page,
+        final Integer countLimit
+    ) throws GeniePreconditionException {
+        return this.seekJobs(null, null, cursor, page, countLimit);
+    }
+
+    private JobSearchService.JobSearchCursorPage seekJobs(
+        final String clusterId,
+        final String commandId,
+        final Pageable page
+    ) throws GeniePreconditionException {
+        return this.seekJobs(clusterId, commandId, null, page, null);
+    }
+
+    private JobSearchService.JobSearchCursorPage seekJobs(
+        final String clusterId,
+        final String commandId,
+        final String cursor,
+        final Pageable page,
+        final Integer countLimit
+    ) throws GeniePreconditionException {
+        return this.service.seekJobs(
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            clusterId,
+            null,
+            commandId,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            cursor,
+            page,
+            countLimit
+        );
+    }
+
+    private JobSearchService.JobSearchCursorPage seekJobs(
+        final JobSearchService searchService,
+        final Set<String> tags,
+        final String cursor,
+        final Pageable page,
+        final Integer countLimit
+    ) throws GeniePreconditionException {
+        return searchService.seekJobs(
+            null,
+            null,
+            null,
+            null,
+            tags,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            cursor,
+            page,
+            countLimit
+        );
+    }
+
+    private Set<String> findJobIds(
+        final JobSearchService searchService,
+        final Set<JobStatus> statuses,
+        final Set<String> tags
+    ) {
+        return searchService
+            .findJobs(
+                null,
+                null,
+                null,
+                statuses,
+                tags,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                PageRequest.of(0, 10, Sort.Direction.DESC, "updated")
+            )
+            .getContent()
+            .stream()
+            .map(JobSearchResult::getId)
+            .collect(Collectors.toSet());
+    }
+
+    private Set<String> findJobIds(final String clusterId, final String commandId) {
+        return this.service
+            .findJobs(
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                clusterId,
+                null,
+                commandId,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                PageRequest.of(0, 10, Sort.Direction.DESC, "updated")
+            )
+            .getContent()
+            .stream()
+            .map(JobSearchResult::getId)
+            .collect(Collectors.toSet());
+    }
 }
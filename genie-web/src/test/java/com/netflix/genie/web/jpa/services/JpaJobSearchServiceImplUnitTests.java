@@ -28,8 +28,6 @@ import com.netflix.genie.web.jpa.entities.projections.JobApplicationsProjection;
 import com.netflix.genie.web.jpa.entities.projections.JobClusterProjection;
 import com.netflix.genie.web.jpa.entities.projections.JobCommandProjection;
 import com.netflix.genie.web.jpa.entities.projections.JobProjection;
-import com.netflix.genie.web.jpa.repositories.JpaClusterRepository;
-import com.netflix.genie.web.jpa.repositories.JpaCommandRepository;
 import com.netflix.genie.web.jpa.repositories.JpaJobRepository;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
@@ -59,11 +57,7 @@ public class JpaJobSearchServiceImplUnitTests {
     @Before
     public void setup() {
         this.jobRepository = Mockito.mock(JpaJobRepository.class);
-        this.service = new JpaJobSearchServiceImpl(
-            this.jobRepository,
-            Mockito.mock(JpaClusterRepository.class),
-            Mockito.mock(JpaCommandRepository.class)
-        );
+        this.service = new JpaJobSearchServiceImpl(this.jobRepository);
     }
 
     /**
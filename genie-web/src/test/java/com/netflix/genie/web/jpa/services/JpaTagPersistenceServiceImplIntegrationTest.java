@@ -33,6 +33,7 @@ import org.junit.experimental.categories.Category;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -118,6 +119,58 @@ public class JpaTagPersistenceServiceImplIntegrationTest extends DBIntegrationTe
         Assert.assertTrue(this.tagRepository.existsByTag(tag2));
     }
 
+    /**
+     * Make sure we can find and delete unused tags in keyset paged batches.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canDeleteUnusedTagsInBatches() throws GenieException {
+        Assert.assertThat(this.tagRepository.count(), Matchers.is(0L));
+        final String tag1 = UUID.randomUUID().toString();
+        final String tag2 = UUID.randomUUID().toString();
+        final String tag3 = UUID.randomUUID().toString();
+        this.tagPersistenceService.createTagIfNotExists(tag1);
+        this.tagPersistenceService.createTagIfNotExists(tag3);
+
+        final ApplicationRequest app = new ApplicationRequest.Builder(
+            new ApplicationMetadata.Builder(
+                UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(),
+                ApplicationStatus.ACTIVE
+            )
+                .withTags(Sets.newHashSet(tag2))
+                .build()
+        ).build();
+
+        this.applicationPersistenceService.createApplication(app);
+
+        final Instant now = Instant.now();
+        final long tag1Id = this.tagPersistenceService.getTag(tag1).orElseThrow(IllegalArgumentException::new).getId();
+        final long tag2Id = this.tagPersistenceService.getTag(tag2).orElseThrow(IllegalArgumentException::new).getId();
+        final long tag3Id = this.tagPersistenceService.getTag(tag3).orElseThrow(IllegalArgumentException::new).getId();
+
+        final List<Long> firstBatch = this.tagPersistenceService.findUnusedTagIds(now, 0L, 1);
+        Assert.assertThat(firstBatch, Matchers.contains(Math.min(tag1Id, tag3Id)));
+        Assert.assertThat(
+            this.tagPersistenceService.findUnusedTagIds(now, firstBatch.get(0), 10),
+            Matchers.contains(Math.max(tag1Id, tag3Id))
+        );
+        Assert.assertTrue(this.tagPersistenceService.findUnusedTagIds(now.minusSeconds(3600L), 0L, 10).isEmpty());
+
+        // Used tags are re-checked and left alone even if they're passed in
+        Assert.assertThat(
+            this.tagPersistenceService.deleteTagsIfUnused(Sets.newHashSet(tag1Id, tag2Id, tag3Id)),
+            Matchers.is(2L)
+        );
+        Assert.assertThat(this.tagPersistenceService.deleteTagsIfUnused(Sets.newHashSet()), Matchers.is(0L));
+
+        Assert.assertFalse(this.tagRepository.existsByTag(tag1));
+        Assert.assertTrue(this.tagRepository.existsByTag(tag2));
+        Assert.assertFalse(this.tagRepository.existsByTag(tag3));
+    }
+
     /**
      * Make sure we can find tags.
      */
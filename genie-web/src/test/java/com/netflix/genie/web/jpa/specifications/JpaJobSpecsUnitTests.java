@@ -20,17 +20,23 @@ import com.netflix.genie.common.dto.JobStatus;
 import com.netflix.genie.test.categories.UnitTest;
 import com.netflix.genie.web.jpa.entities.ClusterEntity;
 import com.netflix.genie.web.jpa.entities.CommandEntity;
+import com.netflix.genie.web.jpa.entities.IdEntity_;
 import com.netflix.genie.web.jpa.entities.JobEntity;
 import com.netflix.genie.web.jpa.entities.JobEntity_;
+import com.netflix.genie.web.jpa.entities.TagEntity;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.mockito.Mockito;
 
+import javax.persistence.criteria.AbstractQuery;
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.SetJoin;
+import javax.persistence.criteria.Subquery;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Set;
@@ -216,6 +222,63 @@ public class JpaJobSpecsUnitTests {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.groupingInstance), GROUPING_INSTANCE);
     }
 
+    /**
+     * Test the find specification when the tags are matched through the jobs to tags join table.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFindWithTagEntities() {
+        final Set<TagEntity> tagEntities
+            = Sets.newHashSet(new TagEntity(TAG), new TagEntity(UUID.randomUUID().toString()));
+        final AbstractQuery<JobEntity> query = (AbstractQuery<JobEntity>) Mockito.mock(AbstractQuery.class);
+        final Subquery<Long> subquery = (Subquery<Long>) Mockito.mock(Subquery.class, Mockito.RETURNS_SELF);
+        final Root<JobEntity> taggedRoot = (Root<JobEntity>) Mockito.mock(Root.class);
+        final SetJoin<JobEntity, TagEntity> tagJoin = (SetJoin<JobEntity, TagEntity>) Mockito.mock(SetJoin.class);
+        final Path<Long> idPath = (Path<Long>) Mockito.mock(Path.class);
+        final Path<Long> taggedIdPath = (Path<Long>) Mockito.mock(Path.class);
+        final Path<Instant> taggedStartedPath = (Path<Instant>) Mockito.mock(Path.class);
+        final Expression<Long> countExpression = (Expression<Long>) Mockito.mock(Expression.class);
+        Mockito.when(query.subquery(Long.class)).thenReturn(subquery);
+        Mockito.when(subquery.from(JobEntity.class)).thenReturn(taggedRoot);
+        Mockito.when(taggedRoot.join(JobEntity_.tags)).thenReturn(tagJoin);
+        Mockito.when(taggedRoot.get(IdEntity_.id)).thenReturn(taggedIdPath);
+        Mockito.when(taggedRoot.get(JobEntity_.started)).thenReturn(taggedStartedPath);
+        Mockito.when(this.root.get(IdEntity_.id)).thenReturn(idPath);
+        Mockito.when(this.cb.count(taggedIdPath)).thenReturn(countExpression);
+
+        JpaJobSpecs.getFindPredicate(
+            this.root,
+            query,
+            this.cb,
+            null,
+            null,
+            null,
+            null,
+            tagEntities,
+            null,
+            null,
+            null,
+            null,
+            MIN_STARTED,
+            null,
+            null,
+            null,
+            null,
+            null
+        );
+
+        Mockito.verify(tagJoin, Mockito.times(1)).in(tagEntities);
+        Mockito.verify(subquery, Mockito.times(1)).select(taggedIdPath);
+        Mockito.verify(subquery, Mockito.times(1)).groupBy(taggedIdPath);
+        Mockito.verify(this.cb, Mockito.times(1)).equal(countExpression, (long) tagEntities.size());
+        Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(taggedStartedPath, MIN_STARTED);
+        Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
+        Mockito.verify(idPath, Mockito.times(1)).in(subquery);
+        Mockito
+            .verify(this.cb, Mockito.never())
+            .like(Mockito.eq(this.root.get(JobEntity_.tagSearchString)), Mockito.any(String.class));
+    }
+
     /**
      * Test the find specification.
      */
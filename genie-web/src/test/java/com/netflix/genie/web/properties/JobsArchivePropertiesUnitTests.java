@@ -0,0 +1,70 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Unit tests for JobsArchiveProperties.
+ *
+ * @since 4.0.0
+ */
+@Category(UnitTest.class)
+public class JobsArchivePropertiesUnitTests {
+
+    private JobsArchiveProperties properties;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.properties = new JobsArchiveProperties();
+    }
+
+    /**
+     * Make sure the default properties are set.
+     */
+    @Test
+    public void canConstruct() {
+        Assert.assertFalse(this.properties.isStreamingEnabled());
+        Assert.assertThat(this.properties.getCompressionThreads(), Matchers.is(4));
+        Assert.assertThat(this.properties.getCompressionBlockSize(), Matchers.is(1_048_576));
+        Assert.assertThat(this.properties.getStreamingTimeout(), Matchers.is(10_800_000L));
+    }
+
+    /**
+     * Make sure can set and get the streaming variables.
+     */
+    @Test
+    public void canSetStreaming() {
+        this.properties.setStreamingEnabled(true);
+        this.properties.setCompressionThreads(8);
+        this.properties.setCompressionBlockSize(131_072);
+        this.properties.setStreamingTimeout(60_000L);
+        Assert.assertTrue(this.properties.isStreamingEnabled());
+        Assert.assertThat(this.properties.getCompressionThreads(), Matchers.is(8));
+        Assert.assertThat(this.properties.getCompressionBlockSize(), Matchers.is(131_072));
+        Assert.assertThat(this.properties.getStreamingTimeout(), Matchers.is(60_000L));
+    }
+}
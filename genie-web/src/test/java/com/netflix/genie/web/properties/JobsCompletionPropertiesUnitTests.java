@@ -0,0 +1,70 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Unit tests for JobsCompletionProperties.
+ *
+ * @since 4.0.0
+ */
+@Category(UnitTest.class)
+public class JobsCompletionPropertiesUnitTests {
+
+    private JobsCompletionProperties properties;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.properties = new JobsCompletionProperties();
+    }
+
+    /**
+     * Make sure the default properties are set.
+     */
+    @Test
+    public void canConstruct() {
+        Assert.assertFalse(this.properties.isStagedEnabled());
+        Assert.assertThat(this.properties.getStatusThreads(), Matchers.is(2));
+        Assert.assertThat(this.properties.getArchiveThreads(), Matchers.is(4));
+        Assert.assertThat(this.properties.getQueueCapacity(), Matchers.is(1_000));
+    }
+
+    /**
+     * Make sure can set and get the staging variables.
+     */
+    @Test
+    public void canSetStaging() {
+        this.properties.setStagedEnabled(true);
+        this.properties.setStatusThreads(3);
+        this.properties.setArchiveThreads(12);
+        this.properties.setQueueCapacity(50);
+        Assert.assertTrue(this.properties.isStagedEnabled());
+        Assert.assertThat(this.properties.getStatusThreads(), Matchers.is(3));
+        Assert.assertThat(this.properties.getArchiveThreads(), Matchers.is(12));
+        Assert.assertThat(this.properties.getQueueCapacity(), Matchers.is(50));
+    }
+}
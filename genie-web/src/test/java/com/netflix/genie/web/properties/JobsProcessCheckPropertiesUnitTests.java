@@ -0,0 +1,74 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Unit tests for JobsProcessCheckProperties.
+ *
+ * @since 4.0.0
+ */
+@Category(UnitTest.class)
+public class JobsProcessCheckPropertiesUnitTests {
+
+    private JobsProcessCheckProperties properties;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.properties = new JobsProcessCheckProperties();
+    }
+
+    /**
+     * Make sure the default properties are set.
+     */
+    @Test
+    public void canConstruct() {
+        Assert.assertFalse(this.properties.isExitNotificationEnabled());
+        Assert.assertFalse(this.properties.isSweepEnabled());
+        Assert.assertThat(this.properties.getSweepInterval(), Matchers.is(1_000L));
+    }
+
+    /**
+     * Make sure can set and get the exit notification variable.
+     */
+    @Test
+    public void canSetExitNotification() {
+        this.properties.setExitNotificationEnabled(true);
+        Assert.assertTrue(this.properties.isExitNotificationEnabled());
+    }
+
+    /**
+     * Make sure can set and get the sweep variables.
+     */
+    @Test
+    public void canSetSweep() {
+        this.properties.setSweepEnabled(true);
+        this.properties.setSweepInterval(250L);
+        Assert.assertTrue(this.properties.isSweepEnabled());
+        Assert.assertThat(this.properties.getSweepInterval(), Matchers.is(250L));
+    }
+}
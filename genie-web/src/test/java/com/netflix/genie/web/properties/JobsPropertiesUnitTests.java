@@ -48,10 +48,14 @@ public class JobsPropertiesUnitTests {
      */
     @Test
     public void canConstruct() {
+        Assert.assertNotNull(this.properties.getArchive());
+        Assert.assertNotNull(this.properties.getCompletion());
         Assert.assertNotNull(this.properties.getMemory());
         Assert.assertNotNull(this.properties.getForwarding());
         Assert.assertNotNull(this.properties.getLocations());
         Assert.assertNotNull(this.properties.getMax());
+        Assert.assertNotNull(this.properties.getOutput());
+        Assert.assertNotNull(this.properties.getProcessCheck());
         Assert.assertNotNull(this.properties.getUsers());
     }
 
@@ -60,16 +64,24 @@ public class JobsPropertiesUnitTests {
      */
     @Test
     public void canSet() {
+        final JobsArchiveProperties archive = Mockito.mock(JobsArchiveProperties.class);
+        final JobsCompletionProperties completion = Mockito.mock(JobsCompletionProperties.class);
         final JobsMemoryProperties memory = Mockito.mock(JobsMemoryProperties.class);
         final JobsForwardingProperties forwarding = Mockito.mock(JobsForwardingProperties.class);
         final JobsLocationsProperties locations = Mockito.mock(JobsLocationsProperties.class);
         final JobsMaxProperties max = Mockito.mock(JobsMaxProperties.class);
+        final JobsOutputProperties output = Mockito.mock(JobsOutputProperties.class);
+        final JobsProcessCheckProperties processCheck = Mockito.mock(JobsProcessCheckProperties.class);
         final JobsUsersProperties users = Mockito.mock(JobsUsersProperties.class);
 
+        this.properties.setArchive(archive);
+        this.properties.setCompletion(completion);
         this.properties.setForwarding(forwarding);
         this.properties.setLocations(locations);
         this.properties.setMax(max);
         this.properties.setMemory(memory);
+        this.properties.setOutput(output);
+        this.properties.setProcessCheck(processCheck);
         this.properties.setUsers(users);
     }
 }
@@ -48,6 +48,7 @@ public class S3FileTransferPropertiesUnitTests {
     @Test
     public void canGetDefaultValues() {
         Assert.assertFalse(this.properties.isStrictUrlCheckEnabled());
+        Assert.assertEquals(16_777_216, this.properties.getMultipartPartSize());
     }
 
     /**
@@ -58,4 +59,13 @@ public class S3FileTransferPropertiesUnitTests {
         this.properties.setStrictUrlCheckEnabled(true);
         Assert.assertTrue(this.properties.isStrictUrlCheckEnabled());
     }
+
+    /**
+     * Make sure can set the multipart part size.
+     */
+    @Test
+    public void canSetMultipartPartSize() {
+        this.properties.setMultipartPartSize(5_242_880);
+        Assert.assertEquals(5_242_880, this.properties.getMultipartPartSize());
+    }
 }
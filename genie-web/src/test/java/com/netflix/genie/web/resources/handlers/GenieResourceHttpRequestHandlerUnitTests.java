@@ -238,6 +238,45 @@ public class GenieResourceHttpRequestHandlerUnitTests {
         Mockito.verify(os, Mockito.times(1)).write(html.getBytes(Charset.forName("UTF-8")));
     }
 
+    /**
+     * Make sure directories are written straight to the response when streaming is enabled.
+     *
+     * @throws Exception On any error
+     */
+    @Test
+    public void canStreamDirectory() throws Exception {
+        this.handler = new GenieResourceHttpRequestHandler(this.directoryWriter, this.jobFileService, true);
+        final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        final HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        final String jobId = UUID.randomUUID().toString();
+        final String path = UUID.randomUUID().toString();
+        Mockito.when(request.getAttribute(GenieResourceHttpRequestHandler.GENIE_JOB_ID_ATTRIBUTE)).thenReturn(jobId);
+        Mockito.when(request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE)).thenReturn(path);
+        Mockito.when(request.getHeader(HttpHeaders.ACCEPT)).thenReturn(MediaType.TEXT_HTML_VALUE, null);
+        final String requestUrl = UUID.randomUUID().toString();
+        Mockito.when(request.getRequestURL()).thenReturn(new StringBuffer(requestUrl));
+        final Resource resource = Mockito.mock(Resource.class);
+        Mockito.when(this.jobFileService.getJobFileAsResource(jobId, path)).thenReturn(resource);
+        Mockito.when(resource.exists()).thenReturn(true);
+        final File file = Mockito.mock(File.class);
+        Mockito.when(resource.getFile()).thenReturn(file);
+        Mockito.when(file.isDirectory()).thenReturn(true);
+        final ServletOutputStream os = Mockito.mock(ServletOutputStream.class);
+        Mockito.when(response.getOutputStream()).thenReturn(os);
+
+        this.handler.handleRequest(request, response);
+        this.handler.handleRequest(request, response);
+
+        Mockito.verify(this.directoryWriter, Mockito.times(1)).writeHtml(file, requestUrl, false, os);
+        Mockito.verify(this.directoryWriter, Mockito.times(1)).writeJson(file, requestUrl, false, os);
+        Mockito
+            .verify(this.directoryWriter, Mockito.never())
+            .toHtml(Mockito.any(), Mockito.any(), Mockito.anyBoolean());
+        Mockito
+            .verify(this.directoryWriter, Mockito.never())
+            .toJson(Mockito.any(), Mockito.any(), Mockito.anyBoolean());
+    }
+
     /**
      * Make sure if the resource is a directory it's handled properly until exception thrown.
      *
@@ -0,0 +1,198 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.resources.handlers;
+
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Unit tests for ZeroCopyFileWriter.
+ *
+ * @since 4.0.0
+ */
+@Category(UnitTest.class)
+public class ZeroCopyFileWriterUnitTests {
+
+    private static final String CONTENT = "0123456789abcdefghij";
+
+    /**
+     * Temporary folder for the served file.
+     */
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ZeroCopyFileWriter writer;
+    private File file;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    /**
+     * Setup for the tests.
+     *
+     * @throws IOException on error
+     */
+    @Before
+    public void setup() throws IOException {
+        this.writer = new ZeroCopyFileWriter();
+        this.file = this.temporaryFolder.newFile("stdout");
+        Files.write(this.file.toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+        this.request = new MockHttpServletRequest("GET", "/api/v3/jobs/1/output/stdout");
+        this.response = new MockHttpServletResponse();
+    }
+
+    /**
+     * Make sure the whole file is written with validators when nothing else is asked for.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canWriteWholeFile() throws IOException {
+        this.writer.write(this.request, this.response, this.file, MediaType.TEXT_PLAIN);
+
+        Assert.assertThat(this.response.getStatus(), Matchers.is(HttpStatus.OK.value()));
+        Assert.assertThat(this.response.getContentAsString(), Matchers.is(CONTENT));
+        Assert.assertThat(this.response.getContentLengthLong(), Matchers.is((long) CONTENT.length()));
+        Assert.assertThat(this.response.getHeader(HttpHeaders.ACCEPT_RANGES), Matchers.is("bytes"));
+        Assert.assertThat(this.response.getHeader(HttpHeaders.ETAG), Matchers.notNullValue());
+        Assert.assertThat(this.response.getContentType(), Matchers.startsWith(MediaType.TEXT_PLAIN_VALUE));
+    }
+
+    /**
+     * Make sure a single range returns partial content.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canWriteRange() throws IOException {
+        this.request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        this.writer.write(this.request, this.response, this.file, MediaType.TEXT_PLAIN);
+
+        Assert.assertThat(this.response.getStatus(), Matchers.is(HttpStatus.PARTIAL_CONTENT.value()));
+        Assert.assertThat(this.response.getContentAsString(), Matchers.is("2345"));
+        Assert.assertThat(this.response.getHeader(HttpHeaders.CONTENT_RANGE), Matchers.is("bytes 2-5/20"));
+    }
+
+    /**
+     * Make sure suffix ranges and the tail parameter return the end of the file.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canWriteEndOfFile() throws IOException {
+        this.request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+        this.writer.write(this.request, this.response, this.file, MediaType.TEXT_PLAIN);
+        Assert.assertThat(this.response.getStatus(), Matchers.is(HttpStatus.PARTIAL_CONTENT.value()));
+        Assert.assertThat(this.response.getContentAsString(), Matchers.is("hij"));
+
+        final MockHttpServletRequest tailRequest = new MockHttpServletRequest("GET", "/");
+        tailRequest.setParameter(ZeroCopyFileWriter.TAIL_PARAMETER, "5");
+        final MockHttpServletResponse tailResponse = new MockHttpServletResponse();
+        this.writer.write(tailRequest, tailResponse, this.file, MediaType.TEXT_PLAIN);
+        Assert.assertThat(tailResponse.getStatus(), Matchers.is(HttpStatus.OK.value()));
+        Assert.assertThat(tailResponse.getContentAsString(), Matchers.is("fghij"));
+
+        final MockHttpServletRequest longTailRequest = new MockHttpServletRequest("GET", "/");
+        longTailRequest.setParameter(ZeroCopyFileWriter.TAIL_PARAMETER, "500");
+        final MockHttpServletResponse longTailResponse = new MockHttpServletResponse();
+        this.writer.write(longTailRequest, longTailResponse, this.file, MediaType.TEXT_PLAIN);
+        Assert.assertThat(longTailResponse.getContentAsString(), Matchers.is(CONTENT));
+    }
+
+    /**
+     * Make sure invalid requests are rejected.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void cantWriteInvalidRegion() throws IOException {
+        this.request.addHeader(HttpHeaders.RANGE, "bytes=20-");
+        this.writer.write(this.request, this.response, this.file, MediaType.TEXT_PLAIN);
+        Assert.assertThat(this.response.getStatus(), Matchers.is(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value()));
+        Assert.assertThat(this.response.getHeader(HttpHeaders.CONTENT_RANGE), Matchers.is("bytes */20"));
+
+        final MockHttpServletRequest tailRequest = new MockHttpServletRequest("GET", "/");
+        tailRequest.setParameter(ZeroCopyFileWriter.TAIL_PARAMETER, "-1");
+        final MockHttpServletResponse tailResponse = new MockHttpServletResponse();
+        this.writer.write(tailRequest, tailResponse, this.file, MediaType.TEXT_PLAIN);
+        Assert.assertThat(tailResponse.getStatus(), Matchers.is(HttpStatus.BAD_REQUEST.value()));
+    }
+
+    /**
+     * Make sure conditional requests for an unchanged file return not modified and a stale If-Range returns the
+     * whole file.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canHandleConditionalRequests() throws IOException {
+        this.writer.write(this.request, this.response, this.file, MediaType.TEXT_PLAIN);
+        final String etag = this.response.getHeader(HttpHeaders.ETAG);
+
+        final MockHttpServletRequest conditionalRequest = new MockHttpServletRequest("GET", "/");
+        conditionalRequest.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        final MockHttpServletResponse conditionalResponse = new MockHttpServletResponse();
+        this.writer.write(conditionalRequest, conditionalResponse, this.file, MediaType.TEXT_PLAIN);
+        Assert.assertThat(conditionalResponse.getStatus(), Matchers.is(HttpStatus.NOT_MODIFIED.value()));
+        Assert.assertThat(conditionalResponse.getContentAsByteArray().length, Matchers.is(0));
+
+        final MockHttpServletRequest staleRangeRequest = new MockHttpServletRequest("GET", "/");
+        staleRangeRequest.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+        staleRangeRequest.addHeader(HttpHeaders.IF_RANGE, "\"stale\"");
+        final MockHttpServletResponse staleRangeResponse = new MockHttpServletResponse();
+        this.writer.write(staleRangeRequest, staleRangeResponse, this.file, MediaType.TEXT_PLAIN);
+        Assert.assertThat(staleRangeResponse.getStatus(), Matchers.is(HttpStatus.OK.value()));
+        Assert.assertThat(staleRangeResponse.getContentAsString(), Matchers.is(CONTENT));
+    }
+
+    /**
+     * Make sure the container is asked to send the region when it supports sendfile.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canDelegateToSendfile() throws IOException {
+        this.request.setAttribute(ZeroCopyFileWriter.SENDFILE_SUPPORTED_ATTRIBUTE, Boolean.TRUE);
+        this.request.addHeader(HttpHeaders.RANGE, "bytes=10-");
+        this.writer.write(this.request, this.response, this.file, MediaType.TEXT_PLAIN);
+
+        Assert.assertThat(this.response.getContentAsByteArray().length, Matchers.is(0));
+        Assert.assertThat(this.response.getContentLengthLong(), Matchers.is(10L));
+        Assert.assertThat(
+            this.request.getAttribute(ZeroCopyFileWriter.SENDFILE_FILENAME_ATTRIBUTE),
+            Matchers.is(this.file.getCanonicalPath())
+        );
+        Assert.assertThat(this.request.getAttribute(ZeroCopyFileWriter.SENDFILE_START_ATTRIBUTE), Matchers.is(10L));
+        Assert.assertThat(this.request.getAttribute(ZeroCopyFileWriter.SENDFILE_END_ATTRIBUTE), Matchers.is(20L));
+    }
+}
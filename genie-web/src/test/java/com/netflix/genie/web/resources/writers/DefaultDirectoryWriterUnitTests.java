@@ -28,10 +28,13 @@ import org.mockito.Mockito;
 import org.w3c.tidy.Tidy;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.UUID;
@@ -235,6 +238,40 @@ public class DefaultDirectoryWriterUnitTests {
         );
     }
 
+    /**
+     * Make sure streaming the html representation writes the same page as building it in memory.
+     *
+     * @throws Exception on any problem
+     */
+    @Test
+    public void canWriteHtml() throws Exception {
+        this.setupWithParent();
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        this.writer.writeHtml(this.directory, REQUEST_URL_WITH_PARENT, true, outputStream);
+        Assert.assertThat(
+            outputStream.toString(StandardCharsets.UTF_8.name()),
+            Matchers.is(this.writer.toHtml(this.directory, REQUEST_URL_WITH_PARENT, true))
+        );
+    }
+
+    /**
+     * Make sure streaming the json representation writes the same document as building it in memory and leaves the
+     * stream open.
+     *
+     * @throws Exception on any problem
+     */
+    @Test
+    public void canWriteJson() throws Exception {
+        this.setupWithParent();
+        final OutputStream outputStream = Mockito.spy(new ByteArrayOutputStream());
+        this.writer.writeJson(this.directory, REQUEST_URL_WITH_PARENT, true, outputStream);
+        Assert.assertThat(
+            outputStream.toString(),
+            Matchers.is(this.writer.toJson(this.directory, REQUEST_URL_WITH_PARENT, true))
+        );
+        Mockito.verify(outputStream, Mockito.never()).close();
+    }
+
     private void setupWithoutParent() {
         Mockito.when(this.directory.listFiles()).thenReturn(null);
     }
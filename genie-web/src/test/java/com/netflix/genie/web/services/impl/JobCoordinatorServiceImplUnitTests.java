@@ -37,6 +37,7 @@ import com.netflix.genie.common.internal.dto.v4.ExecutionEnvironment;
 import com.netflix.genie.common.internal.dto.v4.JobSpecification;
 import com.netflix.genie.test.categories.UnitTest;
 import com.netflix.genie.web.properties.JobsProperties;
+import com.netflix.genie.web.properties.ResourceDtoCacheProperties;
 import com.netflix.genie.web.services.ApplicationPersistenceService;
 import com.netflix.genie.web.services.ClusterPersistenceService;
 import com.netflix.genie.web.services.CommandPersistenceService;
@@ -141,10 +142,14 @@ public class JobCoordinatorServiceImplUnitTests {
             this.jobKillService,
             this.jobStateService,
             this.jobsProperties,
-            this.applicationPersistenceService,
             this.jobSearchService,
-            this.clusterPersistenceService,
-            this.commandPersistenceService,
+            new ResourceDtoCache(
+                this.clusterPersistenceService,
+                this.commandPersistenceService,
+                this.applicationPersistenceService,
+                new ResourceDtoCacheProperties(),
+                this.registry
+            ),
             this.specificationService,
             this.registry,
             HOST_NAME
@@ -267,7 +272,9 @@ public class JobCoordinatorServiceImplUnitTests {
             )
             .thenReturn(jobSpecification);
 
-        Mockito.when(this.jobStateService.getUsedMemory()).thenReturn(0);
+        Mockito
+            .when(this.jobStateService.reserveMemory(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt()))
+            .thenReturn(true);
 
         this.jobCoordinatorService.coordinateJob(jobRequest, jobMetadata);
 
@@ -394,7 +401,9 @@ public class JobCoordinatorServiceImplUnitTests {
         try {
             this.jobCoordinatorService.coordinateJob(jobRequest, jobMetadata);
         } finally {
-            Mockito.verify(this.jobStateService, Mockito.never()).getUsedMemory();
+            Mockito
+                .verify(this.jobStateService, Mockito.never())
+                .reserveMemory(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt());
 
             Mockito
                 .verify(this.coordinationTimer, Mockito.times(1))
@@ -489,8 +498,8 @@ public class JobCoordinatorServiceImplUnitTests {
             .thenReturn(jobSpecification);
 
         Mockito
-            .when(this.jobStateService.getUsedMemory())
-            .thenReturn(this.jobsProperties.getMemory().getMaxSystemMemory());
+            .when(this.jobStateService.reserveMemory(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt()))
+            .thenReturn(false);
 
         Mockito
             .when(this.jobStateService.jobExists(Mockito.anyString()))
@@ -501,7 +510,11 @@ public class JobCoordinatorServiceImplUnitTests {
         } finally {
             Mockito.
                 verify(this.jobStateService, Mockito.times(1))
-                .getUsedMemory();
+                .reserveMemory(
+                    Mockito.eq(JOB_1_ID),
+                    Mockito.anyInt(),
+                    Mockito.eq(this.jobsProperties.getMemory().getMaxSystemMemory())
+                );
 
             Mockito
                 .verify(this.jobPersistenceService, Mockito.times(1))
@@ -815,8 +828,8 @@ public class JobCoordinatorServiceImplUnitTests {
                 1
             );
         Mockito
-            .when(this.jobStateService.getUsedMemory())
-            .thenReturn(0);
+            .when(this.jobStateService.reserveMemory(Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt()))
+            .thenReturn(true);
         Mockito
             .when(this.jobStateService.jobExists(Mockito.any()))
             .thenReturn(true);
@@ -826,7 +839,7 @@ public class JobCoordinatorServiceImplUnitTests {
         } finally {
             Mockito
                 .verify(this.jobStateService, Mockito.times(1))
-                .getUsedMemory();
+                .reserveMemory(Mockito.eq(JOB_1_ID), Mockito.eq(1), Mockito.anyInt());
             Mockito
                 .verify(this.jobPersistenceService, Mockito.times(1))
                 .updateJobStatus(Mockito.eq(JOB_1_ID), Mockito.eq(JobStatus.FAILED), Mockito.any());
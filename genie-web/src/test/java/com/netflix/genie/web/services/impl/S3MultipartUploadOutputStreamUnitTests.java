@@ -0,0 +1,185 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.services.impl;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Unit tests for S3MultipartUploadOutputStream.
+ *
+ * @since 4.0.0
+ */
+@Category(UnitTest.class)
+public class S3MultipartUploadOutputStreamUnitTests {
+
+    private static final String BUCKET = "bucket";
+    private static final String KEY = "archive.tar.gz";
+    private static final String UPLOAD_ID = "upload";
+    private static final int PART_SIZE = 10;
+
+    private AmazonS3 amazonS3;
+    private S3MultipartUploadOutputStream stream;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.amazonS3 = Mockito.mock(AmazonS3.class);
+        final InitiateMultipartUploadResult initiateResult = new InitiateMultipartUploadResult();
+        initiateResult.setUploadId(UPLOAD_ID);
+        Mockito
+            .when(this.amazonS3.initiateMultipartUpload(Mockito.any(InitiateMultipartUploadRequest.class)))
+            .thenReturn(initiateResult);
+        this.stream = new S3MultipartUploadOutputStream(this.amazonS3, BUCKET, KEY, PART_SIZE);
+    }
+
+    /**
+     * Make sure objects smaller than a part are put with a single request.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canPutSmallObject() throws IOException {
+        this.stream.write(new byte[PART_SIZE - 1]);
+        this.stream.close();
+
+        Mockito
+            .verify(this.amazonS3)
+            .putObject(
+                Mockito.eq(BUCKET),
+                Mockito.eq(KEY),
+                Mockito.any(InputStream.class),
+                Mockito.any(ObjectMetadata.class)
+            );
+        Mockito
+            .verify(this.amazonS3, Mockito.never())
+            .initiateMultipartUpload(Mockito.any(InitiateMultipartUploadRequest.class));
+    }
+
+    /**
+     * Make sure larger objects are uploaded in parts and the upload completed on close.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canUploadParts() throws IOException {
+        Mockito
+            .when(this.amazonS3.uploadPart(Mockito.any(UploadPartRequest.class)))
+            .thenAnswer(
+                invocation -> {
+                    final UploadPartRequest request = invocation.getArgument(0);
+                    final UploadPartResult result = new UploadPartResult();
+                    result.setPartNumber(request.getPartNumber());
+                    result.setETag("etag");
+                    return result;
+                }
+            );
+
+        this.stream.write(new byte[PART_SIZE * 2 + 5]);
+        this.stream.close();
+        this.stream.abort();
+
+        final ArgumentCaptor<CompleteMultipartUploadRequest> complete
+            = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        Mockito.verify(this.amazonS3, Mockito.times(3)).uploadPart(Mockito.any(UploadPartRequest.class));
+        Mockito.verify(this.amazonS3).completeMultipartUpload(complete.capture());
+        Assert.assertThat(complete.getValue().getUploadId(), Matchers.is(UPLOAD_ID));
+        Assert.assertThat(complete.getValue().getPartETags().size(), Matchers.is(3));
+        Assert.assertThat(complete.getValue().getPartETags().get(2).getPartNumber(), Matchers.is(3));
+        Mockito
+            .verify(this.amazonS3, Mockito.never())
+            .abortMultipartUpload(Mockito.any(AbortMultipartUploadRequest.class));
+    }
+
+    /**
+     * Make sure a failed part aborts the multipart upload and the stream can't be used or committed afterwards.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void failedPartAbortsUpload() throws IOException {
+        Mockito
+            .when(this.amazonS3.uploadPart(Mockito.any(UploadPartRequest.class)))
+            .thenReturn(this.newPartResult())
+            .thenThrow(new RuntimeException("Part failed"));
+
+        try {
+            this.stream.write(new byte[PART_SIZE * 3]);
+            Assert.fail("Expected the write to fail");
+        } catch (final IOException ioe) {
+            Assert.assertThat(ioe.getMessage(), Matchers.containsString(BUCKET));
+        }
+
+        try {
+            this.stream.write(1);
+            Assert.fail("Expected the write to fail");
+        } catch (final IOException ioe) {
+            Assert.assertThat(ioe.getMessage(), Matchers.is("Stream closed"));
+        }
+        this.stream.close();
+        this.stream.abort();
+
+        final ArgumentCaptor<AbortMultipartUploadRequest> abort
+            = ArgumentCaptor.forClass(AbortMultipartUploadRequest.class);
+        Mockito.verify(this.amazonS3, Mockito.times(1)).abortMultipartUpload(abort.capture());
+        Assert.assertThat(abort.getValue().getUploadId(), Matchers.is(UPLOAD_ID));
+        Mockito
+            .verify(this.amazonS3, Mockito.never())
+            .completeMultipartUpload(Mockito.any(CompleteMultipartUploadRequest.class));
+    }
+
+    /**
+     * Make sure aborting an upload which never reached a full part doesn't write anything.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canAbortBeforeFirstPart() throws IOException {
+        this.stream.write(new byte[PART_SIZE - 1]);
+        this.stream.abort();
+        this.stream.close();
+
+        Mockito.verifyZeroInteractions(this.amazonS3);
+    }
+
+    private UploadPartResult newPartResult() {
+        final UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(1);
+        result.setETag("etag");
+        return result;
+    }
+}
@@ -33,6 +33,7 @@ import com.netflix.genie.web.events.GenieEventBus;
 import com.netflix.genie.web.events.JobFinishedEvent;
 import com.netflix.genie.web.events.JobFinishedReason;
 import com.netflix.genie.web.events.JobStartedEvent;
+import com.netflix.genie.web.jobs.JobProcessExitNotifier;
 import com.netflix.genie.web.properties.JobsProperties;
 import com.netflix.genie.web.services.JobSearchService;
 import com.netflix.genie.web.services.JobSubmitterService;
@@ -120,7 +121,8 @@ public class JobMonitoringCoordinatorUnitTests {
             new SimpleMeterRegistry(),
             jobsDir,
             new JobsProperties(),
-            jobSubmitterService
+            jobSubmitterService,
+            Mockito.mock(JobProcessExitNotifier.class)
         );
     }
 
@@ -0,0 +1,155 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.job;
+
+import com.netflix.genie.common.exceptions.GenieTimeoutException;
+import com.netflix.genie.test.categories.UnitTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.exec.ExecuteException;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Unit tests for the {@link ProcessSweeper} class.
+ *
+ * @since 4.0.0
+ */
+@Category(UnitTest.class)
+public class ProcessSweeperUnitTests {
+
+    private static final long SWEEP_INTERVAL = 500L;
+
+    /**
+     * Temporary directory standing in for /proc.
+     */
+    @Rule
+    public TemporaryFolder procDirectory = new TemporaryFolder();
+
+    /**
+     * Temporary directory for job output.
+     */
+    @Rule
+    public TemporaryFolder jobDirectory = new TemporaryFolder();
+
+    private TaskScheduler scheduler;
+    private ProcessSweeper processSweeper;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.scheduler = Mockito.mock(TaskScheduler.class);
+        this.processSweeper = new ProcessSweeper(
+            this.scheduler,
+            SWEEP_INTERVAL,
+            new SimpleMeterRegistry(),
+            this.procDirectory.getRoot()
+        );
+    }
+
+    /**
+     * Make sure the sweep is scheduled on construction.
+     */
+    @Test
+    public void canScheduleSweep() {
+        Mockito.verify(this.scheduler, Mockito.times(1)).scheduleWithFixedDelay(this.processSweeper, SWEEP_INTERVAL);
+    }
+
+    /**
+     * Make sure a sweep records liveness and output sizes for each registered job.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canSweep() throws Exception {
+        final Instant tomorrow = Instant.now().plus(1, ChronoUnit.DAYS);
+        final File stdOut = this.jobDirectory.newFile("stdout");
+        final File stdErr = new File(this.jobDirectory.getRoot(), "stderr");
+        Files.write(stdOut.toPath(), "hello".getBytes(StandardCharsets.UTF_8));
+        this.procDirectory.newFolder("1234");
+
+        final ProcessSweeper.Checker running = this.processSweeper.register("job1", 1234, tomorrow, stdOut, stdErr);
+        final ProcessSweeper.Checker finished = this.processSweeper.register("job2", 5678, tomorrow, stdOut, stdErr);
+
+        // Before the first sweep processes are assumed to be running
+        running.checkProcess();
+        finished.checkProcess();
+        Assert.assertThat(running.getStdOutLength(), Matchers.is(0L));
+
+        this.processSweeper.run();
+
+        running.checkProcess();
+        Assert.assertThat(running.getStdOutLength(), Matchers.is(5L));
+        Assert.assertThat(running.getStdErrLength(), Matchers.is(0L));
+        try {
+            finished.checkProcess();
+            Assert.fail("Expected process to be detected as finished");
+        } catch (final ExecuteException ee) {
+            // expected
+        }
+    }
+
+    /**
+     * Make sure unregistered jobs are no longer updated.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canUnregister() throws IOException {
+        final Instant tomorrow = Instant.now().plus(1, ChronoUnit.DAYS);
+        final File stdOut = this.jobDirectory.newFile("stdout");
+        final ProcessSweeper.Checker checker = this.processSweeper.register("job1", 1234, tomorrow, stdOut, stdOut);
+        this.processSweeper.unregister("job1");
+
+        this.processSweeper.run();
+
+        checker.checkProcess();
+    }
+
+    /**
+     * Make sure a running process past its timeout is reported.
+     *
+     * @throws IOException on error
+     */
+    @Test(expected = GenieTimeoutException.class)
+    public void canDetectTimeout() throws IOException {
+        final Instant yesterday = Instant.now().minus(1, ChronoUnit.DAYS);
+        final File stdOut = this.jobDirectory.newFile("stdout");
+        this.procDirectory.newFolder("1234");
+        final ProcessSweeper.Checker checker = this.processSweeper.register("job1", 1234, yesterday, stdOut, stdOut);
+
+        this.processSweeper.run();
+
+        checker.checkProcess();
+    }
+}
@@ -17,6 +17,8 @@
  */
 package com.netflix.genie.web.tasks.leader;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.netflix.genie.common.internal.jobs.JobConstants;
 import com.netflix.genie.test.categories.UnitTest;
 import com.netflix.genie.web.properties.DatabaseCleanupProperties;
@@ -52,6 +54,7 @@ public class DatabaseCleanupTaskUnitTests {
     private ClusterPersistenceService clusterPersistenceService;
     private FilePersistenceService filePersistenceService;
     private TagPersistenceService tagPersistenceService;
+    private SimpleMeterRegistry registry;
     private DatabaseCleanupTask task;
 
     /**
@@ -64,13 +67,14 @@ public class DatabaseCleanupTaskUnitTests {
         this.clusterPersistenceService = Mockito.mock(ClusterPersistenceService.class);
         this.filePersistenceService = Mockito.mock(FilePersistenceService.class);
         this.tagPersistenceService = Mockito.mock(TagPersistenceService.class);
+        this.registry = new SimpleMeterRegistry();
         this.task = new DatabaseCleanupTask(
             this.cleanupProperties,
             this.jobPersistenceService,
             this.clusterPersistenceService,
             this.filePersistenceService,
             this.tagPersistenceService,
-            new SimpleMeterRegistry()
+            this.registry
         );
     }
 
@@ -155,6 +159,106 @@ public class DatabaseCleanupTaskUnitTests {
         }
     }
 
+    /**
+     * Make sure jobs are deleted in chunks until a chunk comes back short when bulk deletes are enabled.
+     */
+    @Test
+    public void canRunBulkDelete() {
+        final int maxDeleted = 10;
+
+        Mockito.when(this.cleanupProperties.getRetention()).thenReturn(5);
+        Mockito.when(this.cleanupProperties.getMaxDeletedPerTransaction()).thenReturn(maxDeleted);
+        Mockito.when(this.cleanupProperties.isBulkDelete()).thenReturn(true);
+        Mockito.when(this.cleanupProperties.getTargetTransactionLatency()).thenReturn(0L);
+        Mockito
+            .when(
+                this.jobPersistenceService.bulkDeleteJobsCreatedBeforeDate(Mockito.any(Instant.class), Mockito.anyInt())
+            )
+            .thenReturn(10L)
+            .thenReturn(10L)
+            .thenReturn(3L);
+
+        this.task.run();
+
+        Mockito
+            .verify(this.jobPersistenceService, Mockito.times(3))
+            .bulkDeleteJobsCreatedBeforeDate(Mockito.any(Instant.class), Mockito.eq(maxDeleted));
+        Mockito
+            .verify(this.jobPersistenceService, Mockito.never())
+            .deleteBatchOfJobsCreatedBeforeDate(Mockito.any(Instant.class), Mockito.anyInt(), Mockito.anyInt());
+    }
+
+    /**
+     * Make sure unused files and tags are collected in keyset paged batches when a batch size is set.
+     */
+    @Test
+    public void canCollectUnusedReferencesInBatches() {
+        final int batchSize = 2;
+
+        Mockito.when(this.cleanupProperties.isSkipJobsCleanup()).thenReturn(true);
+        Mockito.when(this.cleanupProperties.isSkipClustersCleanup()).thenReturn(true);
+        Mockito.when(this.cleanupProperties.getUnusedReferenceBatchSize()).thenReturn(batchSize);
+        Mockito
+            .when(
+                this.filePersistenceService.findUnusedFileIds(
+                    Mockito.any(Instant.class),
+                    Mockito.anyLong(),
+                    Mockito.eq(batchSize)
+                )
+            )
+            .thenReturn(Lists.newArrayList(3L, 8L))
+            .thenReturn(Lists.newArrayList(12L))
+            .thenReturn(Lists.newArrayList());
+        Mockito.when(this.filePersistenceService.deleteFilesIfUnused(Mockito.anySet())).thenReturn(2L, 0L);
+        Mockito
+            .when(
+                this.tagPersistenceService.findUnusedTagIds(
+                    Mockito.any(Instant.class),
+                    Mockito.anyLong(),
+                    Mockito.eq(batchSize)
+                )
+            )
+            .thenReturn(Lists.newArrayList(5L))
+            .thenReturn(Lists.newArrayList());
+        Mockito.when(this.tagPersistenceService.deleteTagsIfUnused(Mockito.anySet())).thenReturn(1L);
+
+        this.task.run();
+
+        final ArgumentCaptor<Long> lastIds = ArgumentCaptor.forClass(Long.class);
+        Mockito
+            .verify(this.filePersistenceService, Mockito.times(3))
+            .findUnusedFileIds(Mockito.any(Instant.class), lastIds.capture(), Mockito.eq(batchSize));
+        Assert.assertThat(lastIds.getAllValues(), Matchers.contains(0L, 8L, 12L));
+        Mockito.verify(this.filePersistenceService).deleteFilesIfUnused(Sets.newHashSet(3L, 8L));
+        Mockito.verify(this.filePersistenceService).deleteFilesIfUnused(Sets.newHashSet(12L));
+        Mockito.verify(this.tagPersistenceService).deleteTagsIfUnused(Sets.newHashSet(5L));
+        Mockito
+            .verify(this.filePersistenceService, Mockito.never())
+            .deleteUnusedFiles(Mockito.any(Instant.class));
+        Mockito
+            .verify(this.tagPersistenceService, Mockito.never())
+            .deleteUnusedTags(Mockito.any(Instant.class));
+
+        Assert.assertThat(
+            this.registry
+                .counter(DatabaseCleanupTask.UNUSED_REFERENCES_DELETED_COUNTER_NAME, "type", "files")
+                .count(),
+            Matchers.is(2.0)
+        );
+        Assert.assertThat(
+            this.registry
+                .counter(DatabaseCleanupTask.UNUSED_REFERENCES_BATCHES_COUNTER_NAME, "type", "files")
+                .count(),
+            Matchers.is(2.0)
+        );
+        Assert.assertThat(
+            this.registry
+                .counter(DatabaseCleanupTask.UNUSED_REFERENCES_DELETED_COUNTER_NAME, "type", "tags")
+                .count(),
+            Matchers.is(1.0)
+        );
+    }
+
     /**
      * Make sure the run method throws when an error is encountered.
      */
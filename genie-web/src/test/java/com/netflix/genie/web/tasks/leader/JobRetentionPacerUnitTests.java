@@ -0,0 +1,92 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.leader;
+
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link JobRetentionPacer}.
+ *
+ * @since 4.0.0
+ */
+@Category(UnitTest.class)
+public class JobRetentionPacerUnitTests {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10L);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(2L);
+
+    /**
+     * Make sure the chunk size grows while chunks are fast and halves when they're slow.
+     */
+    @Test
+    public void canAdaptChunkSizeToLatency() {
+        final JobRetentionPacer pacer = new JobRetentionPacer(100, 1_000L, 0);
+        Assert.assertThat(pacer.getChunkSize(), Matchers.is(10));
+
+        for (int i = 0; i < 20; i++) {
+            Assert.assertThat(pacer.record(pacer.getChunkSize(), FAST), Matchers.is(0L));
+        }
+        Assert.assertThat(pacer.getChunkSize(), Matchers.is(100));
+
+        pacer.record(100, SLOW);
+        Assert.assertThat(pacer.getChunkSize(), Matchers.is(50));
+        pacer.record(50, TimeUnit.MILLISECONDS.toNanos(700L));
+        Assert.assertThat(pacer.getChunkSize(), Matchers.is(50));
+        for (int i = 0; i < 10; i++) {
+            pacer.record(1, SLOW);
+        }
+        Assert.assertThat(pacer.getChunkSize(), Matchers.is(1));
+    }
+
+    /**
+     * Make sure the chunk size stays at the maximum without a latency target.
+     */
+    @Test
+    public void canUseMaxChunkSizeWithoutLatencyTarget() {
+        final JobRetentionPacer pacer = new JobRetentionPacer(100, 0L, 0);
+        Assert.assertThat(pacer.getChunkSize(), Matchers.is(100));
+        pacer.record(100, SLOW);
+        Assert.assertThat(pacer.getChunkSize(), Matchers.is(100));
+    }
+
+    /**
+     * Make sure the pause keeps the rate at or below the maximum.
+     */
+    @Test
+    public void canPauseToLimitRate() {
+        final JobRetentionPacer pacer = new JobRetentionPacer(100, 0L, 50);
+        // 100 jobs at 50 per second should take 2 seconds
+        Assert.assertThat(pacer.record(100, FAST), Matchers.is(TimeUnit.SECONDS.toNanos(2L) - FAST));
+        Assert.assertThat(pacer.record(100, TimeUnit.SECONDS.toNanos(3L)), Matchers.is(0L));
+        Assert.assertThat(pacer.record(0, FAST), Matchers.is(0L));
+    }
+
+    /**
+     * Make sure the maximum chunk size must be positive.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void cantCreateWithoutChunks() {
+        new JobRetentionPacer(0, 0L, 0);
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ *
+ *  Copyright 2018 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.util;
+
+import com.netflix.genie.test.categories.UnitTest;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Unit tests for ParallelGzipOutputStream.
+ *
+ * @since 4.0.0
+ */
+@Category(UnitTest.class)
+public class ParallelGzipOutputStreamUnitTests {
+
+    private ExecutorService compressors;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.compressors = Executors.newFixedThreadPool(3);
+    }
+
+    /**
+     * Clean up after the tests.
+     */
+    @After
+    public void cleanup() {
+        this.compressors.shutdownNow();
+    }
+
+    /**
+     * Make sure data spanning many blocks decompresses back to the original bytes in order.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canCompressMultipleBlocks() throws IOException {
+        final byte[] data = new byte[100_000];
+        final Random random = new Random(42L);
+        for (int i = 0; i < data.length; i++) {
+            // Keep the data compressible
+            data[i] = (byte) ('a' + random.nextInt(4));
+        }
+
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        final ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(compressed, this.compressors, 4_096, 2);
+        gzip.write(data[0]);
+        gzip.write(data, 1, 9_999);
+        gzip.write(data, 10_000, data.length - 10_000);
+        gzip.close();
+
+        Assert.assertThat(gzip.getBytesIn(), Matchers.is((long) data.length));
+        Assert.assertThat(gzip.getBytesOut(), Matchers.is((long) compressed.size()));
+        Assert.assertThat(gzip.getBytesOut(), Matchers.lessThan(gzip.getBytesIn()));
+        Assert.assertArrayEquals(data, this.decompress(compressed.toByteArray()));
+    }
+
+    /**
+     * Make sure an empty stream still produces valid gzip output.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canCompressEmptyStream() throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        final ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(compressed, this.compressors, 4_096, 2);
+        gzip.close();
+        gzip.close();
+
+        Assert.assertThat(gzip.getBytesIn(), Matchers.is(0L));
+        Assert.assertThat(compressed.size(), Matchers.greaterThan(0));
+        Assert.assertThat(this.decompress(compressed.toByteArray()).length, Matchers.is(0));
+    }
+
+    /**
+     * Make sure writing after close fails.
+     *
+     * @throws IOException on error
+     */
+    @Test(expected = IOException.class)
+    public void cantWriteAfterClose() throws IOException {
+        final ParallelGzipOutputStream gzip
+            = new ParallelGzipOutputStream(new ByteArrayOutputStream(), this.compressors, 4_096, 2);
+        gzip.close();
+        gzip.write(1);
+    }
+
+    /**
+     * Make sure a failure while closing aborts the underlying stream instead of committing partial data.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void closeAbortsOnFailure() throws IOException {
+        final AbortableOutputStream out = Mockito.mock(AbortableOutputStream.class);
+        Mockito.doThrow(new IOException("test")).when(out).write(Mockito.any(byte[].class));
+        final ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(out, this.compressors, 4_096, 2);
+        gzip.write(new byte[100]);
+
+        try {
+            gzip.close();
+            Assert.fail("Expected close to fail");
+        } catch (final IOException ioe) {
+            Assert.assertThat(ioe.getMessage(), Matchers.is("test"));
+        }
+        gzip.close();
+
+        Mockito.verify(out, Mockito.times(1)).abort();
+        Mockito.verify(out, Mockito.never()).close();
+    }
+
+    /**
+     * Make sure aborting discards the data and leaves a plain underlying stream open for the caller.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canAbort() throws IOException {
+        final OutputStream out = Mockito.mock(OutputStream.class);
+        final ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(out, this.compressors, 4_096, 2);
+        gzip.write(new byte[100]);
+        gzip.abort();
+        gzip.close();
+
+        Mockito.verify(out, Mockito.never()).write(Mockito.any(byte[].class));
+        Mockito.verify(out, Mockito.never()).close();
+    }
+
+    /**
+     * Make sure invalid sizes are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void cantConstructWithInvalidBlockSize() {
+        new ParallelGzipOutputStream(new ByteArrayOutputStream(), this.compressors, 0, 2);
+    }
+
+    private byte[] decompress(final byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return IOUtils.toByteArray(in);
+        }
+    }
+}